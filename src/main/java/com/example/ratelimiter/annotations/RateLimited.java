@@ -0,0 +1,34 @@
+package com.example.ratelimiter.annotations;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimitKey;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Rate limits the request mappings of a controller method, or of every method of a controller, under an
+ * {@link ApiName}. Read once at startup by {@link com.example.ratelimiter.filter.RateLimitedHandlers}, requests are
+ * then limited by the rate limit filters before they reach the controller, no reflection happens per request.
+ * <p>
+ * {@code limit} and {@code window} are the defaults of the api, {@code ratelimiter.apis.*} takes precedence over
+ * them, a {@code limit} needs a {@code windowSeconds}. Only literal paths are limited, mappings with path variables
+ * or wildcards are skipped with a warning. Startup fails when one path is rate limited under two apis.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RateLimited {
+
+    ApiName api();
+
+    // requests per window, not limited by default unless configured in the properties
+    long limit() default 0;
+
+    long windowSeconds() default 0;
+
+    RateLimitKey key() default RateLimitKey.CLIENT_ID;
+}
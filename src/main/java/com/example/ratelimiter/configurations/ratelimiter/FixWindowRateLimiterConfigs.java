@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
 
+// limits of the original FixWindowCounterRateLimiter, kept as the benchmark baseline; the engines read RateLimitConfigRegistry
 public class FixWindowRateLimiterConfigs {
     private FixWindowRateLimiterConfigs() {}
 
@@ -0,0 +1,86 @@
+package com.example.ratelimiter.configurations.ratelimiter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Re-binds {@link RateLimiterProperties} whenever {@code ratelimiter.config-file} changes on disk and hands the
+ * result to {@link RateLimitConfigRegistry}. Values of the file take precedence over the application properties,
+ * missing ones fall back to them. A file that fails to load or bind leaves the current snapshot in place.
+ */
+@Slf4j
+@Component
+public class RateLimitConfigFileWatcher {
+    private final RateLimiterProperties properties;
+    private final RateLimitConfigRegistry configRegistry;
+    private final ConfigurableEnvironment environment;
+    private final TaskScheduler taskScheduler;
+    private long lastModified;
+
+    @Autowired
+    public RateLimitConfigFileWatcher(RateLimiterProperties properties, RateLimitConfigRegistry configRegistry,
+                                      ConfigurableEnvironment environment, TaskScheduler taskScheduler) {
+        this.properties = properties;
+        this.configRegistry = configRegistry;
+        this.environment = environment;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @PostConstruct
+    public void startWatching() {
+        if (properties.getConfigFile() == null || properties.getConfigFile().isBlank()) {
+            return;
+        }
+        taskScheduler.scheduleWithFixedDelay(this::reloadIfModified, properties.getConfigFileCheckInterval());
+        log.info("Watching rate limit configuration file {}", properties.getConfigFile());
+    }
+
+
+    synchronized void reloadIfModified() {
+        File configFile = new File(properties.getConfigFile());
+        long modified = configFile.lastModified();
+        if (modified == 0 || modified == lastModified) {
+            return;
+        }
+        lastModified = modified;
+
+        try {
+            configRegistry.update(bind(configFile));
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not reload rate limit configuration from {}, keeping the current one", configFile, e);
+        }
+    }
+
+    private RateLimiterProperties bind(File configFile) throws IOException {
+        PropertySourceLoader loader = configFile.getName().endsWith(".yml") || configFile.getName().endsWith(".yaml")
+                ? new YamlPropertySourceLoader()
+                : new PropertiesPropertySourceLoader();
+
+        List<ConfigurationPropertySource> sources = new ArrayList<>();
+        for (PropertySource<?> propertySource : loader.load(configFile.getName(), new FileSystemResource(configFile))) {
+            sources.add(ConfigurationPropertySource.from(propertySource));
+        }
+        ConfigurationPropertySources.get(environment).forEach(sources::add);
+
+        return new Binder(sources).bindOrCreate("ratelimiter", Bindable.of(RateLimiterProperties.class));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.ratelimiter.configurations.ratelimiter;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+
+/**
+ * Holds the current {@link RateLimitConfigSnapshot}. Readers pay a single volatile read per decision,
+ * {@link #update(RateLimiterProperties)} builds a new snapshot off the hot path and swaps it in atomically,
+ * so limits can be retuned at runtime without a restart. Apis missing from the properties fall back to the
+ * default limits registered at startup, see {@link #registerDefaultLimits(Map)}.
+ */
+@Slf4j
+@Component
+public class RateLimitConfigRegistry {
+    private volatile RateLimitConfigSnapshot snapshot;
+    // guarded by this
+    private RateLimiterProperties properties;
+    private Map<ApiName, RateLimiterProperties.ApiLimit> defaultLimits = Map.of();
+
+    @Autowired
+    public RateLimitConfigRegistry(RateLimiterProperties properties) {
+        this.properties = properties;
+        this.snapshot = RateLimitConfigSnapshot.from(properties, 1);
+    }
+
+
+    public RateLimitConfigSnapshot current() {
+        return snapshot;
+    }
+
+    public synchronized void update(RateLimiterProperties properties) {
+        // built first, properties that are refused leave the current ones in place
+        RateLimitConfigSnapshot updated = RateLimitConfigSnapshot.from(properties, defaultLimits, snapshot.version() + 1);
+        this.properties = properties;
+        snapshot = updated;
+        log.info("Rate limit configuration updated to version {}: {}", updated.version(), properties.getApis());
+    }
+
+    public synchronized void registerDefaultLimits(Map<ApiName, RateLimiterProperties.ApiLimit> defaultLimits) {
+        this.defaultLimits = defaultLimits.isEmpty() ? Map.of() : new EnumMap<>(defaultLimits);
+        snapshot = RateLimitConfigSnapshot.from(properties, this.defaultLimits, snapshot.version() + 1);
+        log.info("Default rate limits registered for {}", defaultLimits.keySet());
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.ratelimiter.configurations.ratelimiter;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.domain.enums.RequestPriority;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Immutable, ordinal indexed view of {@link RateLimiterProperties}. Limits are kept in primitive arrays so the
+ * engines read them without unboxing or map lookups, and a change of configuration is published by swapping
+ * the whole snapshot in {@link RateLimitConfigRegistry}, never by mutating one.
+ */
+public final class RateLimitConfigSnapshot {
+    // the sliding window log keeps a timestamp per request of the limit, 8 MB per api at most
+    public static final long MAX_SLIDING_WINDOW_LOG_REQUESTS = 1 << 20;
+    private static final int PRIORITY_COUNT = RequestPriority.values().length;
+    private static final double SHARE_EPSILON = 1e-9;
+
+    private final long version;
+    private final RateLimiterAlgorithm[] algorithms;
+    private final long[] windowIntervalMillis;
+    private final long[] maxRequestAllowed;
+    private final long[] clientWindowIntervalMillis;
+    private final long[] clientMaxRequestAllowed;
+    private final boolean[] adaptiveConcurrency;
+    private final long[] retryAfterMillis;
+    private final String[] retryAfterSeconds;
+    // ordinal * PRIORITY_COUNT + priority
+    private final long[] reservedPermits;
+    // windows of every api back to back, the tiers of an api start at tierOffsets[ordinal] with its main window
+    private final int[] tierOffsets;
+    private final long[] tierWindowMillis;
+    private final long[] tierMaxRequests;
+
+    private RateLimitConfigSnapshot(long version, int apiCount, int tierCount) {
+        this.version = version;
+        this.algorithms = new RateLimiterAlgorithm[apiCount];
+        this.windowIntervalMillis = new long[apiCount];
+        this.maxRequestAllowed = new long[apiCount];
+        this.clientWindowIntervalMillis = new long[apiCount];
+        this.clientMaxRequestAllowed = new long[apiCount];
+        this.adaptiveConcurrency = new boolean[apiCount];
+        this.retryAfterMillis = new long[apiCount];
+        this.retryAfterSeconds = new String[apiCount];
+        this.reservedPermits = new long[apiCount * PRIORITY_COUNT];
+        this.tierOffsets = new int[apiCount + 1];
+        this.tierWindowMillis = new long[tierCount];
+        this.tierMaxRequests = new long[tierCount];
+    }
+
+    public static RateLimitConfigSnapshot from(RateLimiterProperties properties, long version) {
+        return from(properties, Map.of(), version);
+    }
+
+    /**
+     * @param defaultLimits limits of apis without an entry in the properties, e.g. from @RateLimited handlers
+     */
+    public static RateLimitConfigSnapshot from(RateLimiterProperties properties,
+                                               Map<ApiName, RateLimiterProperties.ApiLimit> defaultLimits, long version) {
+        ApiName[] apiNames = ApiName.values();
+        Map<ApiName, RateLimiterProperties.ApiLimit> apis = properties.getApis();
+        double[] reservedShares = reservedShares(properties.getPriority());
+        int tierCount = 0;
+        for (ApiName apiName : apiNames) {
+            RateLimiterProperties.ApiLimit apiLimit = apis.getOrDefault(apiName, defaultLimits.get(apiName));
+            tierCount += 1 + (apiLimit != null ? apiLimit.getTiers().size() : 0);
+        }
+        RateLimitConfigSnapshot snapshot = new RateLimitConfigSnapshot(version, apiNames.length, tierCount);
+
+        for (ApiName apiName : apiNames) {
+            int ordinal = apiName.ordinal();
+            RateLimiterProperties.ApiLimit apiLimit = apis.getOrDefault(apiName, defaultLimits.get(apiName));
+            snapshot.algorithms[ordinal] = apiLimit != null ? apiLimit.getAlgorithm() : RateLimiterAlgorithm.FIXED_WINDOW;
+            if (apiLimit != null) {
+                if (apiLimit.getAlgorithm() == RateLimiterAlgorithm.SLIDING_WINDOW_LOG
+                        && apiLimit.getMaxRequests() > MAX_SLIDING_WINDOW_LOG_REQUESTS) {
+                    throw new IllegalArgumentException("Sliding window log limit of " + apiName + " must not exceed "
+                            + MAX_SLIDING_WINDOW_LOG_REQUESTS + " requests, got " + apiLimit.getMaxRequests()
+                            + ", use another algorithm for higher limits");
+                }
+                snapshot.windowIntervalMillis[ordinal] = apiLimit.getWindowSeconds() * 1000;
+                snapshot.maxRequestAllowed[ordinal] = apiLimit.getMaxRequests();
+                snapshot.clientWindowIntervalMillis[ordinal] = apiLimit.getClientWindowSeconds() * 1000;
+                snapshot.clientMaxRequestAllowed[ordinal] = apiLimit.getClientMaxRequests();
+                snapshot.adaptiveConcurrency[ordinal] = apiLimit.isAdaptiveConcurrency();
+            }
+
+            int tierOffset = snapshot.tierOffsets[ordinal];
+            snapshot.tierWindowMillis[tierOffset] = snapshot.windowIntervalMillis[ordinal];
+            snapshot.tierMaxRequests[tierOffset] = snapshot.maxRequestAllowed[ordinal];
+            List<RateLimiterProperties.Tier> tiers = apiLimit != null ? apiLimit.getTiers() : List.of();
+            for (int tier = 0; tier < tiers.size(); tier++) {
+                RateLimiterProperties.Tier extraTier = tiers.get(tier);
+                if (extraTier.getWindowSeconds() <= 0 || extraTier.getMaxRequests() < 0) {
+                    throw new IllegalArgumentException("Invalid rate limit tier of " + apiName + ": " + extraTier);
+                }
+                snapshot.tierWindowMillis[tierOffset + 1 + tier] = extraTier.getWindowSeconds() * 1000;
+                snapshot.tierMaxRequests[tierOffset + 1 + tier] = extraTier.getMaxRequests();
+            }
+            snapshot.tierOffsets[ordinal + 1] = tierOffset + 1 + tiers.size();
+
+            // waiting out the longest window involved, tiers included, always frees up a permit again
+            long longestWindowMillis = snapshot.clientWindowIntervalMillis[ordinal];
+            for (int tier = tierOffset; tier < snapshot.tierOffsets[ordinal + 1]; tier++) {
+                longestWindowMillis = Math.max(longestWindowMillis, snapshot.tierWindowMillis[tier]);
+            }
+            snapshot.retryAfterMillis[ordinal] = longestWindowMillis;
+            snapshot.retryAfterSeconds[ordinal] = Long.toString(Math.max(1, (longestWindowMillis + 999) / 1000));
+
+            for (int priority = 0; priority < PRIORITY_COUNT; priority++) {
+                // rounded up, less the error of adding up shares such as 0.2 + 0.1, and one permit always stays
+                // within reach of every class
+                long reserved = (long) Math.ceil(snapshot.maxRequestAllowed[ordinal] * reservedShares[priority] - SHARE_EPSILON);
+                snapshot.reservedPermits[ordinal * PRIORITY_COUNT + priority] =
+                        Math.max(0, Math.min(reserved, snapshot.maxRequestAllowed[ordinal] - 1));
+            }
+        }
+        return snapshot;
+    }
+
+    // share of the limit held back from each class, the reserves of every class above it added up
+    private static double[] reservedShares(RateLimiterProperties.Priority priority) {
+        double[] reservedShares = new double[PRIORITY_COUNT];
+        double total = 0;
+        for (RequestPriority requestPriority : RequestPriority.values()) {
+            reservedShares[requestPriority.ordinal()] = total;
+            Double share = priority.getReservedShares().get(requestPriority);
+            if (share != null) {
+                if (share < 0 || share >= 1) {
+                    throw new IllegalArgumentException("Reserved share of " + requestPriority + " must be within [0, 1), got " + share);
+                }
+                total += share;
+            }
+        }
+        return reservedShares;
+    }
+
+
+    public long version() {
+        return version;
+    }
+
+    public RateLimiterAlgorithm algorithm(int ordinal) {
+        return algorithms[ordinal];
+    }
+
+    public boolean isRateLimited(int ordinal) {
+        return windowIntervalMillis[ordinal] > 0;
+    }
+
+    public long windowIntervalMillis(int ordinal) {
+        return windowIntervalMillis[ordinal];
+    }
+
+    public long maxRequestAllowed(int ordinal) {
+        return maxRequestAllowed[ordinal];
+    }
+
+    public boolean isClientRateLimited(int ordinal) {
+        return clientWindowIntervalMillis[ordinal] > 0;
+    }
+
+    public long clientWindowIntervalMillis(int ordinal) {
+        return clientWindowIntervalMillis[ordinal];
+    }
+
+    public long clientMaxRequestAllowed(int ordinal) {
+        return clientMaxRequestAllowed[ordinal];
+    }
+
+    public boolean isAdaptiveConcurrency(int ordinal) {
+        return adaptiveConcurrency[ordinal];
+    }
+
+    /**
+     * @return permits of the api's limit requests of the priority have to leave untaken for the classes above it
+     */
+    public long reservedPermits(int ordinal, RequestPriority priority) {
+        return reservedPermits[ordinal * PRIORITY_COUNT + priority.ordinal()];
+    }
+
+    // index of the api's main window among the tiers, followed by its further tiers
+    public int tierOffset(int ordinal) {
+        return tierOffsets[ordinal];
+    }
+
+    // number of windows of the api, its main window included
+    public int tierCount(int ordinal) {
+        return tierOffsets[ordinal + 1] - tierOffsets[ordinal];
+    }
+
+    public long tierWindowMillis(int tier) {
+        return tierWindowMillis[tier];
+    }
+
+    public long tierMaxRequests(int tier) {
+        return tierMaxRequests[tier];
+    }
+
+    // preformatted for the Retry-After header
+    public String retryAfterSeconds(int ordinal) {
+        return retryAfterSeconds[ordinal];
+    }
+
+    // waiting out the longest window involved, tiers included, always frees up a permit again
+    public long retryAfterMillis(int ordinal) {
+        return retryAfterMillis[ordinal];
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.ratelimiter.configurations.ratelimiter;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.ClientStoreMode;
+import com.example.ratelimiter.domain.enums.DecisionEventFormat;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.domain.enums.RequestPriority;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Externalized rate limits, bound from {@code ratelimiter.*} of application.properties / YAML and, when
+ * {@code ratelimiter.config-file} is set, re-bound from that file whenever it changes.
+ * An api without an entry, or with a window of 0, is not rate limited.
+ */
+@Data
+@ConfigurationProperties(prefix = "ratelimiter")
+public class RateLimiterProperties {
+    private Map<ApiName, ApiLimit> apis = new EnumMap<>(ApiName.class);
+    private ClientStore clientStore = new ClientStore();
+    private Distributed distributed = new Distributed();
+    private Gossip gossip = new Gossip();
+    private Metrics metrics = new Metrics();
+    private Events events = new Events();
+    private DecisionService decisionService = new DecisionService();
+    private Clock clock = new Clock();
+    private Snapshot snapshot = new Snapshot();
+    private Adaptive adaptive = new Adaptive();
+    private Priority priority = new Priority();
+    private String configFile;
+    private Duration configFileCheckInterval = Duration.ofSeconds(5);
+
+    @Data
+    public static class ApiLimit {
+        private RateLimiterAlgorithm algorithm = RateLimiterAlgorithm.FIXED_WINDOW;
+        private long windowSeconds;
+        private long maxRequests;
+        // per client limit checked on top of the api wide one, disabled when 0
+        private long clientWindowSeconds;
+        private long clientMaxRequests;
+        // also caps the requests in progress at a concurrency limit adapted to the observed latency
+        private boolean adaptiveConcurrency;
+        // further windows on top of the one above, e.g. a daily quota behind a per second burst limit,
+        // only enforced by COMPOSITE_FIXED_WINDOW
+        private List<Tier> tiers = new ArrayList<>();
+    }
+
+    @Data
+    public static class Tier {
+        private long windowSeconds;
+        private long maxRequests;
+    }
+
+    @Data
+    public static class ClientStore {
+        private ClientStoreMode mode = ClientStoreMode.EXACT;
+        private long maxEntries = 1 << 20;
+        private int concurrencyLevel = 64;
+        // clients remembered as over their limit until their window ends, 0 to always ask the store
+        private int blockedClients = 1 << 12;
+        // SKETCH mode, per api: counters per row (error bound e / width of the window's requests) and rows
+        // (bound exceeded with probability e^-depth), read once at startup
+        private int sketchWidth = 1 << 16;
+        private int sketchDepth = 4;
+        private int heavyHitters = 16;
+    }
+
+    // shared counter store of the DISTRIBUTED_FIXED_WINDOW and LEASED_FIXED_WINDOW algorithms, read once at startup
+    @Data
+    public static class Distributed {
+        private boolean enabled;
+        private String host = "localhost";
+        private int port = 6379;
+        private Duration connectTimeout = Duration.ofMillis(500);
+        // commands waiting longer for a reply fail and the connection is reopened
+        private Duration readTimeout = Duration.ofSeconds(1);
+        private int maxPendingCommands = 1 << 16;
+        private Duration syncInterval = Duration.ofMillis(20);
+        private String keyPrefix = "ratelimiter";
+        // LEASED_FIXED_WINDOW sizes leases to last this long at the observed request rate
+        private Duration leaseDuration = Duration.ofMillis(100);
+        // how long a request waits for a lease once the node ran out of permits
+        private Duration leaseWait = Duration.ofMillis(50);
+    }
+
+    // GOSSIP_FIXED_WINDOW, members exchange their counts directly instead of through a shared store,
+    // read once at startup
+    @Data
+    public static class Gossip {
+        private boolean enabled;
+        // host:port of every member, the same list in the same order on every member
+        private List<String> members = new ArrayList<>();
+        // position of this member in the list, it listens on the port found there
+        private int nodeIndex;
+        // how often a member sends its counts, members may over-admit by what the others admit in about that long
+        private Duration interval = Duration.ofMillis(10);
+    }
+
+    // decision counters and latency histograms, read once at startup
+    @Data
+    public static class Metrics {
+        private boolean enabled = true;
+        // one in this many decisions is timed, rounded up to a power of two
+        private int latencySampleRate = 16;
+    }
+
+    // record of decisions for analysis and audit, written off the request path, read once at startup
+    @Data
+    public static class Events {
+        private boolean enabled;
+        // allowed decisions are most of the traffic, only throttled ones are kept unless this is turned off
+        private boolean throttledOnly = true;
+        // events waiting to be written, rounded up to a power of two, events over it are dropped and counted
+        private int bufferSize = 1 << 16;
+        private DecisionEventFormat format = DecisionEventFormat.NDJSON;
+        private String path = "ratelimiter-decisions.ndjson";
+        private Duration flushInterval = Duration.ofMillis(100);
+    }
+
+    // binary TCP decision service for other services and sidecars, read once at startup
+    @Data
+    public static class DecisionService {
+        private boolean enabled;
+        // loopback when not set, callers are not authenticated, 0.0.0.0 for every interface
+        private String address;
+        private int port = 8003;
+        // connections over it are closed right away, each open one holds a thread
+        private int maxConnections = 64;
+        // descriptors per request, a larger request closes its connection
+        private int maxDescriptors = 1024;
+    }
+
+    // time source of every engine, read once at startup
+    @Data
+    public static class Clock {
+        // a ticking cached clock instead of a system call per decision
+        private boolean cached = true;
+        // resolution of the cached clock
+        private Duration tickInterval = Duration.ofMillis(1);
+    }
+
+    // periodic snapshot of the live counters, reloaded on startup so a restart does not hand out a fresh budget,
+    // read once at startup
+    @Data
+    public static class Snapshot {
+        private boolean enabled;
+        private String path = "ratelimiter-counters.snapshot";
+        private Duration interval = Duration.ofSeconds(1);
+    }
+
+    // tuning of the adaptive concurrency limit, read once at startup
+    @Data
+    public static class Adaptive {
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 1000;
+        // a window whose average latency exceeds this multiple of the no load latency backs off
+        private double latencyTolerance = 2.0;
+        // share of the limit kept when backing off
+        private double backoffRatio = 0.9;
+        // fewest samples per adjustment, windows hold at least as many samples as the current limit
+        private int minWindowSamples = 20;
+    }
+
+    // priority classes of requests, only the reserved shares follow configuration updates
+    @Data
+    public static class Priority {
+        // share of every api's limit reserved for a class, out of reach of the classes below it,
+        // e.g. critical=0.2 and high=0.1 leave normal and low requests 70% of the limit
+        private Map<RequestPriority, Double> reservedShares = new EnumMap<>(RequestPriority.class);
+        private RequestPriority defaultPriority = RequestPriority.NORMAL;
+        // priority by client key, a client listed here cannot raise its priority with the priority header, one
+        // above the default only applies when the client key is trusted as well
+        private Map<String, RequestPriority> clients = new HashMap<>();
+        // honours the client keys listed above the default and the priority header of clients not listed, only
+        // safe behind a gateway that sets both
+        private boolean trustPriorityHeader;
+        // throttled requests wait up to max-wait for a permit, at most max-waiters per api, 0 disables waiting
+        private int maxWaiters;
+        private Duration maxWait = Duration.ofMillis(100);
+        // how often the first waiter of an api asks for a permit again
+        private Duration retryInterval = Duration.ofMillis(2);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.ratelimiter.configurations.spring;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.service.ratelimiters.distributed.DistributedCounterBackend;
+import com.example.ratelimiter.service.ratelimiters.distributed.RespClient;
+import com.example.ratelimiter.service.ratelimiters.distributed.RespCounterBackend;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "ratelimiter.distributed", name = "enabled", havingValue = "true")
+public class DistributedBackendConfigs {
+    @Bean(destroyMethod = "close")
+    public RespClient respClient(RateLimiterProperties properties) {
+        RateLimiterProperties.Distributed distributed = properties.getDistributed();
+        return new RespClient(distributed.getHost(), distributed.getPort(),
+                (int) distributed.getConnectTimeout().toMillis(), (int) distributed.getReadTimeout().toMillis(),
+                distributed.getMaxPendingCommands());
+    }
+
+    @Bean
+    public DistributedCounterBackend distributedCounterBackend(RespClient respClient) {
+        return new RespCounterBackend(respClient);
+    }
+}
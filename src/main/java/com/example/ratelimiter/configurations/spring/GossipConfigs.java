@@ -0,0 +1,33 @@
+package com.example.ratelimiter.configurations.spring;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.service.ratelimiters.gossip.GossipTransport;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(prefix = "ratelimiter.gossip", name = "enabled", havingValue = "true")
+public class GossipConfigs {
+    @Bean(destroyMethod = "close")
+    public GossipTransport gossipTransport(RateLimiterProperties properties) throws IOException {
+        RateLimiterProperties.Gossip gossip = properties.getGossip();
+        List<InetSocketAddress> members = gossip.getMembers().stream()
+                .map(GossipConfigs::memberAddress)
+                .toList();
+        return GossipTransport.bind(gossip.getNodeIndex(), members);
+    }
+
+
+    private static InetSocketAddress memberAddress(String member) {
+        int separator = member.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Gossip member " + member + " is not host:port");
+        }
+        return new InetSocketAddress(member.substring(0, separator).trim(), Integer.parseInt(member.substring(separator + 1).trim()));
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.ratelimiter.configurations.spring;
 
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.service.ratelimiters.clock.CachedClock;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@EnableConfigurationProperties(RateLimiterProperties.class)
 public class RateLimiterAppConfigs {
     @Bean
     public ObjectMapper objectMapper() {
@@ -18,4 +23,11 @@ public class RateLimiterAppConfigs {
 
         return instance;
     }
+
+    // the cached clock's ticker thread is stopped through its inferred close method
+    @Bean
+    public RateLimiterClock rateLimiterClock(RateLimiterProperties properties) {
+        RateLimiterProperties.Clock clock = properties.getClock();
+        return clock.isCached() ? new CachedClock(clock.getTickInterval()) : RateLimiterClock.system();
+    }
 }
@@ -0,0 +1,8 @@
+package com.example.ratelimiter.constants;
+
+public class HttpHeaderConstants {
+    private HttpHeaderConstants() {}
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+    public static final String PRIORITY_HEADER = "X-Request-Priority";
+}
@@ -1,5 +1,7 @@
 package com.example.ratelimiter.controller;
 
+import com.example.ratelimiter.annotations.RateLimited;
+import com.example.ratelimiter.domain.enums.ApiName;
 import com.example.ratelimiter.dto.responses.HealthCheckResponse;
 import com.example.ratelimiter.service.HealthCheckService;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +18,8 @@ public class HealthCheckController {
     private final HealthCheckService healthCheckService;
 
 
+    // limits of ratelimiter.apis.health-check
+    @RateLimited(api = ApiName.HEALTH_CHECK)
     @GetMapping("/health")
     public @ResponseBody HealthCheckResponse checkHealth() {
         return healthCheckService.fetchServiceHealth();
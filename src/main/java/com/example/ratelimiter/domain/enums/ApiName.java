@@ -11,5 +11,10 @@ import static com.example.ratelimiter.constants.ApiUrlConstants.HEALTH_CHECK_API
 public enum ApiName {
     HEALTH_CHECK(HEALTH_CHECK_API_URL);
 
+    // null for apis whose paths come from @RateLimited handler methods only
     private final String url;
+
+    ApiName() {
+        this(null);
+    }
 }
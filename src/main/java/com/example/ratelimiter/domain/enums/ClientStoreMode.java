@@ -0,0 +1,11 @@
+package com.example.ratelimiter.domain.enums;
+
+// how the per client counters are kept
+public enum ClientStoreMode {
+    // an exact counter per client, bounded by evicting idle clients
+    EXACT,
+    // EXACT with the counters in a fixed size table outside the heap, updated without locks
+    OFF_HEAP,
+    // a count-min sketch per api, fixed memory whatever the number of clients, counts may be overestimated
+    SKETCH
+}
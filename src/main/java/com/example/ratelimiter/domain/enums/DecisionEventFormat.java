@@ -0,0 +1,9 @@
+package com.example.ratelimiter.domain.enums;
+
+// how decision events are written to their file
+public enum DecisionEventFormat {
+    // one JSON object per line, readable by any log pipeline
+    NDJSON,
+    // fixed size records after a header, a fraction of the size of NDJSON
+    BINARY
+}
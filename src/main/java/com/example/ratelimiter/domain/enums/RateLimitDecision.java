@@ -0,0 +1,6 @@
+package com.example.ratelimiter.domain.enums;
+
+public enum RateLimitDecision {
+    ALLOWED,
+    THROTTLED
+}
@@ -0,0 +1,11 @@
+package com.example.ratelimiter.domain.enums;
+
+// what a request is counted against besides its api wide limit
+public enum RateLimitKey {
+    // the X-Client-Id header, the caller's address when the header is missing
+    CLIENT_ID,
+    // the caller's address, whatever client id it claims
+    REMOTE_ADDRESS,
+    // the api wide limit only
+    NONE
+}
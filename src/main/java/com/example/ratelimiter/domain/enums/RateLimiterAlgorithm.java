@@ -0,0 +1,14 @@
+package com.example.ratelimiter.domain.enums;
+
+public enum RateLimiterAlgorithm {
+    FIXED_WINDOW,
+    TOKEN_BUCKET,
+    GCRA,
+    SLIDING_WINDOW_LOG,
+    SLIDING_WINDOW_COUNTER,
+    STRIPED_FIXED_WINDOW,
+    DISTRIBUTED_FIXED_WINDOW,
+    LEASED_FIXED_WINDOW,
+    COMPOSITE_FIXED_WINDOW,
+    GOSSIP_FIXED_WINDOW
+}
@@ -0,0 +1,9 @@
+package com.example.ratelimiter.domain.enums;
+
+// highest first, a class may use all of an api's budget except the shares reserved for the classes above it
+public enum RequestPriority {
+    CRITICAL,
+    HIGH,
+    NORMAL,
+    LOW
+}
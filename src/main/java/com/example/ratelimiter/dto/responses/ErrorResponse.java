@@ -0,0 +1,11 @@
+package com.example.ratelimiter.dto.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ErrorResponse {
+    private String code;
+    private String message;
+}
@@ -0,0 +1,133 @@
+package com.example.ratelimiter.filter;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimitKey;
+import com.example.ratelimiter.domain.enums.RequestPriority;
+import com.example.ratelimiter.dto.responses.ErrorResponse;
+import com.example.ratelimiter.service.ratelimiters.RateLimiterRegistry;
+import com.example.ratelimiter.service.ratelimiters.adaptive.AdaptiveConcurrencyLimiter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+
+import static com.example.ratelimiter.constants.HttpHeaderConstants.CLIENT_ID_HEADER;
+import static com.example.ratelimiter.constants.HttpHeaderConstants.PRIORITY_HEADER;
+
+
+/**
+ * Rate limits every request whose path belongs to an {@link ApiName} before it reaches the DispatcherServlet.
+ * <p>
+ * The path to api lookup table ({@link RateLimitedHandlers}) and the rejection response are built once at
+ * startup, so a throttled request
+ * costs the decoding of its path, one map lookup, one limiter decision and a copy of a preserialized body: no handler mapping, no
+ * controller and no Jackson serialization.
+ * <p>
+ * Every request is given a {@link RequestPriority} by the {@link RequestPriorityResolver}, and may wait briefly
+ * for a permit when throttled, as configured under {@code ratelimiter.priority}.
+ * <p>
+ * Requests pass the {@link AdaptiveConcurrencyLimiter} first, so a request shed for concurrency does not spend
+ * a rate permit, and a request that then waits for a permit keeps its slot while waiting. The limiter is fed the
+ * time the rest of the chain took to serve the admitted requests.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+    // requests in progress complete within moments, unlike a window that has to run out
+    static final String CONCURRENCY_RETRY_AFTER_SECONDS = "1";
+
+    private final RateLimiterRegistry rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RequestPriorityResolver priorityResolver;
+    private final RateLimitedHandlers rateLimitedHandlers;
+    private final byte[] rateLimitExceededBody;
+
+    @Autowired
+    public RateLimitFilter(RateLimiterRegistry rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                           RequestPriorityResolver priorityResolver, RateLimitedHandlers rateLimitedHandlers,
+                           ObjectMapper objectMapper) throws JsonProcessingException {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.priorityResolver = priorityResolver;
+        this.rateLimitedHandlers = rateLimitedHandlers;
+
+        this.rateLimitExceededBody = objectMapper.writeValueAsBytes(ErrorResponse.builder()
+                .code("429")
+                .message("Request rate limit exceeded. Please wait and try again later.")
+                .build());
+    }
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // decoded and without ;parameters, as the handler mapping matches it, so no spelling of a path skips its limit
+        ApiName apiName = rateLimitedHandlers.apiNameByPath(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+        if (apiName == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String clientKey = resolveClientKey(request, rateLimitedHandlers.key(apiName));
+        RequestPriority priority = priorityResolver.resolve(clientKey, request.getHeader(PRIORITY_HEADER));
+        if (!concurrencyLimiter.tryAcquire(apiName)) {
+            rejectRequest(response, CONCURRENCY_RETRY_AFTER_SECONDS);
+            return;
+        }
+        boolean admitted = false;
+        try {
+            admitted = rateLimiter.tryAcquire(apiName, clientKey, 1, priority);
+        } finally {
+            if (!admitted) {
+                concurrencyLimiter.cancel(apiName);
+            }
+        }
+        if (!admitted) {
+            rejectRequest(response, rateLimiter.fetchRetryAfterSeconds(apiName, clientKey));
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            concurrencyLimiter.release(apiName, System.nanoTime() - startNanos, failed);
+        }
+    }
+
+
+    // null when the api is only limited api wide
+    private String resolveClientKey(HttpServletRequest request, RateLimitKey key) {
+        return switch (key) {
+            case CLIENT_ID -> {
+                // callers without an explicit client id are told apart by their address
+                String clientId = request.getHeader(CLIENT_ID_HEADER);
+                yield clientId != null ? clientId : request.getRemoteAddr();
+            }
+            case REMOTE_ADDRESS -> request.getRemoteAddr();
+            case NONE -> null;
+        };
+    }
+
+    private void rejectRequest(HttpServletResponse response, String retryAfterSeconds) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(rateLimitExceededBody.length);
+        response.getOutputStream().write(rateLimitExceededBody);
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.ratelimiter.filter;
+
+import com.example.ratelimiter.annotations.RateLimited;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimitKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Lookup table of the rate limit filters: which {@link ApiName} a path belongs to and what its requests are
+ * counted against. Built from the urls of {@link ApiName} and, once every singleton exists, from the
+ * {@link RateLimited} controller methods, whose limits become the api's default limits.
+ * <p>
+ * Per request this is a volatile read, one map lookup of the path and an array index by the api's ordinal.
+ */
+@Slf4j
+@Component
+public class RateLimitedHandlers implements SmartInitializingSingleton {
+    private final RateLimitConfigRegistry configRegistry;
+    private final ListableBeanFactory beanFactory;
+    private final String contextPath;
+    private volatile Table table;
+
+    @Autowired
+    public RateLimitedHandlers(RateLimitConfigRegistry configRegistry, ListableBeanFactory beanFactory,
+                               @Value("${server.servlet.context-path:}") String contextPath) {
+        this.configRegistry = configRegistry;
+        this.beanFactory = beanFactory;
+        this.contextPath = contextPath;
+        this.table = Table.build(contextPath, Map.of(), new RateLimitKey[ApiName.values().length]);
+    }
+
+    // without handler scanning, handlers are registered through register
+    RateLimitedHandlers(RateLimitConfigRegistry configRegistry, String contextPath) {
+        this(configRegistry, null, contextPath);
+    }
+
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<Class<?>> handlerTypes = new ArrayList<>();
+        for (String beanName : beanFactory.getBeanNamesForAnnotation(Controller.class)) {
+            Class<?> beanType = beanFactory.getType(beanName);
+            if (beanType != null) {
+                handlerTypes.add(ClassUtils.getUserClass(beanType));
+            }
+        }
+        register(handlerTypes);
+    }
+
+    /**
+     * Resolves the {@link RateLimited} request mappings of the handler types and swaps in a new table.
+     *
+     * @throws IllegalStateException if two handlers of one api disagree on its limits or key, a limit has no window,
+     *                               or one path is mapped to two apis
+     */
+    void register(Collection<Class<?>> handlerTypes) {
+        Map<String, ApiName> apiNameByPath = new HashMap<>();
+        Map<ApiName, RateLimited> annotationByApi = new EnumMap<>(ApiName.class);
+
+        for (Class<?> handlerType : handlerTypes) {
+            RateLimited typeAnnotation = AnnotatedElementUtils.findMergedAnnotation(handlerType, RateLimited.class);
+            RequestMapping typeMapping = AnnotatedElementUtils.findMergedAnnotation(handlerType, RequestMapping.class);
+            String[] prefixes = typeMapping == null || typeMapping.path().length == 0 ? new String[] {""} : typeMapping.path();
+
+            for (Method method : ReflectionUtils.getUniqueDeclaredMethods(handlerType, ReflectionUtils.USER_DECLARED_METHODS)) {
+                RequestMapping methodMapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+                RateLimited annotation = AnnotatedElementUtils.findMergedAnnotation(method, RateLimited.class);
+                annotation = annotation != null ? annotation : typeAnnotation;
+                if (methodMapping == null || annotation == null) {
+                    continue;
+                }
+                checkLimits(annotation, method);
+                checkConsistent(annotationByApi.putIfAbsent(annotation.api(), annotation), annotation, method);
+
+                String[] paths = methodMapping.path().length == 0 ? new String[] {""} : methodMapping.path();
+                for (String prefix : prefixes) {
+                    for (String path : paths) {
+                        String fullPath = normalize(prefix) + normalize(path);
+                        if (fullPath.indexOf('{') >= 0 || fullPath.indexOf('*') >= 0) {
+                            log.warn("Skipping rate limited mapping {} of {}, only literal paths are rate limited", fullPath, method);
+                            continue;
+                        }
+                        checkSameApi(fullPath, apiNameByPath.put(fullPath, annotation.api()), annotation.api());
+                    }
+                }
+            }
+        }
+
+        RateLimitKey[] keys = new RateLimitKey[ApiName.values().length];
+        Map<ApiName, RateLimiterProperties.ApiLimit> defaultLimits = new EnumMap<>(ApiName.class);
+        annotationByApi.forEach((apiName, annotation) -> {
+            keys[apiName.ordinal()] = annotation.key();
+            if (annotation.limit() > 0 && annotation.windowSeconds() > 0) {
+                RateLimiterProperties.ApiLimit apiLimit = new RateLimiterProperties.ApiLimit();
+                apiLimit.setMaxRequests(annotation.limit());
+                apiLimit.setWindowSeconds(annotation.windowSeconds());
+                defaultLimits.put(apiName, apiLimit);
+            }
+        });
+
+        configRegistry.registerDefaultLimits(defaultLimits);
+        table = Table.build(contextPath, apiNameByPath, keys);
+        log.info("Rate limited handler paths: {}", apiNameByPath);
+    }
+
+    // the full request uri, context path included, null for paths of no api
+    public ApiName apiNameByRequestUri(String requestUri) {
+        return table.apiNameByRequestUri.get(requestUri);
+    }
+
+    // the path within the application, null for paths of no api
+    public ApiName apiNameByPath(String path) {
+        return table.apiNameByPath.get(path);
+    }
+
+    public RateLimitKey key(ApiName apiName) {
+        return table.keys[apiName.ordinal()];
+    }
+
+
+    // a limit without a window would silently leave the api unlimited
+    private static void checkLimits(RateLimited annotation, Method method) {
+        if (annotation.limit() < 0 || annotation.windowSeconds() < 0
+                || (annotation.limit() > 0 && annotation.windowSeconds() == 0)) {
+            throw new IllegalStateException("@RateLimited of " + method + " needs a positive windowSeconds with its limit: "
+                    + annotation);
+        }
+    }
+
+    // otherwise whichever handler came last would decide what the path is counted against
+    private static void checkSameApi(String path, ApiName registered, ApiName apiName) {
+        if (registered != null && registered != apiName) {
+            throw new IllegalStateException("Path " + path + " is rate limited under both " + registered + " and " + apiName);
+        }
+    }
+
+    private static void checkConsistent(RateLimited registered, RateLimited annotation, Method method) {
+        if (registered != null && (registered.limit() != annotation.limit()
+                || registered.windowSeconds() != annotation.windowSeconds() || registered.key() != annotation.key())) {
+            throw new IllegalStateException("@RateLimited of " + method + " disagrees with another handler of "
+                    + annotation.api() + ": " + annotation + " vs " + registered);
+        }
+    }
+
+    private static String normalize(String path) {
+        if (path.isEmpty() || path.equals("/")) {
+            return "";
+        }
+        String trimmed = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        return trimmed.startsWith("/") ? trimmed : "/" + trimmed;
+    }
+
+
+    private static final class Table {
+        private final Map<String, ApiName> apiNameByPath;
+        private final Map<String, ApiName> apiNameByRequestUri;
+        private final RateLimitKey[] keys;
+
+        private Table(Map<String, ApiName> apiNameByPath, Map<String, ApiName> apiNameByRequestUri, RateLimitKey[] keys) {
+            this.apiNameByPath = apiNameByPath;
+            this.apiNameByRequestUri = apiNameByRequestUri;
+            this.keys = keys;
+        }
+
+        // apis with a url are mapped by it and counted per client id unless a handler says otherwise
+        private static Table build(String contextPath, Map<String, ApiName> handlerPaths, RateLimitKey[] handlerKeys) {
+            Map<String, ApiName> apiNameByPath = new HashMap<>();
+            RateLimitKey[] keys = Arrays.copyOf(handlerKeys, handlerKeys.length);
+            for (ApiName apiName : ApiName.values()) {
+                if (apiName.getUrl() != null) {
+                    apiNameByPath.put(apiName.getUrl(), apiName);
+                }
+                if (keys[apiName.ordinal()] == null) {
+                    keys[apiName.ordinal()] = RateLimitKey.CLIENT_ID;
+                }
+            }
+            handlerPaths.forEach((path, apiName) -> checkSameApi(path, apiNameByPath.put(path, apiName), apiName));
+
+            Map<String, ApiName> apiNameByRequestUri = new HashMap<>();
+            apiNameByPath.forEach((path, apiName) -> apiNameByRequestUri.put(contextPath + path, apiName));
+            return new Table(apiNameByPath, apiNameByRequestUri, keys);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.ratelimiter.filter;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimitDecision;
+import com.example.ratelimiter.domain.enums.RateLimitKey;
+import com.example.ratelimiter.domain.enums.RequestPriority;
+import com.example.ratelimiter.dto.responses.ErrorResponse;
+import com.example.ratelimiter.service.ratelimiters.ReactiveRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.adaptive.AdaptiveConcurrencyLimiter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.ratelimiter.constants.HttpHeaderConstants.CLIENT_ID_HEADER;
+import static com.example.ratelimiter.constants.HttpHeaderConstants.PRIORITY_HEADER;
+
+
+/**
+ * WebFlux counterpart of {@link RateLimitFilter}, only active in a reactive deployment. Decisions come from
+ * {@link ReactiveRateLimiter}, so waiting on a remote backend never blocks the event loop. Requests keep their
+ * {@link RequestPriorityResolver priority} but never wait for a permit once throttled. Requests pass the
+ * {@link AdaptiveConcurrencyLimiter} before the rate limit, so a request shed for concurrency does not spend a
+ * permit, and admitted requests report their latency once the response completed.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ReactiveRateLimitFilter implements WebFilter {
+    private final ReactiveRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RequestPriorityResolver priorityResolver;
+    private final RateLimitedHandlers rateLimitedHandlers;
+    private final byte[] rateLimitExceededBody;
+
+    @Autowired
+    public ReactiveRateLimitFilter(ReactiveRateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                   RequestPriorityResolver priorityResolver, RateLimitedHandlers rateLimitedHandlers,
+                                   ObjectMapper objectMapper) throws JsonProcessingException {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.priorityResolver = priorityResolver;
+        this.rateLimitedHandlers = rateLimitedHandlers;
+
+        this.rateLimitExceededBody = objectMapper.writeValueAsBytes(ErrorResponse.builder()
+                .code("429")
+                .message("Request rate limit exceeded. Please wait and try again later.")
+                .build());
+    }
+
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ApiName apiName = rateLimitedHandlers.apiNameByPath(lookupPath(exchange.getRequest()));
+        if (apiName == null) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        String clientKey = resolveClientKey(request, rateLimitedHandlers.key(apiName));
+        RequestPriority priority = priorityResolver.resolve(clientKey, request.getHeaders().getFirst(PRIORITY_HEADER));
+        if (!concurrencyLimiter.tryAcquire(apiName)) {
+            return rejectRequest(exchange.getResponse(), RateLimitFilter.CONCURRENCY_RETRY_AFTER_SECONDS);
+        }
+        // the slot is handed back unused unless the request reaches the chain, which releases it itself
+        AtomicBoolean admitted = new AtomicBoolean();
+        return rateLimiter.decide(apiName, clientKey, priority)
+                .flatMap(decision -> {
+                    if (decision == RateLimitDecision.THROTTLED) {
+                        return rejectRequest(exchange.getResponse(), rateLimiter.fetchRetryAfterSeconds(apiName, clientKey));
+                    }
+                    admitted.set(true);
+                    return filterAdmitted(apiName, exchange, chain);
+                })
+                .doFinally(signal -> {
+                    if (!admitted.get()) {
+                        concurrencyLimiter.cancel(apiName);
+                    }
+                });
+    }
+
+
+    // the path within the application, base path stripped, decoded and without ;parameters as handler mappings match it
+    private static String lookupPath(ServerHttpRequest request) {
+        PathContainer path = request.getPath().pathWithinApplication();
+        String value = path.value();
+        if (value.indexOf('%') < 0 && value.indexOf(';') < 0) {
+            return value;
+        }
+        StringBuilder lookupPath = new StringBuilder(value.length());
+        for (PathContainer.Element element : path.elements()) {
+            lookupPath.append(element instanceof PathContainer.PathSegment segment ? segment.valueToMatch() : element.value());
+        }
+        return lookupPath.toString();
+    }
+
+    // null when the api is only limited api wide
+    private String resolveClientKey(ServerHttpRequest request, RateLimitKey key) {
+        if (key == RateLimitKey.NONE) {
+            return null;
+        }
+        // callers without an explicit client id are told apart by their address
+        String clientId = key == RateLimitKey.CLIENT_ID ? request.getHeaders().getFirst(CLIENT_ID_HEADER) : null;
+        if (clientId != null) {
+            return clientId;
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null ? remoteAddress.getHostString() : "";
+    }
+
+    private Mono<Void> filterAdmitted(ApiName apiName, ServerWebExchange exchange, WebFilterChain chain) {
+        long startNanos = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            concurrencyLimiter.release(apiName, System.nanoTime() - startNanos, failed);
+        });
+    }
+
+    private Mono<Void> rejectRequest(ServerHttpResponse response, String retryAfterSeconds) {
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(rateLimitExceededBody.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(rateLimitExceededBody)));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.ratelimiter.filter;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.RequestPriority;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+
+/**
+ * Resolves the {@link RequestPriority} of a request, shared by {@link RateLimitFilter} and
+ * {@link ReactiveRateLimitFilter}. Client keys and the priority header are sent by the caller, anyone can claim
+ * a listed client's key, so both only raise a priority when {@code trust-priority-header} says a gateway sets them.
+ * A client listed in {@code ratelimiter.priority.clients} then gets its listed priority, any other request the one
+ * of its priority header, or the default. Untrusted, only listed priorities at or below the default apply, a
+ * caller gains nothing by claiming them.
+ * The lookup tables are built once at startup, resolving allocates nothing unless the header is in mixed case.
+ */
+@Component
+public class RequestPriorityResolver {
+    private final Map<String, RequestPriority> priorityByClientKey;
+    private final Map<String, RequestPriority> priorityByHeaderValue;
+    private final RequestPriority defaultPriority;
+    private final boolean trustPriorityHeader;
+
+    @Autowired
+    public RequestPriorityResolver(RateLimiterProperties properties) {
+        RateLimiterProperties.Priority priority = properties.getPriority();
+        this.priorityByClientKey = new HashMap<>(priority.getClients());
+        this.defaultPriority = priority.getDefaultPriority();
+        this.trustPriorityHeader = priority.isTrustPriorityHeader();
+
+        // upper and lower case header values are found without converting them, any other case after
+        this.priorityByHeaderValue = new HashMap<>();
+        for (RequestPriority requestPriority : RequestPriority.values()) {
+            priorityByHeaderValue.put(requestPriority.name(), requestPriority);
+            priorityByHeaderValue.put(requestPriority.name().toLowerCase(Locale.ROOT), requestPriority);
+        }
+    }
+
+
+    /**
+     * @param priorityHeader value of the priority header, null when absent
+     */
+    public RequestPriority resolve(String clientKey, String priorityHeader) {
+        RequestPriority clientPriority = priorityByClientKey.get(clientKey);
+        if (clientPriority != null && (trustPriorityHeader || clientPriority.compareTo(defaultPriority) >= 0)) {
+            return clientPriority;
+        }
+        if (trustPriorityHeader && priorityHeader != null) {
+            RequestPriority headerPriority = priorityByHeaderValue.get(priorityHeader);
+            if (headerPriority == null) {
+                headerPriority = priorityByHeaderValue.get(priorityHeader.toUpperCase(Locale.ROOT));
+            }
+            if (headerPriority != null) {
+                return headerPriority;
+            }
+        }
+        return defaultPriority;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.ratelimiter.metrics;
+
+import com.example.ratelimiter.service.ratelimiters.events.DecisionEventPublisher;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Publishes the decision event pipeline, only present while it is enabled:
+ * <ul>
+ *     <li>{@code ratelimiter.decision.events} published, dropped (ring full) and written events ({@code outcome} tag)</li>
+ *     <li>{@code ratelimiter.decision.events.backlog} events waiting to be written</li>
+ *     <li>{@code ratelimiter.decision.events.sink.failures} drains cut short by a failing sink</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ratelimiter.events", name = "enabled", havingValue = "true")
+public class DecisionEventMeterBinder implements MeterBinder {
+    private final DecisionEventPublisher publisher;
+
+    @Autowired
+    public DecisionEventMeterBinder(DecisionEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ratelimiter.decision.events", publisher, DecisionEventPublisher::getPublished)
+                .tag("outcome", "published")
+                .register(registry);
+        FunctionCounter.builder("ratelimiter.decision.events", publisher, DecisionEventPublisher::getDropped)
+                .tag("outcome", "dropped")
+                .description("Decision events dropped because the ring buffer was full")
+                .register(registry);
+        FunctionCounter.builder("ratelimiter.decision.events", publisher, DecisionEventPublisher::getWritten)
+                .tag("outcome", "written")
+                .register(registry);
+        Gauge.builder("ratelimiter.decision.events.backlog", publisher, DecisionEventPublisher::backlog)
+                .description("Decision events waiting to be written")
+                .register(registry);
+        FunctionCounter.builder("ratelimiter.decision.events.sink.failures", publisher, DecisionEventPublisher::getSinkFailures)
+                .register(registry);
+    }
+}
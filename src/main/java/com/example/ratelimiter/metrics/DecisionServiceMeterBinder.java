@@ -0,0 +1,49 @@
+package com.example.ratelimiter.metrics;
+
+import com.example.ratelimiter.server.DecisionServer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Publishes the TCP decision service, only present while it is enabled:
+ * <ul>
+ *     <li>{@code ratelimiter.decision.service.connections} open connections</li>
+ *     <li>{@code ratelimiter.decision.service.requests} and {@code .descriptors} answered</li>
+ *     <li>{@code ratelimiter.decision.service.errors} connections closed for a malformed frame
+ *     ({@code cause=protocol}) or over {@code max-connections} ({@code cause=rejected})</li>
+ * </ul>
+ * The decisions themselves are counted with the others under {@code ratelimiter.decisions}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "ratelimiter.decision-service", name = "enabled", havingValue = "true")
+public class DecisionServiceMeterBinder implements MeterBinder {
+    private final DecisionServer server;
+
+    @Autowired
+    public DecisionServiceMeterBinder(DecisionServer server) {
+        this.server = server;
+    }
+
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ratelimiter.decision.service.connections", server, DecisionServer::getConnectionCount)
+                .register(registry);
+        FunctionCounter.builder("ratelimiter.decision.service.requests", server, DecisionServer::getRequests)
+                .register(registry);
+        FunctionCounter.builder("ratelimiter.decision.service.descriptors", server, DecisionServer::getDescriptors)
+                .register(registry);
+        FunctionCounter.builder("ratelimiter.decision.service.errors", server, DecisionServer::getProtocolErrors)
+                .tag("cause", "protocol")
+                .register(registry);
+        FunctionCounter.builder("ratelimiter.decision.service.errors", server, DecisionServer::getRejectedConnections)
+                .tag("cause", "rejected")
+                .register(registry);
+    }
+}
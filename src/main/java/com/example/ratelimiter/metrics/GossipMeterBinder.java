@@ -0,0 +1,52 @@
+package com.example.ratelimiter.metrics;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.service.ratelimiters.GossipFixWindowRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.gossip.GossipTransport;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Publishes the gossip cluster mode, only present while it is enabled:
+ * <ul>
+ *     <li>{@code ratelimiter.gossip.over.admission.bound} permits the cluster may admit over the api's limit in the
+ *     current window, given the gossip interval and the rate the other members admit at</li>
+ *     <li>{@code ratelimiter.gossip.datagrams} sent and dropped datagrams ({@code outcome} tag)</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(prefix = "ratelimiter.gossip", name = "enabled", havingValue = "true")
+public class GossipMeterBinder implements MeterBinder {
+    private final GossipFixWindowRateLimiter rateLimiter;
+    private final GossipTransport transport;
+
+    @Autowired
+    public GossipMeterBinder(GossipFixWindowRateLimiter rateLimiter, GossipTransport transport) {
+        this.rateLimiter = rateLimiter;
+        this.transport = transport;
+    }
+
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (ApiName apiName : ApiName.values()) {
+            Gauge.builder("ratelimiter.gossip.over.admission.bound", rateLimiter, l -> l.fetchOverAdmissionBound(apiName))
+                    .tag("api", apiName.name())
+                    .description("Permits the cluster may admit over the limit in the current window")
+                    .register(registry);
+        }
+        FunctionCounter.builder("ratelimiter.gossip.datagrams", transport, GossipTransport::getDatagramsSent)
+                .tag("outcome", "sent")
+                .register(registry);
+        FunctionCounter.builder("ratelimiter.gossip.datagrams", transport, GossipTransport::getDatagramsDropped)
+                .tag("outcome", "dropped")
+                .description("Received datagrams dropped as malformed or from another build")
+                .register(registry);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.ratelimiter.metrics;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.service.ratelimiters.PerClientFixWindowRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.RateLimiterRegistry;
+import com.example.ratelimiter.service.ratelimiters.adaptive.AdaptiveConcurrencyLimiter;
+import com.example.ratelimiter.service.ratelimiters.store.CounterStore;
+import com.example.ratelimiter.service.ratelimiters.store.CountMinSketch;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Publishes the rate limiter to Micrometer, and through it to the actuator {@code metrics} endpoint:
+ * <ul>
+ *     <li>{@code ratelimiter.decisions} allowed and throttled requests per api ({@code outcome} tag)</li>
+ *     <li>{@code ratelimiter.decision.latency} count and total time of the sampled decisions per api, plus
+ *     {@code ratelimiter.decision.latency.percentile} (p50, p99, p99.9) and {@code .max} from the histogram</li>
+ *     <li>{@code ratelimiter.window.utilization} used share of the api's current limit, NaN when unknown</li>
+ *     <li>{@code ratelimiter.adaptive.limit} and {@code ratelimiter.adaptive.in.flight} adaptive concurrency limit
+ *     of the api and its requests in progress</li>
+ *     <li>{@code ratelimiter.client.store.*} size, capacity, evictions and memory of the per client counter store,
+ *     only the memory of the sketches in SKETCH mode, which track no clients one by one</li>
+ * </ul>
+ * Every meter is function based, values are pulled from the limiter when scraped.
+ */
+@Component
+public class RateLimiterMeterBinder implements MeterBinder {
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+
+    private final RateLimiterMetrics metrics;
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final PerClientFixWindowRateLimiter perClientRateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    public RateLimiterMeterBinder(RateLimiterMetrics metrics, RateLimiterRegistry rateLimiterRegistry,
+                                  PerClientFixWindowRateLimiter perClientRateLimiter,
+                                  AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.metrics = metrics;
+        this.rateLimiterRegistry = rateLimiterRegistry;
+        this.perClientRateLimiter = perClientRateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (ApiName apiName : ApiName.values()) {
+            String api = apiName.name();
+            FunctionCounter.builder("ratelimiter.decisions", metrics, m -> m.allowedCount(apiName))
+                    .tags("api", api, "outcome", "allowed")
+                    .description("Requests admitted by the rate limiter")
+                    .register(registry);
+            FunctionCounter.builder("ratelimiter.decisions", metrics, m -> m.throttledCount(apiName))
+                    .tags("api", api, "outcome", "throttled")
+                    .description("Requests rejected by the rate limiter")
+                    .register(registry);
+
+            LatencyHistogram latency = metrics.decisionLatency(apiName);
+            FunctionTimer.builder("ratelimiter.decision.latency", latency, LatencyHistogram::count,
+                            LatencyHistogram::totalNanos, TimeUnit.NANOSECONDS)
+                    .tag("api", api)
+                    .description("Time taken to decide on a request")
+                    .register(registry);
+            for (double percentile : PERCENTILES) {
+                TimeGauge.builder("ratelimiter.decision.latency.percentile", latency, TimeUnit.NANOSECONDS,
+                                histogram -> histogram.valueAtPercentile(percentile))
+                        .tags("api", api, "percentile", Double.toString(percentile / 100))
+                        .register(registry);
+            }
+            TimeGauge.builder("ratelimiter.decision.latency.max", latency, TimeUnit.NANOSECONDS, LatencyHistogram::maxNanos)
+                    .tag("api", api)
+                    .register(registry);
+
+            Gauge.builder("ratelimiter.window.utilization", rateLimiterRegistry, r -> r.fetchUtilization(apiName))
+                    .tag("api", api)
+                    .description("Share of the current limit already used")
+                    .register(registry);
+            Gauge.builder("ratelimiter.adaptive.limit", concurrencyLimiter, l -> l.currentLimit(apiName))
+                    .tag("api", api)
+                    .description("Requests allowed in progress at once, adapted to the observed latency")
+                    .register(registry);
+            Gauge.builder("ratelimiter.adaptive.in.flight", concurrencyLimiter, l -> l.inFlight(apiName))
+                    .tag("api", api)
+                    .register(registry);
+            if (perClientRateLimiter.getSketch(apiName) != null) {
+                Gauge.builder("ratelimiter.client.sketch.error.bound", perClientRateLimiter, l -> l.fetchErrorBound(apiName))
+                        .tag("api", api)
+                        .description("Requests a client count of the current window may be overestimated by")
+                        .register(registry);
+            }
+        }
+
+        CounterStore counterStore = perClientRateLimiter.getCounterStore();
+        if (counterStore == null) {
+            Gauge.builder("ratelimiter.client.store.memory", perClientRateLimiter, RateLimiterMeterBinder::sketchMemoryBytes)
+                    .baseUnit("bytes")
+                    .description("Memory of the per client count-min sketches")
+                    .register(registry);
+            return;
+        }
+        Gauge.builder("ratelimiter.client.store.size", counterStore, CounterStore::size)
+                .description("Clients tracked by the per client counter store")
+                .register(registry);
+        Gauge.builder("ratelimiter.client.store.capacity", counterStore, CounterStore::maxEntries)
+                .register(registry);
+        FunctionCounter.builder("ratelimiter.client.store.evictions", counterStore, CounterStore::evictionCount)
+                .description("Clients evicted to make room for new ones")
+                .register(registry);
+        Gauge.builder("ratelimiter.client.store.memory", counterStore, CounterStore::memoryFootprintBytes)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+
+    private static double sketchMemoryBytes(PerClientFixWindowRateLimiter perClientRateLimiter) {
+        long bytes = 0;
+        for (ApiName apiName : ApiName.values()) {
+            CountMinSketch sketch = perClientRateLimiter.getSketch(apiName);
+            bytes += sketch != null ? sketch.memoryFootprintBytes() : 0;
+        }
+        return bytes;
+    }
+}
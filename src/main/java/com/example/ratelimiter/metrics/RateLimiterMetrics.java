@@ -0,0 +1,77 @@
+package com.example.ratelimiter.metrics;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Decision counters and latency histograms per {@link ApiName}, indexed by ordinal and preallocated, so recording a
+ * decision never allocates. {@link RateLimiterMeterBinder} publishes them to Micrometer, the meters read these
+ * values at scrape time instead of being updated on every request.
+ * <p>
+ * Counters see every decision. Reading the clock twice costs more than a lock free decision itself, so only one in
+ * {@code latencySampleRate} decisions is timed, picked at random per thread.
+ */
+@Component
+public class RateLimiterMetrics {
+    private final boolean enabled;
+    private final int latencySampleMask;
+    private final LongAdder[] allowed;
+    private final LongAdder[] throttled;
+    private final LatencyHistogram[] decisionLatencies;
+
+    @Autowired
+    public RateLimiterMetrics(RateLimiterProperties properties) {
+        this(properties.getMetrics().isEnabled(), properties.getMetrics().getLatencySampleRate());
+    }
+
+    public RateLimiterMetrics(boolean enabled, int latencySampleRate) {
+        this.enabled = enabled;
+        // rounded up to a power of two, the sampling check is a mask of a random int
+        this.latencySampleMask = Integer.highestOneBit(Math.max(1, latencySampleRate) * 2 - 1) - 1;
+        int apiCount = ApiName.values().length;
+        this.allowed = new LongAdder[apiCount];
+        this.throttled = new LongAdder[apiCount];
+        this.decisionLatencies = new LatencyHistogram[apiCount];
+        for (int ordinal = 0; ordinal < apiCount; ordinal++) {
+            allowed[ordinal] = new LongAdder();
+            throttled[ordinal] = new LongAdder();
+            decisionLatencies[ordinal] = new LatencyHistogram();
+        }
+    }
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean sampleLatency() {
+        return (ThreadLocalRandom.current().nextInt() & latencySampleMask) == 0;
+    }
+
+    public void recordDecision(ApiName apiName, boolean throttledRequest) {
+        (throttledRequest ? throttled : allowed)[apiName.ordinal()].increment();
+    }
+
+    public void recordDecision(ApiName apiName, boolean throttledRequest, long latencyNanos) {
+        recordDecision(apiName, throttledRequest);
+        decisionLatencies[apiName.ordinal()].record(latencyNanos);
+    }
+
+    public long allowedCount(ApiName apiName) {
+        return allowed[apiName.ordinal()].sum();
+    }
+
+    public long throttledCount(ApiName apiName) {
+        return throttled[apiName.ordinal()].sum();
+    }
+
+    public LatencyHistogram decisionLatency(ApiName apiName) {
+        return decisionLatencies[apiName.ordinal()];
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.ratelimiter.server;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RequestPriority;
+import com.example.ratelimiter.filter.RequestPriorityResolver;
+import com.example.ratelimiter.service.ratelimiters.RateLimiterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Rate limit decisions for other services over TCP, in the spirit of Envoy's rate limit service: a request carries
+ * many descriptors, the response the decision of each with the permits left. Connections are kept open and
+ * requests may be pipelined, responses come back in request order, those of requests that arrived together in one
+ * write.
+ * <p>
+ * Every number is big endian. A connection opens with a handshake both ways, then carries frames:
+ * <pre>
+ * handshake   magic 0x524C4453 (int), version (short), the server adds its max descriptors per request (int)
+ * request     frame length (int, bytes after it), request id (int), descriptor count (unsigned short), descriptors
+ * descriptor  api name length (byte), api name (ASCII, an {@link ApiName}), client key length (short, -1 for none),
+ *             client key (UTF-8, at most {@value #MAX_CLIENT_KEY_BYTES} bytes), permits (int)
+ * response    frame length (int), request id (int), descriptor count (unsigned short), statuses in descriptor order
+ * status      code (byte: 0 OK, 1 OVER_LIMIT, 2 UNKNOWN_API, 3 INVALID), permits left (long, -1 when not tracked),
+ *             retry after millis (int, 0 unless OVER_LIMIT)
+ * </pre>
+ * Descriptors are decided one by one through the {@link RateLimiterRegistry}, as requests of the filters would be,
+ * so they count against the same limits and show up in the same metrics and decision events. A descriptor gets the
+ * {@link RequestPriority} its client key is listed with, or the default one, and respects the shares reserved for
+ * the classes above it; with waiting enabled a throttled descriptor waits for a permit like a request would.
+ * The server listens on loopback unless an address is configured, it does not authenticate its callers. A malformed frame or
+ * one with more descriptors than allowed closes the connection. Every connection is served by its own thread,
+ * connections over {@code max-connections} are closed right away.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "ratelimiter.decision-service", name = "enabled", havingValue = "true")
+public class DecisionServer implements Closeable {
+    static final int MAGIC = 0x524C4453;
+    static final short VERSION = 1;
+    static final byte OK = 0;
+    static final byte OVER_LIMIT = 1;
+    static final byte UNKNOWN_API = 2;
+    static final byte INVALID = 3;
+    static final int MAX_CLIENT_KEY_BYTES = 1024;
+    private static final int FRAME_HEADER_BYTES = 10;
+    private static final int STATUS_BYTES = 13;
+    private static final int MAX_DESCRIPTOR_BYTES = 1 + 255 + 2 + MAX_CLIENT_KEY_BYTES + 4;
+    private static final int INITIAL_BUFFER_BYTES = 1 << 16;
+    private static final ApiName[] API_NAMES = ApiName.values();
+    private static final byte[][] API_NAME_BYTES = new byte[API_NAMES.length][];
+
+    static {
+        for (int ordinal = 0; ordinal < API_NAMES.length; ordinal++) {
+            API_NAME_BYTES[ordinal] = API_NAMES[ordinal].name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final RateLimiterRegistry rateLimiter;
+    private final RequestPriorityResolver priorityResolver;
+    private final InetSocketAddress address;
+    private final int maxConnections;
+    private final int maxDescriptors;
+    private final int maxFrameBytes;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder descriptors = new LongAdder();
+    private final LongAdder protocolErrors = new LongAdder();
+    private final LongAdder rejectedConnections = new LongAdder();
+    private volatile boolean running;
+    private ServerSocketChannel serverChannel;
+
+    @Autowired
+    public DecisionServer(RateLimiterRegistry rateLimiter, RequestPriorityResolver priorityResolver,
+                          RateLimiterProperties properties) {
+        this(rateLimiter, priorityResolver, address(properties.getDecisionService()), properties.getDecisionService().getMaxConnections(),
+                properties.getDecisionService().getMaxDescriptors());
+    }
+
+    public DecisionServer(RateLimiterRegistry rateLimiter, RequestPriorityResolver priorityResolver, InetSocketAddress address,
+                          int maxConnections, int maxDescriptors) {
+        if (maxConnections <= 0 || maxDescriptors <= 0 || maxDescriptors > 0xFFFF) {
+            throw new IllegalArgumentException("Invalid decision service settings: max connections " + maxConnections
+                    + ", max descriptors " + maxDescriptors);
+        }
+        this.rateLimiter = rateLimiter;
+        this.priorityResolver = priorityResolver;
+        this.address = address;
+        this.maxConnections = maxConnections;
+        this.maxDescriptors = maxDescriptors;
+        this.maxFrameBytes = FRAME_HEADER_BYTES - 4 + maxDescriptors * MAX_DESCRIPTOR_BYTES;
+    }
+
+
+    @PostConstruct
+    public synchronized void start() throws IOException {
+        if (serverChannel != null) {
+            throw new IllegalStateException("Decision server already started");
+        }
+        serverChannel = ServerSocketChannel.open().bind(address);
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "decision-server-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Serving rate limit decisions on {}", serverChannel.getLocalAddress());
+    }
+
+    @PreDestroy
+    @Override
+    public synchronized void close() throws IOException {
+        running = false;
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        // unblocks the connection threads
+        for (SocketChannel connection : connections) {
+            connection.close();
+        }
+    }
+
+    // the port actually bound, the configured one may be 0
+    public int localPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getDescriptors() {
+        return descriptors.sum();
+    }
+
+    public long getProtocolErrors() {
+        return protocolErrors.sum();
+    }
+
+    public long getRejectedConnections() {
+        return rejectedConnections.sum();
+    }
+
+
+    private void acceptLoop() {
+        while (running) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Decision server could not accept a connection: {}", e.getMessage());
+                continue;
+            }
+            if (connectionCount.incrementAndGet() > maxConnections) {
+                connectionCount.decrementAndGet();
+                rejectedConnections.increment();
+                closeQuietly(channel);
+                continue;
+            }
+            connections.add(channel);
+            Thread connection = new Thread(() -> serve(channel), "decision-server-connection");
+            connection.setDaemon(true);
+            connection.start();
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            new Connection(channel).serve();
+        } catch (ProtocolException e) {
+            protocolErrors.increment();
+            log.debug("Closing decision service connection {}: {}", channel, e.getMessage());
+        } catch (IOException e) {
+            if (running) {
+                log.debug("Decision service connection {} failed: {}", channel, e.getMessage());
+            }
+        } finally {
+            connections.remove(channel);
+            connectionCount.decrementAndGet();
+            closeQuietly(channel);
+        }
+    }
+
+    private static InetSocketAddress address(RateLimiterProperties.DecisionService decisionService) {
+        String host = decisionService.getAddress();
+        return host == null || host.isBlank()
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), decisionService.getPort())
+                : new InetSocketAddress(host, decisionService.getPort());
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing left to release
+        }
+    }
+
+
+    // buffers of one connection, only touched by its thread
+    private final class Connection {
+        private final SocketChannel channel;
+        // unread bytes between position and limit
+        private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER_BYTES).flip();
+        private final ByteBuffer out;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.out = ByteBuffer.allocate(Math.max(INITIAL_BUFFER_BYTES, FRAME_HEADER_BYTES + maxDescriptors * STATUS_BYTES));
+        }
+
+        private void serve() throws IOException {
+            if (!buffer(6)) {
+                return;
+            }
+            if (in.getInt() != MAGIC || in.getShort() != VERSION) {
+                throw new ProtocolException("not a decision service client of version " + VERSION);
+            }
+            out.putInt(MAGIC).putShort(VERSION).putInt(maxDescriptors);
+            flush();
+
+            while (buffer(4)) {
+                int frameBytes = in.getInt(in.position());
+                if (frameBytes < FRAME_HEADER_BYTES - 4 || frameBytes > maxFrameBytes) {
+                    throw new ProtocolException("frame of " + frameBytes + " bytes");
+                }
+                if (!buffer(4 + frameBytes)) {
+                    return;
+                }
+                in.position(in.position() + 4);
+                decide(in.position() + frameBytes);
+                // answered at once unless the next request is already waiting
+                if (in.remaining() < 4 || in.remaining() < 4 + in.getInt(in.position())) {
+                    flush();
+                }
+            }
+        }
+
+        private void decide(int end) throws IOException {
+            int limit = in.limit();
+            in.limit(end);
+            try {
+                int requestId = in.getInt();
+                int count = in.getShort() & 0xFFFF;
+                if (count > maxDescriptors) {
+                    throw new ProtocolException(count + " descriptors in one request");
+                }
+                if (out.remaining() < FRAME_HEADER_BYTES + count * STATUS_BYTES) {
+                    flush();
+                }
+                int frameStart = out.position();
+                out.putInt(0).putInt(requestId).putShort((short) count);
+                for (int descriptor = 0; descriptor < count; descriptor++) {
+                    decideDescriptor();
+                }
+                if (in.hasRemaining()) {
+                    throw new ProtocolException("trailing bytes after the descriptors");
+                }
+                out.putInt(frameStart, out.position() - frameStart - 4);
+                requests.increment();
+                descriptors.add(count);
+            } catch (BufferUnderflowException e) {
+                throw new ProtocolException("descriptors run past the frame");
+            } finally {
+                in.limit(limit);
+            }
+        }
+
+        private void decideDescriptor() {
+            ApiName apiName = apiName(in.get() & 0xFF);
+            int clientKeyBytes = in.getShort();
+            String clientKey = null;
+            if (clientKeyBytes >= 0) {
+                int start = skip(clientKeyBytes);
+                clientKey = new String(in.array(), in.arrayOffset() + start, clientKeyBytes, StandardCharsets.UTF_8);
+            }
+            int permits = in.getInt();
+
+            if (apiName == null) {
+                out.put(UNKNOWN_API).putLong(-1).putInt(0);
+                return;
+            }
+            if (permits <= 0 || clientKeyBytes < -1 || clientKeyBytes > MAX_CLIENT_KEY_BYTES) {
+                out.put(INVALID).putLong(-1).putInt(0);
+                return;
+            }
+            // no header over this protocol, the client key alone picks the priority
+            RequestPriority priority = priorityResolver.resolve(clientKey, null);
+            boolean acquired = rateLimiter.tryAcquire(apiName, clientKey, permits, priority);
+            long remaining = rateLimiter.fetchRemainingPermits(apiName, clientKey);
+            if (acquired) {
+                out.put(OK).putLong(remaining).putInt(0);
+            } else {
+                long retryAfterMillis = rateLimiter.fetchRetryAfterMillis(apiName, clientKey);
+                out.put(OVER_LIMIT).putLong(remaining).putInt((int) Math.min(Integer.MAX_VALUE, retryAfterMillis));
+            }
+        }
+
+        // matched against the bytes in place, an unknown name is skipped
+        private ApiName apiName(int length) {
+            int start = in.arrayOffset() + skip(length);
+            for (int ordinal = 0; ordinal < API_NAME_BYTES.length; ordinal++) {
+                byte[] name = API_NAME_BYTES[ordinal];
+                if (Arrays.equals(in.array(), start, start + length, name, 0, name.length)) {
+                    return API_NAMES[ordinal];
+                }
+            }
+            return null;
+        }
+
+        // moves past the bytes, returns where they start
+        private int skip(int bytes) {
+            if (bytes > in.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            int start = in.position();
+            in.position(start + bytes);
+            return start;
+        }
+
+        // reads until at least the given number of unread bytes are buffered, false once the client hung up
+        private boolean buffer(int bytes) throws IOException {
+            if (in.remaining() >= bytes) {
+                return true;
+            }
+            if (in.capacity() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(bytes, in.capacity() * 2));
+                larger.put(in).flip();
+                in = larger;
+            }
+            in.compact();
+            try {
+                while (in.position() < bytes) {
+                    if (channel.read(in) < 0) {
+                        return false;
+                    }
+                }
+            } finally {
+                in.flip();
+            }
+            return true;
+        }
+
+        private void flush() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            out.clear();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+
+/**
+ * {@link RateLimiter} engine that may have to wait on a remote backend before it can decide. The async variant
+ * never blocks the caller, decisions made without waiting are answered with the shared {@link #ALLOWED} and
+ * {@link #THROTTLED} stages, so they do not allocate either.
+ */
+public interface AsyncRateLimiter extends RateLimiter {
+
+    // minimal stages, they can not be completed or obtruded by callers
+    CompletionStage<Boolean> ALLOWED = CompletableFuture.completedStage(Boolean.FALSE);
+    CompletionStage<Boolean> THROTTLED = CompletableFuture.completedStage(Boolean.TRUE);
+
+    /**
+     * Async counterpart of {@link #tryAcquire(ApiName, long)}, all or nothing.
+     *
+     * @return stage completing with true when the request should be throttled
+     */
+    CompletionStage<Boolean> shouldThrottleRequestAsync(ApiName apiName, long permits);
+
+    default CompletionStage<Boolean> shouldThrottleRequestAsync(ApiName apiName) {
+        return shouldThrottleRequestAsync(apiName, 1);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import com.example.ratelimiter.service.ratelimiters.clock.WindowBoundaries;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Fixed window counter rate limiter keyed by {@link ApiName#ordinal()}.
+ * <p>
+ * Every API owns a single atomic slot holding its window number (high 32 bits) and the number of requests
+ * admitted in that window (low 32 bits). A request either bumps the count of the current window or swaps
+ * in a fresh window with a count of its permits, so the window transition needs no separate cleanup and the hot
+ * path neither locks nor allocates. The count is never incremented past the configured limit, limits above
+ * 2^32 - 1 act as that cap.
+ */
+@Component
+public class AtomicFixWindowCounterRateLimiter implements RateLimiter {
+    // 16 longs = 128 bytes, keeps the slots of different APIs on separate cache lines
+    private static final int SLOT_STRIDE = 16;
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+    private final AtomicLongArray windowCounters;
+    private final WindowBoundaries windowBoundaries;
+    private final RateLimitConfigRegistry configRegistry;
+    private final RateLimiterClock clock;
+
+    @Autowired
+    public AtomicFixWindowCounterRateLimiter(RateLimitConfigRegistry configRegistry, RateLimiterClock clock) {
+        this.windowCounters = new AtomicLongArray(ApiName.values().length * SLOT_STRIDE);
+        this.windowBoundaries = new WindowBoundaries(ApiName.values().length);
+        this.configRegistry = configRegistry;
+        this.clock = clock;
+    }
+
+
+    @Override
+    public RateLimiterAlgorithm algorithm() {
+        return RateLimiterAlgorithm.FIXED_WINDOW;
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits) {
+        return tryAcquire(apiName, permits, 0);
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits, long reservedPermits) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return true;
+        }
+
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), configs.windowIntervalMillis(ordinal)) & COUNT_MASK;
+        long maxRequests = Math.min(configs.maxRequestAllowed(ordinal), COUNT_MASK);
+        int index = ordinal * SLOT_STRIDE;
+
+        while (true) {
+            long slot = windowCounters.get(index);
+            long slotWindow = slot >>> 32;
+            long requestReceivedWithinCurrentWindow = 0;
+            long window = currentWindow;
+
+            if (slotWindow == currentWindow) {
+                requestReceivedWithinCurrentWindow = slot & COUNT_MASK;
+            } else if (slotWindow > currentWindow) {
+                // another thread with a later clock reading already moved the window, never roll it back
+                window = slotWindow;
+                requestReceivedWithinCurrentWindow = slot & COUNT_MASK;
+            }
+
+            // compared by what is left, adding a huge permit count to the count could overflow
+            if (permits > maxRequests - requestReceivedWithinCurrentWindow - reservedPermits) {
+                return false;
+            }
+            if (windowCounters.compareAndSet(index, slot, pack(window, requestReceivedWithinCurrentWindow + permits))) {
+                return true;
+            }
+        }
+    }
+
+
+    @Override
+    public long usedPermits(ApiName apiName) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return 0;
+        }
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), configs.windowIntervalMillis(ordinal)) & COUNT_MASK;
+        long slot = windowCounters.get(ordinal * SLOT_STRIDE);
+        return (slot >>> 32) >= currentWindow ? slot & COUNT_MASK : 0;
+    }
+
+    @Override
+    public long windowCounter(ApiName apiName) {
+        long slot = windowCounters.get(apiName.ordinal() * SLOT_STRIDE);
+        return slot == 0 ? -1 : slot;
+    }
+
+    @Override
+    public boolean restoreWindowCounter(ApiName apiName, long windowIntervalMillis, long windowCounter) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal) || configs.windowIntervalMillis(ordinal) != windowIntervalMillis) {
+            return false;
+        }
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), windowIntervalMillis) & COUNT_MASK;
+        if ((windowCounter >>> 32) != currentWindow) {
+            return false;
+        }
+
+        int index = ordinal * SLOT_STRIDE;
+        while (true) {
+            long slot = windowCounters.get(index);
+            // requests admitted since startup stay counted, the snapshot only adds what they do not cover yet
+            if ((slot >>> 32) > currentWindow || ((slot >>> 32) == currentWindow && (slot & COUNT_MASK) >= (windowCounter & COUNT_MASK))) {
+                return true;
+            }
+            if (windowCounters.compareAndSet(index, slot, windowCounter)) {
+                return true;
+            }
+        }
+    }
+
+
+    private static long pack(long window, long count) {
+        return (window << 32) | count;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import com.example.ratelimiter.service.ratelimiters.clock.WindowBoundaries;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Fixed window counters of several windows per api at once, e.g. 10 per second, 500 per minute and 20k per
+ * day, from the main window and the {@code tiers} of its configuration.
+ * <p>
+ * The counters of an api sit back to back in one long array, three longs per tier (interval, window number,
+ * count), guarded by the api's monitor. A decision takes one configuration read and one lock, a first pass rolls
+ * over elapsed windows and checks every tier, a second adds the permits to all of them, so permits are taken
+ * from every tier or from none. The array is only reallocated when the number of tiers is reconfigured.
+ */
+@Component
+public class CompositeFixWindowRateLimiter implements RateLimiter {
+    private static final int SLOT_SIZE = 3;
+
+    private final TierCounters[] tierCounters;
+    private final RateLimitConfigRegistry configRegistry;
+    private final RateLimiterClock clock;
+
+    @Autowired
+    public CompositeFixWindowRateLimiter(RateLimitConfigRegistry configRegistry, RateLimiterClock clock) {
+        this.configRegistry = configRegistry;
+        this.clock = clock;
+        this.tierCounters = new TierCounters[ApiName.values().length];
+        for (int ordinal = 0; ordinal < tierCounters.length; ordinal++) {
+            tierCounters[ordinal] = new TierCounters();
+        }
+    }
+
+
+    @Override
+    public RateLimiterAlgorithm algorithm() {
+        return RateLimiterAlgorithm.COMPOSITE_FIXED_WINDOW;
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits) {
+        return tryAcquire(apiName, permits, 0);
+    }
+
+    /**
+     * The reserve is given in permits of the main window and held back from every tier in proportion to its limit.
+     */
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits, long reservedPermits) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return true;
+        }
+
+        int tierOffset = configs.tierOffset(ordinal);
+        int tierCount = configs.tierCount(ordinal);
+        long mainMaxRequests = configs.tierMaxRequests(tierOffset);
+        long now = clock.currentTimeMillis();
+        TierCounters counters = tierCounters[ordinal];
+
+        synchronized (counters) {
+            if (counters.slots.length != tierCount * SLOT_SIZE) {
+                counters.resize(tierCount);
+            }
+            long[] slots = counters.slots;
+
+            for (int tier = 0; tier < tierCount; tier++) {
+                long intervalMillis = configs.tierWindowMillis(tierOffset + tier);
+                long maxRequests = configs.tierMaxRequests(tierOffset + tier);
+                long window = counters.windowBoundaries.windowOf(tier, now, intervalMillis);
+                int slot = tier * SLOT_SIZE;
+                // a retuned interval or an elapsed window starts the tier over, a stale clock reading never does
+                if (slots[slot] != intervalMillis || slots[slot + 1] < window) {
+                    slots[slot] = intervalMillis;
+                    slots[slot + 1] = window;
+                    slots[slot + 2] = 0;
+                }
+
+                long tierReserve = reservedPermits == 0 || mainMaxRequests <= 0
+                        ? 0 : (reservedPermits * maxRequests + mainMaxRequests - 1) / mainMaxRequests;
+                if (slots[slot + 2] + permits + tierReserve > maxRequests) {
+                    return false;
+                }
+            }
+            for (int tier = 0; tier < tierCount; tier++) {
+                slots[tier * SLOT_SIZE + 2] += permits;
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * @return permits used in the current window of the main tier
+     */
+    @Override
+    public long usedPermits(ApiName apiName) {
+        return usedPermits(apiName, 0);
+    }
+
+    /**
+     * @return permits used in the current window of the api's tier, 0 being its main window
+     */
+    public long usedPermits(ApiName apiName, int tier) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal) || tier >= configs.tierCount(ordinal)) {
+            return 0;
+        }
+        long intervalMillis = configs.tierWindowMillis(configs.tierOffset(ordinal) + tier);
+        long window = clock.currentTimeMillis() / intervalMillis;
+        TierCounters counters = tierCounters[ordinal];
+        synchronized (counters) {
+            int slot = tier * SLOT_SIZE;
+            if (slot >= counters.slots.length || counters.slots[slot] != intervalMillis || counters.slots[slot + 1] < window) {
+                return 0;
+            }
+            return counters.slots[slot + 2];
+        }
+    }
+
+
+    /**
+     * @return millis until the current window ends of the tiers that are used up, the latest of them, or of the
+     * most used tier when none is, e.g. after a rejection for more permits than were left. -1 when not limited.
+     */
+    @Override
+    public long retryAfterMillis(ApiName apiName) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return -1;
+        }
+        int tierOffset = configs.tierOffset(ordinal);
+        long now = clock.currentTimeMillis();
+        long usedUpMillis = 0;
+        long mostUsedMillis = -1;
+        double mostUsed = -1;
+        TierCounters counters = tierCounters[ordinal];
+        synchronized (counters) {
+            for (int tier = 0; tier < configs.tierCount(ordinal); tier++) {
+                long intervalMillis = configs.tierWindowMillis(tierOffset + tier);
+                long maxRequests = configs.tierMaxRequests(tierOffset + tier);
+                int slot = tier * SLOT_SIZE;
+                long window = now / intervalMillis;
+                long count = slot < counters.slots.length && counters.slots[slot] == intervalMillis
+                        && counters.slots[slot + 1] >= window ? counters.slots[slot + 2] : 0;
+                long untilEndMillis = (window + 1) * intervalMillis - now;
+                double used = maxRequests > 0 ? (double) count / maxRequests : 1;
+                if (used >= 1) {
+                    usedUpMillis = Math.max(usedUpMillis, untilEndMillis);
+                } else if (used > mostUsed) {
+                    mostUsed = used;
+                    mostUsedMillis = untilEndMillis;
+                }
+            }
+        }
+        return usedUpMillis > 0 ? usedUpMillis : mostUsedMillis;
+    }
+
+
+    // guarded by its own monitor
+    private static final class TierCounters {
+        private long[] slots = new long[0];
+        private WindowBoundaries windowBoundaries = new WindowBoundaries(0);
+
+        // counters of the tiers kept at the same position carry over, the interval check drops them if it changed
+        private void resize(int tierCount) {
+            long[] resized = new long[tierCount * SLOT_SIZE];
+            System.arraycopy(slots, 0, resized, 0, Math.min(slots.length, resized.length));
+            slots = resized;
+            windowBoundaries = new WindowBoundaries(tierCount);
+        }
+    }
+}
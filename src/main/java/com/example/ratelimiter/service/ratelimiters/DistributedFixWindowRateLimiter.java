@@ -0,0 +1,189 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import com.example.ratelimiter.service.ratelimiters.clock.WindowBoundaries;
+import com.example.ratelimiter.service.ratelimiters.distributed.DistributedCounterBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Fixed window counter rate limiter whose limit holds across all replicas of the service, the window counters live
+ * in a {@link DistributedCounterBackend} shared by every node.
+ * <p>
+ * Requests never wait for the backend. Each node decides against its latest view of the global count plus what it
+ * admitted since, and every sync interval pushes the locally admitted delta of each API in one pipelined batch,
+ * getting the fresh global count back in the same round trip. Replicas can therefore over-admit by at most what
+ * the other nodes admitted within one sync interval. When the backend is unreachable every node keeps enforcing
+ * the limit on its own, so the service degrades to a per node limit instead of failing open or closed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "ratelimiter.distributed", name = "enabled", havingValue = "true")
+public class DistributedFixWindowRateLimiter implements RateLimiter {
+    private final WindowState[] windowStates;
+    private final String[] keyPrefixes;
+    private final WindowBoundaries windowBoundaries;
+    private final RateLimitConfigRegistry configRegistry;
+    private final DistributedCounterBackend backend;
+    private final RateLimiterClock clock;
+    private volatile boolean backendAvailable = true;
+
+    @Autowired
+    public DistributedFixWindowRateLimiter(RateLimitConfigRegistry configRegistry, DistributedCounterBackend backend,
+                                           RateLimiterProperties properties, TaskScheduler taskScheduler, RateLimiterClock clock) {
+        this(configRegistry, backend, properties.getDistributed().getKeyPrefix(), clock);
+        taskScheduler.scheduleWithFixedDelay(this::synchronizeWithBackend, properties.getDistributed().getSyncInterval());
+    }
+
+    DistributedFixWindowRateLimiter(RateLimitConfigRegistry configRegistry, DistributedCounterBackend backend,
+                                    String keyPrefix, RateLimiterClock clock) {
+        this.configRegistry = configRegistry;
+        this.backend = backend;
+        this.clock = clock;
+        this.windowStates = new WindowState[ApiName.values().length];
+        this.keyPrefixes = new String[windowStates.length];
+        this.windowBoundaries = new WindowBoundaries(windowStates.length);
+        for (ApiName apiName : ApiName.values()) {
+            windowStates[apiName.ordinal()] = new WindowState();
+            keyPrefixes[apiName.ordinal()] = keyPrefix + ':' + apiName.name() + ':';
+        }
+    }
+
+
+    @Override
+    public RateLimiterAlgorithm algorithm() {
+        return RateLimiterAlgorithm.DISTRIBUTED_FIXED_WINDOW;
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return true;
+        }
+
+        long windowIntervalMillis = configs.windowIntervalMillis(ordinal);
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), windowIntervalMillis);
+        WindowState state = windowStates[ordinal];
+
+        synchronized (state) {
+            // a stale clock reading counts against the latest window, it never rolls the window back
+            if (state.windowIntervalMillis != windowIntervalMillis || state.window < currentWindow) {
+                state.reset(windowIntervalMillis, currentWindow);
+            }
+            if (state.globalCount + state.inFlight + state.pending + permits > configs.maxRequestAllowed(ordinal)) {
+                return false;
+            }
+            // a weighted request is one local decision and travels in the next sync like any other delta
+            state.pending += permits;
+            return true;
+        }
+    }
+
+    @Override
+    public long usedPermits(ApiName apiName) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return 0;
+        }
+        long windowIntervalMillis = configs.windowIntervalMillis(ordinal);
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), windowIntervalMillis);
+        WindowState state = windowStates[ordinal];
+
+        synchronized (state) {
+            boolean live = state.windowIntervalMillis == windowIntervalMillis && state.window >= currentWindow;
+            return live ? state.globalCount + state.inFlight + state.pending : 0;
+        }
+    }
+
+    /**
+     * Pushes the requests admitted since the last call and refreshes the global count of every API with a live
+     * window. Runs on the scheduler, all APIs share the backend's next pipelined batch.
+     */
+    void synchronizeWithBackend() {
+        long now = clock.currentTimeMillis();
+        for (int ordinal = 0; ordinal < windowStates.length; ordinal++) {
+            WindowState state = windowStates[ordinal];
+            long windowIntervalMillis;
+            long window;
+            long delta;
+            long expireAtMillis;
+
+            synchronized (state) {
+                if (state.window < 0 || (state.pending == 0 && now / state.windowIntervalMillis != state.window)) {
+                    continue;
+                }
+                windowIntervalMillis = state.windowIntervalMillis;
+                window = state.window;
+                delta = state.pending;
+                state.inFlight += delta;
+                state.pending = 0;
+                // one window of slack keeps the counter alive for nodes whose clocks run behind
+                expireAtMillis = state.expirySent ? 0 : (window + 2) * windowIntervalMillis;
+                state.expirySent = true;
+            }
+
+            String key = keyPrefixes[ordinal] + windowIntervalMillis + ':' + window;
+            backend.addAndGet(key, delta, expireAtMillis).whenComplete((globalCount, failure) ->
+                    onSynchronized(state, windowIntervalMillis, window, delta, expireAtMillis > 0, globalCount, failure));
+        }
+    }
+
+
+    private void onSynchronized(WindowState state, long windowIntervalMillis, long window, long delta,
+                                boolean carriedExpiry, Long globalCount, Throwable failure) {
+        synchronized (state) {
+            if (state.windowIntervalMillis == windowIntervalMillis && state.window == window) {
+                state.inFlight -= delta;
+                if (failure == null) {
+                    state.globalCount = Math.max(state.globalCount, globalCount);
+                } else {
+                    // retried with the next sync, a lost reply of an applied INCRBY only makes the view stricter
+                    state.pending += delta;
+                    state.expirySent &= !carriedExpiry;
+                }
+            }
+        }
+
+        if (failure != null && backendAvailable) {
+            backendAvailable = false;
+            log.warn("Distributed rate limit backend unavailable, enforcing limits per node: {}", failure.getMessage());
+        } else if (failure == null && !backendAvailable) {
+            backendAvailable = true;
+            log.info("Distributed rate limit backend available again");
+        }
+    }
+
+
+    private static final class WindowState {
+        private long windowIntervalMillis;
+        private long window = -1;
+        // last global count returned by the backend, includes every acknowledged delta of this node
+        private long globalCount;
+        // admitted locally and sent, not acknowledged yet
+        private long inFlight;
+        // admitted locally, not sent yet
+        private long pending;
+        private boolean expirySent;
+
+        private void reset(long windowIntervalMillis, long window) {
+            this.windowIntervalMillis = windowIntervalMillis;
+            this.window = window;
+            this.globalCount = 0;
+            this.inFlight = 0;
+            this.pending = 0;
+            this.expirySent = false;
+        }
+    }
+}
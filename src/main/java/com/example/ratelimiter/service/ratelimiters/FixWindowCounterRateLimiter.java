@@ -2,7 +2,7 @@ package com.example.ratelimiter.service.ratelimiters;
 
 import com.example.ratelimiter.configurations.ratelimiter.FixWindowRateLimiterConfigs;
 import com.example.ratelimiter.domain.enums.ApiName;
-import org.springframework.scheduling.annotation.Async;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
 import org.springframework.stereotype.Component;
 
 import java.util.EnumMap;
@@ -15,11 +15,13 @@ import java.util.Map;
 @Component
 public class FixWindowCounterRateLimiter {
     private static Map<String, Long> rateLimitCounterMap;
-    private static EnumMap<ApiName, String> bucketRegistryMap;
+    private static EnumMap<ApiName, Bucket> bucketRegistryMap;
+    private final RateLimiterClock clock;
 
-    public FixWindowCounterRateLimiter() {
+    public FixWindowCounterRateLimiter(RateLimiterClock clock) {
         this.rateLimitCounterMap = new HashMap<>();
         this.bucketRegistryMap = new EnumMap<>(ApiName.class);
+        this.clock = clock;
     }
 
 
@@ -36,42 +38,53 @@ public class FixWindowCounterRateLimiter {
 
         long windowInterval = rateLimitConfigs.get(0);
         long maxRequestAllowed = rateLimitConfigs.get(1);
-        String currentBucketNumber = getBucketKey(windowInterval);
-        String key = getApiUniqueKey(apiName, currentBucketNumber);
-        long requestReceivedWithinCurrentWindow = rateLimitCounterMap.getOrDefault(key, 0L);
+        long currentTimeMillis = clock.currentTimeMillis();
+        Bucket currentBucket = bucketRegistryMap.get(apiName);
 
-        if (isNewWindowStarted(apiName, currentBucketNumber)) {
-            handleNewWindowTransition(apiName, currentBucketNumber);
+        if (isNewWindowStarted(currentBucket, currentTimeMillis)) {
+            currentBucket = handleNewWindowTransition(apiName, windowInterval, currentTimeMillis);
         }
+        long requestReceivedWithinCurrentWindow = rateLimitCounterMap.getOrDefault(currentBucket.key, 0L);
 
         // update the request counter for currently running window
-        rateLimitCounterMap.put(key, requestReceivedWithinCurrentWindow + 1);
+        rateLimitCounterMap.put(currentBucket.key, requestReceivedWithinCurrentWindow + 1);
 
         return requestReceivedWithinCurrentWindow >= maxRequestAllowed;
     }
 
 
-    private String getBucketKey(long windowInterval) {
-        long bucketNumber = System.currentTimeMillis() / (windowInterval * 1000);
-        return Long.toString(bucketNumber);
+    private String getApiUniqueKey(ApiName apiName, long bucketNumber) {
+        return "RATE_LIMIT::" + apiName.name() + "::" + bucketNumber;
     }
 
-    private String getApiUniqueKey(ApiName apiName, String currentBucketNumber) {
-        return "RATE_LIMIT::" + apiName.name() + "::" + currentBucketNumber;
+    // the end of the current bucket is computed once per window, so this is a single comparison per request
+    private boolean isNewWindowStarted(Bucket currentBucket, long currentTimeMillis) {
+        return currentBucket == null || currentTimeMillis >= currentBucket.endMillis;
     }
 
-    private boolean isNewWindowStarted(ApiName apiName, String currentBucketNumber) {
-        return !currentBucketNumber.equals(bucketRegistryMap.get(apiName));
-    }
-
-    @Async
-    private void handleNewWindowTransition(ApiName apiName, String newBucketNumber) {
+    private Bucket handleNewWindowTransition(ApiName apiName, long windowInterval, long currentTimeMillis) {
         // clean old bucket from rateLimitCounterMap if present
-        if (bucketRegistryMap.containsKey(apiName)) {
-            rateLimitCounterMap.remove(getApiUniqueKey(apiName, bucketRegistryMap.get(apiName)));
+        Bucket oldBucket = bucketRegistryMap.get(apiName);
+        if (oldBucket != null) {
+            rateLimitCounterMap.remove(oldBucket.key);
         }
 
         // update new bucket number within bucketRegistryMap
-        bucketRegistryMap.put(apiName, newBucketNumber);
+        long windowIntervalMillis = windowInterval * 1000;
+        long bucketNumber = currentTimeMillis / windowIntervalMillis;
+        Bucket newBucket = new Bucket((bucketNumber + 1) * windowIntervalMillis, getApiUniqueKey(apiName, bucketNumber));
+        bucketRegistryMap.put(apiName, newBucket);
+        return newBucket;
+    }
+
+
+    private static final class Bucket {
+        private final long endMillis;
+        private final String key;
+
+        private Bucket(long endMillis, String key) {
+            this.endMillis = endMillis;
+            this.key = key;
+        }
     }
 }
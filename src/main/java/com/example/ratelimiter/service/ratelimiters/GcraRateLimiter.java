@@ -0,0 +1,104 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Generic cell rate algorithm, the token bucket expressed as a single theoretical arrival time (TAT) per API.
+ * <p>
+ * Requests are spaced by an emission interval of window / max requests, and a burst of up to max requests is
+ * tolerated. As the whole state is one long, a decision is a single CAS on the API's slot.
+ * Times are kept in nanoseconds so short emission intervals do not get rounded away, and the interval is at least
+ * one nanosecond, so a limit above a billion requests per second still limits rather than admitting everything.
+ */
+@Component
+public class GcraRateLimiter implements RateLimiter {
+    // 16 longs = 128 bytes, keeps the slots of different APIs on separate cache lines
+    private static final int SLOT_STRIDE = 16;
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    private final AtomicLongArray theoreticalArrivalTimes;
+    private final RateLimitConfigRegistry configRegistry;
+    private final RateLimiterClock clock;
+
+    @Autowired
+    public GcraRateLimiter(RateLimitConfigRegistry configRegistry, RateLimiterClock clock) {
+        this.theoreticalArrivalTimes = new AtomicLongArray(ApiName.values().length * SLOT_STRIDE);
+        this.configRegistry = configRegistry;
+        this.clock = clock;
+    }
+
+
+    @Override
+    public RateLimiterAlgorithm algorithm() {
+        return RateLimiterAlgorithm.GCRA;
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits) {
+        return tryAcquire(apiName, permits, 0);
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits, long reservedPermits) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return true;
+        }
+        long maxRequests = configs.maxRequestAllowed(ordinal);
+        if (permits + reservedPermits > maxRequests) {
+            return false;
+        }
+
+        long now = clock.currentTimeMillis() * NANOS_PER_MILLI;
+        long emissionInterval = emissionInterval(configs, ordinal, maxRequests);
+        // reserved permits shorten the burst, the reserve is the last part of the bucket to be drained
+        long burstTolerance = emissionInterval * (maxRequests - 1 - reservedPermits);
+        int index = ordinal * SLOT_STRIDE;
+
+        while (true) {
+            long theoreticalArrivalTime = theoreticalArrivalTimes.get(index);
+            long admissionTime = Math.max(theoreticalArrivalTime, now);
+
+            // n permits are n requests arriving back to back, the last of them has to fit the burst tolerance
+            if (admissionTime + (permits - 1) * emissionInterval - now > burstTolerance) {
+                return false;
+            }
+            if (theoreticalArrivalTimes.compareAndSet(index, theoreticalArrivalTime, admissionTime + permits * emissionInterval)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public long usedPermits(ApiName apiName) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return 0;
+        }
+        long maxRequests = configs.maxRequestAllowed(ordinal);
+        if (maxRequests <= 0) {
+            return 0;
+        }
+        // every admitted request pushes the theoretical arrival time one emission interval ahead of now
+        long now = clock.currentTimeMillis() * NANOS_PER_MILLI;
+        long emissionInterval = emissionInterval(configs, ordinal, maxRequests);
+        long backlog = theoreticalArrivalTimes.get(ordinal * SLOT_STRIDE) - now;
+        return backlog <= 0 ? 0 : Math.min(maxRequests, (backlog + emissionInterval - 1) / emissionInterval);
+    }
+
+
+    private static long emissionInterval(RateLimitConfigSnapshot configs, int ordinal, long maxRequests) {
+        return Math.max(1, configs.windowIntervalMillis(ordinal) * NANOS_PER_MILLI / maxRequests);
+    }
+}
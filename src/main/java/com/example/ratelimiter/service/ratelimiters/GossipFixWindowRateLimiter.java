@@ -0,0 +1,255 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import com.example.ratelimiter.service.ratelimiters.clock.WindowBoundaries;
+import com.example.ratelimiter.service.ratelimiters.gossip.GossipTransport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+
+/**
+ * Fixed window counter rate limiter whose limit holds across all members of a gossip cluster without any shared
+ * store, for deployments that can not rely on one.
+ * <p>
+ * The count of every api's window is a grow-only counter (G-counter) CRDT: one slot per member, each member only
+ * ever raises its own slot, and merging takes the maximum of every slot, so members converge on the same total
+ * whatever order, or how often, their updates arrive in. Permits are never handed back, no decrementing half
+ * (PN-counter) is needed. Requests never wait: a member admits against the merged total it knows of, and every
+ * gossip interval sends its own slots that changed to every other member through the {@link GossipTransport},
+ * all of its live slots every {@value #FULL_STATE_ROUNDS} rounds to repair lost datagrams.
+ * <p>
+ * Members can therefore over-admit by what the others admitted since their last datagram arrived, see
+ * {@link #overAdmissionBound}. A member cut off from the others keeps enforcing the limit on its own.
+ * Only the api wide limit is gossiped, per client limits stay per member.
+ */
+@Component
+@ConditionalOnProperty(prefix = "ratelimiter.gossip", name = "enabled", havingValue = "true")
+public class GossipFixWindowRateLimiter implements RateLimiter {
+    // every this many rounds a member also sends the slots that did not change
+    static final int FULL_STATE_ROUNDS = 10;
+
+    private final WindowState[] windowStates;
+    private final WindowBoundaries windowBoundaries;
+    private final RateLimitConfigRegistry configRegistry;
+    private final GossipTransport transport;
+    private final RateLimiterClock clock;
+    private final int self;
+    private final long gossipIntervalMillis;
+    // api ordinal, window interval, window and count of every entry of the next round, only used by the gossip task
+    private final long[] entries;
+    private long round;
+
+    @Autowired
+    public GossipFixWindowRateLimiter(RateLimitConfigRegistry configRegistry, GossipTransport transport,
+                                      RateLimiterProperties properties, TaskScheduler taskScheduler, RateLimiterClock clock) {
+        this(configRegistry, transport, properties.getGossip().getInterval(), clock);
+        taskScheduler.scheduleWithFixedDelay(this::gossip, properties.getGossip().getInterval());
+    }
+
+    GossipFixWindowRateLimiter(RateLimitConfigRegistry configRegistry, GossipTransport transport,
+                               Duration gossipInterval, RateLimiterClock clock) {
+        this.configRegistry = configRegistry;
+        this.transport = transport;
+        this.clock = clock;
+        this.self = transport.nodeIndex();
+        this.gossipIntervalMillis = Math.max(1, gossipInterval.toMillis());
+        this.windowStates = new WindowState[ApiName.values().length];
+        this.windowBoundaries = new WindowBoundaries(windowStates.length);
+        for (int ordinal = 0; ordinal < windowStates.length; ordinal++) {
+            windowStates[ordinal] = new WindowState(transport.memberCount());
+        }
+        this.entries = new long[windowStates.length * 4];
+        transport.start(this::merge);
+    }
+
+
+    @Override
+    public RateLimiterAlgorithm algorithm() {
+        return RateLimiterAlgorithm.GOSSIP_FIXED_WINDOW;
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits) {
+        return tryAcquire(apiName, permits, 0);
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits, long reservedPermits) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return true;
+        }
+
+        long windowIntervalMillis = configs.windowIntervalMillis(ordinal);
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), windowIntervalMillis);
+        WindowState state = windowStates[ordinal];
+
+        synchronized (state) {
+            // a stale clock reading counts against the latest window, it never rolls the window back
+            if (state.windowIntervalMillis != windowIntervalMillis || state.window < currentWindow) {
+                state.reset(windowIntervalMillis, currentWindow);
+            }
+            if (state.total + permits + reservedPermits > configs.maxRequestAllowed(ordinal)) {
+                return false;
+            }
+            state.counts[self] += permits;
+            state.total += permits;
+            return true;
+        }
+    }
+
+    @Override
+    public long usedPermits(ApiName apiName) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return 0;
+        }
+        long windowIntervalMillis = configs.windowIntervalMillis(ordinal);
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), windowIntervalMillis);
+        WindowState state = windowStates[ordinal];
+
+        synchronized (state) {
+            boolean live = state.windowIntervalMillis == windowIntervalMillis && state.window >= currentWindow;
+            return live ? state.total : 0;
+        }
+    }
+
+    /**
+     * @return permits the cluster may admit over the api's limit in its current window, from the rate at which the
+     * other members admitted so far in it, see {@link #overAdmissionBound}. 0 when the api is not rate limited.
+     */
+    public long fetchOverAdmissionBound(ApiName apiName) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return 0;
+        }
+        long now = clock.currentTimeMillis();
+        WindowState state = windowStates[ordinal];
+        long peakPeerCount = 0;
+        long elapsedMillis;
+        synchronized (state) {
+            if (state.window < 0 || state.windowIntervalMillis != configs.windowIntervalMillis(ordinal)) {
+                return 0;
+            }
+            elapsedMillis = Math.max(gossipIntervalMillis, now - state.window * state.windowIntervalMillis);
+            for (int member = 0; member < state.counts.length; member++) {
+                if (member != self) {
+                    peakPeerCount = Math.max(peakPeerCount, state.counts[member]);
+                }
+            }
+        }
+        return overAdmissionBound(transport.memberCount(), configs.maxRequestAllowed(ordinal),
+                peakPeerCount * 1000.0 / elapsedMillis, Duration.ofMillis(gossipIntervalMillis));
+    }
+
+    /**
+     * Worst case over-admission of a window: a member's admissions reach the others up to one gossip interval
+     * late, so each of the other {@code members - 1} members may admit up to {@code ratePerMember} permits per
+     * second for one interval unseen, and never more than the whole limit. Datagrams that are lost add one interval
+     * each, until the next full state round.
+     *
+     * @param ratePerMember peak rate at which a single member admits, in permits per second
+     */
+    public static long overAdmissionBound(int members, long maxRequests, double ratePerMember, Duration gossipInterval) {
+        if (members <= 1) {
+            return 0;
+        }
+        long perMember = (long) Math.ceil(ratePerMember * gossipInterval.toNanos() / 1e9);
+        return (members - 1) * Math.min(maxRequests, perMember);
+    }
+
+    /**
+     * Sends this member's slots of the live windows to the others, the ones that changed since the last round,
+     * or all of them every {@value #FULL_STATE_ROUNDS} rounds. Runs on the scheduler, one round at a time.
+     */
+    void gossip() {
+        long now = clock.currentTimeMillis();
+        boolean fullState = round++ % FULL_STATE_ROUNDS == 0;
+        int entryCount = 0;
+        for (int ordinal = 0; ordinal < windowStates.length; ordinal++) {
+            WindowState state = windowStates[ordinal];
+            synchronized (state) {
+                // a window that just ended is still sent once, members whose clocks run behind are still in it
+                if (state.window < 0 || state.counts[self] == 0 || now / state.windowIntervalMillis > state.window + 1) {
+                    continue;
+                }
+                if (!fullState && state.counts[self] == state.sentCount) {
+                    continue;
+                }
+                state.sentCount = state.counts[self];
+                entries[entryCount * 4] = ordinal;
+                entries[entryCount * 4 + 1] = state.windowIntervalMillis;
+                entries[entryCount * 4 + 2] = state.window;
+                entries[entryCount * 4 + 3] = state.counts[self];
+            }
+            entryCount++;
+        }
+        if (entryCount > 0) {
+            transport.broadcast(entries, entryCount);
+        }
+    }
+
+    /**
+     * Merges the count a member reported for a window. Counts of another window interval than the current one,
+     * of windows this member moved past, and of windows more than one ahead of this member's clock are dropped,
+     * the next window is taken over. A count is capped at the limit, no member admits more than that on its own.
+     */
+    void merge(int member, int apiOrdinal, long windowIntervalMillis, long window, long count) {
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (member == self || !configs.isRateLimited(apiOrdinal) || configs.windowIntervalMillis(apiOrdinal) != windowIntervalMillis) {
+            return;
+        }
+        // a far ahead clock, or a forged datagram, would otherwise hold every member in a window that never ends
+        if (window > windowBoundaries.windowOf(apiOrdinal, clock.currentTimeMillis(), windowIntervalMillis) + 1) {
+            return;
+        }
+        count = Math.min(count, configs.maxRequestAllowed(apiOrdinal));
+        WindowState state = windowStates[apiOrdinal];
+        synchronized (state) {
+            if (state.windowIntervalMillis != windowIntervalMillis || state.window < window) {
+                // a member whose clock runs ahead moved on first, this one follows instead of rolling it back later
+                state.reset(windowIntervalMillis, window);
+            }
+            if (state.window == window && count > state.counts[member]) {
+                state.total += count - state.counts[member];
+                state.counts[member] = count;
+            }
+        }
+    }
+
+
+    private static final class WindowState {
+        private final long[] counts;
+        private long windowIntervalMillis;
+        private long window = -1;
+        // sum of the counts
+        private long total;
+        // this member's count in the last round that sent it
+        private long sentCount;
+
+        private WindowState(int members) {
+            this.counts = new long[members];
+        }
+
+        private void reset(long windowIntervalMillis, long window) {
+            this.windowIntervalMillis = windowIntervalMillis;
+            this.window = window;
+            this.total = 0;
+            this.sentCount = 0;
+            Arrays.fill(counts, 0);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import com.example.ratelimiter.service.ratelimiters.clock.WindowBoundaries;
+import com.example.ratelimiter.service.ratelimiters.distributed.DistributedCounterBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Fixed window rate limiter that leases blocks of permits from the global budget kept in a
+ * {@link DistributedCounterBackend} and spends them locally.
+ * <p>
+ * The lease of an API is a packed atomic slot (window in the high 32 bits, permits left in the low 32 bits), so
+ * admitting a request is a single CAS decrement. Once a lease runs down to a quarter of its size the next one is
+ * reserved asynchronously, only a node whose lease ran dry waits for the backend, for at most the lease wait.
+ * {@link #shouldThrottleRequestAsync} does that wait without blocking the caller.
+ * Lease sizes follow the request rate of the node (an EWMA, sized to last one lease duration) and are capped at an
+ * eighth of the window's budget so that every node gets a share. Permits left at rollover are handed back.
+ * <p>
+ * The backend only ever hands out the configured limit, so unlike {@link DistributedFixWindowRateLimiter} the
+ * replicas never over-admit, permits still leased to idle nodes are the price. When the backend is unreachable the
+ * node leases the rest of the budget to itself and enforces the limit on its own.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "ratelimiter.distributed", name = "enabled", havingValue = "true")
+public class LeasedFixWindowRateLimiter implements AsyncRateLimiter {
+    // 16 longs = 128 bytes, keeps the leases of different APIs on separate cache lines
+    private static final int SLOT_STRIDE = 16;
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+    private static final long MAX_LEASE_SHARE = 8;
+    private static final double RATE_SMOOTHING = 0.5;
+
+    private final AtomicLongArray leases;
+    private final long[] leaseIntervals;
+    private final long[] prefetchThresholds;
+    private final WindowBoundaries windowBoundaries;
+    private final LeaseState[] leaseStates;
+    private final String[] keyPrefixes;
+    private final RateLimitConfigRegistry configRegistry;
+    private final DistributedCounterBackend backend;
+    private final long leaseDurationMillis;
+    private final long leaseWaitNanos;
+    private final RateLimiterClock clock;
+
+    @Autowired
+    public LeasedFixWindowRateLimiter(RateLimitConfigRegistry configRegistry, DistributedCounterBackend backend,
+                                      RateLimiterProperties properties, RateLimiterClock clock) {
+        this(configRegistry, backend, properties.getDistributed().getKeyPrefix(),
+                properties.getDistributed().getLeaseDuration().toMillis(),
+                properties.getDistributed().getLeaseWait().toMillis(), clock);
+    }
+
+    LeasedFixWindowRateLimiter(RateLimitConfigRegistry configRegistry, DistributedCounterBackend backend, String keyPrefix,
+                               long leaseDurationMillis, long leaseWaitMillis, RateLimiterClock clock) {
+        int apiCount = ApiName.values().length;
+        this.leases = new AtomicLongArray(apiCount * SLOT_STRIDE);
+        this.leaseIntervals = new long[apiCount];
+        this.prefetchThresholds = new long[apiCount];
+        this.windowBoundaries = new WindowBoundaries(apiCount);
+        this.leaseStates = new LeaseState[apiCount];
+        this.keyPrefixes = new String[apiCount];
+        for (ApiName apiName : ApiName.values()) {
+            leaseStates[apiName.ordinal()] = new LeaseState();
+            keyPrefixes[apiName.ordinal()] = keyPrefix + ':' + apiName.name() + ':';
+        }
+        this.configRegistry = configRegistry;
+        this.backend = backend;
+        this.leaseDurationMillis = Math.max(1, leaseDurationMillis);
+        this.leaseWaitNanos = TimeUnit.MILLISECONDS.toNanos(leaseWaitMillis);
+        this.clock = clock;
+    }
+
+
+    @Override
+    public RateLimiterAlgorithm algorithm() {
+        return RateLimiterAlgorithm.LEASED_FIXED_WINDOW;
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return true;
+        }
+        if (permits > configs.maxRequestAllowed(ordinal)) {
+            return false;
+        }
+
+        long windowIntervalMillis = configs.windowIntervalMillis(ordinal);
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), windowIntervalMillis) & COUNT_MASK;
+        if (tryConsumeCurrentLease(ordinal, windowIntervalMillis, currentWindow, permits, configs)) {
+            return true;
+        }
+        return !acquire(ordinal, windowIntervalMillis, currentWindow, permits, configs, System.nanoTime() + leaseWaitNanos)
+                .toCompletableFuture().join();
+    }
+
+    @Override
+    public CompletionStage<Boolean> shouldThrottleRequestAsync(ApiName apiName, long permits) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return ALLOWED;
+        }
+        if (permits > configs.maxRequestAllowed(ordinal)) {
+            return THROTTLED;
+        }
+
+        long windowIntervalMillis = configs.windowIntervalMillis(ordinal);
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), windowIntervalMillis) & COUNT_MASK;
+        if (tryConsumeCurrentLease(ordinal, windowIntervalMillis, currentWindow, permits, configs)) {
+            return ALLOWED;
+        }
+        return acquire(ordinal, windowIntervalMillis, currentWindow, permits, configs, System.nanoTime() + leaseWaitNanos);
+    }
+
+
+    // a lease of a later window (stale clock reading) is spent as well, the window never rolls back
+    private boolean tryConsumeCurrentLease(int ordinal, long windowIntervalMillis, long currentWindow, long permits,
+                                           RateLimitConfigSnapshot configs) {
+        return leaseIntervals[ordinal] == windowIntervalMillis
+                && (leases.get(ordinal * SLOT_STRIDE) >>> 32) >= currentWindow
+                && tryConsume(ordinal, permits, configs);
+    }
+
+    private boolean tryConsume(int ordinal, long permits, RateLimitConfigSnapshot configs) {
+        int index = ordinal * SLOT_STRIDE;
+        while (true) {
+            long slot = leases.get(index);
+            long remaining = slot & COUNT_MASK;
+            if (remaining < permits) {
+                return false;
+            }
+            if (leases.compareAndSet(index, slot, slot - permits)) {
+                // exactly one consumer crosses the threshold of a lease
+                long threshold = prefetchThresholds[ordinal];
+                if (remaining > threshold && remaining - permits <= threshold) {
+                    prefetch(ordinal, slot >>> 32, configs);
+                }
+                return true;
+            }
+        }
+    }
+
+    private CompletionStage<Boolean> acquire(int ordinal, long windowIntervalMillis, long currentWindow, long permits,
+                                             RateLimitConfigSnapshot configs, long deadlineNanos) {
+        LeaseState state = leaseStates[ordinal];
+        CompletableFuture<Void> reservation;
+        synchronized (state) {
+            if (state.windowIntervalMillis != windowIntervalMillis || state.window < currentWindow) {
+                rollover(ordinal, state, windowIntervalMillis, currentWindow);
+            }
+            if (tryConsume(ordinal, permits, configs)) {
+                return ALLOWED;
+            }
+            if (state.exhausted || state.degraded) {
+                return THROTTLED;
+            }
+            reservation = state.reservation != null ? state.reservation : reserve(ordinal, state, permits, configs);
+        }
+
+        long waitNanos = deadlineNanos - System.nanoTime();
+        if (waitNanos <= 0) {
+            return THROTTLED;
+        }
+        // the copy times out on its own, the shared reservation must still complete and apply its lease
+        return reservation.copy()
+                .orTimeout(waitNanos, TimeUnit.NANOSECONDS)
+                .handle((ignored, timeout) -> timeout != null)
+                .thenCompose(timedOut -> timedOut ? THROTTLED
+                        : acquire(ordinal, windowIntervalMillis, currentWindow, permits, configs, deadlineNanos));
+    }
+
+    private void prefetch(int ordinal, long window, RateLimitConfigSnapshot configs) {
+        LeaseState state = leaseStates[ordinal];
+        synchronized (state) {
+            if (state.window == window && state.reservation == null && !state.exhausted && !state.degraded) {
+                reserve(ordinal, state, 1, configs);
+            }
+        }
+    }
+
+    // caller holds the monitor of state
+    private CompletableFuture<Void> reserve(int ordinal, LeaseState state, long permits, RateLimitConfigSnapshot configs) {
+        long now = clock.currentTimeMillis();
+        long maxRequests = configs.maxRequestAllowed(ordinal);
+        observeRequestRate(state, state.reserved - (leases.get(ordinal * SLOT_STRIDE) & COUNT_MASK), now);
+
+        long maxLeaseSize = Math.max(1, maxRequests / MAX_LEASE_SHARE);
+        // a weighted request larger than the usual lease gets a lease of its own size
+        long leaseSize = Math.max(permits,
+                Math.min(maxLeaseSize, Math.max(1, (long) Math.ceil(state.permitsPerMilli * leaseDurationMillis))));
+        prefetchThresholds[ordinal] = leaseSize / 4;
+
+        long windowIntervalMillis = state.windowIntervalMillis;
+        long window = state.window;
+        // one window of slack keeps the counter alive for nodes whose clocks run behind
+        long expireAtMillis = state.expirySent ? 0 : (window + 2) * windowIntervalMillis;
+        state.expirySent = true;
+
+        CompletableFuture<Void> reservation = backend.addAndGet(key(ordinal, windowIntervalMillis, window), leaseSize, expireAtMillis)
+                .handle((globalCount, failure) -> {
+                    onReserved(ordinal, state, windowIntervalMillis, window, leaseSize, maxRequests, globalCount, failure);
+                    return null;
+                });
+        state.reservation = reservation.isDone() ? null : reservation;
+        return reservation;
+    }
+
+    private void onReserved(int ordinal, LeaseState state, long windowIntervalMillis, long window, long leaseSize,
+                            long maxRequests, Long globalCount, Throwable failure) {
+        synchronized (state) {
+            String key = key(ordinal, windowIntervalMillis, window);
+            if (state.windowIntervalMillis != windowIntervalMillis || state.window != window) {
+                // the window rolled over while the lease was on its way, give it back
+                if (failure == null) {
+                    backend.addAndGet(key, -leaseSize, 0);
+                }
+                return;
+            }
+            state.reservation = null;
+
+            long granted;
+            if (failure != null) {
+                log.warn("Could not lease permits from the distributed rate limit backend, enforcing limits per node: {}",
+                        failure.getMessage());
+                state.degraded = true;
+                granted = Math.max(0, maxRequests - state.reserved);
+            } else {
+                granted = Math.max(0, Math.min(leaseSize, leaseSize - (globalCount - maxRequests)));
+                if (granted < leaseSize) {
+                    backend.addAndGet(key, granted - leaseSize, 0);
+                    state.exhausted = true;
+                }
+            }
+            state.reserved += granted;
+            leases.getAndAdd(ordinal * SLOT_STRIDE, granted);
+        }
+    }
+
+    // caller holds the monitor of state
+    private void rollover(int ordinal, LeaseState state, long windowIntervalMillis, long window) {
+        long previous = leases.getAndSet(ordinal * SLOT_STRIDE, window << 32);
+        long unused = (previous >>> 32) == state.window ? previous & COUNT_MASK : 0;
+        long now = clock.currentTimeMillis();
+
+        if (state.window >= 0) {
+            observeRequestRate(state, state.reserved - unused, now);
+            if (unused > 0 && !state.degraded) {
+                backend.addAndGet(key(ordinal, state.windowIntervalMillis, state.window), -unused, 0);
+            }
+        }
+        state.reset(windowIntervalMillis, window);
+        state.lastReservationMillis = now;
+        leaseIntervals[ordinal] = windowIntervalMillis;
+    }
+
+    private static void observeRequestRate(LeaseState state, long consumed, long now) {
+        long elapsed = now - state.lastReservationMillis;
+        if (elapsed > 0) {
+            double permitsPerMilli = (double) (consumed - state.consumedAtLastReservation) / elapsed;
+            state.permitsPerMilli = RATE_SMOOTHING * permitsPerMilli + (1 - RATE_SMOOTHING) * state.permitsPerMilli;
+            state.lastReservationMillis = now;
+        }
+        state.consumedAtLastReservation = consumed;
+    }
+
+    private String key(int ordinal, long windowIntervalMillis, long window) {
+        return keyPrefixes[ordinal] + windowIntervalMillis + ':' + window;
+    }
+
+
+    private static final class LeaseState {
+        private long windowIntervalMillis;
+        private long window = -1;
+        // permits leased to this node within the window
+        private long reserved;
+        private boolean exhausted;
+        private boolean degraded;
+        private boolean expirySent;
+        private CompletableFuture<Void> reservation;
+        // survive rollovers, the lease size adapts to the request rate of the node
+        private double permitsPerMilli;
+        private long lastReservationMillis;
+        private long consumedAtLastReservation;
+
+        private void reset(long windowIntervalMillis, long window) {
+            this.windowIntervalMillis = windowIntervalMillis;
+            this.window = window;
+            this.reserved = 0;
+            this.exhausted = false;
+            this.degraded = false;
+            this.expirySent = false;
+            this.reservation = null;
+            this.consumedAtLastReservation = 0;
+        }
+    }
+}
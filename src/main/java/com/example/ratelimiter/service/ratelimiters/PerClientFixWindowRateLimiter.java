@@ -0,0 +1,269 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.ClientStoreMode;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import com.example.ratelimiter.service.ratelimiters.clock.WindowBoundaries;
+import com.example.ratelimiter.service.ratelimiters.store.BlockedUntilCache;
+import com.example.ratelimiter.service.ratelimiters.store.BoundedCounterStore;
+import com.example.ratelimiter.service.ratelimiters.store.ClientKeys;
+import com.example.ratelimiter.service.ratelimiters.store.CounterStore;
+import com.example.ratelimiter.service.ratelimiters.store.CountMinSketch;
+import com.example.ratelimiter.service.ratelimiters.store.HeavyHitters;
+import com.example.ratelimiter.service.ratelimiters.store.OffHeapCounterStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+
+/**
+ * Fixed window limit per (api, client) pair, configured through the client limits of {@link RateLimitConfigSnapshot},
+ * so a single noisy caller can not use up the api wide budget of everyone else. Counters live in a
+ * {@link BoundedCounterStore}, memory stays bounded no matter how many distinct clients show up, idle clients get evicted.
+ * {@link ClientStoreMode#OFF_HEAP} keeps the same counters in an {@link OffHeapCounterStore} outside the heap.
+ * <p>
+ * In {@link ClientStoreMode#SKETCH} mode the counters are estimated by a {@link CountMinSketch} per api instead,
+ * in fixed memory that does not grow or evict under scraping or a flood of spoofed client ids, at the price of
+ * possibly throttling a client slightly before its limit. The heaviest clients of each window are reported. No
+ * counter store is built in that mode.
+ * <p>
+ * A client that used up its limit is remembered in a {@link BlockedUntilCache} until its window ends, later requests
+ * of that window are rejected without touching the store, and know exactly when the client may retry. The cache
+ * is dropped whenever the configuration changes.
+ */
+@Component
+public class PerClientFixWindowRateLimiter {
+    private static final int DEFAULT_BLOCKED_CLIENTS = 1 << 10;
+
+    // null in SKETCH mode
+    private final CounterStore counterStore;
+    // by api ordinal, null in EXACT and OFF_HEAP mode
+    private final CountMinSketch[] sketches;
+    // null when disabled
+    private final BlockedUntilCache blockedClients;
+    // configuration the blocked clients were rejected under
+    private volatile RateLimitConfigSnapshot blockedUnder;
+    private final WindowBoundaries windowBoundaries;
+    private final RateLimitConfigRegistry configRegistry;
+    private final RateLimiterClock clock;
+
+    @Autowired
+    public PerClientFixWindowRateLimiter(RateLimitConfigRegistry configRegistry, RateLimiterProperties properties,
+                                         RateLimiterClock clock) {
+        this(configRegistry, counterStore(properties.getClientStore()), sketches(properties.getClientStore()),
+                blockedClients(properties.getClientStore()), clock);
+    }
+
+    PerClientFixWindowRateLimiter(RateLimitConfigRegistry configRegistry, CounterStore counterStore,
+                                  RateLimiterClock clock) {
+        this(configRegistry, counterStore, null, clock);
+    }
+
+    PerClientFixWindowRateLimiter(RateLimitConfigRegistry configRegistry, CounterStore counterStore,
+                                  CountMinSketch[] sketches, RateLimiterClock clock) {
+        this(configRegistry, counterStore, sketches, new BlockedUntilCache(DEFAULT_BLOCKED_CLIENTS), clock);
+    }
+
+    PerClientFixWindowRateLimiter(RateLimitConfigRegistry configRegistry, CounterStore counterStore,
+                                  CountMinSketch[] sketches, BlockedUntilCache blockedClients, RateLimiterClock clock) {
+        this.counterStore = counterStore;
+        this.sketches = sketches;
+        this.blockedClients = blockedClients;
+        this.windowBoundaries = new WindowBoundaries(ApiName.values().length);
+        this.configRegistry = configRegistry;
+        this.clock = clock;
+    }
+
+
+    public boolean shouldThrottleRequest(ApiName apiName, CharSequence clientKey) {
+        return shouldThrottleRequest(apiName, clientKey, 1);
+    }
+
+    public boolean shouldThrottleRequest(ApiName apiName, CharSequence clientKey, long permits) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isClientRateLimited(ordinal)) {
+            return false;
+        }
+
+        long clientHash = ClientKeys.hash(clientKey);
+        long key = ClientKeys.of(ordinal, clientHash);
+        long nowMillis = clock.currentTimeMillis();
+        if (blockedClients != null && blockedUnder == configs && blockedClients.blockedUntil(key, nowMillis) != 0) {
+            return true;
+        }
+
+        long intervalMillis = configs.clientWindowIntervalMillis(ordinal);
+        long currentWindow = windowBoundaries.windowOf(ordinal, nowMillis, intervalMillis);
+        boolean acquired = sketches != null
+                ? sketches[ordinal].tryAcquire(clientHash, clientKey, currentWindow, configs.clientMaxRequestAllowed(ordinal), permits)
+                : counterStore.tryAcquire(key, currentWindow, configs.clientMaxRequestAllowed(ordinal), permits);
+        // a single permit only misses once the limit is used up, a larger one may still leave room for smaller ones
+        if (!acquired && permits == 1 && blockedClients != null) {
+            block(configs, key, (currentWindow + 1) * intervalMillis);
+        }
+        return !acquired;
+    }
+
+    /**
+     * Decides for a batch of clients of one api with a single clock read, each store segment is locked once.
+     *
+     * @param permits   permits per client, null for one permit each
+     * @param throttled receives the decision of every client
+     */
+    public void shouldThrottleRequests(ApiName apiName, CharSequence[] clientKeys, long[] permits, boolean[] throttled) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isClientRateLimited(ordinal)) {
+            Arrays.fill(throttled, 0, clientKeys.length, false);
+            return;
+        }
+
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), configs.clientWindowIntervalMillis(ordinal));
+        if (sketches != null) {
+            for (int i = 0; i < clientKeys.length; i++) {
+                throttled[i] = !sketches[ordinal].tryAcquire(ClientKeys.hash(clientKeys[i]), clientKeys[i], currentWindow,
+                        configs.clientMaxRequestAllowed(ordinal), permits == null ? 1 : permits[i]);
+            }
+            return;
+        }
+        long[] keys = new long[clientKeys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ClientKeys.of(apiName, clientKeys[i]);
+        }
+        counterStore.tryAcquireAll(keys, permits, currentWindow, configs.clientMaxRequestAllowed(ordinal), throttled);
+        for (int i = 0; i < keys.length; i++) {
+            throttled[i] = !throttled[i];
+        }
+    }
+
+    /**
+     * Hands back the permits of the clients marked in {@code release}, taken by {@link #shouldThrottleRequests} for
+     * requests another limit rejected after all. Permits of a window that has ended since stay spent, and so do
+     * SKETCH mode estimates, whose conservative updates can not be undone.
+     *
+     * @param permits permits per client, null for one permit each
+     */
+    public void releaseRequests(ApiName apiName, CharSequence[] clientKeys, long[] permits, boolean[] release) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (sketches != null || !configs.isClientRateLimited(ordinal)) {
+            return;
+        }
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), configs.clientWindowIntervalMillis(ordinal));
+        for (int i = 0; i < clientKeys.length; i++) {
+            if (release[i]) {
+                counterStore.release(ClientKeys.of(apiName, clientKeys[i]), currentWindow, permits == null ? 1 : permits[i]);
+            }
+        }
+    }
+
+    /**
+     * @return millis until the client's window ends if it was rejected for using up its limit, 0 otherwise
+     */
+    public long fetchRetryAfterMillis(ApiName apiName, CharSequence clientKey) {
+        if (blockedClients == null || blockedUnder != configRegistry.current()) {
+            return 0;
+        }
+        long nowMillis = clock.currentTimeMillis();
+        long blockedUntil = blockedClients.blockedUntil(ClientKeys.of(apiName, clientKey), nowMillis);
+        return blockedUntil != 0 ? blockedUntil - nowMillis : 0;
+    }
+
+    /**
+     * @return permits the client has left in its current window, an underestimate in SKETCH mode, -1 when the api
+     * has no per client limit
+     */
+    public long fetchRemainingPermits(ApiName apiName, CharSequence clientKey) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isClientRateLimited(ordinal)) {
+            return -1;
+        }
+        long clientHash = ClientKeys.hash(clientKey);
+        long window = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), configs.clientWindowIntervalMillis(ordinal));
+        long used = sketches != null
+                ? sketches[ordinal].estimate(clientHash, window)
+                : counterStore.currentCount(ClientKeys.of(ordinal, clientHash), window);
+        return Math.max(0, configs.clientMaxRequestAllowed(ordinal) - used);
+    }
+
+    // null in SKETCH mode
+    public CounterStore getCounterStore() {
+        return counterStore;
+    }
+
+    // null in EXACT mode
+    public CountMinSketch getSketch(ApiName apiName) {
+        return sketches != null ? sketches[apiName.ordinal()] : null;
+    }
+
+    /**
+     * @return clients with the most requests in the api's current client window, highest first, empty in EXACT mode
+     */
+    public HeavyHitters.HeavyHitter[] fetchHeavyHitters(ApiName apiName) {
+        CountMinSketch sketch = getSketch(apiName);
+        return sketch != null ? sketch.heavyHitters(currentWindow(apiName)) : new HeavyHitters.HeavyHitter[0];
+    }
+
+    /**
+     * @return overestimate of the api's client counts in the current window that holds with probability
+     * 1 - {@link CountMinSketch#delta()}, 0 in EXACT mode, where counts are exact
+     */
+    public long fetchErrorBound(ApiName apiName) {
+        CountMinSketch sketch = getSketch(apiName);
+        return sketch != null ? sketch.errorBound(currentWindow(apiName)) : 0;
+    }
+
+
+    private void block(RateLimitConfigSnapshot configs, long key, long untilMillis) {
+        if (blockedUnder != configs) {
+            // limits may have changed, clients blocked under the previous configuration are decided again
+            synchronized (blockedClients) {
+                if (blockedUnder != configs) {
+                    blockedClients.clear();
+                    blockedUnder = configs;
+                }
+            }
+        }
+        blockedClients.block(key, untilMillis);
+    }
+
+    private long currentWindow(ApiName apiName) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isClientRateLimited(ordinal)) {
+            return -1;
+        }
+        return windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), configs.clientWindowIntervalMillis(ordinal));
+    }
+
+    // sized for maxEntries up front, so only built when the counters are kept exactly
+    private static CounterStore counterStore(RateLimiterProperties.ClientStore clientStore) {
+        return switch (clientStore.getMode()) {
+            case EXACT -> new BoundedCounterStore(clientStore.getMaxEntries(), clientStore.getConcurrencyLevel());
+            case OFF_HEAP -> new OffHeapCounterStore(clientStore.getMaxEntries(), clientStore.getConcurrencyLevel());
+            case SKETCH -> null;
+        };
+    }
+
+    private static BlockedUntilCache blockedClients(RateLimiterProperties.ClientStore clientStore) {
+        return clientStore.getBlockedClients() > 0 ? new BlockedUntilCache(clientStore.getBlockedClients()) : null;
+    }
+
+    private static CountMinSketch[] sketches(RateLimiterProperties.ClientStore clientStore) {
+        if (clientStore.getMode() != ClientStoreMode.SKETCH) {
+            return null;
+        }
+        CountMinSketch[] sketches = new CountMinSketch[ApiName.values().length];
+        for (int ordinal = 0; ordinal < sketches.length; ordinal++) {
+            sketches[ordinal] = new CountMinSketch(clientStore.getSketchWidth(), clientStore.getSketchDepth(),
+                    clientStore.getHeavyHitters());
+        }
+        return sketches;
+    }
+}
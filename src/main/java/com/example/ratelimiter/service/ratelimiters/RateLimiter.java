@@ -0,0 +1,70 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+
+
+/**
+ * Rate limiting engine, {@link RateLimiterRegistry} picks one implementation per {@link ApiName}.
+ * Implementations must be thread-safe and must not allocate while admitting a request.
+ */
+public interface RateLimiter {
+
+    RateLimiterAlgorithm algorithm();
+
+    /**
+     * Takes {@code permits} permits of the api at once, all or nothing, so a batched request can weigh as much as
+     * the items it carries. Callers pass at least one permit.
+     *
+     * @return true if the permits were granted, false if the request should be throttled
+     */
+    boolean tryAcquire(ApiName apiName, long permits);
+
+    /**
+     * Like {@link #tryAcquire(ApiName, long)}, but leaves the last {@code reservedPermits} of the limit untaken,
+     * held back for requests of a higher {@link com.example.ratelimiter.domain.enums.RequestPriority}.
+     * Engines that cannot hold permits back ignore the reserve, {@link RateLimiterRegistry} then checks
+     * {@link #usedPermits} before asking them, which concurrent requests may slip past.
+     */
+    default boolean tryAcquire(ApiName apiName, long permits, long reservedPermits) {
+        return tryAcquire(apiName, permits);
+    }
+
+    default boolean shouldThrottleRequest(ApiName apiName) {
+        return !tryAcquire(apiName, 1);
+    }
+
+    /**
+     * @return permits of the api used up against its limit right now, -1 when the engine does not keep track.
+     * Read without side effects, meant for metrics rather than for decisions.
+     */
+    default long usedPermits(ApiName apiName) {
+        return -1;
+    }
+
+    /**
+     * @return millis until the engine expects to admit the api's requests again after a rejection, -1 when it
+     * cannot tell better than the api's longest window. Read without side effects.
+     */
+    default long retryAfterMillis(ApiName apiName) {
+        return -1;
+    }
+
+    /**
+     * @return window number (high 32 bits) and permits used in it (low 32 bits) of the api, written to counter
+     * snapshots, -1 when the engine keeps no such counter
+     */
+    default long windowCounter(ApiName apiName) {
+        return -1;
+    }
+
+    /**
+     * Restores a {@link #windowCounter} read back from a snapshot taken under {@code windowIntervalMillis}.
+     * Engines drop counters whose window is of no use any more, or whose interval differs from the current one.
+     *
+     * @return true if the counter was restored
+     */
+    default boolean restoreWindowCounter(ApiName apiName, long windowIntervalMillis, long windowCounter) {
+        return false;
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.domain.enums.RequestPriority;
+import com.example.ratelimiter.metrics.RateLimiterMetrics;
+import com.example.ratelimiter.service.ratelimiters.events.DecisionEventPublisher;
+import com.example.ratelimiter.service.ratelimiters.priority.PriorityWaitQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+
+/**
+ * Routes every {@link ApiName} to the {@link RateLimiter} engine of the algorithm configured for it in the current
+ * configuration snapshot, so switching algorithms at runtime only takes a configuration update.
+ * Requests carrying a client key are checked against the {@link PerClientFixWindowRateLimiter} first.
+ * Requests of a {@link RequestPriority} leave the share of the api's limit reserved for the classes above them,
+ * and may wait in the {@link PriorityWaitQueue} for a permit instead of being throttled right away.
+ * Every decision is counted in {@link RateLimiterMetrics}, a sample of them is timed, unless metrics are disabled,
+ * and handed to the {@link DecisionEventPublisher} when decision events are enabled.
+ */
+@Slf4j
+@Component
+public class RateLimiterRegistry {
+    // most permits a single decision may ask for
+    public static final long MAX_PERMITS = Integer.MAX_VALUE;
+
+    private final RateLimiter[] enginesByAlgorithm;
+    private final RateLimitConfigRegistry configRegistry;
+    private final PerClientFixWindowRateLimiter perClientRateLimiter;
+    private final RateLimiterMetrics metrics;
+    private final boolean metricsEnabled;
+    private final PriorityWaitQueue waitQueue;
+    private final DecisionEventPublisher events;
+    private final boolean eventsEnabled;
+
+    // throttled requests never wait
+    public RateLimiterRegistry(List<RateLimiter> engines, RateLimitConfigRegistry configRegistry,
+                               PerClientFixWindowRateLimiter perClientRateLimiter, RateLimiterMetrics metrics) {
+        this(engines, configRegistry, perClientRateLimiter, metrics, PriorityWaitQueue.disabled());
+    }
+
+    // decisions are not recorded as events
+    public RateLimiterRegistry(List<RateLimiter> engines, RateLimitConfigRegistry configRegistry,
+                               PerClientFixWindowRateLimiter perClientRateLimiter, RateLimiterMetrics metrics,
+                               PriorityWaitQueue waitQueue) {
+        this(engines, configRegistry, perClientRateLimiter, metrics, waitQueue, DecisionEventPublisher.disabled());
+    }
+
+    @Autowired
+    public RateLimiterRegistry(List<RateLimiter> engines, RateLimitConfigRegistry configRegistry,
+                               PerClientFixWindowRateLimiter perClientRateLimiter, RateLimiterMetrics metrics,
+                               PriorityWaitQueue waitQueue, DecisionEventPublisher events) {
+        this.enginesByAlgorithm = new RateLimiter[RateLimiterAlgorithm.values().length];
+        for (RateLimiter engine : engines) {
+            enginesByAlgorithm[engine.algorithm().ordinal()] = engine;
+        }
+        RateLimiter fallback = enginesByAlgorithm[RateLimiterAlgorithm.FIXED_WINDOW.ordinal()];
+        if (fallback == null) {
+            throw new IllegalStateException("No rate limiter engine registered for " + RateLimiterAlgorithm.FIXED_WINDOW);
+        }
+        for (RateLimiterAlgorithm algorithm : RateLimiterAlgorithm.values()) {
+            if (enginesByAlgorithm[algorithm.ordinal()] == null) {
+                // optional engines such as DISTRIBUTED_FIXED_WINDOW only exist when their backend is configured
+                log.warn("No rate limiter engine registered for {}, falling back to {}", algorithm, RateLimiterAlgorithm.FIXED_WINDOW);
+                enginesByAlgorithm[algorithm.ordinal()] = fallback;
+            }
+        }
+        this.configRegistry = configRegistry;
+        this.perClientRateLimiter = perClientRateLimiter;
+        this.metrics = metrics;
+        this.metricsEnabled = metrics.isEnabled();
+        this.waitQueue = waitQueue;
+        this.events = events;
+        this.eventsEnabled = events.isEnabled();
+    }
+
+
+    public boolean shouldThrottleRequest(ApiName apiName) {
+        return !tryAcquire(apiName, 1);
+    }
+
+    public boolean shouldThrottleRequest(ApiName apiName, CharSequence clientKey) {
+        return !tryAcquire(apiName, clientKey, 1);
+    }
+
+    /**
+     * Takes {@code permits} permits of the api at once, all or nothing, e.g. one per item of a batched request.
+     *
+     * @return true if the permits were granted
+     */
+    public boolean tryAcquire(ApiName apiName, long permits) {
+        checkPermits(permits);
+        if (!metricsEnabled) {
+            return published(apiName, null, permits, fetchRateLimiter(apiName).tryAcquire(apiName, permits));
+        }
+        if (!metrics.sampleLatency()) {
+            boolean acquired = published(apiName, null, permits, fetchRateLimiter(apiName).tryAcquire(apiName, permits));
+            metrics.recordDecision(apiName, !acquired);
+            return acquired;
+        }
+        long startNanos = System.nanoTime();
+        boolean acquired = fetchRateLimiter(apiName).tryAcquire(apiName, permits);
+        metrics.recordDecision(apiName, !acquired, System.nanoTime() - startNanos);
+        return published(apiName, null, permits, acquired);
+    }
+
+    // the client's own limit is checked first, so a throttled client does not eat into the api wide budget
+    public boolean tryAcquire(ApiName apiName, CharSequence clientKey, long permits) {
+        checkPermits(permits);
+        if (!metricsEnabled) {
+            return published(apiName, clientKey, permits, acquire(apiName, clientKey, permits));
+        }
+        if (!metrics.sampleLatency()) {
+            boolean acquired = published(apiName, clientKey, permits, acquire(apiName, clientKey, permits));
+            metrics.recordDecision(apiName, !acquired);
+            return acquired;
+        }
+        long startNanos = System.nanoTime();
+        boolean acquired = acquire(apiName, clientKey, permits);
+        metrics.recordDecision(apiName, !acquired, System.nanoTime() - startNanos);
+        return published(apiName, clientKey, permits, acquired);
+    }
+
+    /**
+     * Takes permits for a request of the given priority, also against the client's own limit unless
+     * {@code clientKey} is null. A request throttled by the api wide limit, rather than by its client's own, waits
+     * for a permit in the {@link PriorityWaitQueue} when waiting is enabled, blocking the calling thread for up to
+     * {@code max-wait}. Reactive callers go through {@link ReactiveRateLimiter} instead.
+     *
+     * @return true if the permits were granted
+     */
+    public boolean tryAcquire(ApiName apiName, CharSequence clientKey, long permits, RequestPriority priority) {
+        checkPermits(permits);
+        if (!metricsEnabled) {
+            return published(apiName, clientKey, permits, acquire(apiName, clientKey, permits, priority));
+        }
+        if (!metrics.sampleLatency()) {
+            boolean acquired = published(apiName, clientKey, permits, acquire(apiName, clientKey, permits, priority));
+            metrics.recordDecision(apiName, !acquired);
+            return acquired;
+        }
+        long startNanos = System.nanoTime();
+        boolean acquired = acquire(apiName, clientKey, permits, priority);
+        metrics.recordDecision(apiName, !acquired, System.nanoTime() - startNanos);
+        return published(apiName, clientKey, permits, acquired);
+    }
+
+    /**
+     * Decides for a batch of clients of one api in a single pass. The client limits are checked with one clock
+     * read and one lock per store segment, then the api wide limit is asked once for all permits the clients were
+     * granted. Only when that total does not fit are the clients admitted one by one, in batch order, until the
+     * budget runs out, and the clients rejected by the api wide limit get their own permits back. Decisions are
+     * counted but not timed, a batch is not one decision.
+     *
+     * @param permits   permits per client, null for one permit each
+     * @param throttled receives the decision of every client
+     */
+    public void decide(ApiName apiName, CharSequence[] clientKeys, long[] permits, boolean[] throttled) {
+        if (throttled.length < clientKeys.length || (permits != null && permits.length < clientKeys.length)) {
+            throw new IllegalArgumentException("permits and throttled must cover every client key");
+        }
+        if (permits != null) {
+            for (int i = 0; i < clientKeys.length; i++) {
+                checkPermits(permits[i]);
+            }
+        }
+
+        perClientRateLimiter.shouldThrottleRequests(apiName, clientKeys, permits, throttled);
+        long admittedPermits = 0;
+        for (int i = 0; i < clientKeys.length; i++) {
+            admittedPermits += throttled[i] ? 0 : permits == null ? 1 : permits[i];
+        }
+        RateLimiter engine = fetchRateLimiter(apiName);
+        if (admittedPermits > 0 && !engine.tryAcquire(apiName, admittedPermits)) {
+            boolean[] rejectedByApi = new boolean[clientKeys.length];
+            for (int i = 0; i < clientKeys.length; i++) {
+                if (!throttled[i]) {
+                    throttled[i] = rejectedByApi[i] = !engine.tryAcquire(apiName, permits == null ? 1 : permits[i]);
+                }
+            }
+            perClientRateLimiter.releaseRequests(apiName, clientKeys, permits, rejectedByApi);
+        }
+
+        if (metricsEnabled) {
+            for (int i = 0; i < clientKeys.length; i++) {
+                metrics.recordDecision(apiName, throttled[i]);
+            }
+        }
+        if (eventsEnabled) {
+            for (int i = 0; i < clientKeys.length; i++) {
+                events.publish(apiName, clientKeys[i], permits == null ? 1 : permits[i], throttled[i]);
+            }
+        }
+    }
+
+    public long fetchReservedPermits(ApiName apiName, RequestPriority priority) {
+        return configRegistry.current().reservedPermits(apiName.ordinal(), priority);
+    }
+
+    /**
+     * @return false if taking the permits would eat into {@code reservedPermits}, judged by the permits the api's
+     * engine reports as used. Guards the engines that cannot hold permits back themselves, a concurrent request
+     * may still slip past it.
+     */
+    public boolean leavesReserve(ApiName apiName, long permits, long reservedPermits) {
+        if (reservedPermits <= 0) {
+            return true;
+        }
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        long usedPermits = fetchRateLimiter(apiName).usedPermits(apiName);
+        // engines that do not keep track cannot be judged, they are left to decide alone
+        return !configs.isRateLimited(ordinal) || usedPermits < 0
+                || usedPermits + permits + reservedPermits <= configs.maxRequestAllowed(ordinal);
+    }
+
+    /**
+     * @return seconds until the api's engine expects to admit requests again, e.g. the end of the tier that was used
+     * up, or else the api's longest window
+     */
+    public String fetchRetryAfterSeconds(ApiName apiName) {
+        long retryAfterMillis = fetchRateLimiter(apiName).retryAfterMillis(apiName);
+        if (retryAfterMillis <= 0) {
+            return configRegistry.current().retryAfterSeconds(apiName.ordinal());
+        }
+        return Long.toString(Math.max(1, (retryAfterMillis + 999) / 1000));
+    }
+
+    /**
+     * @return seconds until the client's window ends when the client used up its own limit, otherwise those of
+     * {@link #fetchRetryAfterSeconds(ApiName)}
+     */
+    public String fetchRetryAfterSeconds(ApiName apiName, CharSequence clientKey) {
+        long retryAfterMillis = clientKey != null ? perClientRateLimiter.fetchRetryAfterMillis(apiName, clientKey) : 0;
+        if (retryAfterMillis <= 0) {
+            return fetchRetryAfterSeconds(apiName);
+        }
+        return Long.toString(Math.max(1, (retryAfterMillis + 999) / 1000));
+    }
+
+    /**
+     * @return millis until the client's window ends when the client used up its own limit, otherwise until the
+     * api's engine expects to admit requests again, as {@link #fetchRetryAfterSeconds(ApiName, CharSequence)}
+     */
+    public long fetchRetryAfterMillis(ApiName apiName, CharSequence clientKey) {
+        long retryAfterMillis = clientKey != null ? perClientRateLimiter.fetchRetryAfterMillis(apiName, clientKey) : 0;
+        if (retryAfterMillis <= 0) {
+            retryAfterMillis = fetchRateLimiter(apiName).retryAfterMillis(apiName);
+        }
+        return retryAfterMillis > 0 ? retryAfterMillis : configRegistry.current().retryAfterMillis(apiName.ordinal());
+    }
+
+    /**
+     * @return permits left in the current windows, the lower of the client's own and the api wide ones, -1 when
+     * neither is limited or the api's engine does not keep track
+     */
+    public long fetchRemainingPermits(ApiName apiName, CharSequence clientKey) {
+        long remaining = clientKey != null ? perClientRateLimiter.fetchRemainingPermits(apiName, clientKey) : -1;
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (configs.isRateLimited(ordinal)) {
+            long usedPermits = fetchRateLimiter(apiName).usedPermits(apiName);
+            if (usedPermits >= 0) {
+                long apiRemaining = Math.max(0, configs.maxRequestAllowed(ordinal) - usedPermits);
+                remaining = remaining < 0 ? apiRemaining : Math.min(remaining, apiRemaining);
+            }
+        }
+        return remaining;
+    }
+
+    public RateLimiter fetchRateLimiter(ApiName apiName) {
+        return enginesByAlgorithm[configRegistry.current().algorithm(apiName.ordinal()).ordinal()];
+    }
+
+    /**
+     * @return used share of the api's current limit, NaN when it is not rate limited or its engine does not keep track
+     */
+    public double fetchUtilization(ApiName apiName) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        long maxRequests = configs.maxRequestAllowed(ordinal);
+        if (!configs.isRateLimited(ordinal) || maxRequests <= 0) {
+            return Double.NaN;
+        }
+        long usedPermits = fetchRateLimiter(apiName).usedPermits(apiName);
+        if (usedPermits < 0) {
+            return Double.NaN;
+        }
+        return (double) usedPermits / maxRequests;
+    }
+
+
+    // hands the decision to the event publisher, returns it unchanged
+    private boolean published(ApiName apiName, CharSequence clientKey, long permits, boolean acquired) {
+        if (eventsEnabled) {
+            events.publish(apiName, clientKey, permits, !acquired);
+        }
+        return acquired;
+    }
+
+    private boolean acquire(ApiName apiName, CharSequence clientKey, long permits) {
+        return !perClientRateLimiter.shouldThrottleRequest(apiName, clientKey, permits)
+                && fetchRateLimiter(apiName).tryAcquire(apiName, permits);
+    }
+
+    private boolean acquire(ApiName apiName, CharSequence clientKey, long permits, RequestPriority priority) {
+        if (clientKey != null && perClientRateLimiter.shouldThrottleRequest(apiName, clientKey, permits)) {
+            return false;
+        }
+        long reservedPermits = fetchReservedPermits(apiName, priority);
+        // while requests wait, a new one queues by its priority instead of taking the permit they are waiting for
+        if (!waitQueue.hasWaiters(apiName) && acquireReserved(apiName, permits, reservedPermits)) {
+            return true;
+        }
+        // the client's permits stay taken while waiting, they are only asked for once
+        return waitQueue.isEnabled()
+                && waitQueue.await(apiName, priority, () -> acquireReserved(apiName, permits, reservedPermits));
+    }
+
+    private boolean acquireReserved(ApiName apiName, long permits, long reservedPermits) {
+        if (reservedPermits == 0) {
+            return fetchRateLimiter(apiName).tryAcquire(apiName, permits);
+        }
+        return leavesReserve(apiName, permits, reservedPermits)
+                && fetchRateLimiter(apiName).tryAcquire(apiName, permits, reservedPermits);
+    }
+
+    // the engines keep 32 bit counts, a single decision stays well within them
+    private static void checkPermits(long permits) {
+        if (permits <= 0 || permits > MAX_PERMITS) {
+            throw new IllegalArgumentException("permits must be between 1 and " + MAX_PERMITS + ", got " + permits);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimitDecision;
+import com.example.ratelimiter.domain.enums.RequestPriority;
+import com.example.ratelimiter.metrics.RateLimiterMetrics;
+import com.example.ratelimiter.service.ratelimiters.events.DecisionEventPublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletionStage;
+
+
+/**
+ * Non blocking front of {@link RateLimiterRegistry} for reactive (WebFlux) callers. Engines deciding in memory are
+ * answered with one of two preallocated monos, engines that may wait on a remote backend ({@link AsyncRateLimiter})
+ * are subscribed to instead of blocked on, so an event loop thread is never parked by a limiter decision.
+ * Decisions are counted and published as events like those of the registry.
+ */
+@Component
+public class ReactiveRateLimiter {
+    private static final Mono<RateLimitDecision> ALLOWED = Mono.just(RateLimitDecision.ALLOWED);
+    private static final Mono<RateLimitDecision> THROTTLED = Mono.just(RateLimitDecision.THROTTLED);
+
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final PerClientFixWindowRateLimiter perClientRateLimiter;
+    private final RateLimiterMetrics metrics;
+    private final DecisionEventPublisher events;
+
+    // decisions are not recorded as events
+    public ReactiveRateLimiter(RateLimiterRegistry rateLimiterRegistry, PerClientFixWindowRateLimiter perClientRateLimiter,
+                               RateLimiterMetrics metrics) {
+        this(rateLimiterRegistry, perClientRateLimiter, metrics, DecisionEventPublisher.disabled());
+    }
+
+    @Autowired
+    public ReactiveRateLimiter(RateLimiterRegistry rateLimiterRegistry, PerClientFixWindowRateLimiter perClientRateLimiter,
+                               RateLimiterMetrics metrics, DecisionEventPublisher events) {
+        this.rateLimiterRegistry = rateLimiterRegistry;
+        this.perClientRateLimiter = perClientRateLimiter;
+        this.metrics = metrics;
+        this.events = events;
+    }
+
+
+    public Mono<RateLimitDecision> decide(ApiName apiName) {
+        return decideApiWide(apiName, null);
+    }
+
+    // the client's own limit is checked first, so a throttled client does not eat into the api wide budget
+    public Mono<RateLimitDecision> decide(ApiName apiName, CharSequence clientKey) {
+        if (perClientRateLimiter.shouldThrottleRequest(apiName, clientKey)) {
+            return record(apiName, clientKey, true);
+        }
+        return decideApiWide(apiName, clientKey);
+    }
+
+    /**
+     * Decides for a request of the given priority, which leaves the share of the api's limit reserved for the
+     * classes above it, also against the client's own limit unless {@code clientKey} is null. Throttled requests
+     * never wait for a permit here, see {@link RateLimiterRegistry} for that.
+     */
+    public Mono<RateLimitDecision> decide(ApiName apiName, CharSequence clientKey, RequestPriority priority) {
+        if (clientKey != null && perClientRateLimiter.shouldThrottleRequest(apiName, clientKey)) {
+            return record(apiName, clientKey, true);
+        }
+        long reservedPermits = rateLimiterRegistry.fetchReservedPermits(apiName, priority);
+        if (reservedPermits == 0) {
+            return decideApiWide(apiName, clientKey);
+        }
+        if (!rateLimiterRegistry.leavesReserve(apiName, 1, reservedPermits)) {
+            return record(apiName, clientKey, true);
+        }
+        RateLimiter engine = rateLimiterRegistry.fetchRateLimiter(apiName);
+        if (engine instanceof AsyncRateLimiter) {
+            return decideApiWide(apiName, clientKey);
+        }
+        return record(apiName, clientKey, !engine.tryAcquire(apiName, 1, reservedPermits));
+    }
+
+    public String fetchRetryAfterSeconds(ApiName apiName) {
+        return rateLimiterRegistry.fetchRetryAfterSeconds(apiName);
+    }
+
+    public String fetchRetryAfterSeconds(ApiName apiName, CharSequence clientKey) {
+        return rateLimiterRegistry.fetchRetryAfterSeconds(apiName, clientKey);
+    }
+
+
+    // the client key only goes into the decision event, the client's own limit was checked before
+    private Mono<RateLimitDecision> decideApiWide(ApiName apiName, CharSequence clientKey) {
+        RateLimiter engine = rateLimiterRegistry.fetchRateLimiter(apiName);
+        if (!(engine instanceof AsyncRateLimiter asyncEngine)) {
+            return record(apiName, clientKey, engine.shouldThrottleRequest(apiName));
+        }
+
+        CompletionStage<Boolean> decision = asyncEngine.shouldThrottleRequestAsync(apiName);
+        if (decision == AsyncRateLimiter.ALLOWED || decision == AsyncRateLimiter.THROTTLED) {
+            return record(apiName, clientKey, decision == AsyncRateLimiter.THROTTLED);
+        }
+        return Mono.fromCompletionStage(decision).flatMap(throttled -> record(apiName, clientKey, throttled));
+    }
+
+    private Mono<RateLimitDecision> record(ApiName apiName, CharSequence clientKey, boolean throttled) {
+        if (metrics.isEnabled()) {
+            metrics.recordDecision(apiName, throttled);
+        }
+        events.publish(apiName, clientKey, 1, throttled);
+        return throttled ? THROTTLED : ALLOWED;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import com.example.ratelimiter.service.ratelimiters.clock.WindowBoundaries;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Sliding window counter rate limiter, approximates a sliding window with the counts of the current and the
+ * previous fixed window. The previous count is weighted by how much of it still overlaps the sliding window,
+ * which smooths out the 2x burst a plain fixed window allows at its edges while keeping O(1) state per API.
+ * <p>
+ * The per API state is preallocated and guarded by its own monitor, deciding never allocates.
+ */
+@Component
+public class SlidingWindowCounterRateLimiter implements RateLimiter {
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+    private final WindowCounts[] windowCounts;
+    private final WindowBoundaries windowBoundaries;
+    private final RateLimitConfigRegistry configRegistry;
+    private final RateLimiterClock clock;
+
+    @Autowired
+    public SlidingWindowCounterRateLimiter(RateLimitConfigRegistry configRegistry, RateLimiterClock clock) {
+        this.configRegistry = configRegistry;
+        this.clock = clock;
+        this.windowCounts = new WindowCounts[ApiName.values().length];
+        this.windowBoundaries = new WindowBoundaries(ApiName.values().length);
+        for (int ordinal = 0; ordinal < windowCounts.length; ordinal++) {
+            windowCounts[ordinal] = new WindowCounts();
+        }
+    }
+
+
+    @Override
+    public RateLimiterAlgorithm algorithm() {
+        return RateLimiterAlgorithm.SLIDING_WINDOW_COUNTER;
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits) {
+        return tryAcquire(apiName, permits, 0);
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits, long reservedPermits) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return true;
+        }
+
+        long windowInterval = configs.windowIntervalMillis(ordinal);
+        long maxRequests = configs.maxRequestAllowed(ordinal);
+        long now = clock.currentTimeMillis();
+        long currentWindow = windowBoundaries.windowOf(ordinal, now, windowInterval);
+        long elapsedInCurrentWindow = now - currentWindow * windowInterval;
+        WindowCounts counts = windowCounts[ordinal];
+
+        synchronized (counts) {
+            if (currentWindow > counts.window) {
+                counts.previousCount = currentWindow == counts.window + 1 ? counts.currentCount : 0;
+                counts.currentCount = 0;
+                counts.window = currentWindow;
+            }
+
+            // weight of the previous window = share of it still covered by the sliding window
+            long weightedPreviousCount = counts.previousCount * (windowInterval - elapsedInCurrentWindow);
+            if (weightedPreviousCount + (counts.currentCount + permits + reservedPermits) * windowInterval > maxRequests * windowInterval) {
+                return false;
+            }
+            counts.currentCount += permits;
+            return true;
+        }
+    }
+
+
+    @Override
+    public long usedPermits(ApiName apiName) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return 0;
+        }
+        long windowInterval = configs.windowIntervalMillis(ordinal);
+        long now = clock.currentTimeMillis();
+        long currentWindow = windowBoundaries.windowOf(ordinal, now, windowInterval);
+        long elapsedInCurrentWindow = now - currentWindow * windowInterval;
+        WindowCounts counts = windowCounts[ordinal];
+
+        synchronized (counts) {
+            long previousCount = counts.window == currentWindow ? counts.previousCount
+                    : counts.window + 1 == currentWindow ? counts.currentCount : 0;
+            long currentCount = counts.window == currentWindow ? counts.currentCount : 0;
+            return (previousCount * (windowInterval - elapsedInCurrentWindow) + windowInterval - 1) / windowInterval
+                    + currentCount;
+        }
+    }
+
+    @Override
+    public long windowCounter(ApiName apiName) {
+        WindowCounts counts = windowCounts[apiName.ordinal()];
+        synchronized (counts) {
+            return counts.window == 0 ? -1 : (counts.window & COUNT_MASK) << 32 | counts.currentCount;
+        }
+    }
+
+    @Override
+    public boolean restoreWindowCounter(ApiName apiName, long windowIntervalMillis, long windowCounter) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal) || configs.windowIntervalMillis(ordinal) != windowIntervalMillis) {
+            return false;
+        }
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), windowIntervalMillis);
+        long count = windowCounter & COUNT_MASK;
+        // the previous window still weighs in, anything older has no effect
+        long window;
+        if ((windowCounter >>> 32) == (currentWindow & COUNT_MASK)) {
+            window = currentWindow;
+        } else if ((windowCounter >>> 32) == ((currentWindow - 1) & COUNT_MASK)) {
+            window = currentWindow - 1;
+        } else {
+            return false;
+        }
+        WindowCounts counts = windowCounts[ordinal];
+
+        synchronized (counts) {
+            if (counts.window < window) {
+                counts.previousCount = 0;
+                counts.currentCount = count;
+                counts.window = window;
+            } else if (counts.window == window) {
+                counts.currentCount = Math.max(counts.currentCount, count);
+            } else if (counts.window == window + 1) {
+                counts.previousCount = Math.max(counts.previousCount, count);
+            }
+        }
+        return true;
+    }
+
+
+    private static final class WindowCounts {
+        private long window;
+        private long previousCount;
+        private long currentCount;
+    }
+}
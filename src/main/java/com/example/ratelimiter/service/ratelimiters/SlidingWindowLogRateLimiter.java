@@ -0,0 +1,128 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Sliding window log rate limiter, exact over any window interval long stretch of time.
+ * <p>
+ * Each API keeps the timestamps of its last max requests admitted requests in a preallocated ring buffer.
+ * A request is admitted when the ring is not full yet or its oldest entry has slid out of the window, in
+ * which case the new timestamp overwrites it. Memory is bounded by the limit, never by the traffic, and the limit
+ * by {@link RateLimitConfigSnapshot#MAX_SLIDING_WINDOW_LOG_REQUESTS}.
+ */
+@Component
+public class SlidingWindowLogRateLimiter implements RateLimiter {
+    private final RequestLog[] requestLogs;
+    private final RateLimitConfigRegistry configRegistry;
+    private final RateLimiterClock clock;
+
+    @Autowired
+    public SlidingWindowLogRateLimiter(RateLimitConfigRegistry configRegistry, RateLimiterClock clock) {
+        this.configRegistry = configRegistry;
+        this.clock = clock;
+        this.requestLogs = new RequestLog[ApiName.values().length];
+        for (int ordinal = 0; ordinal < requestLogs.length; ordinal++) {
+            requestLogs[ordinal] = new RequestLog();
+        }
+    }
+
+
+    @Override
+    public RateLimiterAlgorithm algorithm() {
+        return RateLimiterAlgorithm.SLIDING_WINDOW_LOG;
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits) {
+        return tryAcquire(apiName, permits, 0);
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits, long reservedPermits) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return true;
+        }
+
+        long now = clock.currentTimeMillis();
+        long windowStart = now - configs.windowIntervalMillis(ordinal);
+        // at most MAX_SLIDING_WINDOW_LOG_REQUESTS, checked when the configuration is loaded
+        int maxRequests = (int) configs.maxRequestAllowed(ordinal);
+        RequestLog requestLog = requestLogs[ordinal];
+
+        synchronized (requestLog) {
+            if (requestLog.timestamps.length != maxRequests) {
+                requestLog.resize(maxRequests);
+            }
+            long[] timestamps = requestLog.timestamps;
+            if (permits + reservedPermits > timestamps.length) {
+                return false;
+            }
+            // every permit takes an entry, the ones missing from the free slots are taken from the oldest entries,
+            // which all have to have slid out of the window, and so do as many more as are held in reserve
+            int overwritten = (int) (permits + reservedPermits) - (timestamps.length - requestLog.size);
+            if (overwritten > 0) {
+                int oldest = (requestLog.head - requestLog.size + timestamps.length) % timestamps.length;
+                if (timestamps[(oldest + overwritten - 1) % timestamps.length] > windowStart) {
+                    return false;
+                }
+            }
+
+            // head is the oldest entry once the ring is full, and the next free one before that
+            for (long i = 0; i < permits; i++) {
+                timestamps[requestLog.head] = now;
+                requestLog.head = (requestLog.head + 1) % timestamps.length;
+            }
+            requestLog.size = Math.min(timestamps.length, requestLog.size + (int) permits);
+            return true;
+        }
+    }
+
+
+    @Override
+    public long usedPermits(ApiName apiName) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return 0;
+        }
+        long windowStart = clock.currentTimeMillis() - configs.windowIntervalMillis(ordinal);
+        RequestLog requestLog = requestLogs[ordinal];
+
+        synchronized (requestLog) {
+            long used = 0;
+            for (int i = 0; i < requestLog.size; i++) {
+                used += requestLog.timestamps[i] > windowStart ? 1 : 0;
+            }
+            return used;
+        }
+    }
+
+
+    private static final class RequestLog {
+        private long[] timestamps = new long[0];
+        private int head;
+        private int size;
+
+        // only on a limit change, keeps the most recent entries that still fit
+        private void resize(int capacity) {
+            long[] resized = new long[capacity];
+            int kept = Math.min(size, capacity);
+            for (int i = 0; i < kept; i++) {
+                int newest = (head - kept + i + timestamps.length) % timestamps.length;
+                resized[i] = timestamps[newest];
+            }
+            timestamps = resized;
+            size = kept;
+            head = capacity == 0 ? 0 : kept % capacity;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import com.example.ratelimiter.service.ratelimiters.clock.WindowBoundaries;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Fixed window counter for hot APIs, spreads the counting of one API over per thread stripes instead of a
+ * single contended slot.
+ * <p>
+ * Every stripe is a (window, count) cell on its own cache line. A request is admitted against the last
+ * reconciled total plus the admissions of its own stripe that were not folded in yet, and only touches the
+ * shared total once its stripe has gathered another {@code batch} admissions, which it then folds in. Threads of different stripes therefore write to
+ * different cache lines, and a throttled request only reads.
+ * <p>
+ * The price is approximate counting: a stripe can admit up to {@code batch - 1} requests the other stripes have
+ * not seen yet, so a window admits at most {@code max requests + stripes * batch} requests, see
+ * {@link #maxOverAdmission(ApiName)}. The batch is {@code max requests / (8 * stripes)} (at least 1), which
+ * bounds the over-admission to max requests / 8 for large limits, and to one request per stripe for small
+ * ones.
+ */
+@Component
+public class StripedFixWindowRateLimiter implements RateLimiter {
+    // 16 longs = 128 bytes, keeps every cell on its own cache line
+    private static final int SLOT_STRIDE = 16;
+    private static final int MAX_STRIPES = 64;
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+    private final AtomicLongArray reconciledCounters;
+    private final AtomicLongArray stripeCounters;
+    private final WindowBoundaries windowBoundaries;
+    private final int stripes;
+    private final RateLimitConfigRegistry configRegistry;
+    private final RateLimiterClock clock;
+
+    @Autowired
+    public StripedFixWindowRateLimiter(RateLimitConfigRegistry configRegistry, RateLimiterClock clock) {
+        this(configRegistry, clock, Runtime.getRuntime().availableProcessors());
+    }
+
+    StripedFixWindowRateLimiter(RateLimitConfigRegistry configRegistry, RateLimiterClock clock, int parallelism) {
+        int apiCount = ApiName.values().length;
+        this.stripes = Math.min(MAX_STRIPES, parallelism <= 1 ? 1 : Integer.highestOneBit(parallelism - 1) << 1);
+        this.reconciledCounters = new AtomicLongArray(apiCount * SLOT_STRIDE);
+        this.stripeCounters = new AtomicLongArray(apiCount * stripes * SLOT_STRIDE);
+        this.windowBoundaries = new WindowBoundaries(apiCount);
+        this.configRegistry = configRegistry;
+        this.clock = clock;
+    }
+
+
+    @Override
+    public RateLimiterAlgorithm algorithm() {
+        return RateLimiterAlgorithm.STRIPED_FIXED_WINDOW;
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return true;
+        }
+
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), configs.windowIntervalMillis(ordinal)) & COUNT_MASK;
+        long maxRequests = configs.maxRequestAllowed(ordinal);
+        long batchSize = batchSize(maxRequests);
+        int reconciledIndex = ordinal * SLOT_STRIDE;
+        int stripeIndex = (ordinal * stripes + stripeOfCurrentThread()) * SLOT_STRIDE;
+
+        while (true) {
+            long reconciled = reconciledCounters.get(reconciledIndex);
+            long reconciledCount = (reconciled >>> 32) == currentWindow ? reconciled & COUNT_MASK : 0;
+            long stripe = stripeCounters.get(stripeIndex);
+            long stripeCount = (stripe >>> 32) == currentWindow ? stripe & COUNT_MASK : 0;
+
+            // the stripe count only grows within a window, its not yet folded part is the remainder of the batch
+            if (reconciledCount + stripeCount % batchSize + permits > maxRequests) {
+                return false;
+            }
+
+            // completed batches are folded into the shared total before the stripe moves on, so in between they
+            // are counted twice (too strict) rather than nowhere (too loose), a weighted request may complete several
+            long completedBatches = (stripeCount + permits) / batchSize - stripeCount / batchSize;
+            if (completedBatches > 0) {
+                reconcile(reconciledIndex, currentWindow, completedBatches * batchSize);
+            }
+            if (stripeCounters.compareAndSet(stripeIndex, stripe, pack(currentWindow, stripeCount + permits))) {
+                return true;
+            }
+            if (completedBatches > 0) {
+                reconcile(reconciledIndex, currentWindow, -completedBatches * batchSize);
+            }
+        }
+    }
+
+    @Override
+    public long usedPermits(ApiName apiName) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return 0;
+        }
+        // stripe counts are cumulative within a window, their sum is exact
+        long currentWindow = windowBoundaries.windowOf(ordinal, clock.currentTimeMillis(), configs.windowIntervalMillis(ordinal)) & COUNT_MASK;
+        long used = 0;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            long slot = stripeCounters.get((ordinal * stripes + stripe) * SLOT_STRIDE);
+            used += (slot >>> 32) == currentWindow ? slot & COUNT_MASK : 0;
+        }
+        return used;
+    }
+
+    /**
+     * @return how many requests per window the api may admit on top of its limit, 0 if it is not rate limited
+     */
+    public long maxOverAdmission(ApiName apiName) {
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        int ordinal = apiName.ordinal();
+        return configs.isRateLimited(ordinal) ? stripes * batchSize(configs.maxRequestAllowed(ordinal)) : 0;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+
+    private long batchSize(long maxRequests) {
+        return Math.max(1, maxRequests / (8L * stripes));
+    }
+
+    private void reconcile(int reconciledIndex, long currentWindow, long admitted) {
+        while (true) {
+            long reconciled = reconciledCounters.get(reconciledIndex);
+            long reconciledWindow = reconciled >>> 32;
+            if (reconciledWindow > currentWindow || (admitted < 0 && reconciledWindow != currentWindow)) {
+                // the window already moved on, these admissions no longer count
+                return;
+            }
+            long reconciledCount = reconciledWindow == currentWindow ? reconciled & COUNT_MASK : 0;
+            if (reconciledCounters.compareAndSet(reconciledIndex, reconciled, pack(currentWindow, reconciledCount + admitted))) {
+                return;
+            }
+        }
+    }
+
+    private int stripeOfCurrentThread() {
+        long id = Thread.currentThread().getId();
+        id ^= id >>> 33;
+        id *= 0xff51afd7ed558ccdL;
+        id ^= id >>> 33;
+        return (int) id & (stripes - 1);
+    }
+
+    private static long pack(long window, long count) {
+        return (window << 32) | count;
+    }
+}
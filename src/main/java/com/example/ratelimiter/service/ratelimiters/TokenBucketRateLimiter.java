@@ -0,0 +1,99 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Token bucket rate limiter, the bucket of an API holds at most max requests tokens and is refilled
+ * continuously at max requests per window interval. Bursts are capped by the bucket size instead of the
+ * window edges, so a client can never get twice the limit across a boundary.
+ * <p>
+ * The per API state is preallocated and guarded by its own monitor, deciding never allocates.
+ */
+@Component
+public class TokenBucketRateLimiter implements RateLimiter {
+    private final Bucket[] buckets;
+    private final RateLimitConfigRegistry configRegistry;
+    private final RateLimiterClock clock;
+
+    @Autowired
+    public TokenBucketRateLimiter(RateLimitConfigRegistry configRegistry, RateLimiterClock clock) {
+        this.configRegistry = configRegistry;
+        this.clock = clock;
+        this.buckets = new Bucket[ApiName.values().length];
+        for (int ordinal = 0; ordinal < buckets.length; ordinal++) {
+            buckets[ordinal] = new Bucket();
+        }
+    }
+
+
+    @Override
+    public RateLimiterAlgorithm algorithm() {
+        return RateLimiterAlgorithm.TOKEN_BUCKET;
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits) {
+        return tryAcquire(apiName, permits, 0);
+    }
+
+    @Override
+    public boolean tryAcquire(ApiName apiName, long permits, long reservedPermits) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return true;
+        }
+
+        double capacity = configs.maxRequestAllowed(ordinal);
+        double tokensPerMilli = capacity / configs.windowIntervalMillis(ordinal);
+        long now = clock.currentTimeMillis();
+        Bucket bucket = buckets[ordinal];
+
+        synchronized (bucket) {
+            long elapsed = now - bucket.lastRefillMillis;
+            if (elapsed > 0) {
+                bucket.tokens = Math.min(capacity, bucket.tokens + elapsed * tokensPerMilli);
+                bucket.lastRefillMillis = now;
+            }
+
+            if (bucket.tokens - reservedPermits < permits) {
+                return false;
+            }
+            bucket.tokens -= permits;
+            return true;
+        }
+    }
+
+
+    @Override
+    public long usedPermits(ApiName apiName) {
+        int ordinal = apiName.ordinal();
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        if (!configs.isRateLimited(ordinal)) {
+            return 0;
+        }
+        double capacity = configs.maxRequestAllowed(ordinal);
+        double tokensPerMilli = capacity / configs.windowIntervalMillis(ordinal);
+        long now = clock.currentTimeMillis();
+        Bucket bucket = buckets[ordinal];
+
+        synchronized (bucket) {
+            double tokens = Math.min(capacity, bucket.tokens + Math.max(0, now - bucket.lastRefillMillis) * tokensPerMilli);
+            return (long) Math.ceil(capacity - tokens);
+        }
+    }
+
+
+    private static final class Bucket {
+        // starts empty, the first refill since the epoch fills it up
+        private double tokens;
+        private long lastRefillMillis;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.ratelimiter.service.ratelimiters.adaptive;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Caps the requests of an api in progress at once at a limit that follows the latency the api is observed to have,
+ * so load is shed as soon as the service slows down instead of once a fixed rate is reached.
+ * <p>
+ * The limit is adjusted AIMD style once per window of samples, a window holding at least as many samples as the
+ * current limit, about one round of requests at full concurrency:
+ * <ul>
+ *     <li>a window with a failed request, or an average latency above {@code latencyTolerance} times the no load
+ *     latency, multiplies the limit by {@code backoffRatio}</li>
+ *     <li>any other window in which at least half the limit was in use raises it by one</li>
+ * </ul>
+ * The no load latency is the lowest window average seen, drifting slowly towards the current one, so a lasting
+ * change of the service time becomes the new normal instead of pinning the limit at its minimum.
+ * <p>
+ * Requests of every api are tracked and every limit adapts, only apis with {@code adaptive-concurrency} enabled
+ * are rejected once over their limit. Admitting and completing a request are two atomic updates, a window is
+ * closed by a single thread under the api's monitor.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+    // weight of the current window when the no load latency drifts up
+    private static final int BASELINE_DRIFT_SHIFT = 6;
+
+    private final ApiState[] apiStates;
+    private final RateLimitConfigRegistry configRegistry;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+    private final int minWindowSamples;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(RateLimitConfigRegistry configRegistry, RateLimiterProperties properties) {
+        RateLimiterProperties.Adaptive adaptive = properties.getAdaptive();
+        if (adaptive.getMinLimit() < 1 || adaptive.getMaxLimit() < adaptive.getMinLimit()
+                || adaptive.getBackoffRatio() <= 0 || adaptive.getBackoffRatio() >= 1 || adaptive.getLatencyTolerance() < 1) {
+            throw new IllegalArgumentException("Invalid adaptive concurrency settings " + adaptive);
+        }
+        this.configRegistry = configRegistry;
+        this.minLimit = adaptive.getMinLimit();
+        this.maxLimit = adaptive.getMaxLimit();
+        this.latencyTolerance = adaptive.getLatencyTolerance();
+        this.backoffRatio = adaptive.getBackoffRatio();
+        this.minWindowSamples = Math.max(1, adaptive.getMinWindowSamples());
+        int initialLimit = Math.min(maxLimit, Math.max(minLimit, adaptive.getInitialLimit()));
+
+        this.apiStates = new ApiState[ApiName.values().length];
+        for (int ordinal = 0; ordinal < apiStates.length; ordinal++) {
+            apiStates[ordinal] = new ApiState(initialLimit);
+        }
+    }
+
+
+    /**
+     * Admits a request unless the api enforces its concurrency limit and is at it. Every admitted request must be
+     * handed to {@link #release} once it completed, or to {@link #cancel} if it was not served.
+     *
+     * @return true if the request was admitted
+     */
+    public boolean tryAcquire(ApiName apiName) {
+        ApiState state = apiStates[apiName.ordinal()];
+        int inFlight;
+        if (configRegistry.current().isAdaptiveConcurrency(apiName.ordinal())) {
+            int limit = state.limit;
+            do {
+                inFlight = state.inFlight.get();
+                if (inFlight >= limit) {
+                    return false;
+                }
+            } while (!state.inFlight.compareAndSet(inFlight, inFlight + 1));
+            inFlight++;
+        } else {
+            inFlight = state.inFlight.incrementAndGet();
+        }
+
+        if (inFlight > state.maxInFlight.get()) {
+            state.maxInFlight.accumulateAndGet(inFlight, Math::max);
+        }
+        return true;
+    }
+
+    /**
+     * Completes an admitted request and feeds its latency into the limit.
+     *
+     * @param failed true if the request failed, e.g. with a server error, counted as a sign of overload
+     */
+    public void release(ApiName apiName, long latencyNanos, boolean failed) {
+        ApiState state = apiStates[apiName.ordinal()];
+        state.inFlight.decrementAndGet();
+        state.latencySumNanos.addAndGet(latencyNanos);
+        if (failed) {
+            state.failures.incrementAndGet();
+        }
+        if (state.samples.incrementAndGet() >= Math.max(minWindowSamples, state.limit)) {
+            closeWindow(state);
+        }
+    }
+
+    /**
+     * Hands back the slot of an admitted request that was turned away before it was served, e.g. by the rate
+     * limit, without a latency sample.
+     */
+    public void cancel(ApiName apiName) {
+        apiStates[apiName.ordinal()].inFlight.decrementAndGet();
+    }
+
+    public int currentLimit(ApiName apiName) {
+        return apiStates[apiName.ordinal()].limit;
+    }
+
+    public int inFlight(ApiName apiName) {
+        return apiStates[apiName.ordinal()].inFlight.get();
+    }
+
+
+    private void closeWindow(ApiState state) {
+        synchronized (state) {
+            long samples = state.samples.get();
+            if (samples < Math.max(minWindowSamples, state.limit)) {
+                // another thread closed this window already
+                return;
+            }
+            // samples racing with the reset land in the next window, the average stays close enough
+            state.samples.addAndGet(-samples);
+            long averageNanos = state.latencySumNanos.getAndSet(0) / samples;
+            int failures = state.failures.getAndSet(0);
+            int maxInFlight = state.maxInFlight.getAndSet(state.inFlight.get());
+
+            if (state.baselineNanos == 0 || averageNanos < state.baselineNanos) {
+                state.baselineNanos = Math.max(1, averageNanos);
+            } else {
+                state.baselineNanos += (averageNanos - state.baselineNanos) >> BASELINE_DRIFT_SHIFT;
+            }
+
+            if (failures > 0 || averageNanos > state.baselineNanos * latencyTolerance) {
+                state.exactLimit = Math.max(minLimit, state.exactLimit * backoffRatio);
+            } else if (maxInFlight * 2 >= state.limit) {
+                state.exactLimit = Math.min(maxLimit, state.exactLimit + 1);
+            }
+            state.limit = (int) state.exactLimit;
+        }
+    }
+
+
+    private static final class ApiState {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final AtomicLong samples = new AtomicLong();
+        private final AtomicLong latencySumNanos = new AtomicLong();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile int limit;
+        // guarded by the monitor of the state
+        private double exactLimit;
+        private long baselineNanos;
+
+        private ApiState(int initialLimit) {
+            this.limit = initialLimit;
+            this.exactLimit = initialLimit;
+        }
+    }
+}
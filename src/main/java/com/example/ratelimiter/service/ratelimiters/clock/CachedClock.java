@@ -0,0 +1,46 @@
+package com.example.ratelimiter.service.ratelimiters.clock;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Coarse clock for the hot path, a daemon thread copies the wall clock into a volatile field every tick, so reading
+ * the time is a plain memory read instead of a call into the OS clock.
+ * <p>
+ * Readings lag the wall clock by up to one tick interval, plus however long the ticker thread is not scheduled.
+ * They follow wall clock adjustments like {@link System#currentTimeMillis()} does.
+ */
+public class CachedClock implements RateLimiterClock, AutoCloseable {
+    private final Thread ticker;
+    private volatile long currentTimeMillis;
+    private volatile boolean running = true;
+
+    public CachedClock(Duration tickInterval) {
+        long tickNanos = Math.max(1, tickInterval.toNanos());
+        this.currentTimeMillis = System.currentTimeMillis();
+        this.ticker = new Thread(() -> tick(tickNanos), "ratelimiter-clock");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+
+    @Override
+    public long currentTimeMillis() {
+        return currentTimeMillis;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+
+
+    private void tick(long tickNanos) {
+        while (running) {
+            LockSupport.parkNanos(tickNanos);
+            currentTimeMillis = System.currentTimeMillis();
+        }
+    }
+}
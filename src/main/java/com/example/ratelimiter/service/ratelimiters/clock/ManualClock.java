@@ -0,0 +1,32 @@
+package com.example.ratelimiter.service.ratelimiters.clock;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Clock that only moves when told to, makes window transitions deterministic in tests and benchmarks.
+ */
+public class ManualClock implements RateLimiterClock {
+    private final AtomicLong currentTimeMillis;
+
+    public ManualClock(long currentTimeMillis) {
+        this.currentTimeMillis = new AtomicLong(currentTimeMillis);
+    }
+
+
+    @Override
+    public long currentTimeMillis() {
+        return currentTimeMillis.get();
+    }
+
+    public void set(long currentTimeMillis) {
+        this.currentTimeMillis.set(currentTimeMillis);
+    }
+
+    /**
+     * @return the time after moving it by {@code millis}, which may be negative to simulate a stale reading
+     */
+    public long advance(long millis) {
+        return currentTimeMillis.addAndGet(millis);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.ratelimiter.service.ratelimiters.clock;
+
+
+/**
+ * Source of the current time of the rate limiting engines, injected so that production can read a cheap cached
+ * clock and tests a {@link ManualClock} instead of sleeping across windows.
+ */
+@FunctionalInterface
+public interface RateLimiterClock {
+
+    /**
+     * @return milliseconds since the epoch, with the resolution of the implementation
+     */
+    long currentTimeMillis();
+
+    static RateLimiterClock system() {
+        return System::currentTimeMillis;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.ratelimiter.service.ratelimiters.clock;
+
+import java.util.Arrays;
+
+
+/**
+ * Fixed window number of a timestamp per slot (usually an api ordinal), cached together with the bounds of the
+ * window. As long as the time stays within the cached window, finding it takes a single comparison instead of a
+ * long division.
+ * <p>
+ * Cached windows are immutable and published through a plain array, a thread that does not see the latest one
+ * yet just computes it again. One is allocated per slot and elapsed window, never per request.
+ */
+public final class WindowBoundaries {
+    // interval 0 never matches a configured interval
+    private static final Window NONE = new Window(0, 0, 0);
+
+    private final Window[] windows;
+
+    public WindowBoundaries(int slots) {
+        this.windows = new Window[slots];
+        Arrays.fill(windows, NONE);
+    }
+
+
+    /**
+     * @return {@code timeMillis / intervalMillis}
+     */
+    public long windowOf(int slot, long timeMillis, long intervalMillis) {
+        Window window = windows[slot];
+        // a reading before the window start wraps around to a huge unsigned distance, so one comparison covers both bounds
+        if (window.intervalMillis == intervalMillis && Long.compareUnsigned(timeMillis - window.startMillis, intervalMillis) < 0) {
+            return window.number;
+        }
+
+        long number = timeMillis / intervalMillis;
+        // a stale reading does not replace the latest window
+        if (number > window.number || window.intervalMillis != intervalMillis) {
+            windows[slot] = new Window(intervalMillis, number, number * intervalMillis);
+        }
+        return number;
+    }
+
+
+    private static final class Window {
+        private final long intervalMillis;
+        private final long number;
+        private final long startMillis;
+
+        private Window(long intervalMillis, long number, long startMillis) {
+            this.intervalMillis = intervalMillis;
+            this.number = number;
+            this.startMillis = startMillis;
+        }
+    }
+}
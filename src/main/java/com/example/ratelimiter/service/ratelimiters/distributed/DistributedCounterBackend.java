@@ -0,0 +1,17 @@
+package com.example.ratelimiter.service.ratelimiters.distributed;
+
+import java.util.concurrent.CompletableFuture;
+
+
+/**
+ * Counter store shared by every replica of the service. Calls never block the caller, implementations are
+ * expected to batch concurrent calls into as few network round trips as they can.
+ */
+public interface DistributedCounterBackend {
+
+    /**
+     * Atomically adds {@code delta} (which may be 0 or negative) to the counter of {@code key} and completes with
+     * the resulting global value. When {@code expireAtMillis} is positive the counter is removed at that epoch time.
+     */
+    CompletableFuture<Long> addAndGet(String key, long delta, long expireAtMillis);
+}
@@ -0,0 +1,311 @@
+package com.example.ratelimiter.service.ratelimiters.distributed;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Minimal, auto-batching client of the Redis serialization protocol (RESP2) over one keep-alive connection.
+ * <p>
+ * Callers only enqueue commands. A single writer thread drains whatever has queued up since its last write and
+ * sends it as one pipelined batch with a single flush, a reader thread completes the futures in reply order.
+ * Under concurrency many decisions therefore share one network round trip. The connection is (re)opened lazily,
+ * commands in flight when it breaks fail instead of hanging, as do all of them once the oldest has waited a read
+ * timeout for its reply.
+ */
+@Slf4j
+public class RespClient implements Closeable {
+    private static final int MAX_BATCH_SIZE = 512;
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final InetSocketAddress address;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final BlockingQueue<Command> commandQueue;
+    private final Thread writer;
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong commandsSent = new AtomicLong();
+    private volatile boolean running = true;
+    private Connection connection;
+
+    public RespClient(String host, int port, int connectTimeoutMillis, int readTimeoutMillis, int maxPendingCommands) {
+        this.address = new InetSocketAddress(host, port);
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.commandQueue = new LinkedBlockingQueue<>(maxPendingCommands);
+        this.writer = new Thread(this::writeLoop, "resp-client-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+
+    /**
+     * Enqueues a command, the future completes with a {@link Long}, {@link String}, {@code byte[]}, {@link List}
+     * or null (nil) reply, or exceptionally on an error reply or a connection failure.
+     */
+    public CompletableFuture<Object> send(String... arguments) {
+        Command command = new Command(arguments);
+        if (!running) {
+            command.reply.completeExceptionally(new IOException("RESP client is closed"));
+        } else if (!commandQueue.offer(command)) {
+            command.reply.completeExceptionally(new IOException("RESP client queue is full"));
+        }
+        return command.reply;
+    }
+
+    public long getBatchesSent() {
+        return batchesSent.get();
+    }
+
+    public long getCommandsSent() {
+        return commandsSent.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        writer.interrupt();
+        synchronized (this) {
+            if (connection != null) {
+                connection.close(new IOException("RESP client is closed"));
+            }
+        }
+    }
+
+
+    private void writeLoop() {
+        List<Command> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running) {
+            try {
+                batch.add(commandQueue.take());
+                commandQueue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        for (Command command : commandQueue) {
+            command.reply.completeExceptionally(new IOException("RESP client is closed"));
+        }
+    }
+
+    private void writeBatch(List<Command> batch) {
+        Connection current;
+        try {
+            current = connect();
+        } catch (IOException e) {
+            batch.forEach(command -> command.reply.completeExceptionally(e));
+            return;
+        }
+
+        try {
+            // replies come back in order, so the commands must be pending before the first byte leaves
+            current.pending.addAll(batch);
+            if (!current.open) {
+                // the reader closed the connection meanwhile and may have failed the pending commands before these
+                current.close(new IOException("RESP connection to " + address + " is closed"));
+                return;
+            }
+            for (Command command : batch) {
+                writeCommand(current.output, command.arguments);
+            }
+            current.output.flush();
+            batchesSent.incrementAndGet();
+            commandsSent.addAndGet(batch.size());
+        } catch (IOException e) {
+            current.close(e);
+        }
+    }
+
+    private synchronized Connection connect() throws IOException {
+        if (connection != null && connection.open) {
+            return connection;
+        }
+        if (!running) {
+            throw new IOException("RESP client is closed");
+        }
+        Socket socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.setKeepAlive(true);
+        socket.setSoTimeout(readTimeoutMillis);
+        socket.connect(address, connectTimeoutMillis);
+        connection = new Connection(socket);
+        return connection;
+    }
+
+    private static void writeCommand(OutputStream output, String[] arguments) throws IOException {
+        output.write('*');
+        output.write(Integer.toString(arguments.length).getBytes(StandardCharsets.US_ASCII));
+        output.write(CRLF);
+        for (String argument : arguments) {
+            byte[] bytes = argument.getBytes(StandardCharsets.UTF_8);
+            output.write('$');
+            output.write(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+            output.write(CRLF);
+            output.write(bytes);
+            output.write(CRLF);
+        }
+    }
+
+    static Object readReply(InputStream input) throws IOException {
+        return readReply(input.read(), input);
+    }
+
+    private static Object readReply(int type, InputStream input) throws IOException {
+        switch (type) {
+            case '+':
+                return readLine(input);
+            case '-':
+                return new RespErrorReply(readLine(input));
+            case ':':
+                return Long.parseLong(readLine(input));
+            case '$': {
+                int length = Integer.parseInt(readLine(input));
+                if (length < 0) {
+                    return null;
+                }
+                byte[] bytes = input.readNBytes(length);
+                input.readNBytes(2);
+                return bytes;
+            }
+            case '*': {
+                int length = Integer.parseInt(readLine(input));
+                if (length < 0) {
+                    return null;
+                }
+                List<Object> elements = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) {
+                    elements.add(readReply(input));
+                }
+                return elements;
+            }
+            case -1:
+                throw new EOFException("RESP connection closed by server");
+            default:
+                throw new IOException("Unexpected RESP reply type " + (char) type);
+        }
+    }
+
+    static String readLine(InputStream input) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int current;
+        while ((current = input.read()) != '\r') {
+            if (current == -1) {
+                throw new EOFException("RESP connection closed by server");
+            }
+            line.append((char) current);
+        }
+        input.read();
+        return line.toString();
+    }
+
+
+    private static final class Command {
+        private final String[] arguments;
+        private final CompletableFuture<Object> reply = new CompletableFuture<>();
+
+        private Command(String[] arguments) {
+            this.arguments = arguments;
+        }
+    }
+
+    // error replies are surfaced as exceptions of the command's future
+    record RespErrorReply(String message) {}
+
+    private final class Connection {
+        private final Socket socket;
+        private final OutputStream output;
+        private final ConcurrentLinkedQueue<Command> pending = new ConcurrentLinkedQueue<>();
+        private volatile boolean open = true;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.output = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+            InputStream input = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+            Thread reader = new Thread(() -> readLoop(input), "resp-client-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private void readLoop(InputStream input) {
+            // head of the pending commands at the previous timeout
+            Command stalled = null;
+            try {
+                while (open) {
+                    int type;
+                    try {
+                        type = input.read();
+                    } catch (SocketTimeoutException e) {
+                        // nothing of a reply was read yet, an idle connection or a command sent less than a whole
+                        // timeout ago keeps waiting, a timeout within a reply fails the connection below
+                        Command oldest = pending.peek();
+                        if (oldest == null || oldest != stalled) {
+                            stalled = oldest;
+                            continue;
+                        }
+                        throw new SocketTimeoutException("No RESP reply from " + address + " within " + readTimeoutMillis + " ms");
+                    }
+                    Object reply = readReply(type, input);
+                    Command command = pending.poll();
+                    if (command == null) {
+                        throw new IOException("RESP reply without a pending command");
+                    }
+                    if (reply instanceof RespErrorReply error) {
+                        command.reply.completeExceptionally(new IOException(error.message()));
+                    } else {
+                        command.reply.complete(reply);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                close(e);
+            }
+        }
+
+        // fails the pending commands even when already closed, the writer may have added some since
+        private void close(Exception cause) {
+            boolean wasOpen;
+            synchronized (this) {
+                wasOpen = open;
+                open = false;
+            }
+            if (wasOpen) {
+                if (running) {
+                    log.warn("RESP connection to {} lost: {}", address, cause.getMessage());
+                }
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // already failing
+                }
+            }
+            ArrayDeque<Command> failed = new ArrayDeque<>();
+            Command command;
+            while ((command = pending.poll()) != null) {
+                failed.add(command);
+            }
+            failed.forEach(pendingCommand -> pendingCommand.reply.completeExceptionally(cause));
+        }
+    }
+}
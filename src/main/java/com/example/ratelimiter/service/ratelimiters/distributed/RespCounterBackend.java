@@ -0,0 +1,27 @@
+package com.example.ratelimiter.service.ratelimiters.distributed;
+
+import java.util.concurrent.CompletableFuture;
+
+
+/**
+ * {@link DistributedCounterBackend} on top of any Redis protocol store. INCRBY is atomic on its own and PEXPIREAT
+ * with an absolute time is idempotent, so no script is needed: both commands simply go out in the same pipelined
+ * batch of the {@link RespClient}.
+ */
+public class RespCounterBackend implements DistributedCounterBackend {
+    private final RespClient client;
+
+    public RespCounterBackend(RespClient client) {
+        this.client = client;
+    }
+
+
+    @Override
+    public CompletableFuture<Long> addAndGet(String key, long delta, long expireAtMillis) {
+        CompletableFuture<Object> reply = client.send("INCRBY", key, Long.toString(delta));
+        if (expireAtMillis > 0) {
+            client.send("PEXPIREAT", key, Long.toString(expireAtMillis));
+        }
+        return reply.thenApply(value -> (Long) value);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.ratelimiter.service.ratelimiters.events;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Optional record of rate limiter decisions, for abuse analysis and audit, kept off the request path: a decision
+ * is published into a preallocated {@link DecisionEventRing} without allocating or blocking, and the scheduler
+ * drains the ring every {@code flush-interval} into the {@link DecisionEventSink}, in batches, flushing after each.
+ * <p>
+ * The sink is a {@link DecisionEventSink} bean when one is declared, otherwise the NDJSON or binary file set by
+ * {@code ratelimiter.events}. Events the ring has no room for, because the sink can not keep up, are dropped and
+ * counted, requests never wait for them. By default only throttled decisions are published.
+ */
+@Slf4j
+@Component
+public class DecisionEventPublisher {
+    // events written between two flushes of the sink
+    static final int DRAIN_BATCH = 1 << 12;
+
+    private final DecisionEventRing ring;
+    private final DecisionEventSink sink;
+    private final boolean ownsSink;
+    private final boolean throttledOnly;
+    private final RateLimiterClock clock;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder sinkFailures = new LongAdder();
+
+    @Autowired
+    public DecisionEventPublisher(RateLimiterProperties properties, ObjectProvider<DecisionEventSink> customSink,
+                                  TaskScheduler taskScheduler, RateLimiterClock clock) throws IOException {
+        RateLimiterProperties.Events events = properties.getEvents();
+        DecisionEventSink declaredSink = events.isEnabled() ? customSink.getIfAvailable() : null;
+        this.ring = events.isEnabled() ? new DecisionEventRing(events.getBufferSize()) : null;
+        this.sink = !events.isEnabled() ? null : declaredSink != null ? declaredSink : openSink(events);
+        // a declared sink is closed by its own bean definition
+        this.ownsSink = declaredSink == null;
+        this.throttledOnly = events.isThrottledOnly();
+        this.clock = clock;
+        if (ring != null) {
+            taskScheduler.scheduleWithFixedDelay(this::drain, events.getFlushInterval());
+            log.info("Publishing {} decision events to {}", throttledOnly ? "throttled" : "all",
+                    ownsSink ? Path.of(events.getPath()).toAbsolutePath() : sink);
+        }
+    }
+
+    // drained by calling drain(), the caller closes the sink
+    public DecisionEventPublisher(int bufferSize, boolean throttledOnly, DecisionEventSink sink, RateLimiterClock clock) {
+        this.ring = new DecisionEventRing(bufferSize);
+        this.sink = sink;
+        this.ownsSink = false;
+        this.throttledOnly = throttledOnly;
+        this.clock = clock;
+    }
+
+    private DecisionEventPublisher() {
+        this.ring = null;
+        this.sink = null;
+        this.ownsSink = false;
+        this.throttledOnly = true;
+        this.clock = RateLimiterClock.system();
+    }
+
+    // decisions are not recorded
+    public static DecisionEventPublisher disabled() {
+        return new DecisionEventPublisher();
+    }
+
+
+    public boolean isEnabled() {
+        return ring != null;
+    }
+
+    /**
+     * Records a decision unless it is an allowed one and only throttled ones are kept, or the ring is full.
+     * The client key is kept by reference until written, callers must not reuse a mutable one.
+     */
+    public void publish(ApiName apiName, CharSequence clientKey, long permits, boolean throttled) {
+        if (ring != null && (throttled || !throttledOnly)) {
+            ring.offer(clock.currentTimeMillis(), apiName.ordinal(), clientKey, permits, throttled);
+        }
+    }
+
+    /**
+     * Writes every event published so far to the sink, flushing it after each batch. Never throws, the events a
+     * failing sink was handed are lost.
+     *
+     * @return number of events drained
+     */
+    public synchronized long drain() {
+        if (ring == null) {
+            return 0;
+        }
+        long drained = 0;
+        try {
+            int batch;
+            do {
+                batch = ring.drain(sink, DRAIN_BATCH);
+                drained += batch;
+                written.add(batch);
+                sink.flush();
+            } while (batch == DRAIN_BATCH);
+        } catch (IOException | RuntimeException e) {
+            sinkFailures.increment();
+            log.warn("Could not write decision events to {}: {}", sink, e.getMessage());
+        }
+        return drained;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        drain();
+        if (ownsSink && sink != null) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                log.warn("Could not close decision event sink {}: {}", sink, e.getMessage());
+            }
+        }
+    }
+
+    public long getPublished() {
+        return ring == null ? 0 : ring.getPublished();
+    }
+
+    public long getDropped() {
+        return ring == null ? 0 : ring.getDropped();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getSinkFailures() {
+        return sinkFailures.sum();
+    }
+
+    public long backlog() {
+        return ring == null ? 0 : ring.backlog();
+    }
+
+
+    private static DecisionEventSink openSink(RateLimiterProperties.Events events) throws IOException {
+        Path file = Path.of(events.getPath());
+        return switch (events.getFormat()) {
+            case NDJSON -> new NdjsonDecisionEventSink(file);
+            case BINARY -> new BinaryDecisionEventSink(file);
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.ratelimiter.service.ratelimiters.events;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Bounded ring of decision events that any number of request threads publish into and a single thread drains,
+ * preallocated so publishing never allocates, and never blocks: an event that finds the ring full is dropped
+ * and counted.
+ * <p>
+ * Events are kept field by field in parallel arrays, guarded by one sequence per slot. A producer claims the next
+ * position with a compare and set of the tail, fills the slot and then publishes it by setting the slot's sequence
+ * to position + 1. The consumer reads a slot once its sequence says so and hands it back to the producers by
+ * setting it to position + capacity, the position the slot is next written at.
+ */
+public class DecisionEventRing {
+    private static final ApiName[] API_NAMES = ApiName.values();
+
+    private final AtomicLongArray sequences;
+    private final long[] timestamps;
+    private final long[] permits;
+    private final int[] apiOrdinals;
+    private final boolean[] throttled;
+    private final CharSequence[] clientKeys;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    // only moved by the consumer, read by gauges
+    private volatile long head;
+
+    public DecisionEventRing(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30, got " + capacity);
+        }
+        int slotCount = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.sequences = new AtomicLongArray(slotCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            sequences.set(slot, slot);
+        }
+        this.timestamps = new long[slotCount];
+        this.permits = new long[slotCount];
+        this.apiOrdinals = new int[slotCount];
+        this.throttled = new boolean[slotCount];
+        this.clientKeys = new CharSequence[slotCount];
+        this.mask = slotCount - 1;
+    }
+
+
+    /**
+     * Publishes an event, the client key is kept by reference until it is drained and must not change meanwhile.
+     *
+     * @return false if the ring was full and the event dropped
+     */
+    public boolean offer(long timestampMillis, int apiOrdinal, CharSequence clientKey, long eventPermits, boolean eventThrottled) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long difference = sequences.getAcquire(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // the slot still holds the event of the previous lap, the consumer is a whole ring behind
+                dropped.increment();
+                return false;
+            } else {
+                // another producer claimed the position
+                position = tail.get();
+            }
+        }
+
+        int slot = (int) position & mask;
+        timestamps[slot] = timestampMillis;
+        apiOrdinals[slot] = apiOrdinal;
+        clientKeys[slot] = clientKey;
+        permits[slot] = eventPermits;
+        throttled[slot] = eventThrottled;
+        sequences.setRelease(slot, position + 1);
+        return true;
+    }
+
+    /**
+     * Hands up to {@code maxEvents} published events to the sink, oldest first, without flushing it. Must only be
+     * called by one thread at a time. An event is taken out of the ring before it is written, a sink failing on it
+     * loses it.
+     *
+     * @return number of events drained
+     */
+    public int drain(DecisionEventSink sink, int maxEvents) throws IOException {
+        long position = head;
+        int drained = 0;
+        try {
+            while (drained < maxEvents) {
+                int slot = (int) position & mask;
+                if (sequences.getAcquire(slot) != position + 1) {
+                    break;
+                }
+                long timestampMillis = timestamps[slot];
+                int apiOrdinal = apiOrdinals[slot];
+                CharSequence clientKey = clientKeys[slot];
+                long eventPermits = permits[slot];
+                boolean eventThrottled = throttled[slot];
+                // the client key is not held on to once drained
+                clientKeys[slot] = null;
+                sequences.setRelease(slot, position + mask + 1);
+                position++;
+                drained++;
+
+                sink.write(timestampMillis, API_NAMES[apiOrdinal], clientKey, eventPermits, eventThrottled);
+            }
+        } finally {
+            head = position;
+        }
+        return drained;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    // events published so far, drained or not
+    public long getPublished() {
+        return tail.get();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    // events published but not drained yet, may be momentarily off by the events being published
+    public long backlog() {
+        return Math.max(0, tail.get() - head);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.ratelimiter.service.ratelimiters.events;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+
+/**
+ * Receives the decision events drained from the {@link DecisionEventRing}, on the draining thread only, never on
+ * a request thread. Events come in batches, each batch followed by {@link #flush()}, so a sink may buffer writes.
+ * Declaring a bean of this type replaces the file the events are written to otherwise.
+ */
+public interface DecisionEventSink extends Flushable, Closeable {
+
+    /**
+     * @param clientKey null for requests limited api wide only
+     */
+    void write(long timestampMillis, ApiName apiName, CharSequence clientKey, long permits, boolean throttled) throws IOException;
+
+    @Override
+    default void flush() throws IOException {}
+
+    @Override
+    default void close() throws IOException {}
+}
@@ -0,0 +1,80 @@
+package com.example.ratelimiter.service.ratelimiters.events;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Appends decision events to a file as newline delimited JSON, one object per line:
+ * <pre>
+ * {"timestamp":1700000000000,"api":"HEALTH_CHECK","client_key":"10.0.0.7","permits":1,"throttled":true}
+ * </pre>
+ * {@code client_key} is left out for requests limited api wide only. Lines are written by hand rather than through
+ * Jackson, the draining thread should not build an object per event.
+ */
+public class NdjsonDecisionEventSink implements DecisionEventSink {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Writer writer;
+
+    public NdjsonDecisionEventSink(Path file) throws IOException {
+        this(Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+    }
+
+    public NdjsonDecisionEventSink(Writer writer) {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+    }
+
+
+    @Override
+    public void write(long timestampMillis, ApiName apiName, CharSequence clientKey, long permits, boolean throttled) throws IOException {
+        writer.write("{\"timestamp\":");
+        writer.write(Long.toString(timestampMillis));
+        writer.write(",\"api\":\"");
+        writer.write(apiName.name());
+        if (clientKey != null) {
+            writer.write("\",\"client_key\":\"");
+            writeEscaped(clientKey);
+        }
+        writer.write("\",\"permits\":");
+        writer.write(Long.toString(permits));
+        writer.write(throttled ? ",\"throttled\":true}\n" : ",\"throttled\":false}\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+
+    // client keys come from request headers, anything but a plain character is escaped
+    private void writeEscaped(CharSequence value) throws IOException {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20 || c == 0x7F || Character.isSurrogate(c)) {
+                writer.write("\\u");
+                writer.write(HEX_DIGITS[c >>> 12]);
+                writer.write(HEX_DIGITS[(c >>> 8) & 0xF]);
+                writer.write(HEX_DIGITS[(c >>> 4) & 0xF]);
+                writer.write(HEX_DIGITS[c & 0xF]);
+            } else {
+                writer.write(c);
+            }
+        }
+    }
+}
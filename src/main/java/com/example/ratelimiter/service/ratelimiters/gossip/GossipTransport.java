@@ -0,0 +1,219 @@
+package com.example.ratelimiter.service.ratelimiters.gossip;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.service.ratelimiters.store.ClientKeys;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+
+/**
+ * Exchanges counter entries between the members of a gossip cluster over UDP, one datagram per peer and round,
+ * split only when a round does not fit a single datagram.
+ * <p>
+ * A datagram is a fixed header followed by primitive entries:
+ * <pre>
+ * header   magic (int), version (short), sender index (short), layout fingerprint (long), entry count (short)
+ * entry    api ordinal (short), window interval millis (long), window (long), sender's count (long)
+ * </pre>
+ * Entries carry absolute counts, merged by taking the maximum, so a lost, duplicated or reordered datagram never
+ * miscounts, a lost one is only late. Datagrams of another version, another {@link ApiName} layout, an unknown
+ * member, a bad length, or that do not come from the address of the member they name are dropped. A single daemon
+ * thread receives, sending happens on the caller's thread.
+ */
+@Slf4j
+public class GossipTransport implements Closeable {
+    private static final int MAGIC = 0x524C4750;
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 18;
+    private static final int ENTRY_BYTES = 26;
+    // stays below the usual path MTU, a datagram is never fragmented
+    private static final int MAX_DATAGRAM_BYTES = 1400;
+    private static final int MAX_ENTRIES_PER_DATAGRAM = (MAX_DATAGRAM_BYTES - HEADER_BYTES) / ENTRY_BYTES;
+    // ordinals go over the wire, members built with reordered enums must not merge each other's counts
+    private static final long LAYOUT_FINGERPRINT = ClientKeys.hash(
+            Arrays.stream(ApiName.values()).map(Enum::name).collect(Collectors.joining(",")));
+
+    private final DatagramChannel channel;
+    private final int nodeIndex;
+    private final List<InetSocketAddress> members;
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_BYTES);
+    private final AtomicLong datagramsSent = new AtomicLong();
+    private final AtomicLong datagramsDropped = new AtomicLong();
+    private volatile boolean running = true;
+    private Thread receiver;
+
+    /**
+     * @param channel   bound to the address other members know this node by
+     * @param nodeIndex position of this node in {@code members}, the same list in the same order on every node
+     */
+    public GossipTransport(DatagramChannel channel, int nodeIndex, List<InetSocketAddress> members) {
+        if (nodeIndex < 0 || nodeIndex >= members.size() || members.size() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Node index " + nodeIndex + " is not one of " + members.size() + " members");
+        }
+        this.channel = channel;
+        this.nodeIndex = nodeIndex;
+        this.members = List.copyOf(members);
+    }
+
+    // listens on this node's member address only, the address its datagrams are sent from
+    public static GossipTransport bind(int nodeIndex, List<InetSocketAddress> members) throws IOException {
+        if (nodeIndex < 0 || nodeIndex >= members.size()) {
+            throw new IllegalArgumentException("Node index " + nodeIndex + " is not one of " + members.size() + " members");
+        }
+        DatagramChannel channel = DatagramChannel.open();
+        try {
+            channel.bind(members.get(nodeIndex));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new GossipTransport(channel, nodeIndex, members);
+    }
+
+
+    /**
+     * Starts handing every entry received from a peer to {@code listener}, on the receiver thread.
+     */
+    public synchronized void start(EntryListener listener) {
+        if (receiver != null) {
+            throw new IllegalStateException("Gossip transport already started");
+        }
+        receiver = new Thread(() -> receiveLoop(listener), "gossip-receiver-" + nodeIndex);
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    /**
+     * Sends the entries to every other member. An unreachable member is skipped, it catches up from a later round.
+     *
+     * @param entries api ordinal, window interval millis, window and count of each entry, 4 longs per entry
+     */
+    public synchronized void broadcast(long[] entries, int entryCount) {
+        for (int first = 0; first < entryCount; first += MAX_ENTRIES_PER_DATAGRAM) {
+            int count = Math.min(MAX_ENTRIES_PER_DATAGRAM, entryCount - first);
+            sendBuffer.clear();
+            sendBuffer.putInt(MAGIC).putShort(VERSION).putShort((short) nodeIndex).putLong(LAYOUT_FINGERPRINT)
+                    .putShort((short) count);
+            for (int entry = first; entry < first + count; entry++) {
+                sendBuffer.putShort((short) entries[entry * 4])
+                        .putLong(entries[entry * 4 + 1])
+                        .putLong(entries[entry * 4 + 2])
+                        .putLong(entries[entry * 4 + 3]);
+            }
+            sendBuffer.flip();
+
+            for (int member = 0; member < members.size(); member++) {
+                if (member == nodeIndex) {
+                    continue;
+                }
+                try {
+                    channel.send(sendBuffer, members.get(member));
+                    datagramsSent.incrementAndGet();
+                } catch (IOException e) {
+                    log.debug("Could not gossip to member {}: {}", members.get(member), e.getMessage());
+                }
+                sendBuffer.rewind();
+            }
+        }
+    }
+
+    public int nodeIndex() {
+        return nodeIndex;
+    }
+
+    public int memberCount() {
+        return members.size();
+    }
+
+    // port this member listens on
+    public int localPort() {
+        try {
+            return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    public long getDatagramsSent() {
+        return datagramsSent.get();
+    }
+
+    public long getDatagramsDropped() {
+        return datagramsDropped.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        // unblocks the receiver
+        channel.close();
+    }
+
+
+    private void receiveLoop(EntryListener listener) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_BYTES);
+        while (running) {
+            SocketAddress sender;
+            try {
+                buffer.clear();
+                sender = channel.receive(buffer);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Gossip receive failed: {}", e.getMessage());
+                continue;
+            }
+            buffer.flip();
+            if (!accept(buffer, sender)) {
+                datagramsDropped.incrementAndGet();
+                log.debug("Dropped malformed or foreign gossip datagram from {}", sender);
+                continue;
+            }
+
+            int node = buffer.getShort(6);
+            int count = buffer.getShort(16);
+            buffer.position(HEADER_BYTES);
+            for (int entry = 0; entry < count; entry++) {
+                int apiOrdinal = buffer.getShort();
+                long windowIntervalMillis = buffer.getLong();
+                long window = buffer.getLong();
+                long entryCount = buffer.getLong();
+                if (apiOrdinal >= 0 && apiOrdinal < ApiName.values().length && windowIntervalMillis > 0) {
+                    listener.onEntry(node, apiOrdinal, windowIntervalMillis, window, entryCount);
+                }
+            }
+        }
+    }
+
+    private boolean accept(ByteBuffer datagram, SocketAddress sender) {
+        if (datagram.remaining() < HEADER_BYTES || datagram.getInt(0) != MAGIC || datagram.getShort(4) != VERSION
+                || datagram.getLong(8) != LAYOUT_FINGERPRINT) {
+            return false;
+        }
+        int node = datagram.getShort(6);
+        int count = datagram.getShort(16);
+        // the header is public, only the member's own address vouches for the node index it claims
+        return node >= 0 && node < members.size() && node != nodeIndex && members.get(node).equals(sender)
+                && count >= 0 && datagram.remaining() == HEADER_BYTES + count * ENTRY_BYTES;
+    }
+
+
+    /**
+     * Receives the entries of peers, called on the receiver thread.
+     */
+    @FunctionalInterface
+    public interface EntryListener {
+        void onEntry(int node, int apiOrdinal, long windowIntervalMillis, long window, long count);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.ratelimiter.service.ratelimiters.priority;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RequestPriority;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Short, bounded wait for a permit instead of an immediate rejection, so a burst slightly over the limit is
+ * smoothed out rather than turned into errors and retries.
+ * <p>
+ * Every api has its own queue, ordered by {@link RequestPriority} first and arrival second. Only the first waiter
+ * of an api asks for a permit, once every {@code retryInterval} and outside the lock of the queue, the others stay
+ * parked until they are first, so a full queue costs one attempt per interval rather than one per waiter. A request
+ * gives up at its deadline, and is turned away at once while {@code maxWaiters} requests of the api are already
+ * waiting. While any are waiting, new requests of the api are expected to queue behind them rather than ask first,
+ * see {@link #hasWaiters}.
+ * <p>
+ * Waiting parks the calling thread, which suits a thread per request (or virtual threads), never an event loop.
+ */
+@Component
+public class PriorityWaitQueue {
+    private final Waiters[] waitersByApi;
+    private final int maxWaiters;
+    private final long maxWaitNanos;
+    private final long retryIntervalNanos;
+
+    @Autowired
+    public PriorityWaitQueue(RateLimiterProperties properties) {
+        this(properties.getPriority().getMaxWaiters(), properties.getPriority().getMaxWait(),
+                properties.getPriority().getRetryInterval());
+    }
+
+    public PriorityWaitQueue(int maxWaiters, Duration maxWait, Duration retryInterval) {
+        if (maxWaiters < 0 || maxWait.isNegative() || (maxWaiters > 0 && retryInterval.isZero()) || retryInterval.isNegative()) {
+            throw new IllegalArgumentException("Invalid wait queue settings: max waiters " + maxWaiters
+                    + ", max wait " + maxWait + ", retry interval " + retryInterval);
+        }
+        this.maxWaiters = maxWaiters;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.retryIntervalNanos = retryInterval.toNanos();
+        this.waitersByApi = new Waiters[ApiName.values().length];
+        for (int ordinal = 0; ordinal < waitersByApi.length; ordinal++) {
+            waitersByApi[ordinal] = new Waiters();
+        }
+    }
+
+    // throttled requests are rejected right away
+    public static PriorityWaitQueue disabled() {
+        return new PriorityWaitQueue(0, Duration.ZERO, Duration.ZERO);
+    }
+
+
+    public boolean isEnabled() {
+        return maxWaiters > 0 && maxWaitNanos > 0;
+    }
+
+    /**
+     * Waits for {@code admission} to grant a request of the api, asking it whenever this request is the first
+     * of the queue. An interrupted request stops waiting and keeps its interrupt status.
+     *
+     * @return true if admitted before the deadline, false if timed out, interrupted or the queue was full
+     */
+    public boolean await(ApiName apiName, RequestPriority priority, Admission admission) {
+        if (!isEnabled()) {
+            return false;
+        }
+        Waiters waiters = waitersByApi[apiName.ordinal()];
+        Thread current = Thread.currentThread();
+        synchronized (waiters) {
+            if (waiters.size >= maxWaiters) {
+                return false;
+            }
+            waiters.queues[priority.ordinal()].addLast(current);
+            waiters.size++;
+        }
+
+        long deadline = System.nanoTime() + maxWaitNanos;
+        try {
+            while (true) {
+                boolean first;
+                synchronized (waiters) {
+                    first = waiters.first() == current;
+                }
+                // asked outside the monitor, a slow engine holds up no request entering or leaving the queue, a
+                // higher priority arriving meanwhile is overtaken by this one attempt at most
+                if (first && admission.tryAcquire()) {
+                    return true;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                // a waiter behind others is unparked by whoever leaves the queue before it
+                LockSupport.parkNanos(this, first ? Math.min(retryIntervalNanos, remaining) : remaining);
+                if (Thread.interrupted()) {
+                    current.interrupt();
+                    return false;
+                }
+            }
+        } finally {
+            Thread next;
+            synchronized (waiters) {
+                waiters.queues[priority.ordinal()].remove(current);
+                waiters.size--;
+                next = waiters.first();
+            }
+            if (next != null) {
+                LockSupport.unpark(next);
+            }
+        }
+    }
+
+    /**
+     * Read without the lock, a request arriving as the last waiter leaves may still queue or ask first.
+     */
+    public boolean hasWaiters(ApiName apiName) {
+        return waitersByApi[apiName.ordinal()].size > 0;
+    }
+
+    public int waiting(ApiName apiName) {
+        Waiters waiters = waitersByApi[apiName.ordinal()];
+        synchronized (waiters) {
+            return waiters.size;
+        }
+    }
+
+
+    /**
+     * One attempt to admit the waiting request, e.g. asking the rate limiter engine again.
+     */
+    @FunctionalInterface
+    public interface Admission {
+        boolean tryAcquire();
+    }
+
+    // guarded by its own monitor, size is also read without it
+    private static final class Waiters {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private final ArrayDeque<Thread>[] queues = new ArrayDeque[RequestPriority.values().length];
+        private volatile int size;
+
+        private Waiters() {
+            for (int priority = 0; priority < queues.length; priority++) {
+                queues[priority] = new ArrayDeque<>();
+            }
+        }
+
+        private Thread first() {
+            for (ArrayDeque<Thread> queue : queues) {
+                Thread first = queue.peekFirst();
+                if (first != null) {
+                    return first;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.ratelimiter.service.ratelimiters.snapshot;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.PerClientFixWindowRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.RateLimiter;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import com.example.ratelimiter.service.ratelimiters.store.ClientKeys;
+import com.example.ratelimiter.service.ratelimiters.store.CounterStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+
+/**
+ * Writes the live window counters of the engines and the per client counters to a memory mapped snapshot file
+ * and loads them back on startup, so a restart or a rolling deploy does not hand every client a fresh budget.
+ * <p>
+ * The file is a fixed header followed by three sections of primitive records:
+ * <pre>
+ * header       magic, version, layout fingerprint, written at, record counts, CRC32 of everything after the header
+ * api records  algorithm ordinal (int), api ordinal (int), window interval millis (long), window counter (long)
+ * key spaces   client window interval millis (long) per client key space, 0 when not limited
+ * clients      key (long), window (high 32 bits) and count (low 32 bits) (long)
+ * </pre>
+ * Snapshots are written to a temporary file and moved over the previous one, a crash mid-write leaves the last
+ * complete snapshot in place. Loading reads the mapped file in place. Counters of windows that ended while the
+ * service was down, or that were taken under another window interval, are dropped. A snapshot with another
+ * version, another enum layout or a bad checksum is ignored as a whole.
+ * <p>
+ * Restoring waits for the context to start, once every singleton exists: the default limits of
+ * {@code @RateLimited} handlers are only registered then, and counters of an api that is not limited yet would be
+ * dropped. It still happens before the web server takes requests, and the last snapshot after it stopped.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "ratelimiter.snapshot", name = "enabled", havingValue = "true")
+public class CounterSnapshotter implements SmartLifecycle {
+    private static final int MAGIC = 0x524C4353;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 48;
+    private static final int API_RECORD_BYTES = 24;
+    private static final int CLIENT_RECORD_BYTES = 16;
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+    // ordinals are persisted, a snapshot of a build that reordered the enums must not be read
+    private static final long LAYOUT_FINGERPRINT = ClientKeys.hash(
+            Arrays.stream(ApiName.values()).map(Enum::name).collect(Collectors.joining(",")) + '|'
+                    + Arrays.stream(RateLimiterAlgorithm.values()).map(Enum::name).collect(Collectors.joining(",")));
+
+    private final RateLimiter[] enginesByAlgorithm;
+    // null in SKETCH mode, whose estimates are not persisted
+    private final CounterStore clientCounterStore;
+    private final RateLimitConfigRegistry configRegistry;
+    private final RateLimiterClock clock;
+    private final Path snapshotFile;
+    private final Path temporaryFile;
+    private final TaskScheduler taskScheduler;
+    private final Duration interval;
+    // null while stopped
+    private volatile ScheduledFuture<?> scheduledSnapshots;
+
+    @Autowired
+    public CounterSnapshotter(List<RateLimiter> engines, PerClientFixWindowRateLimiter perClientRateLimiter,
+                              RateLimitConfigRegistry configRegistry, RateLimiterProperties properties,
+                              TaskScheduler taskScheduler, RateLimiterClock clock) {
+        this(engines, perClientRateLimiter.getCounterStore(), configRegistry, Path.of(properties.getSnapshot().getPath()),
+                taskScheduler, properties.getSnapshot().getInterval(), clock);
+    }
+
+    CounterSnapshotter(List<RateLimiter> engines, CounterStore clientCounterStore,
+                       RateLimitConfigRegistry configRegistry, Path snapshotFile, TaskScheduler taskScheduler,
+                       Duration interval, RateLimiterClock clock) {
+        this.enginesByAlgorithm = new RateLimiter[RateLimiterAlgorithm.values().length];
+        for (RateLimiter engine : engines) {
+            enginesByAlgorithm[engine.algorithm().ordinal()] = engine;
+        }
+        // a snapshot is mapped as a whole, which caps it at 2 GB
+        if (fixedBytes() + (clientCounterStore != null ? CLIENT_RECORD_BYTES * clientCounterStore.maxEntries() : 0)
+                > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Client store of " + clientCounterStore.maxEntries()
+                    + " entries does not fit a snapshot of at most 2 GB, lower its max-entries or disable snapshots");
+        }
+        this.clientCounterStore = clientCounterStore;
+        this.configRegistry = configRegistry;
+        this.clock = clock;
+        this.snapshotFile = snapshotFile.toAbsolutePath();
+        this.temporaryFile = this.snapshotFile.resolveSibling(this.snapshotFile.getFileName() + ".tmp");
+        this.taskScheduler = taskScheduler;
+        this.interval = interval;
+    }
+
+    @Override
+    public void start() {
+        restore();
+        scheduledSnapshots = taskScheduler.scheduleWithFixedDelay(this::snapshot, interval);
+    }
+
+    @Override
+    public void stop() {
+        scheduledSnapshots.cancel(false);
+        scheduledSnapshots = null;
+        snapshot();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduledSnapshots != null;
+    }
+
+    // before the web server, which starts in a later phase and is stopped in an earlier one
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+
+    /**
+     * Writes the current counters, never throws, a failed snapshot keeps the previous one.
+     */
+    synchronized void snapshot() {
+        try {
+            long startNanos = System.nanoTime();
+            long clientCount = write();
+            log.debug("Wrote {} client counters to {} in {} µs", clientCount, snapshotFile, (System.nanoTime() - startNanos) / 1_000);
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not write rate limiter snapshot {}", snapshotFile, e);
+        }
+    }
+
+    /**
+     * Loads the counters of the snapshot file if there is a usable one, never throws.
+     *
+     * @return number of counters restored
+     */
+    synchronized long restore() {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return 0;
+        }
+        try {
+            long startNanos = System.nanoTime();
+            long restored = read();
+            log.info("Restored {} rate limiter counters from {} in {} ms", restored, snapshotFile,
+                    (System.nanoTime() - startNanos) / 1_000_000);
+            return restored;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not restore rate limiter snapshot {}, starting with empty counters: {}", snapshotFile, e.getMessage());
+            return 0;
+        }
+    }
+
+
+    private long write() throws IOException {
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        ApiName[] apiNames = ApiName.values();
+        int keySpaceCount = apiNames.length;
+        // sized for the keys held now plus some headroom for keys added while writing, not for maxEntries
+        long clientCapacity = 0;
+        if (clientCounterStore != null) {
+            long size = clientCounterStore.size();
+            clientCapacity = Math.min(clientCounterStore.maxEntries(), size + size / 8 + 64);
+        }
+        long maxBytes = fixedBytes() + CLIENT_RECORD_BYTES * clientCapacity;
+        long clientCount;
+
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, maxBytes);
+            buffer.position(HEADER_BYTES);
+
+            int apiRecordCount = 0;
+            for (RateLimiter engine : enginesByAlgorithm) {
+                if (engine == null) {
+                    continue;
+                }
+                for (ApiName apiName : apiNames) {
+                    long windowCounter = engine.windowCounter(apiName);
+                    if (windowCounter == -1 || !configs.isRateLimited(apiName.ordinal())) {
+                        continue;
+                    }
+                    buffer.putInt(engine.algorithm().ordinal())
+                            .putInt(apiName.ordinal())
+                            .putLong(configs.windowIntervalMillis(apiName.ordinal()))
+                            .putLong(windowCounter);
+                    apiRecordCount++;
+                }
+            }
+            for (ApiName apiName : apiNames) {
+                buffer.putLong(configs.isClientRateLimited(apiName.ordinal()) ? configs.clientWindowIntervalMillis(apiName.ordinal()) : 0);
+            }
+
+            int clientsStart = buffer.position();
+            // keys added beyond the headroom while writing are left to the next snapshot
+            if (clientCounterStore != null) {
+                clientCounterStore.forEach((key, window, count) -> {
+                    if (buffer.remaining() >= CLIENT_RECORD_BYTES) {
+                        buffer.putLong(key).putLong(window << 32 | count);
+                    }
+                });
+            }
+            int end = buffer.position();
+            clientCount = (end - clientsStart) / CLIENT_RECORD_BYTES;
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(HEADER_BYTES, end - HEADER_BYTES));
+            buffer.putInt(0, MAGIC)
+                    .putInt(4, VERSION)
+                    .putLong(8, LAYOUT_FINGERPRINT)
+                    .putLong(16, clock.currentTimeMillis())
+                    .putInt(24, apiRecordCount)
+                    .putInt(28, keySpaceCount)
+                    .putLong(32, clientCount)
+                    .putInt(40, (int) crc.getValue());
+            buffer.force();
+            channel.truncate(end);
+        }
+        Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return clientCount;
+    }
+
+    // header, api records of every engine and key space intervals, everything but the client records
+    private long fixedBytes() {
+        return HEADER_BYTES + (long) API_RECORD_BYTES * ApiName.values().length * enginesByAlgorithm.length
+                + 8L * ApiName.values().length;
+    }
+
+    private long read() throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("unexpected snapshot size " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != LAYOUT_FINGERPRINT) {
+                throw new IOException("not a snapshot of this version and enum layout");
+            }
+            int apiRecordCount = buffer.getInt(24);
+            int keySpaceCount = buffer.getInt(28);
+            long clientCount = buffer.getLong(32);
+            long expectedSize = HEADER_BYTES + (long) API_RECORD_BYTES * apiRecordCount + 8L * keySpaceCount
+                    + CLIENT_RECORD_BYTES * clientCount;
+            if (apiRecordCount < 0 || keySpaceCount < 0 || clientCount < 0 || expectedSize != size) {
+                throw new IOException("truncated snapshot");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(HEADER_BYTES, (int) size - HEADER_BYTES));
+            if ((int) crc.getValue() != buffer.getInt(40)) {
+                throw new IOException("checksum mismatch");
+            }
+
+            long restored = restoreApiRecords(buffer, apiRecordCount);
+            int keySpacesStart = HEADER_BYTES + API_RECORD_BYTES * apiRecordCount;
+            int clientsStart = keySpacesStart + 8 * keySpaceCount;
+            long[] liveWindows = liveClientWindows(buffer.slice(keySpacesStart, 8 * keySpaceCount).asLongBuffer());
+            return restored + restoreClients(buffer.slice(clientsStart, (int) size - clientsStart).asLongBuffer(), liveWindows);
+        }
+    }
+
+    private long restoreApiRecords(MappedByteBuffer buffer, int apiRecordCount) {
+        ApiName[] apiNames = ApiName.values();
+        long restored = 0;
+        for (int i = 0, offset = HEADER_BYTES; i < apiRecordCount; i++, offset += API_RECORD_BYTES) {
+            RateLimiter engine = enginesByAlgorithm[buffer.getInt(offset)];
+            if (engine != null && engine.restoreWindowCounter(apiNames[buffer.getInt(offset + 4)], buffer.getLong(offset + 8),
+                    buffer.getLong(offset + 16))) {
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    // current window of every client key space still limited under the interval of the snapshot, -1 for the others
+    private long[] liveClientWindows(LongBuffer keySpaceIntervals) {
+        RateLimitConfigSnapshot configs = configRegistry.current();
+        long now = clock.currentTimeMillis();
+        long[] liveWindows = new long[keySpaceIntervals.remaining()];
+        for (int keySpace = 0; keySpace < liveWindows.length; keySpace++) {
+            long intervalMillis = keySpaceIntervals.get(keySpace);
+            boolean live = intervalMillis > 0 && configs.isClientRateLimited(keySpace)
+                    && configs.clientWindowIntervalMillis(keySpace) == intervalMillis;
+            liveWindows[keySpace] = live ? (now / intervalMillis) & COUNT_MASK : -1;
+        }
+        return liveWindows;
+    }
+
+    private long restoreClients(LongBuffer clients, long[] liveWindows) {
+        long restored = 0;
+        if (clientCounterStore == null) {
+            return restored;
+        }
+        for (int i = 0, limit = clients.limit(); i < limit; i += 2) {
+            long key = clients.get(i);
+            long value = clients.get(i + 1);
+            int keySpace = ClientKeys.keySpaceOf(key);
+            if (keySpace < liveWindows.length && liveWindows[keySpace] == value >>> 32) {
+                clientCounterStore.restore(key, value >>> 32, value & COUNT_MASK);
+                restored++;
+            }
+        }
+        return restored;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.ratelimiter.service.ratelimiters.store;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Negative cache of keys that used up their limit, remembering until when they stay rejected, so a repeat offender
+ * is turned away without touching its counter.
+ * <p>
+ * Direct mapped: a key has a single slot, picked by its hash, and a newly blocked key simply takes it over, the
+ * key it replaces is then decided by its counter again. A slot is two longs, a 20 bit tag of the hash with the
+ * blocked until timestamp (44 bits of millis), then the full key. A key that is not blocked, the common case,
+ * costs one volatile read, a tag and deadline that match are confirmed against the full key.
+ */
+public class BlockedUntilCache {
+    private static final int UNTIL_BITS = 44;
+    private static final long UNTIL_MASK = (1L << UNTIL_BITS) - 1;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+
+    public BlockedUntilCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive, got " + capacity);
+        }
+        int slotCount = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicLongArray(slotCount * 2);
+        this.mask = slotCount - 1;
+    }
+
+
+    /**
+     * @return until when the key stays rejected, 0 if it is not known to be blocked at {@code nowMillis}
+     */
+    public long blockedUntil(long key, long nowMillis) {
+        long hash = mix(key);
+        int index = ((int) hash & mask) << 1;
+        long slot = slots.get(index);
+        if ((slot >>> UNTIL_BITS) != hash >>> UNTIL_BITS || (slot & UNTIL_MASK) <= nowMillis) {
+            return 0;
+        }
+        return slots.get(index + 1) == key ? slot & UNTIL_MASK : 0;
+    }
+
+    public void block(long key, long untilMillis) {
+        long hash = mix(key);
+        int index = ((int) hash & mask) << 1;
+        // the slot is invalidated while its key changes, so a reader does not pair a key with the deadline of another
+        slots.set(index, 0);
+        slots.set(index + 1, key);
+        slots.set(index, (hash & ~UNTIL_MASK) | (untilMillis & UNTIL_MASK));
+    }
+
+    public void clear() {
+        for (int index = 0; index < slots.length(); index += 2) {
+            slots.set(index, 0);
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+
+    // murmur3 finalizer, spreads the api ordinal kept in the high bits of the key over the whole hash
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.ratelimiter.service.ratelimiters.store;
+
+
+/**
+ * Bounded, primitive keyed store of fixed window counters.
+ * <p>
+ * Keys are non-zero longs, values pack the window number (high 32 bits) and the count of that window (low 32 bits),
+ * limits above 2^32 - 1 act as that cap.
+ * The store is split into segments, each one an open addressing (linear probing) table guarded by its own monitor.
+ * A segment never holds more than its share of {@code maxEntries}: once full, an insert evicts an idle key chosen
+ * by a CLOCK sweep (keys touched since the last sweep get a second chance). Removal uses backward shift deletion,
+ * so the tables never fill up with tombstones and lookups stay short.
+ */
+public class BoundedCounterStore implements CounterStore {
+    private static final long EMPTY_KEY = 0L;
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final long maxEntries;
+
+    public BoundedCounterStore(long maxEntries, int concurrencyLevel) {
+        if (maxEntries <= 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("maxEntries and concurrencyLevel must be positive");
+        }
+        int segmentCount = Integer.highestOneBit(Math.min(concurrencyLevel, (int) Math.min(maxEntries, 1 << 16)));
+        int maxSegmentSize = (int) Math.max(1, maxEntries / segmentCount);
+        int tableSize = tableSizeFor((int) Math.ceil(maxSegmentSize / LOAD_FACTOR));
+
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(tableSize, maxSegmentSize);
+        }
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+        this.maxEntries = (long) maxSegmentSize * segmentCount;
+    }
+
+
+    @Override
+    public boolean tryAcquire(long key, long window, long limit, long permits) {
+        long hash = mix(key);
+        Segment segment = segments[segmentShift == 64 ? 0 : (int) (hash >>> segmentShift)];
+        synchronized (segment) {
+            return segment.tryAcquire(key, (int) hash, window & COUNT_MASK, limit, permits);
+        }
+    }
+
+    /**
+     * Keys are grouped by segment first, so every segment is locked once per batch instead of once per key.
+     */
+    @Override
+    public void tryAcquireAll(long[] keys, long[] permits, long window, long limit, boolean[] acquired) {
+        int count = keys.length;
+        long maskedWindow = window & COUNT_MASK;
+        if (segmentShift == 64) {
+            Segment segment = segments[0];
+            synchronized (segment) {
+                for (int i = 0; i < count; i++) {
+                    acquired[i] = segment.tryAcquire(keys[i], (int) mix(keys[i]), maskedWindow, limit,
+                            permits == null ? 1 : permits[i]);
+                }
+            }
+            return;
+        }
+
+        // counting sort of the batch by segment, stable so that a key repeated in the batch keeps its order
+        long[] hashes = new long[count];
+        int[] segmentEnds = new int[segments.length + 1];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = mix(keys[i]);
+            segmentEnds[(int) (hashes[i] >>> segmentShift) + 1]++;
+        }
+        for (int s = 0; s < segments.length; s++) {
+            segmentEnds[s + 1] += segmentEnds[s];
+        }
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[segmentEnds[(int) (hashes[i] >>> segmentShift)]++] = i;
+        }
+
+        // every segment end now points at the end of its own run
+        int start = 0;
+        for (int s = 0; s < segments.length; s++) {
+            int end = segmentEnds[s];
+            if (start == end) {
+                continue;
+            }
+            Segment segment = segments[s];
+            synchronized (segment) {
+                for (int j = start; j < end; j++) {
+                    int i = order[j];
+                    acquired[i] = segment.tryAcquire(keys[i], (int) hashes[i], maskedWindow, limit,
+                            permits == null ? 1 : permits[i]);
+                }
+            }
+            start = end;
+        }
+    }
+
+    @Override
+    public long currentCount(long key, long window) {
+        long hash = mix(key);
+        Segment segment = segments[segmentShift == 64 ? 0 : (int) (hash >>> segmentShift)];
+        synchronized (segment) {
+            int index = segment.indexOf(key, (int) hash);
+            if (index < 0 || (segment.values[index] >>> 32) != (window & COUNT_MASK)) {
+                return 0;
+            }
+            return segment.values[index] & COUNT_MASK;
+        }
+    }
+
+    @Override
+    public void release(long key, long window, long permits) {
+        long hash = mix(key);
+        Segment segment = segments[segmentShift == 64 ? 0 : (int) (hash >>> segmentShift)];
+        long maskedWindow = window & COUNT_MASK;
+        synchronized (segment) {
+            int index = segment.indexOf(key, (int) hash);
+            if (index >= 0 && (segment.values[index] >>> 32) == maskedWindow) {
+                segment.values[index] = (maskedWindow << 32) | Math.max(0, (segment.values[index] & COUNT_MASK) - permits);
+            }
+        }
+    }
+
+    /**
+     * Visits one segment at a time while holding that segment's lock.
+     */
+    @Override
+    public void forEach(EntryVisitor visitor) {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (int index = 0; index < segment.keys.length; index++) {
+                    long key = segment.keys[index];
+                    if (key != EMPTY_KEY) {
+                        visitor.visit(key, segment.values[index] >>> 32, segment.values[index] & COUNT_MASK);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Restored keys are the first candidates for eviction, a full segment drops them.
+     */
+    @Override
+    public void restore(long key, long window, long count) {
+        long hash = mix(key);
+        Segment segment = segments[segmentShift == 64 ? 0 : (int) (hash >>> segmentShift)];
+        long maskedWindow = window & COUNT_MASK;
+        synchronized (segment) {
+            int index = segment.indexOf(key, (int) hash);
+            if (index >= 0) {
+                long value = segment.values[index];
+                if ((value >>> 32) < maskedWindow || ((value >>> 32) == maskedWindow && (value & COUNT_MASK) < count)) {
+                    segment.values[index] = (maskedWindow << 32) | count;
+                }
+            } else if (segment.size < segment.maxSize) {
+                segment.referenced[segment.insert(key, (int) hash, (maskedWindow << 32) | count)] = 0;
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public long maxEntries() {
+        return maxEntries;
+    }
+
+    @Override
+    public long evictionCount() {
+        long evictions = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                evictions += segment.evictions;
+            }
+        }
+        return evictions;
+    }
+
+    // heap footprint, the tables never grow
+    @Override
+    public long memoryFootprintBytes() {
+        long bytes = 16L + 16L + segments.length * 8L;
+        for (Segment segment : segments) {
+            // object header and fields + keys + values + reference bits
+            bytes += 48L + (16L + segment.keys.length * 8L) * 2 + 16L + segment.referenced.length;
+        }
+        return bytes;
+    }
+
+
+    // murmur3 finalizer, spreads the api ordinal kept in the high bits of the key over the whole hash
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return capacity <= 1 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+
+    private static final class Segment {
+        private final long[] keys;
+        private final long[] values;
+        private final byte[] referenced;
+        private final int mask;
+        private final int maxSize;
+        private int size;
+        private int clockHand;
+        private long evictions;
+
+        private Segment(int tableSize, int maxSize) {
+            this.keys = new long[tableSize];
+            this.values = new long[tableSize];
+            this.referenced = new byte[tableSize];
+            this.mask = tableSize - 1;
+            this.maxSize = maxSize;
+        }
+
+        private boolean tryAcquire(long key, int hash, long window, long limit, long permits) {
+            limit = Math.min(limit, COUNT_MASK);
+            int index = indexOf(key, hash);
+            if (index >= 0) {
+                referenced[index] = 1;
+                long value = values[index];
+                long valueWindow = value >>> 32;
+                long count = 0;
+                if (valueWindow == window) {
+                    count = value & COUNT_MASK;
+                } else if (valueWindow > window) {
+                    // a caller with a later clock reading already moved the window, never roll it back
+                    window = valueWindow;
+                    count = value & COUNT_MASK;
+                }
+
+                // compared by what is left, adding a huge permit count to the count could overflow
+                if (permits > limit - count) {
+                    return false;
+                }
+                values[index] = (window << 32) | (count + permits);
+                return true;
+            }
+
+            if (permits > limit) {
+                return false;
+            }
+            if (size >= maxSize) {
+                evictOne();
+            }
+            insert(key, hash, (window << 32) | permits);
+            return true;
+        }
+
+        private int indexOf(long key, int hash) {
+            int index = hash & mask;
+            while (true) {
+                long slotKey = keys[index];
+                if (slotKey == key) {
+                    return index;
+                }
+                if (slotKey == EMPTY_KEY) {
+                    return -1;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        private int insert(long key, int hash, long value) {
+            int index = hash & mask;
+            while (keys[index] != EMPTY_KEY) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+            referenced[index] = 1;
+            size++;
+            return index;
+        }
+
+        private void evictOne() {
+            while (true) {
+                int index = clockHand;
+                clockHand = (clockHand + 1) & mask;
+                if (keys[index] == EMPTY_KEY) {
+                    continue;
+                }
+                if (referenced[index] != 0) {
+                    referenced[index] = 0;
+                    continue;
+                }
+                removeAt(index);
+                evictions++;
+                return;
+            }
+        }
+
+        // backward shift deletion, pulls every entry of the probe run after the hole back if its home allows it
+        private void removeAt(int hole) {
+            int index = hole;
+            while (true) {
+                index = (index + 1) & mask;
+                long slotKey = keys[index];
+                if (slotKey == EMPTY_KEY) {
+                    break;
+                }
+                int home = (int) mix(slotKey) & mask;
+                boolean homeBetweenHoleAndIndex = hole <= index
+                        ? hole < home && home <= index
+                        : hole < home || home <= index;
+                if (!homeBetweenHoleAndIndex) {
+                    keys[hole] = slotKey;
+                    values[hole] = values[index];
+                    referenced[hole] = referenced[index];
+                    hole = index;
+                }
+            }
+            keys[hole] = EMPTY_KEY;
+            values[hole] = 0;
+            referenced[hole] = 0;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.ratelimiter.service.ratelimiters.store;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+
+
+/**
+ * Builds the primitive store key of an (api, client) pair without allocating: the api ordinal goes in the
+ * top 8 bits and a 56 bit FNV-1a hash of the client id / IP / header value in the rest.
+ * Two clients only share a counter on a 56 bit hash collision.
+ */
+public class ClientKeys {
+    private ClientKeys() {}
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long CLIENT_HASH_MASK = 0x00FF_FFFF_FFFF_FFFFL;
+
+    public static long of(ApiName apiName, CharSequence clientKey) {
+        return of(apiName.ordinal(), hash(clientKey));
+    }
+
+    public static long of(int keySpace, long clientHash) {
+        long key = ((long) keySpace << 56) | (clientHash & CLIENT_HASH_MASK);
+        // 0 marks an empty slot in the stores
+        return key == 0 ? 1 : key;
+    }
+
+    public static int keySpaceOf(long key) {
+        return (int) (key >>> 56);
+    }
+
+    public static long hash(CharSequence clientKey) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0, length = clientKey.length(); i < length; i++) {
+            char c = clientKey.charAt(i);
+            hash ^= c & 0xFF;
+            hash *= FNV_PRIME;
+            hash ^= c >>> 8;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.ratelimiter.service.ratelimiters.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Fixed window counters of an unbounded number of clients in fixed memory: {@code depth} rows of {@code width}
+ * counters, a client counts in one counter per row and its count is estimated as the lowest of them.
+ * <p>
+ * Estimates never fall below the true count. With N permits taken in the window, an estimate exceeds the true
+ * count by more than {@code epsilon * N} with a probability of at most {@code delta}, where
+ * {@code epsilon = e / width} and {@code delta = e^-depth}. Updates are conservative, a counter is only raised
+ * to the client's new estimate rather than by the permits, which keeps estimates well within that bound in
+ * practice. A client over its limit may therefore be throttled early, never late.
+ * <p>
+ * Every counter packs the low 24 bits of its window number with a 40 bit count, a counter of an older window
+ * reads as 0, so a new window needs no clearing. Decisions of one client are serialized by one of a fixed set of
+ * lock stripes, counters shared with other clients are only ever raised by CAS. The {@link HeavyHitters} of the
+ * window are tracked on the side.
+ */
+public final class CountMinSketch {
+    private static final int WINDOW_SHIFT = 40;
+    private static final long COUNT_MASK = (1L << WINDOW_SHIFT) - 1;
+    private static final long WINDOW_TAG_MASK = (1L << (64 - WINDOW_SHIFT)) - 1;
+    private static final int LOCK_STRIPES = 64;
+
+    private final AtomicLongArray counters;
+    private final int width;
+    private final int depth;
+    private final int indexShift;
+    private final Object[] locks;
+    private final HeavyHitters heavyHitters;
+    // permits taken in totalWindow, the N of the error bound
+    private final AtomicLong total = new AtomicLong();
+    private volatile long totalWindow = -1;
+
+    /**
+     * @param width               counters per row, at least 2, rounded up to a power of two
+     * @param depth               rows, one independent hash each
+     * @param heavyHitterCapacity clients tracked as heavy hitters
+     */
+    public CountMinSketch(int width, int depth, int heavyHitterCapacity) {
+        if (width < 2 || width > 1 << 30 || depth < 1 || heavyHitterCapacity < 0) {
+            throw new IllegalArgumentException("Invalid sketch dimensions " + width + " x " + depth);
+        }
+        this.width = Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.indexShift = 64 - Integer.numberOfTrailingZeros(this.width);
+        this.counters = new AtomicLongArray(this.width * depth);
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.heavyHitters = new HeavyHitters(heavyHitterCapacity);
+    }
+
+
+    /**
+     * Takes {@code permits} for the client in the window unless its estimated count would exceed {@code limit}.
+     *
+     * @param clientHash 64 bit hash of the client, e.g. {@link ClientKeys#hash}
+     * @param clientKey  only read if the client becomes a heavy hitter
+     * @return true if the permits were taken
+     */
+    public boolean tryAcquire(long clientHash, CharSequence clientKey, long window, long limit, long permits) {
+        long windowTag = window & WINDOW_TAG_MASK;
+        long estimate;
+        long updated;
+        synchronized (locks[(int) (clientHash ^ (clientHash >>> 32)) & (LOCK_STRIPES - 1)]) {
+            estimate = estimate(clientHash, window);
+            updated = estimate + permits;
+            if (updated > limit) {
+                // offenders are tracked while throttled, they might not have been while under their limit
+                heavyHitters.offer(this, clientHash, clientKey, estimate, window);
+                return false;
+            }
+            long secondHash = secondHash(clientHash);
+            for (int row = 0; row < depth; row++) {
+                int index = index(clientHash, secondHash, row);
+                while (true) {
+                    long counter = counters.get(index);
+                    long count = (counter >>> WINDOW_SHIFT) == windowTag ? counter & COUNT_MASK : 0;
+                    if (count >= updated || counters.compareAndSet(index, counter, (windowTag << WINDOW_SHIFT) | updated)) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        addToTotal(window, permits);
+        // a client is offered once per doubling of its count, not on every request
+        if (Long.highestOneBit(updated) != Long.highestOneBit(estimate)) {
+            heavyHitters.offer(this, clientHash, clientKey, updated, window);
+        }
+        return true;
+    }
+
+    /**
+     * @return estimated permits the client took in the window, never below the true count
+     */
+    public long estimate(long clientHash, long window) {
+        long windowTag = window & WINDOW_TAG_MASK;
+        long secondHash = secondHash(clientHash);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            long counter = counters.get(index(clientHash, secondHash, row));
+            estimate = Math.min(estimate, (counter >>> WINDOW_SHIFT) == windowTag ? counter & COUNT_MASK : 0);
+        }
+        return estimate;
+    }
+
+    // permits taken in the window by all clients together
+    public long total(long window) {
+        return totalWindow == window ? total.get() : 0;
+    }
+
+    public double epsilon() {
+        return Math.E / width;
+    }
+
+    public double delta() {
+        return Math.exp(-depth);
+    }
+
+    /**
+     * @return overestimate no estimate of the window exceeds, except with a probability of {@link #delta()}
+     */
+    public long errorBound(long window) {
+        return (long) Math.ceil(epsilon() * total(window));
+    }
+
+    public HeavyHitters.HeavyHitter[] heavyHitters(long window) {
+        return heavyHitters.snapshot(this, window);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public long memoryFootprintBytes() {
+        return (long) width * depth * Long.BYTES;
+    }
+
+
+    private void addToTotal(long window, long permits) {
+        if (totalWindow != window) {
+            synchronized (total) {
+                if (totalWindow < window) {
+                    total.set(0);
+                    totalWindow = window;
+                }
+            }
+        }
+        total.addAndGet(permits);
+    }
+
+    // rows index the top bits of h1 + row * h2, h2 odd so the rows differ for every client
+    private int index(long clientHash, long secondHash, int row) {
+        return row * width + (int) ((clientHash + row * secondHash) >>> indexShift);
+    }
+
+    private static long secondHash(long clientHash) {
+        long mixed = clientHash * 0x9E37_79B9_7F4A_7C15L;
+        return (mixed ^ (mixed >>> 29)) | 1;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.ratelimiter.service.ratelimiters.store;
+
+
+/**
+ * Primitive keyed store of fixed window counters behind the per client limit.
+ * <p>
+ * Keys are built by {@link ClientKeys}, non-zero longs carrying the api ordinal in their top 8 bits. Windows are
+ * kept truncated to 32 bits, a key seen in an older window starts over from zero.
+ */
+public interface CounterStore {
+
+    /**
+     * Adds {@code permits} to the count of {@code key} in {@code window} unless that would exceed {@code limit}.
+     *
+     * @return true if the permits were added, false if the key is over its limit
+     */
+    boolean tryAcquire(long key, long window, long limit, long permits);
+
+    /**
+     * {@link #tryAcquire} for a batch of keys sharing one window and limit, keys repeated in the batch are applied
+     * in batch order.
+     *
+     * @param permits  permits per key, null for one permit each
+     * @param acquired receives for every key whether its permits were added
+     */
+    void tryAcquireAll(long[] keys, long[] permits, long window, long limit, boolean[] acquired);
+
+    /**
+     * @return count of {@code key} in {@code window}, 0 if the key is unknown or was last seen in another window
+     */
+    long currentCount(long key, long window);
+
+    /**
+     * Takes back {@code permits} that {@link #tryAcquire} added to {@code key} in {@code window}, e.g. for a request
+     * another limit rejected after all. A key evicted or counted in another window since is left alone.
+     */
+    void release(long key, long window, long permits);
+
+    /**
+     * Hands every counter to {@code visitor}, windows as stored, truncated to 32 bits.
+     */
+    void forEach(EntryVisitor visitor);
+
+    /**
+     * Puts back a counter saved by {@link #forEach}, e.g. after a restart. A key already counted in the same window
+     * keeps the higher count, a key counted in a later window is left alone. Restoring never evicts a key.
+     */
+    void restore(long key, long window, long count);
+
+    long size();
+
+    long maxEntries();
+
+    long evictionCount();
+
+    /**
+     * @return approximate footprint in bytes, fixed at construction as the store never grows
+     */
+    long memoryFootprintBytes();
+
+
+    @FunctionalInterface
+    interface EntryVisitor {
+        void visit(long key, long window, long count);
+    }
+}
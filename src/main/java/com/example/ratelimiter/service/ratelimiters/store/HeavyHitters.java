@@ -0,0 +1,111 @@
+package com.example.ratelimiter.service.ratelimiters.store;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * The clients with the highest counts of the current window, at most {@code capacity} of them, fed by
+ * {@link CountMinSketch}. Only the client hashes and ids are kept, counts are read back from the sketch, so an
+ * entry needs no update while its client keeps sending.
+ * <p>
+ * Offers of tracked clients, and of clients below the lowest tracked count once full, return after lock free
+ * reads. The rest take the monitor, a client id is only copied when its client gets tracked.
+ */
+public final class HeavyHitters {
+    private final AtomicLongArray hashes;
+    private final String[] clientKeys;
+    // counts as of the last refresh, only used to pick the entry to replace
+    private final long[] counts;
+    private volatile long window = -1;
+    private volatile int size;
+    private volatile long lowestCount;
+
+    public HeavyHitters(int capacity) {
+        this.hashes = new AtomicLongArray(capacity);
+        this.clientKeys = new String[capacity];
+        this.counts = new long[capacity];
+    }
+
+
+    void offer(CountMinSketch sketch, long clientHash, CharSequence clientKey, long estimate, long currentWindow) {
+        int capacity = counts.length;
+        if (capacity == 0) {
+            return;
+        }
+        if (window == currentWindow) {
+            if (size == capacity && estimate <= lowestCount) {
+                return;
+            }
+            for (int i = 0, tracked = size; i < tracked; i++) {
+                if (hashes.get(i) == clientHash) {
+                    return;
+                }
+            }
+        }
+
+        synchronized (this) {
+            if (window != currentWindow) {
+                size = 0;
+                window = currentWindow;
+            }
+            for (int i = 0; i < size; i++) {
+                if (hashes.get(i) == clientHash) {
+                    return;
+                }
+            }
+            if (size < capacity) {
+                put(size, clientHash, clientKey, estimate);
+                size = size + 1;
+                if (size == capacity) {
+                    lowestCount = counts[refreshLowest(sketch, currentWindow)];
+                }
+                return;
+            }
+
+            int lowestIndex = refreshLowest(sketch, currentWindow);
+            if (estimate > counts[lowestIndex]) {
+                put(lowestIndex, clientHash, clientKey, estimate);
+                lowestIndex = refreshLowest(sketch, currentWindow);
+            }
+            lowestCount = counts[lowestIndex];
+        }
+    }
+
+    /**
+     * @return the tracked clients of the window with their estimated counts, highest first
+     */
+    public synchronized HeavyHitter[] snapshot(CountMinSketch sketch, long currentWindow) {
+        if (window != currentWindow) {
+            return new HeavyHitter[0];
+        }
+        HeavyHitter[] heavyHitters = new HeavyHitter[size];
+        for (int i = 0; i < size; i++) {
+            heavyHitters[i] = new HeavyHitter(clientKeys[i], sketch.estimate(hashes.get(i), currentWindow));
+        }
+        Arrays.sort(heavyHitters, (first, second) -> Long.compare(second.estimatedCount(), first.estimatedCount()));
+        return heavyHitters;
+    }
+
+
+    private void put(int index, long clientHash, CharSequence clientKey, long estimate) {
+        hashes.set(index, clientHash);
+        clientKeys[index] = clientKey.toString();
+        counts[index] = estimate;
+    }
+
+    // reads the counts of the tracked clients back from the sketch, returns the index of the lowest
+    private int refreshLowest(CountMinSketch sketch, long currentWindow) {
+        int lowestIndex = 0;
+        for (int i = 0; i < size; i++) {
+            counts[i] = sketch.estimate(hashes.get(i), currentWindow);
+            if (counts[i] < counts[lowestIndex]) {
+                lowestIndex = i;
+            }
+        }
+        return lowestIndex;
+    }
+
+
+    public record HeavyHitter(String clientKey, long estimatedCount) {}
+}
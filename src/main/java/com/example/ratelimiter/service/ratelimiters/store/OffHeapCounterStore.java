@@ -0,0 +1,302 @@
+package com.example.ratelimiter.service.ratelimiters.store;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Bounded store of fixed window counters kept outside the heap, in one direct buffer allocated at startup, so the
+ * heap and the garbage collector see a handful of objects whatever the number of clients.
+ * <p>
+ * The buffer is a table of 128 byte buckets (two cache lines) of 8 slots, a slot is two longs:
+ * <pre>
+ * key    the {@link ClientKeys} key, 0 when empty
+ * value  window (high 32 bits), generation (7 bits), referenced (1 bit), count (low 24 bits)
+ * </pre>
+ * A key only ever lives in the bucket its hash picks. Counting on a key already stored is a compare and set of its
+ * value through a {@link VarHandle}, without locks. Only claiming a slot for a new key takes a lock, one of
+ * {@code concurrencyLevel} stripes of buckets: a free slot of the bucket is used, or a CLOCK sweep over the bucket
+ * evicts one not counted on since the last sweep. A slot handed to another key gets a new generation first,
+ * so a concurrent update still holding the value of the previous key fails its compare and set.
+ * <p>
+ * Counts are capped at 2^24 - 1 per client and window, higher client limits act as that cap.
+ */
+public class OffHeapCounterStore implements CounterStore {
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final int SLOT_BYTES = 16;
+    private static final int BUCKET_SLOTS = 8;
+    private static final int BUCKET_BYTES = SLOT_BYTES * BUCKET_SLOTS;
+    private static final int MAX_BUCKETS = Integer.highestOneBit(Integer.MAX_VALUE / BUCKET_BYTES);
+    private static final long EMPTY_KEY = 0L;
+    // marks a slot being handed to another key, ClientKeys never builds it as long as there are fewer than 255 apis
+    private static final long BUSY_KEY = -1L;
+    private static final long WINDOW_MASK = 0xFFFF_FFFFL;
+    private static final long MAX_COUNT = 0xFF_FFFFL;
+    private static final long REFERENCED = 1L << 24;
+    private static final long GENERATION_UNIT = 1L << 25;
+    private static final long GENERATION_MASK = 0x7FL << 25;
+
+    private final ByteBuffer table;
+    private final int bucketMask;
+    private final Object[] locks;
+    private final int lockMask;
+    private final LongAdder size = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public OffHeapCounterStore(long maxEntries, int concurrencyLevel) {
+        if (maxEntries <= 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("maxEntries and concurrencyLevel must be positive");
+        }
+        long buckets = (maxEntries + BUCKET_SLOTS - 1) / BUCKET_SLOTS;
+        if (buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("maxEntries must not exceed " + (long) MAX_BUCKETS * BUCKET_SLOTS);
+        }
+        int bucketCount = buckets <= 1 ? 1 : Integer.highestOneBit((int) buckets - 1) << 1;
+        // aligned so that every slot can be updated atomically and every bucket starts a cache line
+        this.table = ByteBuffer.allocateDirect(bucketCount * BUCKET_BYTES + BUCKET_BYTES).alignedSlice(BUCKET_BYTES)
+                .slice(0, bucketCount * BUCKET_BYTES).order(ByteOrder.nativeOrder());
+        this.bucketMask = bucketCount - 1;
+        this.locks = new Object[Integer.highestOneBit(Math.min(concurrencyLevel, bucketCount))];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        this.lockMask = locks.length - 1;
+    }
+
+
+    @Override
+    public boolean tryAcquire(long key, long window, long limit, long permits) {
+        long hash = mix(key);
+        int bucket = (int) hash & bucketMask;
+        long maskedWindow = window & WINDOW_MASK;
+        long cappedLimit = Math.min(limit, MAX_COUNT);
+
+        int offset = find(bucket, key);
+        if (offset >= 0) {
+            int result = add(offset, key, maskedWindow, cappedLimit, permits);
+            if (result >= 0) {
+                return result == 1;
+            }
+        }
+        if (permits > cappedLimit) {
+            return false;
+        }
+
+        synchronized (locks[bucket & lockMask]) {
+            // another thread may have stored the key meanwhile, or handed its slot to another key
+            offset = find(bucket, key);
+            if (offset >= 0) {
+                int result = add(offset, key, maskedWindow, cappedLimit, permits);
+                if (result >= 0) {
+                    return result == 1;
+                }
+            }
+            claim(bucket, hash, key, (maskedWindow << 32) | REFERENCED | permits);
+            return true;
+        }
+    }
+
+    /**
+     * Most updates need no lock, a batch is decided key by key.
+     */
+    @Override
+    public void tryAcquireAll(long[] keys, long[] permits, long window, long limit, boolean[] acquired) {
+        for (int i = 0; i < keys.length; i++) {
+            acquired[i] = tryAcquire(keys[i], window, limit, permits == null ? 1 : permits[i]);
+        }
+    }
+
+    @Override
+    public long currentCount(long key, long window) {
+        int bucketOffset = ((int) mix(key) & bucketMask) * BUCKET_BYTES;
+        for (int offset = bucketOffset; offset < bucketOffset + BUCKET_BYTES; offset += SLOT_BYTES) {
+            long value = (long) LONGS.getVolatile(table, offset + 8);
+            if ((long) LONGS.getVolatile(table, offset) == key) {
+                return (value >>> 32) == (window & WINDOW_MASK) ? value & MAX_COUNT : 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A compare and set of the key's value, without locks. A slot handed to another key meanwhile has a new
+     * generation and is left alone.
+     */
+    @Override
+    public void release(long key, long window, long permits) {
+        int offset = find((int) mix(key) & bucketMask, key);
+        if (offset < 0) {
+            return;
+        }
+        long maskedWindow = window & WINDOW_MASK;
+        while (true) {
+            long value = (long) LONGS.getVolatile(table, offset + 8);
+            if ((long) LONGS.getVolatile(table, offset) != key || (value >>> 32) != maskedWindow) {
+                return;
+            }
+            long released = (value & ~MAX_COUNT) | Math.max(0, (value & MAX_COUNT) - permits);
+            if (LONGS.compareAndSet(table, offset + 8, value, released)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Walks the table in slot order without locking, every counter is read atomically. A key moved to or from
+     * a slot during the walk may be missed.
+     */
+    @Override
+    public void forEach(EntryVisitor visitor) {
+        for (int offset = 0, end = (bucketMask + 1) * BUCKET_BYTES; offset < end; offset += SLOT_BYTES) {
+            long value = (long) LONGS.getVolatile(table, offset + 8);
+            long key = (long) LONGS.getVolatile(table, offset);
+            if (key != EMPTY_KEY && key != BUSY_KEY) {
+                visitor.visit(key, value >>> 32, value & MAX_COUNT);
+            }
+        }
+    }
+
+    /**
+     * Restored keys are not marked as referenced, a full bucket drops them.
+     */
+    @Override
+    public void restore(long key, long window, long count) {
+        int bucket = (int) mix(key) & bucketMask;
+        long maskedWindow = window & WINDOW_MASK;
+        long cappedCount = Math.min(count, MAX_COUNT);
+        synchronized (locks[bucket & lockMask]) {
+            int offset = find(bucket, key);
+            if (offset >= 0) {
+                while (true) {
+                    long value = (long) LONGS.getVolatile(table, offset + 8);
+                    if ((value >>> 32) > maskedWindow || ((value >>> 32) == maskedWindow && (value & MAX_COUNT) >= cappedCount)) {
+                        return;
+                    }
+                    long restored = (maskedWindow << 32) | (value & (GENERATION_MASK | REFERENCED)) | cappedCount;
+                    if (LONGS.compareAndSet(table, offset + 8, value, restored)) {
+                        return;
+                    }
+                }
+            }
+            int bucketOffset = bucket * BUCKET_BYTES;
+            for (offset = bucketOffset; offset < bucketOffset + BUCKET_BYTES; offset += SLOT_BYTES) {
+                if ((long) LONGS.getVolatile(table, offset) == EMPTY_KEY) {
+                    store(offset, key, (maskedWindow << 32) | cappedCount);
+                    size.increment();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        return size.sum();
+    }
+
+    @Override
+    public long maxEntries() {
+        return (long) (bucketMask + 1) * BUCKET_SLOTS;
+    }
+
+    @Override
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    // off heap table, the heap holds a few small objects
+    @Override
+    public long memoryFootprintBytes() {
+        return table.capacity();
+    }
+
+
+    // slot offset of the key in its bucket, -1 if not stored
+    private int find(int bucket, long key) {
+        int bucketOffset = bucket * BUCKET_BYTES;
+        for (int offset = bucketOffset; offset < bucketOffset + BUCKET_BYTES; offset += SLOT_BYTES) {
+            if ((long) LONGS.getVolatile(table, offset) == key) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    // 1 if added, 0 if over the limit, -1 if the slot was handed to another key
+    private int add(int offset, long key, long window, long limit, long permits) {
+        while (true) {
+            // value first: a slot changes its key before its value, so a matching key read after it vouches for it
+            long value = (long) LONGS.getVolatile(table, offset + 8);
+            if ((long) LONGS.getVolatile(table, offset) != key) {
+                return -1;
+            }
+            long valueWindow = value >>> 32;
+            long count = 0;
+            if (valueWindow == window) {
+                count = value & MAX_COUNT;
+            } else if (valueWindow > window) {
+                // a caller with a later clock reading already moved the window, never roll it back
+                window = valueWindow;
+                count = value & MAX_COUNT;
+            }
+
+            // compared by what is left, adding a huge permit count to the count could overflow
+            if (permits > limit - count) {
+                return 0;
+            }
+            long updated = (window << 32) | (value & GENERATION_MASK) | REFERENCED | (count + permits);
+            if (LONGS.compareAndSet(table, offset + 8, value, updated)) {
+                return 1;
+            }
+        }
+    }
+
+    // called under the bucket's lock, for a key not stored in the bucket
+    private void claim(int bucket, long hash, long key, long value) {
+        int bucketOffset = bucket * BUCKET_BYTES;
+        for (int offset = bucketOffset; offset < bucketOffset + BUCKET_BYTES; offset += SLOT_BYTES) {
+            if ((long) LONGS.getVolatile(table, offset) == EMPTY_KEY) {
+                store(offset, key, value);
+                size.increment();
+                return;
+            }
+        }
+
+        // CLOCK sweep from a slot picked by the new key, referenced slots lose their bit and get a second chance
+        int slot = (int) (hash >>> 61);
+        while (true) {
+            int offset = bucketOffset + slot * SLOT_BYTES;
+            long current = (long) LONGS.getVolatile(table, offset + 8);
+            if ((current & REFERENCED) == 0) {
+                LONGS.setVolatile(table, offset, BUSY_KEY);
+                store(offset, key, value);
+                evictions.increment();
+                return;
+            }
+            LONGS.compareAndSet(table, offset + 8, current, current & ~REFERENCED);
+            slot = (slot + 1) & (BUCKET_SLOTS - 1);
+        }
+    }
+
+    // the next generation of the slot first, then the key, updates of the previous key fail from then on
+    private void store(int offset, long key, long value) {
+        long previous;
+        do {
+            previous = (long) LONGS.getVolatile(table, offset + 8);
+        } while (!LONGS.compareAndSet(table, offset + 8, previous, ((previous + GENERATION_UNIT) & GENERATION_MASK) | value));
+        LONGS.setVolatile(table, offset, key);
+    }
+
+    // murmur3 finalizer, spreads the api ordinal kept in the high bits of the key over the whole hash
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
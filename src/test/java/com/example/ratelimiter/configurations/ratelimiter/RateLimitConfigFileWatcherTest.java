@@ -0,0 +1,67 @@
+package com.example.ratelimiter.configurations.ratelimiter;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitConfigFileWatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path configFile;
+    private RateLimitConfigRegistry configRegistry;
+    private RateLimitConfigFileWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        configFile = tempDir.resolve("ratelimiter.properties");
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.setConfigFile(configFile.toString());
+        configRegistry = new RateLimitConfigRegistry(properties);
+        watcher = new RateLimitConfigFileWatcher(properties, configRegistry, new StandardEnvironment(), null);
+    }
+
+    @Test
+    @DisplayName("Should swap in a new snapshot when the config file changes")
+    void shouldReloadChangedFile() throws IOException {
+        Files.writeString(configFile, """
+                ratelimiter.apis.health-check.algorithm=GCRA
+                ratelimiter.apis.health-check.window-seconds=60
+                ratelimiter.apis.health-check.max-requests=100
+                """);
+        watcher.reloadIfModified();
+
+        RateLimitConfigSnapshot snapshot = configRegistry.current();
+        int ordinal = ApiName.HEALTH_CHECK.ordinal();
+        assertEquals(2, snapshot.version());
+        assertEquals(RateLimiterAlgorithm.GCRA, snapshot.algorithm(ordinal));
+        assertEquals(60_000, snapshot.windowIntervalMillis(ordinal));
+        assertEquals(100, snapshot.maxRequestAllowed(ordinal));
+        assertEquals("60", snapshot.retryAfterSeconds(ordinal));
+
+        watcher.reloadIfModified();
+        assertSame(snapshot, configRegistry.current(), "An unchanged file should not be reloaded");
+    }
+
+    @Test
+    @DisplayName("Should keep the current snapshot when the config file is invalid")
+    void shouldKeepSnapshotOnInvalidFile() throws IOException {
+        RateLimitConfigSnapshot snapshot = configRegistry.current();
+        Files.writeString(configFile, "ratelimiter.apis.health-check.max-requests=lots\n");
+
+        watcher.reloadIfModified();
+
+        assertSame(snapshot, configRegistry.current());
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.ratelimiter.filter;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.metrics.RateLimiterMetrics;
+import com.example.ratelimiter.service.ratelimiters.AtomicFixWindowCounterRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.CompositeFixWindowRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.PerClientFixWindowRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.RateLimiterRegistry;
+import com.example.ratelimiter.service.ratelimiters.adaptive.AdaptiveConcurrencyLimiter;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * HEALTH_CHECK allows 2 requests per client and 3 requests overall per 10 seconds. The limiters run on a
+ * {@link ManualClock}, every test starts 4 seconds into a window no earlier request was counted in.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class RateLimitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ManualClock clock;
+
+    @BeforeEach
+    void setUp() {
+        // two windows on, so a sliding window sees nothing of the previous test either
+        clock.set((clock.currentTimeMillis() / 10_000 + 2) * 10_000 + 4_000);
+    }
+
+    @Test
+    @DisplayName("Should reject throttled requests with a real 429 before the controller")
+    void shouldRejectThrottledRequestsWith429() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/ratelimiter/api/v1/actuator/health").contextPath("/ratelimiter")
+                            .header("X-Client-Id", "filter-test-client"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.health_status").value("UP"));
+        }
+
+        mockMvc.perform(get("/ratelimiter/api/v1/actuator/health").contextPath("/ratelimiter")
+                        .header("X-Client-Id", "filter-test-client"))
+                .andExpect(status().isTooManyRequests())
+                // the 6 seconds left of the client's window
+                .andExpect(header().string("Retry-After", "6"))
+                .andExpect(jsonPath("$.code").value("429"))
+                .andExpect(jsonPath("$.health_status").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should count paths with parameters or percent encoding against their API")
+    void shouldLimitOtherSpellingsOfPath() throws Exception {
+        mockMvc.perform(get("/ratelimiter/api/v1/actuator/health;x=1").contextPath("/ratelimiter")
+                        .header("X-Client-Id", "spelling-test-client"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(URI.create("/ratelimiter/api/v1/actuator/%68ealth")).contextPath("/ratelimiter")
+                        .header("X-Client-Id", "spelling-test-client"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/ratelimiter/api/v1/actuator/health;jsessionid=abc").contextPath("/ratelimiter")
+                        .header("X-Client-Id", "spelling-test-client"))
+                .andExpect(status().isTooManyRequests());
+        mockMvc.perform(get(URI.create("/ratelimiter/api/v1/actuator/%68ealth")).contextPath("/ratelimiter")
+                        .header("X-Client-Id", "spelling-test-client"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @DisplayName("Should not rate limit paths that belong to no API")
+    void shouldIgnoreUnknownPaths() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/ratelimiter/api/v1/unknown").contextPath("/ratelimiter"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Test
+    @DisplayName("Should tell a client to retry when the tier that rejected it ends, not after the main window")
+    void shouldRetryAfterRejectingTier() throws Exception {
+        RateLimiterProperties.ApiLimit apiLimit = new RateLimiterProperties.ApiLimit();
+        apiLimit.setAlgorithm(RateLimiterAlgorithm.COMPOSITE_FIXED_WINDOW);
+        apiLimit.setWindowSeconds(10);
+        apiLimit.setMaxRequests(100);
+        RateLimiterProperties.Tier daily = new RateLimiterProperties.Tier();
+        daily.setWindowSeconds(86_400);
+        daily.setMaxRequests(1);
+        apiLimit.getTiers().add(daily);
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.getApis().put(ApiName.HEALTH_CHECK, apiLimit);
+        RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(properties);
+        ManualClock tierClock = new ManualClock(86_400_000L + 400_000L);
+        RateLimiterRegistry registry = new RateLimiterRegistry(List.of(new AtomicFixWindowCounterRateLimiter(configRegistry, tierClock),
+                new CompositeFixWindowRateLimiter(configRegistry, tierClock)),
+                configRegistry, new PerClientFixWindowRateLimiter(configRegistry, properties, tierClock), new RateLimiterMetrics(properties));
+        RateLimitFilter filter = new RateLimitFilter(registry, new AdaptiveConcurrencyLimiter(configRegistry, properties),
+                new RequestPriorityResolver(properties), new RateLimitedHandlers(configRegistry, ""), new ObjectMapper());
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", ApiName.HEALTH_CHECK.getUrl()), first, new MockFilterChain());
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", ApiName.HEALTH_CHECK.getUrl()), second, new MockFilterChain());
+
+        assertEquals(200, first.getStatus());
+        assertEquals(429, second.getStatus());
+        assertEquals("86000", second.getHeader("Retry-After"), "The daily tier ends in 86000 seconds");
+    }
+
+
+    @Test
+    @DisplayName("Should not spend a rate permit on a request shed for concurrency")
+    void shouldNotSpendPermitOnShedRequest() throws Exception {
+        RateLimiterProperties.ApiLimit apiLimit = new RateLimiterProperties.ApiLimit();
+        apiLimit.setWindowSeconds(10);
+        apiLimit.setMaxRequests(2);
+        apiLimit.setAdaptiveConcurrency(true);
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.getApis().put(ApiName.HEALTH_CHECK, apiLimit);
+        properties.getAdaptive().setInitialLimit(1);
+        RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(properties);
+        ManualClock windowClock = new ManualClock(1_000_000L);
+        RateLimiterRegistry registry = new RateLimiterRegistry(List.of(new AtomicFixWindowCounterRateLimiter(configRegistry, windowClock)),
+                configRegistry, new PerClientFixWindowRateLimiter(configRegistry, properties, windowClock), new RateLimiterMetrics(properties));
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(configRegistry, properties);
+        RateLimitFilter filter = new RateLimitFilter(registry, concurrencyLimiter, new RequestPriorityResolver(properties),
+                new RateLimitedHandlers(configRegistry, ""), new ObjectMapper());
+
+        // a second request arrives while the first is served
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", ApiName.HEALTH_CHECK.getUrl()), new MockHttpServletResponse(),
+                (request, response) -> filter.doFilter(new MockHttpServletRequest("GET", ApiName.HEALTH_CHECK.getUrl()),
+                        shed, new MockFilterChain()));
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", ApiName.HEALTH_CHECK.getUrl()), admitted, new MockFilterChain());
+        MockHttpServletResponse throttled = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", ApiName.HEALTH_CHECK.getUrl()), throttled, new MockFilterChain());
+
+        assertEquals(429, shed.getStatus());
+        assertEquals(RateLimitFilter.CONCURRENCY_RETRY_AFTER_SECONDS, shed.getHeader("Retry-After"));
+        assertEquals(200, admitted.getStatus(), "The shed request should have left the second permit");
+        assertEquals(429, throttled.getStatus());
+        assertEquals(0, concurrencyLimiter.inFlight(ApiName.HEALTH_CHECK), "A throttled request should hand back its slot");
+    }
+
+
+    @TestConfiguration
+    static class ManualClockConfig {
+        @Bean
+        @Primary
+        ManualClock manualClock() {
+            return new ManualClock(1_000_000L);
+        }
+    }
+}
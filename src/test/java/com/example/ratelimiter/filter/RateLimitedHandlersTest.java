@@ -0,0 +1,156 @@
+package com.example.ratelimiter.filter;
+
+import com.example.ratelimiter.annotations.RateLimited;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimitKey;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for RateLimitedHandlers, the report handlers are rate limited under HEALTH_CHECK.
+ */
+class RateLimitedHandlersTest {
+
+    @Nested
+    @DisplayName("Path Resolution Tests")
+    class PathResolutionTests {
+
+        @Test
+        @DisplayName("Should map every literal path of a rate limited handler to its api")
+        void shouldMapLiteralPaths() {
+            RateLimitedHandlers handlers = new RateLimitedHandlers(new RateLimitConfigRegistry(new RateLimiterProperties()), "/ratelimiter");
+            handlers.register(List.of(ReportController.class));
+
+            assertEquals(ApiName.HEALTH_CHECK, handlers.apiNameByPath("/api/v1/reports/daily"));
+            assertEquals(ApiName.HEALTH_CHECK, handlers.apiNameByPath("/api/v1/reports/weekly"));
+            assertEquals(ApiName.HEALTH_CHECK, handlers.apiNameByRequestUri("/ratelimiter/api/v1/reports/daily"));
+            assertEquals(ApiName.HEALTH_CHECK, handlers.apiNameByPath(ApiName.HEALTH_CHECK.getUrl()),
+                    "The url of the api should stay mapped");
+            assertEquals(RateLimitKey.NONE, handlers.key(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should skip mappings with path variables and handlers without the annotation")
+        void shouldSkipUnmatchableMappings() {
+            RateLimitedHandlers handlers = new RateLimitedHandlers(new RateLimitConfigRegistry(new RateLimiterProperties()), "");
+            handlers.register(List.of(ReportController.class));
+
+            assertNull(handlers.apiNameByPath("/api/v1/reports/{id}"));
+            assertNull(handlers.apiNameByPath("/api/v1/reports/open"));
+        }
+
+        @Test
+        @DisplayName("Should apply a class level annotation to every mapping of the handler")
+        void shouldApplyClassLevelAnnotation() {
+            RateLimitedHandlers handlers = new RateLimitedHandlers(new RateLimitConfigRegistry(new RateLimiterProperties()), "");
+            handlers.register(List.of(UploadController.class));
+
+            assertEquals(ApiName.HEALTH_CHECK, handlers.apiNameByPath("/uploads"));
+            assertEquals(RateLimitKey.REMOTE_ADDRESS, handlers.key(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should refuse handlers of one api that disagree on its limits")
+        void shouldRejectConflictingHandlers() {
+            RateLimitedHandlers handlers = new RateLimitedHandlers(new RateLimitConfigRegistry(new RateLimiterProperties()), "");
+
+            assertThrows(IllegalStateException.class, () -> handlers.register(List.of(ReportController.class, UploadController.class)));
+        }
+
+        @Test
+        @DisplayName("Should refuse a limit without a window")
+        void shouldRejectLimitWithoutWindow() {
+            RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(new RateLimiterProperties());
+            RateLimitedHandlers handlers = new RateLimitedHandlers(configRegistry, "");
+
+            assertThrows(IllegalStateException.class, () -> handlers.register(List.of(UnboundedController.class)));
+            assertFalse(configRegistry.current().isRateLimited(ApiName.HEALTH_CHECK.ordinal()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Default Limit Tests")
+    class DefaultLimitTests {
+
+        @Test
+        @DisplayName("Should limit an api without properties by the limits of its annotation")
+        void shouldRegisterAnnotationLimits() {
+            RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(new RateLimiterProperties());
+            new RateLimitedHandlers(configRegistry, "").register(List.of(ReportController.class));
+
+            RateLimitConfigSnapshot configs = configRegistry.current();
+            assertEquals(5, configs.maxRequestAllowed(ApiName.HEALTH_CHECK.ordinal()));
+            assertEquals(60_000, configs.windowIntervalMillis(ApiName.HEALTH_CHECK.ordinal()));
+
+            configRegistry.update(new RateLimiterProperties());
+            assertEquals(5, configRegistry.current().maxRequestAllowed(ApiName.HEALTH_CHECK.ordinal()),
+                    "Defaults should survive a configuration update");
+        }
+
+        @Test
+        @DisplayName("Should let the properties take precedence over the annotation")
+        void shouldPreferProperties() {
+            RateLimiterProperties.ApiLimit apiLimit = new RateLimiterProperties.ApiLimit();
+            apiLimit.setWindowSeconds(10);
+            apiLimit.setMaxRequests(3);
+            RateLimiterProperties properties = new RateLimiterProperties();
+            properties.getApis().put(ApiName.HEALTH_CHECK, apiLimit);
+            RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(properties);
+
+            new RateLimitedHandlers(configRegistry, "").register(List.of(ReportController.class));
+
+            assertEquals(3, configRegistry.current().maxRequestAllowed(ApiName.HEALTH_CHECK.ordinal()));
+        }
+    }
+
+
+    @RequestMapping("/api/v1/reports")
+    static class ReportController {
+
+        @RateLimited(api = ApiName.HEALTH_CHECK, limit = 5, windowSeconds = 60, key = RateLimitKey.NONE)
+        @GetMapping({"/daily", "weekly/"})
+        String fetchReport() {
+            return "report";
+        }
+
+        @RateLimited(api = ApiName.HEALTH_CHECK, limit = 5, windowSeconds = 60, key = RateLimitKey.NONE)
+        @GetMapping("/{id}")
+        String fetchReportById() {
+            return "report";
+        }
+
+        @GetMapping("/open")
+        String fetchOpenReport() {
+            return "report";
+        }
+    }
+
+    @RateLimited(api = ApiName.HEALTH_CHECK, key = RateLimitKey.REMOTE_ADDRESS)
+    static class UploadController {
+
+        @PostMapping("/uploads")
+        String upload() {
+            return "uploaded";
+        }
+    }
+
+    static class UnboundedController {
+
+        @RateLimited(api = ApiName.HEALTH_CHECK, limit = 5)
+        @GetMapping("/exports")
+        String export() {
+            return "exported";
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.ratelimiter.filter;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.metrics.RateLimiterMetrics;
+import com.example.ratelimiter.service.ratelimiters.AtomicFixWindowCounterRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.PerClientFixWindowRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.RateLimiterRegistry;
+import com.example.ratelimiter.service.ratelimiters.ReactiveRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.adaptive.AdaptiveConcurrencyLimiter;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HEALTH_CHECK allows 2 requests per client and 3 requests overall per 10 seconds, and one request in progress
+ * at a time until its adaptive concurrency limit grows.
+ */
+class ReactiveRateLimitFilterTest {
+
+    private ReactiveRateLimitFilter filter;
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private AtomicInteger forwardedRequests;
+    private WebFilterChain chain;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RateLimiterProperties.ApiLimit apiLimit = new RateLimiterProperties.ApiLimit();
+        apiLimit.setAlgorithm(RateLimiterAlgorithm.FIXED_WINDOW);
+        apiLimit.setWindowSeconds(10);
+        apiLimit.setMaxRequests(3);
+        apiLimit.setClientWindowSeconds(10);
+        apiLimit.setClientMaxRequests(2);
+        apiLimit.setAdaptiveConcurrency(true);
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.getApis().put(ApiName.HEALTH_CHECK, apiLimit);
+        properties.getAdaptive().setInitialLimit(1);
+
+        RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(properties);
+        // at the start of a window, a client throttled now retries after all of it
+        ManualClock clock = new ManualClock(1_000_000L);
+        PerClientFixWindowRateLimiter perClientRateLimiter = new PerClientFixWindowRateLimiter(configRegistry, properties, clock);
+        RateLimiterMetrics metrics = new RateLimiterMetrics(properties);
+        RateLimiterRegistry registry = new RateLimiterRegistry(List.of(new AtomicFixWindowCounterRateLimiter(configRegistry, clock)),
+                configRegistry, perClientRateLimiter, metrics);
+        ObjectMapper objectMapper = new ObjectMapper().setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(configRegistry, properties);
+        filter = new ReactiveRateLimitFilter(new ReactiveRateLimiter(registry, perClientRateLimiter, metrics),
+                concurrencyLimiter, new RequestPriorityResolver(properties),
+                new RateLimitedHandlers(configRegistry, ""), objectMapper);
+        forwardedRequests = new AtomicInteger();
+        chain = exchange -> Mono.fromRunnable(forwardedRequests::incrementAndGet);
+    }
+
+    @Test
+    @DisplayName("Should reject throttled requests with a 429 before the handler")
+    void shouldRejectThrottledRequestsWith429() {
+        for (int i = 0; i < 2; i++) {
+            MockServerWebExchange exchange = healthCheckExchange("filter-test-client");
+            filter.filter(exchange, chain).block();
+            assertNull(exchange.getResponse().getStatusCode());
+        }
+
+        MockServerWebExchange exchange = healthCheckExchange("filter-test-client");
+        filter.filter(exchange, chain).block();
+
+        assertEquals(2, forwardedRequests.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exchange.getResponse().getStatusCode());
+        assertEquals("10", exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertTrue(exchange.getResponse().getBodyAsString().block().contains("\"code\":\"429\""));
+    }
+
+    @Test
+    @DisplayName("Should shed requests over the concurrency limit until one in progress completes")
+    void shouldShedRequestsOverConcurrencyLimit() {
+        Sinks.Empty<Void> inProgress = Sinks.empty();
+        filter.filter(healthCheckExchange("first-client"), exchange -> inProgress.asMono()).subscribe();
+
+        MockServerWebExchange shed = healthCheckExchange("second-client");
+        filter.filter(shed, chain).block();
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, shed.getResponse().getStatusCode());
+        assertEquals("1", shed.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        inProgress.tryEmitEmpty();
+        MockServerWebExchange admitted = healthCheckExchange("second-client");
+        filter.filter(admitted, chain).block();
+        assertNull(admitted.getResponse().getStatusCode());
+        assertEquals(1, forwardedRequests.get());
+    }
+
+    @Test
+    @DisplayName("Should not spend rate permits on requests shed for concurrency")
+    void shouldNotSpendPermitsOnShedRequests() {
+        Sinks.Empty<Void> inProgress = Sinks.empty();
+        filter.filter(healthCheckExchange("first-client"), exchange -> inProgress.asMono()).subscribe();
+        for (int i = 0; i < 2; i++) {
+            MockServerWebExchange shed = healthCheckExchange("second-client");
+            filter.filter(shed, chain).block();
+            assertEquals("1", shed.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        }
+        inProgress.tryEmitEmpty();
+
+        for (int i = 0; i < 2; i++) {
+            MockServerWebExchange admitted = healthCheckExchange("second-client");
+            filter.filter(admitted, chain).block();
+            assertNull(admitted.getResponse().getStatusCode(), "The shed requests should have left the client its quota");
+        }
+        MockServerWebExchange throttled = healthCheckExchange("second-client");
+        filter.filter(throttled, chain).block();
+        assertEquals("10", throttled.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(0, concurrencyLimiter.inFlight(ApiName.HEALTH_CHECK), "A throttled request should hand back its slot");
+    }
+
+    @Test
+    @DisplayName("Should count paths with parameters or percent encoding against their API")
+    void shouldLimitOtherSpellingsOfPath() {
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/actuator/health;x=1")
+                .header("X-Client-Id", "spelling-test-client")), chain).block();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest
+                .method(HttpMethod.GET, URI.create("/api/v1/actuator/%68ealth"))
+                .header("X-Client-Id", "spelling-test-client")), chain).block();
+
+        MockServerWebExchange throttled = MockServerWebExchange.from(MockServerHttpRequest
+                .method(HttpMethod.GET, URI.create("/api/v1/actuator/%68ealth;jsessionid=abc"))
+                .header("X-Client-Id", "spelling-test-client"));
+        filter.filter(throttled, chain).block();
+
+        assertEquals(2, forwardedRequests.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, throttled.getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should not rate limit paths that belong to no API")
+    void shouldIgnoreUnknownPaths() {
+        for (int i = 0; i < 5; i++) {
+            filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/unknown")), chain).block();
+        }
+        assertEquals(5, forwardedRequests.get());
+    }
+
+
+    private static MockServerWebExchange healthCheckExchange(String clientId) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(ApiName.HEALTH_CHECK.getUrl())
+                .header("X-Client-Id", clientId));
+    }
+}
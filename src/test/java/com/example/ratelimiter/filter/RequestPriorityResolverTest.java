@@ -0,0 +1,55 @@
+package com.example.ratelimiter.filter;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.RequestPriority;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for RequestPriorityResolver, "probe" is a critical client and "batch-job" a low priority one.
+ */
+class RequestPriorityResolverTest {
+
+    @Test
+    @DisplayName("Should give a listed client its priority whatever its header says")
+    void shouldPreferClientPriority() {
+        RequestPriorityResolver resolver = new RequestPriorityResolver(properties(true));
+
+        assertEquals(RequestPriority.CRITICAL, resolver.resolve("probe", null));
+        assertEquals(RequestPriority.LOW, resolver.resolve("batch-job", "critical"));
+    }
+
+    @Test
+    @DisplayName("Should not raise the priority of a claimed client key unless client keys are trusted")
+    void shouldNotTrustClaimedClientKey() {
+        RequestPriorityResolver untrusting = new RequestPriorityResolver(properties(false));
+
+        assertEquals(RequestPriority.NORMAL, untrusting.resolve("probe", null), "Anyone can send the key of a critical client");
+        assertEquals(RequestPriority.LOW, untrusting.resolve("batch-job", "critical"), "Lowering a priority is always safe");
+    }
+
+    @Test
+    @DisplayName("Should honour the priority header only when it is trusted")
+    void shouldHonourTrustedHeader() {
+        RequestPriorityResolver trusting = new RequestPriorityResolver(properties(true));
+        RequestPriorityResolver untrusting = new RequestPriorityResolver(properties(false));
+
+        assertEquals(RequestPriority.HIGH, trusting.resolve("anonymous", "high"));
+        assertEquals(RequestPriority.HIGH, trusting.resolve("anonymous", "HIGH"));
+        assertEquals(RequestPriority.HIGH, trusting.resolve("anonymous", "High"));
+        assertEquals(RequestPriority.CRITICAL, trusting.resolve("anonymous", "cRiTiCaL"));
+        assertEquals(RequestPriority.NORMAL, trusting.resolve("anonymous", "urgent"), "Unknown values fall back to the default");
+        assertEquals(RequestPriority.NORMAL, untrusting.resolve("anonymous", "high"));
+    }
+
+
+    private static RateLimiterProperties properties(boolean trustPriorityHeader) {
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.getPriority().getClients().put("probe", RequestPriority.CRITICAL);
+        properties.getPriority().getClients().put("batch-job", RequestPriority.LOW);
+        properties.getPriority().setTrustPriorityHeader(trustPriorityHeader);
+        return properties;
+    }
+}
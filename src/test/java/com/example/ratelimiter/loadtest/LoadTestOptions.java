@@ -0,0 +1,99 @@
+package com.example.ratelimiter.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Settings of a load test run, given as {@code key=value} arguments, e.g. {@code rate=2000 duration=30m}.
+ * <pre>
+ * target           base url of a running instance, e.g. http://host:8002/ratelimiter, the app is booted in this
+ *                  jvm when left out
+ * rate             requests per second, sent on schedule whatever the latency (open model), default 1000
+ * duration         measured part of the run, default 30s
+ * warmup           traffic sent before measuring, default 5s
+ * window           window of the health check limit in seconds, default 1
+ * allowed-share    share of the traffic the limit lets through, default 0.5
+ * limit            requests per window of the health check limit, overrides allowed-share, set it to the
+ *                  configured limit of a target
+ * clients          number of X-Client-Id values the requests rotate through, default 1000
+ * report-interval  between progress lines, default 10s
+ * max-in-flight    requests awaiting their response before the next ones are counted as not sent, default 10000,
+ *                  a run with requests not sent misses every latency objective
+ * slo-p50, slo-p99, slo-p999  latency objectives of the corrected percentiles, the run fails when one is missed
+ * </pre>
+ */
+final class LoadTestOptions {
+    private static final Set<String> KEYS = Set.of("target", "rate", "duration", "warmup", "window", "allowed-share",
+            "limit", "clients", "report-interval", "max-in-flight", "slo-p50", "slo-p99", "slo-p999");
+
+    final String target;
+    final int rate;
+    final Duration duration;
+    final Duration warmup;
+    final long windowSeconds;
+    final long limit;
+    final int clients;
+    final Duration reportInterval;
+    final int maxInFlight;
+    // null when not checked
+    final Duration sloP50;
+    final Duration sloP99;
+    final Duration sloP999;
+
+    private LoadTestOptions(Map<String, String> values) {
+        this.target = values.get("target");
+        this.rate = Integer.parseInt(values.getOrDefault("rate", "1000"));
+        this.duration = duration(values.getOrDefault("duration", "30s"));
+        this.warmup = duration(values.getOrDefault("warmup", "5s"));
+        this.windowSeconds = Long.parseLong(values.getOrDefault("window", "1"));
+        double allowedShare = Double.parseDouble(values.getOrDefault("allowed-share", "0.5"));
+        this.limit = values.containsKey("limit") ? Long.parseLong(values.get("limit"))
+                : (long) Math.ceil(rate * windowSeconds * allowedShare);
+        this.clients = Integer.parseInt(values.getOrDefault("clients", "1000"));
+        this.reportInterval = duration(values.getOrDefault("report-interval", "10s"));
+        this.maxInFlight = Integer.parseInt(values.getOrDefault("max-in-flight", "10000"));
+        this.sloP50 = values.containsKey("slo-p50") ? duration(values.get("slo-p50")) : null;
+        this.sloP99 = values.containsKey("slo-p99") ? duration(values.get("slo-p99")) : null;
+        this.sloP999 = values.containsKey("slo-p999") ? duration(values.get("slo-p999")) : null;
+
+        if (rate <= 0 || windowSeconds <= 0 || clients <= 0 || maxInFlight <= 0 || limit < 0
+                || duration.isNegative() || duration.isZero() || warmup.isNegative() || reportInterval.isZero()) {
+            throw new IllegalArgumentException("rate, duration, window, clients, report-interval and max-in-flight "
+                    + "must be positive, limit and warmup must not be negative");
+        }
+        if (allowedShare < 0 || allowedShare > 1) {
+            throw new IllegalArgumentException("allowed-share must be between 0 and 1, got " + allowedShare);
+        }
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String key = separator < 0 ? arg : arg.substring(0, separator);
+            if (separator < 0 || !KEYS.contains(key)) {
+                throw new IllegalArgumentException("Expected key=value with a key of " + KEYS + ", got " + arg);
+            }
+            values.put(key, arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(values);
+    }
+
+    /**
+     * Share of the requests the limit is expected to throttle: everything past {@code limit} in each window of
+     * {@code rate * window} requests.
+     */
+    double expectedThrottledRatio() {
+        return Math.max(0, 1 - (double) limit / ((double) rate * windowSeconds));
+    }
+
+
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+}
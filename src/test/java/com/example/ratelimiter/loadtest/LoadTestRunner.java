@@ -0,0 +1,240 @@
+package com.example.ratelimiter.loadtest;
+
+import com.example.ratelimiter.RatelimiterApplication;
+import com.example.ratelimiter.constants.ApiUrlConstants;
+import com.example.ratelimiter.metrics.LatencyHistogram;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point of the {@code loadtest} maven profile. Drives the health check endpoint over HTTP through Tomcat, the
+ * rate limit filter and Jackson at a fixed rate (see {@link OpenLoadGenerator}), with a limit set so that part of
+ * the traffic is throttled, and reports:
+ * <ul>
+ *     <li>p50, p99 and p99.9 latency corrected for coordinated omission, next to the uncorrected ones</li>
+ *     <li>the throttled share against the one the limit should produce</li>
+ *     <li>heap use, live data after collection, allocation rate and GC pauses of the server (see {@link ServerStats})</li>
+ * </ul>
+ * A line per report interval shows drift over soak runs. Options are listed in {@link LoadTestOptions}. Without a
+ * {@code target} the app is booted in this jvm on a free port with a fixed window limit of {@code limit} requests
+ * per {@code window} and per client limits that never bind. The results are also written to
+ * target/loadtest-result.json, the process exits with 1 when a latency objective is missed.
+ */
+public class LoadTestRunner {
+    private static final Path RESULT_FILE = Path.of("target", "loadtest-result.json");
+
+    private LoadTestRunner() {}
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        ConfigurableApplicationContext context = options.target == null ? boot(options) : null;
+        boolean passed;
+        try {
+            String baseUrl = context == null ? options.target.replaceAll("/+$", "")
+                    : "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/ratelimiter";
+            passed = run(options, httpClient, baseUrl);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+
+    private static ConfigurableApplicationContext boot(LoadTestOptions options) {
+        String api = "--ratelimiter.apis.health-check.";
+        return new SpringApplicationBuilder(RatelimiterApplication.class).run(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                api + "algorithm=FIXED_WINDOW",
+                api + "window-seconds=" + options.windowSeconds,
+                api + "max-requests=" + options.limit,
+                api + "client-window-seconds=" + options.windowSeconds,
+                api + "client-max-requests=" + (long) options.rate * options.windowSeconds);
+    }
+
+    private static boolean run(LoadTestOptions options, HttpClient httpClient, String baseUrl)
+            throws InterruptedException, IOException {
+        OpenLoadGenerator generator = new OpenLoadGenerator(httpClient, URI.create(baseUrl + ApiUrlConstants.HEALTH_CHECK_API_URL),
+                options.clients, options.rate, options.maxInFlight);
+        ServerStats serverStats = new ServerStats(httpClient, baseUrl);
+        // only the reporter thread adds to these until it is terminated
+        List<ServerStats.Sample> samples = new ArrayList<>();
+        List<Map<String, Object>> intervals = new ArrayList<>();
+
+        System.out.printf(Locale.ROOT, "Sending %d req/s to %s for %s after a %s warmup, limit %d per %ds window%n",
+                options.rate, baseUrl + ApiUrlConstants.HEALTH_CHECK_API_URL, options.duration, options.warmup,
+                options.limit, options.windowSeconds);
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = options.reportInterval.toNanos();
+        reporter.schedule(() -> sample(serverStats, samples), options.warmup.toNanos(), TimeUnit.NANOSECONDS);
+        reporter.scheduleAtFixedRate(() -> {
+            OpenLoadGenerator.Stats stats = generator.nextInterval();
+            ServerStats.Sample sample = sample(serverStats, samples);
+            intervals.add(report(stats, samples, sample, samples.size() - 1, generator.inFlight()));
+        }, options.warmup.toNanos() + intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+
+        generator.run(options.warmup, options.duration);
+        reporter.shutdown();
+        reporter.awaitTermination(30, TimeUnit.SECONDS);
+        // what completed since the last report, its interval usually ends with the run
+        OpenLoadGenerator.Stats rest = generator.nextInterval();
+        ServerStats.Sample last = sample(serverStats, samples);
+        if (rest.completed() + rest.notSent.sum() > 0) {
+            intervals.add(report(rest, samples, last, samples.size() - 1, generator.inFlight()));
+        }
+
+        Map<String, Object> result = summary(options, generator.total(), samples);
+        result.put("intervals", intervals);
+        Files.createDirectories(RESULT_FILE.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(RESULT_FILE.toFile(), result);
+        System.out.println("Results written to " + RESULT_FILE);
+        return !result.containsValue("MISSED");
+    }
+
+    private static ServerStats.Sample sample(ServerStats serverStats, List<ServerStats.Sample> samples) {
+        try {
+            ServerStats.Sample sample = serverStats.sample();
+            samples.add(sample);
+            return sample;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, Object> report(OpenLoadGenerator.Stats stats, List<ServerStats.Sample> samples,
+                                              ServerStats.Sample sample, int index, int inFlight) {
+        ServerStats.Sample previous = samples.get(Math.max(0, index - 1));
+        ServerStats.Sample first = samples.get(0);
+        long elapsedSeconds = Math.round((sample.nanoTime() - first.nanoTime()) / 1e9);
+        System.out.printf(Locale.ROOT, "[%5ds] %s  throttled %5.2f%%  errors %d  not sent %d  in flight %d  "
+                        + "heap %.0f MiB  gc +%.0f (%.0f ms)%n",
+                elapsedSeconds, percentiles(stats.corrected), stats.throttledRatio() * 100, stats.errors.sum(),
+                stats.notSent.sum(), inFlight, sample.heapUsedBytes() / (1 << 20),
+                sample.gcPauses() - previous.gcPauses(), (sample.gcPauseSeconds() - previous.gcPauseSeconds()) * 1000);
+
+        Map<String, Object> interval = new LinkedHashMap<>();
+        interval.put("elapsed_seconds", elapsedSeconds);
+        interval.put("completed", stats.completed());
+        interval.put("throttled_ratio", stats.throttledRatio());
+        interval.put("errors", stats.errors.sum());
+        interval.put("not_sent", stats.notSent.sum());
+        interval.put("latency_ms", latencies(stats.corrected));
+        interval.put("heap_used_bytes", sample.heapUsedBytes());
+        interval.put("gc_pauses", sample.gcPauses() - previous.gcPauses());
+        return interval;
+    }
+
+    private static Map<String, Object> summary(LoadTestOptions options, OpenLoadGenerator.Stats total,
+                                               List<ServerStats.Sample> samples) {
+        ServerStats.Sample first = samples.get(0);
+        ServerStats.Sample last = samples.get(samples.size() - 1);
+        double seconds = (last.nanoTime() - first.nanoTime()) / 1e9;
+        double peakHeap = samples.stream().mapToDouble(ServerStats.Sample::heapUsedBytes).max().orElse(Double.NaN);
+        double expectedRatio = options.expectedThrottledRatio();
+
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Requests      %d completed, %d errors, %d not sent%n",
+                total.completed(), total.errors.sum(), total.notSent.sum());
+        System.out.printf(Locale.ROOT, "Corrected     %s%n", percentiles(total.corrected));
+        System.out.printf(Locale.ROOT, "Uncorrected   %s%n", percentiles(total.uncorrected));
+        System.out.printf(Locale.ROOT, "Throttled     %.2f%% measured, %.2f%% expected, off by %.2f points%n",
+                total.throttledRatio() * 100, expectedRatio * 100, Math.abs(total.throttledRatio() - expectedRatio) * 100);
+        System.out.printf(Locale.ROOT, "Heap          %.0f MiB at start, %.0f MiB at end, %.0f MiB peak sampled, "
+                        + "live data %.0f -> %.0f MiB%n",
+                first.heapUsedBytes() / (1 << 20), last.heapUsedBytes() / (1 << 20), peakHeap / (1 << 20),
+                first.liveDataBytes() / (1 << 20), last.liveDataBytes() / (1 << 20));
+        System.out.printf(Locale.ROOT, "GC            %.0f pauses, %.0f ms in total, %.0f ms longest recent, "
+                        + "%.1f MiB/s allocated%n",
+                last.gcPauses() - first.gcPauses(), (last.gcPauseSeconds() - first.gcPauseSeconds()) * 1000,
+                last.gcPauseMaxSeconds() * 1000, (last.allocatedBytes() - first.allocatedBytes()) / (1 << 20) / seconds);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rate", options.rate);
+        result.put("duration_seconds", options.duration.toSeconds());
+        result.put("limit", options.limit);
+        result.put("window_seconds", options.windowSeconds);
+        result.put("completed", total.completed());
+        result.put("errors", total.errors.sum());
+        result.put("not_sent", total.notSent.sum());
+        result.put("latency_ms", latencies(total.corrected));
+        result.put("uncorrected_latency_ms", latencies(total.uncorrected));
+        result.put("throttled_ratio", total.throttledRatio());
+        result.put("expected_throttled_ratio", expectedRatio);
+        result.put("heap_used_bytes_start", first.heapUsedBytes());
+        result.put("heap_used_bytes_end", last.heapUsedBytes());
+        result.put("heap_used_bytes_peak", peakHeap);
+        result.put("live_data_bytes_start", first.liveDataBytes());
+        result.put("live_data_bytes_end", last.liveDataBytes());
+        result.put("gc_pauses", last.gcPauses() - first.gcPauses());
+        result.put("gc_pause_seconds", last.gcPauseSeconds() - first.gcPauseSeconds());
+        result.put("allocated_bytes_per_second", (last.allocatedBytes() - first.allocatedBytes()) / seconds);
+        slo(result, "slo_p50", options.sloP50, total, 50);
+        slo(result, "slo_p99", options.sloP99, total, 99);
+        slo(result, "slo_p999", options.sloP999, total, 99.9);
+        return result;
+    }
+
+    /**
+     * Requests not sent because too many were in flight never get a latency, and they are the ones a stalled server
+     * would have answered slowest. Leaving them out would hide the stall again, so any of them misses every objective.
+     */
+    private static void slo(Map<String, Object> result, String name, Duration objective, OpenLoadGenerator.Stats total,
+                            double percentile) {
+        if (objective == null) {
+            return;
+        }
+        long value = total.corrected.valueAtPercentile(percentile);
+        long notSent = total.notSent.sum();
+        String outcome = value <= objective.toNanos() && notSent == 0 ? "MET" : "MISSED";
+        System.out.printf(Locale.ROOT, "SLO p%s <= %.2f ms  %s (%.2f ms%s)%n",
+                percentile == 99.9 ? "99.9" : String.valueOf((int) percentile), objective.toNanos() / 1e6, outcome,
+                value / 1e6, notSent == 0 ? "" : ", " + notSent + " requests not sent");
+        result.put(name, outcome);
+    }
+
+    private static String percentiles(LatencyHistogram latency) {
+        return String.format(Locale.ROOT, "p50 %7.2f ms  p99 %7.2f ms  p99.9 %7.2f ms  max %7.2f ms",
+                latency.valueAtPercentile(50) / 1e6, latency.valueAtPercentile(99) / 1e6,
+                latency.valueAtPercentile(99.9) / 1e6, latency.maxNanos() / 1e6);
+    }
+
+    private static Map<String, Object> latencies(LatencyHistogram latency) {
+        Map<String, Object> latencies = new LinkedHashMap<>();
+        latencies.put("p50", latency.valueAtPercentile(50) / 1e6);
+        latencies.put("p99", latency.valueAtPercentile(99) / 1e6);
+        latencies.put("p999", latency.valueAtPercentile(99.9) / 1e6);
+        latencies.put("max", latency.maxNanos() / 1e6);
+        return latencies;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.ratelimiter.loadtest;
+
+import com.example.ratelimiter.metrics.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Sends requests at a fixed rate whatever the latency of the server (open model), the way independent clients
+ * do, rather than waiting for a response before sending the next request.
+ * <p>
+ * Request {@code i} is due at {@code start + i / rate}. Latency is measured from that intended start, not from
+ * when the request actually went out, so a stall of the server or of this generator counts against every request
+ * it delayed instead of hiding them (coordinated omission). The latency from the actual send is kept next to it
+ * for comparison. A generator that falls behind sends the overdue requests at once to get back on schedule.
+ */
+final class OpenLoadGenerator {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient httpClient;
+    private final HttpRequest[] requests;
+    private final int rate;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicReference<Stats> interval = new AtomicReference<>(new Stats());
+    private final Stats total = new Stats();
+
+    /**
+     * @param url     of the rate limited endpoint
+     * @param clients number of {@code X-Client-Id} values the requests rotate through
+     */
+    OpenLoadGenerator(HttpClient httpClient, URI url, int clients, int rate, int maxInFlight) {
+        this.httpClient = httpClient;
+        this.rate = rate;
+        this.maxInFlight = maxInFlight;
+        // built once, the generator itself allocates little per request
+        this.requests = new HttpRequest[clients];
+        for (int client = 0; client < clients; client++) {
+            requests[client] = HttpRequest.newBuilder(url)
+                    .header("X-Client-Id", "loadtest-" + client)
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET()
+                    .build();
+        }
+    }
+
+
+    /**
+     * Sends for {@code warmup} unmeasured, then for {@code duration}, and waits for the last responses. Blocks the
+     * calling thread, which does the pacing.
+     */
+    void run(Duration warmup, Duration duration) throws InterruptedException {
+        long start = System.nanoTime();
+        long measuredFrom = start + warmup.toNanos();
+        long end = measuredFrom + duration.toNanos();
+        boolean measuring = warmup.isZero();
+        if (measuring) {
+            interval.set(new Stats());
+        }
+
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * 1e9 / rate);
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!measuring && intended >= measuredFrom) {
+                measuring = true;
+                interval.set(new Stats());
+            }
+            send(requests[(int) (i % requests.length)], intended, measuring);
+        }
+
+        long deadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * @return what was measured since the previous call, the counts of the next interval start at 0
+     */
+    Stats nextInterval() {
+        return interval.getAndSet(new Stats());
+    }
+
+    Stats total() {
+        return total;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+
+    private void send(HttpRequest request, long intendedNanos, boolean measured) {
+        if (inFlight.get() >= maxInFlight) {
+            // the server is too far behind to keep the schedule, such requests are counted instead of queued and
+            // fail the latency objectives, they have no latency to record
+            if (measured) {
+                interval.get().notSent.increment();
+                total.notSent.increment();
+            }
+            return;
+        }
+        inFlight.incrementAndGet();
+        long sentNanos = System.nanoTime();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, failure) -> {
+            long completedNanos = System.nanoTime();
+            inFlight.decrementAndGet();
+            if (measured) {
+                Stats current = interval.get();
+                current.record(response, failure, completedNanos - intendedNanos, completedNanos - sentNanos);
+                total.record(response, failure, completedNanos - intendedNanos, completedNanos - sentNanos);
+            }
+        });
+    }
+
+
+    /**
+     * Outcomes and latencies of the requests completed over a period.
+     */
+    static final class Stats {
+        final LatencyHistogram corrected = new LatencyHistogram();
+        final LatencyHistogram uncorrected = new LatencyHistogram();
+        final LongAdder allowed = new LongAdder();
+        final LongAdder throttled = new LongAdder();
+        // failed, timed out, another status, or a 200 without the health check body
+        final LongAdder errors = new LongAdder();
+        // skipped because max-in-flight requests were awaiting their response
+        final LongAdder notSent = new LongAdder();
+
+        long completed() {
+            return allowed.sum() + throttled.sum() + errors.sum();
+        }
+
+        double throttledRatio() {
+            long decided = allowed.sum() + throttled.sum();
+            return decided == 0 ? 0 : (double) throttled.sum() / decided;
+        }
+
+        private void record(HttpResponse<String> response, Throwable failure, long correctedNanos, long uncorrectedNanos) {
+            // failures and timeouts too, leaving them out would flatter the tail
+            corrected.record(correctedNanos);
+            uncorrected.record(uncorrectedNanos);
+            if (failure != null) {
+                errors.increment();
+            } else if (response.statusCode() == 200 && response.body().contains("health_status")) {
+                allowed.increment();
+            } else if (response.statusCode() == 429) {
+                throttled.increment();
+            } else {
+                errors.increment();
+            }
+        }
+    }
+}
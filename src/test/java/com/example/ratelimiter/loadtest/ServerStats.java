@@ -0,0 +1,75 @@
+package com.example.ratelimiter.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+
+/**
+ * Reads the heap and garbage collection meters of the server under test from its actuator metrics endpoint, so
+ * the same figures come out whether the app runs in this jvm or elsewhere.
+ */
+final class ServerStats {
+    private final HttpClient httpClient;
+    private final String metricsUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * @param baseUrl of the app including its context path, e.g. http://localhost:8002/ratelimiter
+     */
+    ServerStats(HttpClient httpClient, String baseUrl) {
+        this.httpClient = httpClient;
+        this.metricsUrl = baseUrl + "/actuator/metrics/";
+    }
+
+
+    /**
+     * @return the current readings, a meter that could not be read is NaN
+     */
+    Sample sample() throws InterruptedException {
+        return new Sample(
+                System.nanoTime(),
+                measurement("jvm.memory.used?tag=area:heap", "VALUE", Double.NaN),
+                measurement("jvm.gc.live.data.size", "VALUE", Double.NaN),
+                // no pause meter until the first collection
+                measurement("jvm.gc.pause", "COUNT", 0),
+                measurement("jvm.gc.pause", "TOTAL_TIME", 0),
+                measurement("jvm.gc.pause", "MAX", 0),
+                measurement("jvm.gc.memory.allocated", "COUNT", Double.NaN));
+    }
+
+
+    private double measurement(String meter, String statistic, double missing) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(metricsUrl + meter)).timeout(Duration.ofSeconds(5)).build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return missing;
+            }
+            for (JsonNode measurement : objectMapper.readTree(response.body()).path("measurements")) {
+                if (statistic.equals(measurement.path("statistic").asText())) {
+                    return measurement.path("value").asDouble();
+                }
+            }
+            return missing;
+        } catch (IOException e) {
+            return Double.NaN;
+        }
+    }
+
+
+    /**
+     * Meter readings at one point in time, bytes and seconds as actuator reports them.
+     *
+     * @param gcPauseMaxSeconds longest pause of the last couple of minutes, the meter's rolling maximum
+     */
+    record Sample(long nanoTime, double heapUsedBytes, double liveDataBytes, double gcPauses, double gcPauseSeconds,
+                  double gcPauseMaxSeconds, double allocatedBytes) {
+    }
+}
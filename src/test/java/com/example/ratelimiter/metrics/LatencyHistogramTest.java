@@ -0,0 +1,87 @@
+package com.example.ratelimiter.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for LatencyHistogram.
+ */
+class LatencyHistogramTest {
+
+    @Nested
+    @DisplayName("Bucketing Tests")
+    class BucketingTests {
+
+        @Test
+        @DisplayName("Should report every value within 12.5% above itself")
+        void shouldBoundRelativeError() {
+            for (long value = 0; value < 1L << 40; value = value < 1_000 ? value + 1 : value * 3 / 2 + 7) {
+                long upperBound = LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(value));
+                assertTrue(upperBound >= value, "Bucket of " + value + " ends at " + upperBound);
+                assertTrue(upperBound - value <= value / 8, "Bucket of " + value + " ends at " + upperBound);
+            }
+        }
+
+        @Test
+        @DisplayName("Should keep the largest values in range")
+        void shouldBucketLargestValues() {
+            assertDoesNotThrow(() -> new LatencyHistogram().record(Long.MAX_VALUE));
+        }
+    }
+
+    @Nested
+    @DisplayName("Percentile Tests")
+    class PercentileTests {
+
+        @Test
+        @DisplayName("Should report percentiles, max, count and total of the recorded values")
+        void shouldReportPercentiles() {
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (long nanos = 1; nanos <= 1_000; nanos++) {
+                histogram.record(nanos * 100);
+            }
+
+            assertEquals(1_000, histogram.count());
+            assertEquals(50_050_000, histogram.totalNanos());
+            assertEquals(100_000, histogram.maxNanos());
+            assertEquals(50_000, histogram.valueAtPercentile(50), 50_000 / 8.0);
+            assertEquals(99_000, histogram.valueAtPercentile(99), 99_000 / 8.0);
+            assertEquals(100_000, histogram.valueAtPercentile(100));
+        }
+
+        @Test
+        @DisplayName("Should report 0 before anything was recorded")
+        void shouldReportZeroWhenEmpty() {
+            assertEquals(0, new LatencyHistogram().valueAtPercentile(99));
+        }
+    }
+
+    @Nested
+    @DisplayName("Allocation Tests")
+    class AllocationTests {
+
+        @Test
+        @DisplayName("Should record without allocating")
+        void shouldRecordWithoutAllocating() {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (int i = 0; i < 100_000; i++) {
+                histogram.record(i);
+            }
+
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 100_000; i++) {
+                histogram.record(i);
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+            assertTrue(allocated < 1_024, allocated + " bytes allocated for 100000 recordings");
+        }
+    }
+}
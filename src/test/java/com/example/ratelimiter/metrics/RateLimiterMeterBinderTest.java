@@ -0,0 +1,135 @@
+package com.example.ratelimiter.metrics;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.ClientStoreMode;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.AtomicFixWindowCounterRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.PerClientFixWindowRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.RateLimiterRegistry;
+import com.example.ratelimiter.service.ratelimiters.adaptive.AdaptiveConcurrencyLimiter;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for RateLimiterMeterBinder, HEALTH_CHECK allows 3 requests per 10 seconds and 2 per client.
+ * Every decision is timed.
+ */
+class RateLimiterMeterBinderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimiterRegistry rateLimiterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        RateLimiterProperties.ApiLimit apiLimit = new RateLimiterProperties.ApiLimit();
+        apiLimit.setAlgorithm(RateLimiterAlgorithm.FIXED_WINDOW);
+        apiLimit.setWindowSeconds(10);
+        apiLimit.setMaxRequests(3);
+        apiLimit.setClientWindowSeconds(10);
+        apiLimit.setClientMaxRequests(2);
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.getApis().put(ApiName.HEALTH_CHECK, apiLimit);
+        properties.getMetrics().setLatencySampleRate(1);
+
+        RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(properties);
+        RateLimiterMetrics metrics = new RateLimiterMetrics(properties);
+        PerClientFixWindowRateLimiter perClientRateLimiter = new PerClientFixWindowRateLimiter(configRegistry, properties, RateLimiterClock.system());
+        rateLimiterRegistry = new RateLimiterRegistry(List.of(new AtomicFixWindowCounterRateLimiter(configRegistry, RateLimiterClock.system())),
+                configRegistry, perClientRateLimiter, metrics);
+
+        meterRegistry = new SimpleMeterRegistry();
+        new RateLimiterMeterBinder(metrics, rateLimiterRegistry, perClientRateLimiter,
+                new AdaptiveConcurrencyLimiter(configRegistry, properties)).bindTo(meterRegistry);
+    }
+
+    @Nested
+    @DisplayName("Decision Metrics Tests")
+    class DecisionMetricsTests {
+
+        @Test
+        @DisplayName("Should count allowed and throttled decisions per api and time them")
+        void shouldCountDecisions() {
+            for (int i = 0; i < 3; i++) {
+                rateLimiterRegistry.shouldThrottleRequest(ApiName.HEALTH_CHECK, "client-" + i);
+            }
+            rateLimiterRegistry.shouldThrottleRequest(ApiName.HEALTH_CHECK, "client-3");
+            rateLimiterRegistry.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+
+            assertEquals(3, meterRegistry.get("ratelimiter.decisions").tags("api", "HEALTH_CHECK", "outcome", "allowed")
+                    .functionCounter().count());
+            assertEquals(2, meterRegistry.get("ratelimiter.decisions").tags("api", "HEALTH_CHECK", "outcome", "throttled")
+                    .functionCounter().count());
+            assertEquals(5, meterRegistry.get("ratelimiter.decision.latency").tag("api", "HEALTH_CHECK")
+                    .functionTimer().count());
+            assertTrue(meterRegistry.get("ratelimiter.decision.latency.max").tag("api", "HEALTH_CHECK")
+                    .timeGauge().value(TimeUnit.NANOSECONDS) > 0);
+            assertEquals(3, meterRegistry.get("ratelimiter.decision.latency.percentile").tag("api", "HEALTH_CHECK")
+                    .timeGauges().size());
+        }
+
+        @Test
+        @DisplayName("Should report the used share of the current window")
+        void shouldReportUtilization() {
+            rateLimiterRegistry.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+            rateLimiterRegistry.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+
+            assertEquals(2 / 3.0, meterRegistry.get("ratelimiter.window.utilization").tag("api", "HEALTH_CHECK")
+                    .gauge().value(), 1e-9);
+        }
+
+        @Test
+        @DisplayName("Should report the adaptive concurrency limit and the requests in progress")
+        void shouldReportAdaptiveConcurrency() {
+            assertEquals(20, meterRegistry.get("ratelimiter.adaptive.limit").tag("api", "HEALTH_CHECK").gauge().value());
+            assertEquals(0, meterRegistry.get("ratelimiter.adaptive.in.flight").tag("api", "HEALTH_CHECK").gauge().value());
+        }
+    }
+
+    @Nested
+    @DisplayName("Client Store Metrics Tests")
+    class ClientStoreMetricsTests {
+
+        @Test
+        @DisplayName("Should report the size and capacity of the per client store")
+        void shouldReportStoreGauges() {
+            rateLimiterRegistry.shouldThrottleRequest(ApiName.HEALTH_CHECK, "first-client");
+            rateLimiterRegistry.shouldThrottleRequest(ApiName.HEALTH_CHECK, "second-client");
+
+            assertEquals(2, meterRegistry.get("ratelimiter.client.store.size").gauge().value());
+            assertEquals(1 << 20, meterRegistry.get("ratelimiter.client.store.capacity").gauge().value(), 1 << 10);
+            assertEquals(0, meterRegistry.get("ratelimiter.client.store.evictions").functionCounter().count());
+            assertTrue(meterRegistry.get("ratelimiter.client.store.memory").gauge().value() > 0);
+        }
+
+        @Test
+        @DisplayName("Should report the memory of the sketches in sketch mode")
+        void shouldReportSketchGauges() {
+            RateLimiterProperties properties = new RateLimiterProperties();
+            properties.getClientStore().setMode(ClientStoreMode.SKETCH);
+            properties.getClientStore().setSketchWidth(1 << 10);
+            RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(properties);
+            RateLimiterMetrics metrics = new RateLimiterMetrics(properties);
+            PerClientFixWindowRateLimiter perClientRateLimiter = new PerClientFixWindowRateLimiter(configRegistry, properties, RateLimiterClock.system());
+            RateLimiterRegistry sketchRegistry = new RateLimiterRegistry(List.of(new AtomicFixWindowCounterRateLimiter(configRegistry, RateLimiterClock.system())),
+                    configRegistry, perClientRateLimiter, metrics);
+            SimpleMeterRegistry sketchMeters = new SimpleMeterRegistry();
+            new RateLimiterMeterBinder(metrics, sketchRegistry, perClientRateLimiter,
+                    new AdaptiveConcurrencyLimiter(configRegistry, properties)).bindTo(sketchMeters);
+
+            assertEquals(ApiName.values().length * (1 << 10) * 4 * Long.BYTES,
+                    sketchMeters.get("ratelimiter.client.store.memory").gauge().value());
+            assertNull(sketchMeters.find("ratelimiter.client.store.size").gauge(), "A sketch tracks no clients one by one");
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.ratelimiter.server;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.domain.enums.RequestPriority;
+import com.example.ratelimiter.filter.RequestPriorityResolver;
+import com.example.ratelimiter.metrics.RateLimiterMetrics;
+import com.example.ratelimiter.service.ratelimiters.AtomicFixWindowCounterRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.PerClientFixWindowRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.RateLimiterRegistry;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for DecisionServer, spoken to over loopback the way a sidecar would. HEALTH_CHECK allows 3 requests
+ * per 10 seconds and 2 per client.
+ */
+class DecisionServerTest {
+
+    private ManualClock clock;
+    private RateLimiterMetrics metrics;
+    private DecisionServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = startServer(properties());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Nested
+    @DisplayName("Decision Tests")
+    class DecisionTests {
+
+        @Test
+        @DisplayName("Should decide every descriptor of a request against the shared limits")
+        void shouldDecideDescriptorsInBulk() throws IOException {
+            try (Client client = new Client()) {
+                client.send(7, new Descriptor("HEALTH_CHECK", "first-client", 1),
+                        new Descriptor("HEALTH_CHECK", "first-client", 1),
+                        new Descriptor("HEALTH_CHECK", "first-client", 1),
+                        new Descriptor("HEALTH_CHECK", null, 1),
+                        new Descriptor("HEALTH_CHECK", "second-client", 1));
+
+                Status[] statuses = client.receive(7);
+                assertEquals(new Status(DecisionServer.OK, 1, 0), statuses[0]);
+                assertEquals(new Status(DecisionServer.OK, 0, 0), statuses[1]);
+                assertEquals(new Status(DecisionServer.OVER_LIMIT, 0, 10_000), statuses[2], "The client used up its own limit");
+                assertEquals(new Status(DecisionServer.OK, 0, 0), statuses[3]);
+                assertEquals(new Status(DecisionServer.OVER_LIMIT, 0, 10_000), statuses[4], "The api wide limit is used up");
+            }
+            assertEquals(3, metrics.allowedCount(ApiName.HEALTH_CHECK));
+            assertEquals(2, metrics.throttledCount(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should answer pipelined requests in order on one connection")
+        void shouldAnswerPipelinedRequests() throws IOException {
+            try (Client client = new Client()) {
+                for (int requestId = 0; requestId < 5; requestId++) {
+                    client.send(requestId, new Descriptor("HEALTH_CHECK", null, 1));
+                }
+                for (int requestId = 0; requestId < 5; requestId++) {
+                    assertEquals(requestId < 3 ? DecisionServer.OK : DecisionServer.OVER_LIMIT, client.receive(requestId)[0].code());
+                }
+            }
+            assertEquals(5, server.getRequests());
+        }
+
+        @Test
+        @DisplayName("Should reject unknown apis and invalid permits without closing the connection")
+        void shouldRejectInvalidDescriptors() throws IOException {
+            try (Client client = new Client()) {
+                client.send(1, new Descriptor("NO_SUCH_API", null, 1), new Descriptor("HEALTH_CHECK", "first-client", 0));
+                Status[] statuses = client.receive(1);
+                assertEquals(DecisionServer.UNKNOWN_API, statuses[0].code());
+                assertEquals(DecisionServer.INVALID, statuses[1].code());
+
+                client.send(2, new Descriptor("HEALTH_CHECK", "first-client", 2));
+                assertEquals(new Status(DecisionServer.OK, 0, 0), client.receive(2)[0]);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Priority Tests")
+    class PriorityTests {
+
+        @Test
+        @DisplayName("Should leave the share reserved for higher priorities to the clients listed with them")
+        void shouldRespectReservedShares() throws IOException {
+            server.close();
+            RateLimiterProperties properties = properties();
+            // one of the 3 permits is out of reach of NORMAL descriptors
+            properties.getPriority().getReservedShares().put(RequestPriority.CRITICAL, 0.3);
+            properties.getPriority().getClients().put("critical-client", RequestPriority.CRITICAL);
+            properties.getPriority().setTrustPriorityHeader(true);
+            server = startServer(properties);
+
+            try (Client client = new Client()) {
+                client.send(1, new Descriptor("HEALTH_CHECK", null, 1),
+                        new Descriptor("HEALTH_CHECK", "first-client", 1),
+                        new Descriptor("HEALTH_CHECK", "second-client", 1),
+                        new Descriptor("HEALTH_CHECK", "critical-client", 1));
+
+                Status[] statuses = client.receive(1);
+                assertEquals(DecisionServer.OK, statuses[0].code());
+                assertEquals(DecisionServer.OK, statuses[1].code());
+                assertEquals(DecisionServer.OVER_LIMIT, statuses[2].code(), "The reserved permit is not for NORMAL");
+                assertEquals(DecisionServer.OK, statuses[3].code(), "The reserved permit is for CRITICAL");
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Connection Tests")
+    class ConnectionTests {
+
+        @Test
+        @DisplayName("Should close the connection on a malformed frame")
+        void shouldCloseOnMalformedFrame() throws Exception {
+            try (Client client = new Client()) {
+                client.output.writeInt(6);
+                client.output.writeInt(1);
+                // one descriptor announced, none sent
+                client.output.writeShort(1);
+                client.output.flush();
+
+                assertEquals(-1, client.input.read(), "The server should hang up");
+            }
+            awaitProtocolErrors(1);
+        }
+
+        @Test
+        @DisplayName("Should close a connection over the connection limit")
+        void shouldRejectConnectionsOverLimit() throws Exception {
+            try (Client first = new Client(); Client second = new Client();
+                 Socket third = new Socket(InetAddress.getLoopbackAddress(), server.localPort())) {
+                third.setSoTimeout(5_000);
+                assertEquals(-1, third.getInputStream().read());
+                assertEquals(2, server.getConnectionCount());
+                assertEquals(1, server.getRejectedConnections());
+
+                // the connections within the limit are still served
+                for (Client client : List.of(first, second)) {
+                    client.send(1, new Descriptor("HEALTH_CHECK", null, 1));
+                    assertEquals(DecisionServer.OK, client.receive(1)[0].code());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Should refuse a client that does not speak the protocol")
+        void shouldRefuseForeignClient() throws Exception {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.localPort())) {
+                socket.setSoTimeout(5_000);
+                socket.getOutputStream().write("GET / HTTP/1.1\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                assertEquals(-1, socket.getInputStream().read());
+            }
+            awaitProtocolErrors(1);
+        }
+    }
+
+
+    private RateLimiterProperties properties() {
+        RateLimiterProperties.ApiLimit apiLimit = new RateLimiterProperties.ApiLimit();
+        apiLimit.setAlgorithm(RateLimiterAlgorithm.FIXED_WINDOW);
+        apiLimit.setWindowSeconds(10);
+        apiLimit.setMaxRequests(3);
+        apiLimit.setClientWindowSeconds(10);
+        apiLimit.setClientMaxRequests(2);
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.getApis().put(ApiName.HEALTH_CHECK, apiLimit);
+        return properties;
+    }
+
+    private DecisionServer startServer(RateLimiterProperties properties) throws IOException {
+        clock = new ManualClock(1_000_000L);
+        RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(properties);
+        metrics = new RateLimiterMetrics(true, 1);
+        RateLimiterRegistry registry = new RateLimiterRegistry(List.of(new AtomicFixWindowCounterRateLimiter(configRegistry, clock)),
+                configRegistry, new PerClientFixWindowRateLimiter(configRegistry, properties, clock), metrics);
+
+        DecisionServer started = new DecisionServer(registry, new RequestPriorityResolver(properties),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2, 16);
+        started.start();
+        return started;
+    }
+
+    private void awaitProtocolErrors(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (server.getProtocolErrors() < expected) {
+            assertTrue(System.nanoTime() < deadline, "The protocol error was not counted in time");
+            Thread.sleep(1);
+        }
+    }
+
+    private record Descriptor(String api, String clientKey, int permits) {}
+
+    private record Status(byte code, long remaining, int retryAfterMillis) {}
+
+    private class Client implements AutoCloseable {
+        private final Socket socket;
+        private final DataOutputStream output;
+        private final DataInputStream input;
+
+        private Client() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.localPort());
+            socket.setSoTimeout(5_000);
+            output = new DataOutputStream(socket.getOutputStream());
+            input = new DataInputStream(socket.getInputStream());
+            output.writeInt(DecisionServer.MAGIC);
+            output.writeShort(DecisionServer.VERSION);
+            output.flush();
+            assertEquals(DecisionServer.MAGIC, input.readInt());
+            assertEquals(DecisionServer.VERSION, input.readShort());
+            assertEquals(16, input.readInt(), "The server should announce its max descriptors");
+        }
+
+        private void send(int requestId, Descriptor... descriptors) throws IOException {
+            ByteArrayOutputStream frame = new ByteArrayOutputStream();
+            DataOutputStream body = new DataOutputStream(frame);
+            body.writeInt(requestId);
+            body.writeShort(descriptors.length);
+            for (Descriptor descriptor : descriptors) {
+                byte[] api = descriptor.api().getBytes(StandardCharsets.US_ASCII);
+                body.writeByte(api.length);
+                body.write(api);
+                if (descriptor.clientKey() == null) {
+                    body.writeShort(-1);
+                } else {
+                    byte[] clientKey = descriptor.clientKey().getBytes(StandardCharsets.UTF_8);
+                    body.writeShort(clientKey.length);
+                    body.write(clientKey);
+                }
+                body.writeInt(descriptor.permits());
+            }
+            output.writeInt(frame.size());
+            frame.writeTo(output);
+            output.flush();
+        }
+
+        private Status[] receive(int expectedRequestId) throws IOException {
+            int frameBytes = input.readInt();
+            assertEquals(expectedRequestId, input.readInt());
+            Status[] statuses = new Status[input.readUnsignedShort()];
+            assertEquals(6 + statuses.length * 13, frameBytes);
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] = new Status(input.readByte(), input.readLong(), input.readInt());
+            }
+            return statuses;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
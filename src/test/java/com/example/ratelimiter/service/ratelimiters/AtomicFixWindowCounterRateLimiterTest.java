@@ -0,0 +1,197 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for AtomicFixWindowCounterRateLimiter, HEALTH_CHECK is configured with 3 requests per 10 seconds.
+ * Time is driven by a manual clock, so window transitions are deterministic.
+ */
+class AtomicFixWindowCounterRateLimiterTest {
+
+    private ManualClock clock;
+    private RateLimitConfigRegistry configRegistry;
+    private AtomicFixWindowCounterRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock(1_000_000L);
+        configRegistry = TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.FIXED_WINDOW);
+        rateLimiter = new AtomicFixWindowCounterRateLimiter(configRegistry, clock);
+    }
+
+    @Nested
+    @DisplayName("Basic Rate Limiting Logic Tests")
+    class BasicRateLimitingTests {
+
+        @Test
+        @DisplayName("Should allow requests within rate limit and throttle the rest")
+        void shouldThrottleRequestsExceedingLimit() {
+            for (int i = 1; i <= 3; i++) {
+                assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK),
+                        "Request " + i + " should be allowed");
+            }
+
+            for (int i = 0; i < 100; i++) {
+                assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK),
+                        "Requests over the limit should be throttled");
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Weighted Permit Tests")
+    class WeightedPermitTests {
+
+        @Test
+        @DisplayName("Should grant weighted permits all or nothing")
+        void shouldGrantWeightedPermitsAllOrNothing() {
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2));
+            assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2), "Partial grants should not happen");
+            assertEquals(2, rateLimiter.usedPermits(ApiName.HEALTH_CHECK), "Rejected permits should not be counted");
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1));
+            assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should throttle huge permit counts without corrupting the window slot")
+        void shouldThrottleHugePermits() {
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1));
+
+            assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, Integer.MAX_VALUE));
+            assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, Long.MAX_VALUE));
+            assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, Long.MAX_VALUE, 1));
+
+            assertEquals(1, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2));
+            assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        }
+    }
+
+    @Nested
+    @DisplayName("Usage Reporting Tests")
+    class UsageReportingTests {
+
+        @Test
+        @DisplayName("Should report the admissions of the current window as used permits")
+        void shouldReportUsedPermits() {
+            rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+            rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+            assertEquals(2, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+
+            clock.advance(10_000L);
+            assertEquals(0, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+        }
+    }
+
+    @Nested
+    @DisplayName("Configuration Update Tests")
+    class ConfigurationUpdateTests {
+
+        @Test
+        @DisplayName("Should apply a new limit to the running window without a restart")
+        void shouldApplyNewLimitImmediately() {
+            for (int i = 0; i < 3; i++) {
+                assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            }
+            assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+
+            configRegistry.update(TestRateLimitConfigs.healthCheckProperties(RateLimiterAlgorithm.FIXED_WINDOW, 10, 5));
+
+            assertEquals(2, configRegistry.current().version());
+            assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        }
+    }
+
+    @Nested
+    @DisplayName("Window Transition Tests")
+    class WindowTransitionTests {
+
+        @Test
+        @DisplayName("Should serve requests again when new window starts")
+        void shouldResetCounterAfterWindowTransition() {
+            for (int i = 0; i < 4; i++) {
+                rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+            }
+            assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+
+            clock.advance(10_000L);
+
+            for (int i = 1; i <= 3; i++) {
+                assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK),
+                        "Request " + i + " of the new window should be allowed");
+            }
+            assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should not roll the window back for a stale clock reading")
+        void shouldNotRollWindowBack() {
+            clock.advance(10_000L);
+            for (int i = 0; i < 3; i++) {
+                assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            }
+
+            clock.advance(-10_000L);
+
+            assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK),
+                    "Request carrying an older timestamp should count against the latest window");
+        }
+    }
+
+    @Nested
+    @DisplayName("Thread Safety and Concurrency Tests")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("Should admit exactly the configured number of requests under contention")
+        void shouldAdmitExactLimitUnderContention() throws InterruptedException {
+            int numberOfThreads = 16;
+            int requestsPerThread = 1_000;
+            CountDownLatch startLatch = new CountDownLatch(1);
+            CountDownLatch completionLatch = new CountDownLatch(numberOfThreads);
+            AtomicInteger allowedRequests = new AtomicInteger(0);
+
+            ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+            for (int i = 0; i < numberOfThreads; i++) {
+                executor.submit(() -> {
+                    try {
+                        startLatch.await();
+                        for (int j = 0; j < requestsPerThread; j++) {
+                            if (!rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK)) {
+                                allowedRequests.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        completionLatch.countDown();
+                    }
+                });
+            }
+
+            startLatch.countDown();
+            assertTrue(completionLatch.await(5, TimeUnit.SECONDS),
+                    "All threads should complete within timeout");
+            executor.shutdown();
+
+            assertEquals(3, allowedRequests.get(), "No counts should be lost under contention");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import com.example.ratelimiter.service.ratelimiters.store.BoundedCounterStore;
+import com.example.ratelimiter.service.ratelimiters.store.OffHeapCounterStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per client limiting through the bounded counter store, on the heap (EXACT) or off it (OFF_HEAP). HOT_KEY sends every request as the same client,
+ * MANY_KEYS spreads them over {@code clientCount} clients, more than the store holds, so evictions are part
+ * of the measurement. The batch benchmarks decide {@value #BATCH_SIZE} clients per call through the bulk path,
+ * scores are per client decision.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ClientKeyRateLimiterBenchmark {
+    private static final int BATCH_SIZE = 500;
+
+    @Param({"HOT_KEY", "MANY_KEYS"})
+    private String keys;
+
+    @Param({"EXACT", "OFF_HEAP"})
+    private String store;
+
+    @Param({"2000000"})
+    private int clientCount;
+
+    private PerClientFixWindowRateLimiter rateLimiter;
+    private String[] clientKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rateLimiter = new PerClientFixWindowRateLimiter(TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.FIXED_WINDOW),
+                "OFF_HEAP".equals(store) ? new OffHeapCounterStore(1 << 20, 64) : new BoundedCounterStore(1 << 20, 64),
+                RateLimiterClock.system());
+        clientKeys = new String["HOT_KEY".equals(keys) ? 1 : clientCount];
+        for (int i = 0; i < clientKeys.length; i++) {
+            clientKeys[i] = "10." + (i >>> 16 & 0xFF) + "." + (i >>> 8 & 0xFF) + "." + (i & 0xFF) + ":" + i;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final CharSequence[] batch = new CharSequence[BATCH_SIZE];
+        private final boolean[] throttled = new boolean[BATCH_SIZE];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            next = ThreadLocalRandom.current().nextInt(1 << 30);
+        }
+    }
+
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(1)
+    public boolean singleThread(Cursor cursor) {
+        return rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, nextClientKey(cursor));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(Threads.MAX)
+    public boolean contended(Cursor cursor) {
+        return rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, nextClientKey(cursor));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Threads(Threads.MAX)
+    public boolean contendedLatency(Cursor cursor) {
+        return rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, nextClientKey(cursor));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public boolean[] singleThreadBatch(Cursor cursor) {
+        return decideBatch(cursor);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(Threads.MAX)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public boolean[] contendedBatch(Cursor cursor) {
+        return decideBatch(cursor);
+    }
+
+
+    private boolean[] decideBatch(Cursor cursor) {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            cursor.batch[i] = nextClientKey(cursor);
+        }
+        rateLimiter.shouldThrottleRequests(ApiName.HEALTH_CHECK, cursor.batch, null, cursor.throttled);
+        return cursor.throttled;
+    }
+
+    private String nextClientKey(Cursor cursor) {
+        // odd stride walks the whole key space in a scattered order
+        cursor.next += 0x9E3779B1;
+        return clientKeys[(cursor.next & Integer.MAX_VALUE) % clientKeys.length];
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for CompositeFixWindowRateLimiter, HEALTH_CHECK allows 2 requests per second and 5 per 10 seconds.
+ */
+class CompositeFixWindowRateLimiterTest {
+
+    private ManualClock clock;
+    private RateLimitConfigRegistry configRegistry;
+    private CompositeFixWindowRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock(1_000_000L);
+        configRegistry = new RateLimitConfigRegistry(properties(2, 5));
+        rateLimiter = new CompositeFixWindowRateLimiter(configRegistry, clock);
+    }
+
+    @Nested
+    @DisplayName("Tier Tests")
+    class TierTests {
+
+        @Test
+        @DisplayName("Should throttle on whichever tier runs out first")
+        void shouldEnforceEveryTier() {
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2));
+            assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1), "The per second tier is used up");
+
+            clock.advance(1_000L);
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2));
+            clock.advance(1_000L);
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1));
+            assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1), "The per 10 seconds tier is used up");
+            assertEquals(5, rateLimiter.usedPermits(ApiName.HEALTH_CHECK, 1));
+
+            clock.advance(8_000L);
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2));
+        }
+
+        @Test
+        @DisplayName("Should take permits from every tier or from none")
+        void shouldTakeAllOrNone() {
+            for (int second = 0; second < 2; second++) {
+                assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2));
+                clock.advance(1_000L);
+            }
+
+            assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2), "Only one permit is left in the 10 second tier");
+            assertEquals(0, rateLimiter.usedPermits(ApiName.HEALTH_CHECK), "The per second tier should not have been charged");
+            assertEquals(4, rateLimiter.usedPermits(ApiName.HEALTH_CHECK, 1));
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1));
+        }
+
+        @Test
+        @DisplayName("Should hold the reserve back from every tier in proportion to its limit")
+        void shouldReserveProportionally() {
+            RateLimitConfigRegistry largeConfigs = new RateLimitConfigRegistry(properties(10, 20));
+            CompositeFixWindowRateLimiter largeLimiter = new CompositeFixWindowRateLimiter(largeConfigs, clock);
+
+            assertTrue(largeLimiter.tryAcquire(ApiName.HEALTH_CHECK, 8, 2));
+            assertFalse(largeLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1, 2));
+            clock.advance(1_000L);
+            assertTrue(largeLimiter.tryAcquire(ApiName.HEALTH_CHECK, 8, 2));
+            clock.advance(1_000L);
+            assertFalse(largeLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1, 2), "4 of the 20 are reserved in the 10 second tier");
+            assertTrue(largeLimiter.tryAcquire(ApiName.HEALTH_CHECK, 4, 0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Retry After Tests")
+    class RetryAfterTests {
+
+        @Test
+        @DisplayName("Should wait for the end of the used up tier rather than the main window")
+        void shouldWaitForUsedUpTier() {
+            clock.set(1_002_000L);
+            for (int second = 0; second < 3; second++) {
+                assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, second < 2 ? 2 : 1));
+                clock.advance(1_000L);
+            }
+            assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1));
+
+            assertEquals(5_000, rateLimiter.retryAfterMillis(ApiName.HEALTH_CHECK), "The 10 second tier ends at 1_010_000");
+            assertEquals(10_000, configRegistry.current().retryAfterMillis(ApiName.HEALTH_CHECK.ordinal()),
+                    "The longest window should include the tiers");
+        }
+    }
+
+    @Nested
+    @DisplayName("Reconfiguration Tests")
+    class ReconfigurationTests {
+
+        @Test
+        @DisplayName("Should pick up added tiers and drop the counters of retuned ones")
+        void shouldFollowTierChanges() {
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2));
+
+            RateLimiterProperties properties = properties(2, 5);
+            RateLimiterProperties.Tier daily = new RateLimiterProperties.Tier();
+            daily.setWindowSeconds(86_400);
+            daily.setMaxRequests(3);
+            properties.getApis().get(ApiName.HEALTH_CHECK).getTiers().add(daily);
+            properties.getApis().get(ApiName.HEALTH_CHECK).getTiers().get(0).setWindowSeconds(20);
+            configRegistry.update(properties);
+
+            assertEquals(2, rateLimiter.usedPermits(ApiName.HEALTH_CHECK), "The unchanged main window keeps its count");
+            assertEquals(0, rateLimiter.usedPermits(ApiName.HEALTH_CHECK, 1), "The retuned tier starts over");
+            clock.advance(1_000L);
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2));
+            clock.advance(1_000L);
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1));
+            assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1), "The daily tier is used up");
+        }
+    }
+
+
+    private static RateLimiterProperties properties(long maxPerSecond, long maxPer10Seconds) {
+        RateLimiterProperties properties = TestRateLimitConfigs.healthCheckProperties(
+                RateLimiterAlgorithm.COMPOSITE_FIXED_WINDOW, 1, maxPerSecond);
+        RateLimiterProperties.Tier sustained = new RateLimiterProperties.Tier();
+        sustained.setWindowSeconds(10);
+        sustained.setMaxRequests(maxPer10Seconds);
+        properties.getApis().get(ApiName.HEALTH_CHECK).getTiers().add(sustained);
+        return properties;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import com.example.ratelimiter.service.ratelimiters.distributed.LocalRespServer;
+import com.example.ratelimiter.service.ratelimiters.distributed.RespClient;
+import com.example.ratelimiter.service.ratelimiters.distributed.RespCounterBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for DistributedFixWindowRateLimiter, two limiter instances play two replicas sharing one in-process
+ * Redis protocol stand-in. HEALTH_CHECK is configured with 3 requests per 10 seconds.
+ */
+class DistributedFixWindowRateLimiterTest {
+
+    private ManualClock clock;
+    private LocalRespServer server;
+    private RespClient client;
+    private DistributedFixWindowRateLimiter firstNode;
+    private DistributedFixWindowRateLimiter secondNode;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clock = new ManualClock(1_000_000L);
+        server = new LocalRespServer();
+        server.setCurrentTimeMillis(clock.currentTimeMillis());
+        client = new RespClient("127.0.0.1", server.port(), 1_000, 1_000, 1024);
+        RespCounterBackend backend = new RespCounterBackend(client);
+
+        firstNode = new DistributedFixWindowRateLimiter(TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.DISTRIBUTED_FIXED_WINDOW),
+                backend, "test", clock);
+        secondNode = new DistributedFixWindowRateLimiter(TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.DISTRIBUTED_FIXED_WINDOW),
+                backend, "test", clock);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Nested
+    @DisplayName("Global Limit Tests")
+    class GlobalLimitTests {
+
+        @Test
+        @DisplayName("Should share one limit across nodes once they synchronized")
+        void shouldEnforceLimitAcrossNodes() throws Exception {
+            assertFalse(firstNode.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            assertFalse(firstNode.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            assertFalse(secondNode.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            synchronize(firstNode, 2);
+            synchronize(secondNode, 3);
+
+            assertTrue(secondNode.shouldThrottleRequest(ApiName.HEALTH_CHECK),
+                    "The second node should count the requests admitted by the first one");
+
+            synchronize(firstNode, 3);
+            assertTrue(firstNode.shouldThrottleRequest(ApiName.HEALTH_CHECK),
+                    "The first node should count the request admitted by the second one");
+        }
+
+        @Test
+        @DisplayName("Should decide without waiting for the backend")
+        void shouldDecideLocallyBetweenSynchronizations() throws Exception {
+            server.close();
+
+            for (int i = 0; i < 3; i++) {
+                assertFalse(firstNode.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            }
+            assertTrue(firstNode.shouldThrottleRequest(ApiName.HEALTH_CHECK),
+                    "A node should keep enforcing the limit on its own while the backend is down");
+        }
+    }
+
+    @Nested
+    @DisplayName("Weighted Permit Tests")
+    class WeightedPermitTests {
+
+        @Test
+        @DisplayName("Should push weighted permits as one delta")
+        void shouldSynchronizeWeightedPermits() throws Exception {
+            assertTrue(firstNode.tryAcquire(ApiName.HEALTH_CHECK, 2));
+            assertFalse(firstNode.tryAcquire(ApiName.HEALTH_CHECK, 2), "Partial grants should not happen");
+            synchronize(firstNode, 2);
+
+            assertTrue(secondNode.tryAcquire(ApiName.HEALTH_CHECK, 1));
+            synchronize(secondNode, 3);
+            assertFalse(secondNode.tryAcquire(ApiName.HEALTH_CHECK, 1),
+                    "The second node should count the permits taken by the first one");
+        }
+    }
+
+    @Nested
+    @DisplayName("Window Transition Tests")
+    class WindowTransitionTests {
+
+        @Test
+        @DisplayName("Should use a fresh counter that expires after the new window")
+        void shouldStartNewCounterEveryWindow() throws Exception {
+            for (int i = 0; i < 3; i++) {
+                firstNode.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+            }
+            synchronize(firstNode, 3);
+            assertTrue(firstNode.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+
+            clock.advance(10_000L);
+            assertFalse(firstNode.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            synchronize(firstNode, 1);
+
+            server.setCurrentTimeMillis(clock.currentTimeMillis() + 20_000L);
+            assertNull(server.counter("test:HEALTH_CHECK:10000:101"), "The counter should expire with its window");
+        }
+    }
+
+
+    // the backend replies asynchronously, wait until it holds the expected count of the current window
+    private void synchronize(DistributedFixWindowRateLimiter node, long expectedGlobalCount) throws InterruptedException {
+        String key = "test:HEALTH_CHECK:10000:" + clock.currentTimeMillis() / 10_000L;
+        node.synchronizeWithBackend();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!Long.valueOf(expectedGlobalCount).equals(server.counter(key)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expectedGlobalCount, server.counter(key));
+        // the reply reaches the node right after the server applied the command
+        Thread.sleep(50);
+    }
+}
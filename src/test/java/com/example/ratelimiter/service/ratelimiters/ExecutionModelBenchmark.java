@@ -0,0 +1,133 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.metrics.RateLimiterMetrics;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import com.example.ratelimiter.service.ratelimiters.store.BoundedCounterStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to serve {@code connections} concurrent requests whose limiter decision waits 1 ms on a remote backend, the
+ * case a shared counter store runs into whenever a node has to go to the backend.
+ * <ul>
+ *     <li>PLATFORM_POOL blocks 200 platform threads, the default Tomcat pool of the MVC stack</li>
+ *     <li>VIRTUAL_THREADS blocks one virtual thread per request, needs Java 21 ({@code -p model=VIRTUAL_THREADS})</li>
+ *     <li>REACTIVE subscribes to {@link ReactiveRateLimiter} and never blocks</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ExecutionModelBenchmark {
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"PLATFORM_POOL", "REACTIVE"})
+    private String model;
+
+    @Param({"10000"})
+    private int connections;
+
+    private RateLimiterRegistry rateLimiterRegistry;
+    private ReactiveRateLimiter reactiveRateLimiter;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        RateLimiterProperties properties = TestRateLimitConfigs.healthCheckProperties(RateLimiterAlgorithm.LEASED_FIXED_WINDOW, 10, 3);
+        RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(properties);
+        PerClientFixWindowRateLimiter perClientRateLimiter = new PerClientFixWindowRateLimiter(configRegistry,
+                new BoundedCounterStore(1024, 1), RateLimiterClock.system());
+        RateLimiterMetrics metrics = new RateLimiterMetrics(false, 1);
+        rateLimiterRegistry = new RateLimiterRegistry(
+                List.of(new AtomicFixWindowCounterRateLimiter(configRegistry, RateLimiterClock.system()), new RemoteCheckRateLimiter()),
+                configRegistry, perClientRateLimiter, metrics);
+        reactiveRateLimiter = new ReactiveRateLimiter(rateLimiterRegistry, perClientRateLimiter, metrics);
+
+        if ("PLATFORM_POOL".equals(model)) {
+            executor = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        } else if ("VIRTUAL_THREADS".equals(model)) {
+            // looked up reflectively, the project still compiles for Java 17
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void serveConcurrentRequests() throws InterruptedException {
+        CountDownLatch served = new CountDownLatch(connections);
+        if ("REACTIVE".equals(model)) {
+            for (int i = 0; i < connections; i++) {
+                reactiveRateLimiter.decide(ApiName.HEALTH_CHECK).subscribe(decision -> served.countDown());
+            }
+        } else {
+            for (int i = 0; i < connections; i++) {
+                executor.execute(() -> {
+                    rateLimiterRegistry.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+                    served.countDown();
+                });
+            }
+        }
+        served.await();
+    }
+
+
+    // every decision is a 1 ms round trip to a remote backend
+    private static final class RemoteCheckRateLimiter implements AsyncRateLimiter {
+        private final ScheduledExecutorService remoteBackend = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "benchmark-remote-backend");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        @Override
+        public RateLimiterAlgorithm algorithm() {
+            return RateLimiterAlgorithm.LEASED_FIXED_WINDOW;
+        }
+
+        @Override
+        public boolean tryAcquire(ApiName apiName, long permits) {
+            return !shouldThrottleRequestAsync(apiName, permits).toCompletableFuture().join();
+        }
+
+        @Override
+        public CompletionStage<Boolean> shouldThrottleRequestAsync(ApiName apiName, long permits) {
+            CompletableFuture<Boolean> reply = new CompletableFuture<>();
+            remoteBackend.schedule(() -> reply.complete(Boolean.FALSE), 1, TimeUnit.MILLISECONDS);
+            return reply;
+        }
+    }
+}
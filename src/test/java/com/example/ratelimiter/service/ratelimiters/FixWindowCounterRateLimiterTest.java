@@ -1,6 +1,7 @@
 package com.example.ratelimiter.service.ratelimiters;
 
 import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -29,18 +30,20 @@ import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 class FixWindowCounterRateLimiterTest {
 
+    private ManualClock clock;
     private FixWindowCounterRateLimiter rateLimiter;
 
     @BeforeEach
     void setUp() {
-        rateLimiter = new FixWindowCounterRateLimiter();
+        clock = new ManualClock(1_700_000_000_000L);
+        rateLimiter = new FixWindowCounterRateLimiter(clock);
         // Clear static state between tests
         clearStaticMaps();
     }
 
     private void clearStaticMaps() {
         Map<String, Long> counterMap = new HashMap<>();
-        EnumMap<ApiName, String> bucketMap = new EnumMap<>(ApiName.class);
+        EnumMap<ApiName, ?> bucketMap = new EnumMap<>(ApiName.class);
         
         ReflectionTestUtils.setField(rateLimiter, "rateLimitCounterMap", counterMap);
         ReflectionTestUtils.setField(rateLimiter, "bucketRegistryMap", bucketMap);
@@ -75,7 +78,7 @@ class FixWindowCounterRateLimiterTest {
 
         @Test
         @DisplayName("Should throttle requests exceeding rate limit")
-        void test_shouldThrottleRequest_rateLimitAndServeWhenNewWindowStarts() throws InterruptedException {
+        void test_shouldThrottleRequest_rateLimitAndServeWhenNewWindowStarts() {
             // Allow 3 requests
             for (int i = 1; i <= 3; i++) {
                 assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK),
@@ -86,7 +89,7 @@ class FixWindowCounterRateLimiterTest {
             assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK),
                     "Fourth request should be throttled");
 
-            Thread.sleep(10000);
+            clock.advance(10_000L);
 
             assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
         }
@@ -94,10 +97,7 @@ class FixWindowCounterRateLimiterTest {
 
         @Test
         @DisplayName("Should reset counter after window transition")
-        void shouldResetCounterAfterWindowTransition() throws InterruptedException {
-            // Use shorter window for testing (need to mock or wait)
-            // This test verifies that counters reset in new windows
-            
+        void shouldResetCounterAfterWindowTransition() {
             // Fill up current window
             for (int i = 0; i < 3; i++) {
                 rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
@@ -107,10 +107,13 @@ class FixWindowCounterRateLimiterTest {
             assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK),
                     "Request should be throttled in current window");
             
-            // Wait for new window (10+ seconds) - this is integration test behavior
-            // For unit test, we would mock the time-based bucket generation
-            
-            // Note: This test demonstrates the concept but needs time mocking for practical execution
+            // Move to the first millisecond of the next window
+            clock.advance(10_000L - clock.currentTimeMillis() % 10_000L);
+
+            for (int i = 1; i <= 3; i++) {
+                assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK),
+                        "Request " + i + " of the new window should be allowed");
+            }
         }
     }
 
@@ -125,7 +128,7 @@ class FixWindowCounterRateLimiterTest {
             assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
             
             // Get current bucket registry state
-            EnumMap<ApiName, String> bucketRegistry = getBucketRegistryMap();
+            EnumMap<ApiName, ?> bucketRegistry = getBucketRegistryMap();
             
             // Should have registered the current bucket
             assertTrue(bucketRegistry.containsKey(ApiName.HEALTH_CHECK),
@@ -142,24 +145,14 @@ class FixWindowCounterRateLimiterTest {
             rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
             
             Map<String, Long> counterMap = getCounterMap();
-            int initialSize = counterMap.size();
-            
-            // Force window transition by manipulating bucket registry
-            EnumMap<ApiName, String> bucketRegistry = getBucketRegistryMap();
-            bucketRegistry.put(ApiName.HEALTH_CHECK, "12345"); // Old bucket
+            String oldKey = counterMap.keySet().iterator().next();
             
             // Trigger new window
+            clock.advance(10_000L);
             rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
             
-            // Give async cleanup time to execute
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            
-            // Verify cleanup behavior (async, so timing-dependent)
-            assertTrue(initialSize >= 0, "Counter map should have been managed");
+            assertFalse(counterMap.containsKey(oldKey), "Counter of the old window should have been removed");
+            assertEquals(1, counterMap.size(), "Only the counter of the new window should be left");
         }
 
         @Test
@@ -388,7 +381,7 @@ class FixWindowCounterRateLimiterTest {
     }
 
     @SuppressWarnings("unchecked")
-    private EnumMap<ApiName, String> getBucketRegistryMap() {
-        return (EnumMap<ApiName, String>) ReflectionTestUtils.getField(rateLimiter, "bucketRegistryMap");
+    private EnumMap<ApiName, ?> getBucketRegistryMap() {
+        return (EnumMap<ApiName, ?>) ReflectionTestUtils.getField(rateLimiter, "bucketRegistryMap");
     }
 }
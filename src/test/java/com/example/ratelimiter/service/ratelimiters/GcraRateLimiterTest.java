@@ -0,0 +1,90 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for GcraRateLimiter, HEALTH_CHECK is configured with 3 requests per 10 seconds,
+ * so the emission interval is 3.33 seconds with a burst tolerance of 3 requests.
+ */
+class GcraRateLimiterTest {
+
+    private ManualClock clock;
+    private GcraRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock(1_000_000L);
+        rateLimiter = new GcraRateLimiter(TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.GCRA), clock);
+    }
+
+    @Test
+    @DisplayName("Should allow a burst of max requests and throttle the rest")
+    void shouldAllowBurstUpToLimit() {
+        for (int i = 1; i <= 3; i++) {
+            assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK), "Request " + i + " should be allowed");
+        }
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+    }
+
+    @Test
+    @DisplayName("Should admit one request per emission interval after a burst")
+    void shouldSpaceRequestsByEmissionInterval() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+        }
+
+        clock.advance(3_000L);
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+
+        clock.advance(400L);
+        assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+    }
+
+    @Test
+    @DisplayName("Should report the emission intervals still ahead as used permits")
+    void shouldReportUsedPermits() {
+        assertEquals(0, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+        }
+        assertEquals(3, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+
+        clock.advance(3_400L);
+        assertEquals(2, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+    }
+
+    @Test
+    @DisplayName("Should treat weighted permits as a burst of back to back requests")
+    void shouldSpaceWeightedPermits() {
+        assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 4), "More permits than the burst should never fit");
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2));
+        assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2));
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1));
+
+        clock.advance(6_667L);
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2), "Two emission intervals should free two permits");
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+    }
+
+    @Test
+    @DisplayName("Should still limit when the limit exceeds the window in microseconds")
+    void shouldLimitHighRates() {
+        GcraRateLimiter highRateLimiter = new GcraRateLimiter(new RateLimitConfigRegistry(
+                TestRateLimitConfigs.healthCheckProperties(RateLimiterAlgorithm.GCRA, 1, 2_000_000)), clock);
+
+        assertTrue(highRateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2_000_000));
+        assertFalse(highRateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1), "An emission interval of 500 ns, not 0");
+        clock.advance(1L);
+        assertTrue(highRateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2_000));
+        assertFalse(highRateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1));
+    }
+}
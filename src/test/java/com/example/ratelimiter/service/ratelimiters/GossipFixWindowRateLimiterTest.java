@@ -0,0 +1,233 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import com.example.ratelimiter.service.ratelimiters.gossip.GossipTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for GossipFixWindowRateLimiter, three limiter instances play three members gossiping over loopback.
+ * HEALTH_CHECK is configured with 3 requests per 10 seconds, rounds are run by hand instead of on a scheduler.
+ */
+class GossipFixWindowRateLimiterTest {
+    private static final int HEALTH_CHECK = ApiName.HEALTH_CHECK.ordinal();
+
+    private ManualClock clock;
+    private List<GossipTransport> transports;
+    private List<GossipFixWindowRateLimiter> nodes;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        clock = new ManualClock(1_000_000L);
+        List<DatagramChannel> channels = new ArrayList<>();
+        List<InetSocketAddress> members = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DatagramChannel channel = DatagramChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            channels.add(channel);
+            members.add((InetSocketAddress) channel.getLocalAddress());
+        }
+        transports = new ArrayList<>();
+        nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            GossipTransport transport = new GossipTransport(channels.get(i), i, members);
+            transports.add(transport);
+            nodes.add(new GossipFixWindowRateLimiter(TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.GOSSIP_FIXED_WINDOW),
+                    transport, Duration.ofMillis(10), clock));
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (GossipTransport transport : transports) {
+            transport.close();
+        }
+    }
+
+    @Nested
+    @DisplayName("Cluster Limit Tests")
+    class ClusterLimitTests {
+
+        @Test
+        @DisplayName("Should converge on one count and share the limit once members gossiped")
+        void shouldShareLimitAcrossMembers() throws InterruptedException {
+            assertFalse(nodes.get(0).shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            assertFalse(nodes.get(1).shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            assertFalse(nodes.get(1).shouldThrottleRequest(ApiName.HEALTH_CHECK));
+
+            nodes.forEach(GossipFixWindowRateLimiter::gossip);
+            for (GossipFixWindowRateLimiter node : nodes) {
+                awaitUsedPermits(node, 3);
+            }
+
+            assertTrue(nodes.get(2).shouldThrottleRequest(ApiName.HEALTH_CHECK),
+                    "A member that admitted nothing should still see the limit used up by the others");
+        }
+
+        @Test
+        @DisplayName("Should keep enforcing the limit on its own without gossip")
+        void shouldEnforceLimitAlone() {
+            for (int i = 0; i < 3; i++) {
+                assertFalse(nodes.get(0).shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            }
+            assertTrue(nodes.get(0).shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            assertEquals(0, nodes.get(1).usedPermits(ApiName.HEALTH_CHECK), "Nothing was gossiped yet");
+        }
+
+        @Test
+        @DisplayName("Should only send what changed between full state rounds")
+        void shouldSendDeltas() throws InterruptedException {
+            nodes.get(0).shouldThrottleRequest(ApiName.HEALTH_CHECK);
+            nodes.get(0).gossip();
+            long sent = transports.get(0).getDatagramsSent();
+            assertEquals(2, sent, "The first round goes to both peers");
+
+            nodes.get(0).gossip();
+            assertEquals(sent, transports.get(0).getDatagramsSent(), "An unchanged count should not be sent again");
+
+            nodes.get(0).shouldThrottleRequest(ApiName.HEALTH_CHECK);
+            nodes.get(0).gossip();
+            assertEquals(sent + 2, transports.get(0).getDatagramsSent());
+            awaitUsedPermits(nodes.get(1), 2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Merge Tests")
+    class MergeTests {
+
+        @Test
+        @DisplayName("Should keep the highest count a member reported, however often it arrives")
+        void shouldMergeIdempotently() {
+            GossipFixWindowRateLimiter node = nodes.get(0);
+            long window = clock.currentTimeMillis() / 10_000;
+
+            node.merge(1, HEALTH_CHECK, 10_000, window, 2);
+            node.merge(1, HEALTH_CHECK, 10_000, window, 2);
+            node.merge(1, HEALTH_CHECK, 10_000, window, 1);
+            node.merge(2, HEALTH_CHECK, 10_000, window, 1);
+
+            assertEquals(3, node.usedPermits(ApiName.HEALTH_CHECK));
+            assertTrue(node.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should ignore counts of past windows and other window intervals")
+        void shouldIgnoreStaleCounts() {
+            GossipFixWindowRateLimiter node = nodes.get(0);
+            long window = clock.currentTimeMillis() / 10_000;
+            node.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+
+            node.merge(1, HEALTH_CHECK, 10_000, window - 1, 3);
+            node.merge(1, HEALTH_CHECK, 5_000, window * 2, 3);
+            node.merge(0, HEALTH_CHECK, 10_000, window, 3);
+
+            assertEquals(1, node.usedPermits(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should follow a member that moved on to the next window")
+        void shouldAdoptLaterWindow() {
+            GossipFixWindowRateLimiter node = nodes.get(0);
+            long window = clock.currentTimeMillis() / 10_000;
+            node.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+            node.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+
+            node.merge(1, HEALTH_CHECK, 10_000, window + 1, 1);
+            assertEquals(1, node.usedPermits(ApiName.HEALTH_CHECK), "The later window replaces the current one");
+
+            clock.advance(10_000);
+            assertEquals(1, node.usedPermits(ApiName.HEALTH_CHECK));
+            assertFalse(node.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            assertFalse(node.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            assertTrue(node.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        }
+    }
+
+    @Nested
+    @DisplayName("Untrusted Count Tests")
+    class UntrustedCountTests {
+
+        @Test
+        @DisplayName("Should cap a reported count at the limit so the total can not wrap around")
+        void shouldCapCountAtLimit() {
+            GossipFixWindowRateLimiter node = nodes.get(0);
+            long window = clock.currentTimeMillis() / 10_000;
+
+            node.merge(1, HEALTH_CHECK, 10_000, window, Long.MAX_VALUE);
+            node.merge(2, HEALTH_CHECK, 10_000, window, Long.MAX_VALUE);
+
+            assertEquals(6, node.usedPermits(ApiName.HEALTH_CHECK), "Each member counts for at most the limit of 3");
+            assertTrue(node.shouldThrottleRequest(ApiName.HEALTH_CHECK), "The limit should still hold");
+        }
+
+        @Test
+        @DisplayName("Should ignore windows more than one ahead of its own clock")
+        void shouldIgnoreFarFutureWindows() {
+            GossipFixWindowRateLimiter node = nodes.get(0);
+            long window = clock.currentTimeMillis() / 10_000;
+            node.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+
+            node.merge(1, HEALTH_CHECK, 10_000, window + 2, 3);
+            node.merge(1, HEALTH_CHECK, 10_000, Long.MAX_VALUE, 3);
+
+            assertEquals(1, node.usedPermits(ApiName.HEALTH_CHECK), "The current window should be kept");
+            clock.advance(10_000);
+            assertFalse(node.shouldThrottleRequest(ApiName.HEALTH_CHECK), "The next window should start empty");
+        }
+    }
+
+    @Nested
+    @DisplayName("Over Admission Bound Tests")
+    class OverAdmissionBoundTests {
+
+        @Test
+        @DisplayName("Should bound over admission by what the other members admit in one gossip interval")
+        void shouldComputeBound() {
+            assertEquals(0, GossipFixWindowRateLimiter.overAdmissionBound(1, 100, 1_000, Duration.ofMillis(10)));
+            assertEquals(20, GossipFixWindowRateLimiter.overAdmissionBound(3, 100, 1_000, Duration.ofMillis(10)));
+            assertEquals(2, GossipFixWindowRateLimiter.overAdmissionBound(3, 100, 1, Duration.ofMillis(10)),
+                    "A single unseen permit per member still counts");
+            assertEquals(200, GossipFixWindowRateLimiter.overAdmissionBound(3, 100, 1_000_000, Duration.ofMillis(10)),
+                    "A member never admits more than the whole limit");
+        }
+
+        @Test
+        @DisplayName("Should estimate the bound from the peers' admissions in the current window")
+        void shouldEstimateBoundFromPeers() {
+            GossipFixWindowRateLimiter node = nodes.get(0);
+            assertEquals(0, node.fetchOverAdmissionBound(ApiName.HEALTH_CHECK));
+
+            long window = clock.currentTimeMillis() / 10_000;
+            clock.advance(1_000);
+            node.merge(1, HEALTH_CHECK, 10_000, window, 2);
+
+            // 2 permits in 1 second is 2 per second, under one permit per 10ms interval, rounded up per other member
+            assertEquals(2, node.fetchOverAdmissionBound(ApiName.HEALTH_CHECK));
+        }
+    }
+
+
+    private void awaitUsedPermits(GossipFixWindowRateLimiter node, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (node.usedPermits(ApiName.HEALTH_CHECK) != expected) {
+            assertTrue(System.nanoTime() < deadline, "Members did not converge on " + expected + " in time");
+            Thread.sleep(1);
+        }
+    }
+}
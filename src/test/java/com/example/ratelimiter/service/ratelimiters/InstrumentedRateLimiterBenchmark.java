@@ -0,0 +1,68 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.metrics.RateLimiterMetrics;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import com.example.ratelimiter.service.ratelimiters.store.BoundedCounterStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the decision metrics: the FIXED_WINDOW engine through {@link RateLimiterRegistry} with metrics recording
+ * ON (every decision counted, one in 16 timed) and OFF. gc.alloc.rate.norm should read 0 B/op either way.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InstrumentedRateLimiterBenchmark {
+
+    @Param({"OFF", "ON"})
+    private String metrics;
+
+    private RateLimiterRegistry rateLimiterRegistry;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RateLimiterProperties properties = TestRateLimitConfigs.healthCheckProperties(RateLimiterAlgorithm.FIXED_WINDOW, 10, 3);
+        RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(properties);
+        rateLimiterRegistry = new RateLimiterRegistry(
+                List.of(new AtomicFixWindowCounterRateLimiter(configRegistry, RateLimiterClock.system())), configRegistry,
+                new PerClientFixWindowRateLimiter(configRegistry, new BoundedCounterStore(1 << 20, 64), RateLimiterClock.system()),
+                new RateLimiterMetrics("ON".equals(metrics), 16));
+    }
+
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(1)
+    public boolean singleThread() {
+        return rateLimiterRegistry.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(Threads.MAX)
+    public boolean contended() {
+        return rateLimiterRegistry.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import com.example.ratelimiter.service.ratelimiters.distributed.LocalRespServer;
+import com.example.ratelimiter.service.ratelimiters.distributed.RespClient;
+import com.example.ratelimiter.service.ratelimiters.distributed.RespCounterBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for LeasedFixWindowRateLimiter, two limiter instances play two replicas leasing from one in-process
+ * Redis protocol stand-in.
+ */
+class LeasedFixWindowRateLimiterTest {
+
+    private ManualClock clock;
+    private LocalRespServer server;
+    private RespClient client;
+    private RespCounterBackend backend;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clock = new ManualClock(1_000_000L);
+        server = new LocalRespServer();
+        server.setCurrentTimeMillis(clock.currentTimeMillis());
+        client = new RespClient("127.0.0.1", server.port(), 1_000, 1_000, 1024);
+        backend = new RespCounterBackend(client);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Nested
+    @DisplayName("Global Limit Tests")
+    class GlobalLimitTests {
+
+        @Test
+        @DisplayName("Should never admit more than the limit across nodes")
+        void shouldEnforceExactLimitAcrossNodes() {
+            LeasedFixWindowRateLimiter firstNode = node(healthCheck(3));
+            LeasedFixWindowRateLimiter secondNode = node(healthCheck(3));
+
+            int allowed = 0;
+            for (int i = 0; i < 10; i++) {
+                allowed += firstNode.shouldThrottleRequest(ApiName.HEALTH_CHECK) ? 0 : 1;
+                allowed += secondNode.shouldThrottleRequest(ApiName.HEALTH_CHECK) ? 0 : 1;
+            }
+
+            assertEquals(3, allowed);
+        }
+
+        @Test
+        @DisplayName("Should decide most requests locally once the lease grew with the request rate")
+        void shouldLeaseBlocksOfPermits() {
+            LeasedFixWindowRateLimiter rateLimiter = node(healthCheck(100_000));
+
+            for (int i = 0; i < 10_000; i++) {
+                // 10 requests per millisecond
+                if (i % 10 == 0) {
+                    clock.advance(1);
+                }
+                assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            }
+
+            assertTrue(client.getCommandsSent() < 200,
+                    "Leases should grow with the request rate, " + client.getCommandsSent() + " commands were sent");
+        }
+
+        @Test
+        @DisplayName("Should lease at least the permits a weighted request needs")
+        void shouldLeaseWeightedPermits() throws Exception {
+            LeasedFixWindowRateLimiter rateLimiter = node(healthCheck(10));
+            String key = "test:HEALTH_CHECK:10000:" + clock.currentTimeMillis() / 10_000L;
+
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 4), "A lease larger than the usual share should be taken");
+            assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 7), "Only 6 permits are left in the window");
+            assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 6));
+            assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+
+            // the over-reservation is handed back asynchronously
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (server.counter(key) != 10L && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(10L, server.counter(key), "The backend should never hand out more than the limit");
+        }
+
+        @Test
+        @DisplayName("Should enforce the limit locally while the backend is down")
+        void shouldDegradeToLocalLimit() throws Exception {
+            server.close();
+            LeasedFixWindowRateLimiter rateLimiter = node(healthCheck(3));
+
+            for (int i = 0; i < 3; i++) {
+                assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            }
+            assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        }
+    }
+
+    @Nested
+    @DisplayName("Window Transition Tests")
+    class WindowTransitionTests {
+
+        @Test
+        @DisplayName("Should return unused permits on rollover and lease again in the new window")
+        void shouldReturnUnusedPermitsOnRollover() throws Exception {
+            LeasedFixWindowRateLimiter rateLimiter = node(healthCheck(1_000));
+            String previousWindowKey = "test:HEALTH_CHECK:10000:100";
+
+            for (int i = 0; i < 50; i++) {
+                clock.advance(1);
+                assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            }
+            awaitCounterAbove(previousWindowKey, 50);
+
+            clock.set(1_010_000L);
+            assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (server.counter(previousWindowKey) != 50L && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(50L, server.counter(previousWindowKey), "Only the spent permits should stay reserved");
+            assertNotNull(server.counter("test:HEALTH_CHECK:10000:101"));
+        }
+    }
+
+
+    private LeasedFixWindowRateLimiter node(RateLimitConfigRegistry configRegistry) {
+        return new LeasedFixWindowRateLimiter(configRegistry, backend, "test", 100, 1_000, clock);
+    }
+
+    private static RateLimitConfigRegistry healthCheck(long maxRequests) {
+        return new RateLimitConfigRegistry(
+                TestRateLimitConfigs.healthCheckProperties(RateLimiterAlgorithm.LEASED_FIXED_WINDOW, 10, maxRequests));
+    }
+
+    // prefetched leases land asynchronously
+    private void awaitCounterAbove(String key, long minimum) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while ((server.counter(key) == null || server.counter(key) < minimum) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
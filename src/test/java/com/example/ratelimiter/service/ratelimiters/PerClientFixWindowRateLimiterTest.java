@@ -0,0 +1,150 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.ClientStoreMode;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import com.example.ratelimiter.service.ratelimiters.store.BlockedUntilCache;
+import com.example.ratelimiter.service.ratelimiters.store.BoundedCounterStore;
+import com.example.ratelimiter.service.ratelimiters.store.CountMinSketch;
+import com.example.ratelimiter.service.ratelimiters.store.HeavyHitters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for PerClientFixWindowRateLimiter, HEALTH_CHECK is configured with 2 requests per client per 10 seconds.
+ */
+class PerClientFixWindowRateLimiterTest {
+
+    private ManualClock clock;
+    private PerClientFixWindowRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock(1_000_000L);
+        rateLimiter = new PerClientFixWindowRateLimiter(TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.FIXED_WINDOW),
+                new BoundedCounterStore(1_000, 4), clock);
+    }
+
+    @Test
+    @DisplayName("Should throttle a noisy client without affecting the others")
+    void shouldLimitClientsIndependently() {
+        for (int i = 0; i < 2; i++) {
+            assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "noisy-client"));
+        }
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "noisy-client"));
+
+        assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "10.0.0.7"));
+        assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "10.0.0.8"));
+    }
+
+    @Test
+    @DisplayName("Should serve the client again when new window starts")
+    void shouldResetClientAfterWindowTransition() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "noisy-client");
+        }
+
+        clock.advance(10_000L);
+        assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "noisy-client"));
+    }
+
+    @Test
+    @DisplayName("Should decide a batch of clients like one request each")
+    void shouldDecideBatchOfClients() {
+        CharSequence[] clientKeys = {"first-client", "second-client", "first-client", "first-client"};
+        boolean[] throttled = new boolean[clientKeys.length];
+
+        rateLimiter.shouldThrottleRequests(ApiName.HEALTH_CHECK, clientKeys, null, throttled);
+
+        assertArrayEquals(new boolean[] {false, false, false, true}, throttled);
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "first-client"));
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "second-client", 2),
+                "Weighted permits should not be granted in part");
+    }
+
+    @Test
+    @DisplayName("Should remember a client that used up its limit until its window ends")
+    void shouldRememberBlockedClients() {
+        clock.advance(4_000L);
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "noisy-client");
+        }
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "noisy-client"));
+        assertEquals(6_000L, rateLimiter.fetchRetryAfterMillis(ApiName.HEALTH_CHECK, "noisy-client"));
+        assertEquals(0, rateLimiter.fetchRetryAfterMillis(ApiName.HEALTH_CHECK, "quiet-client"));
+
+        clock.advance(6_000L);
+        assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "noisy-client"));
+        assertEquals(0, rateLimiter.fetchRetryAfterMillis(ApiName.HEALTH_CHECK, "noisy-client"));
+    }
+
+    @Test
+    @DisplayName("Should forget blocked clients once the limits change")
+    void shouldForgetBlockedClientsOnUpdate() {
+        RateLimitConfigRegistry configRegistry = TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.FIXED_WINDOW);
+        PerClientFixWindowRateLimiter blockingLimiter = new PerClientFixWindowRateLimiter(configRegistry,
+                new BoundedCounterStore(1_000, 4), null, new BlockedUntilCache(16), clock);
+        for (int i = 0; i < 3; i++) {
+            blockingLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "noisy-client");
+        }
+
+        RateLimiterProperties properties = TestRateLimitConfigs.healthCheckProperties(RateLimiterAlgorithm.FIXED_WINDOW, 10, 3);
+        properties.getApis().get(ApiName.HEALTH_CHECK).setClientMaxRequests(3);
+        configRegistry.update(properties);
+
+        assertEquals(0, blockingLimiter.fetchRetryAfterMillis(ApiName.HEALTH_CHECK, "noisy-client"));
+        assertFalse(blockingLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "noisy-client"));
+        assertTrue(blockingLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "noisy-client"));
+    }
+
+    @Test
+    @DisplayName("Should not block a client whose weighted request missed while smaller ones still fit")
+    void shouldNotBlockOnWeightedMiss() {
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "batch-client", 3));
+        assertEquals(0, rateLimiter.fetchRetryAfterMillis(ApiName.HEALTH_CHECK, "batch-client"));
+        assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "batch-client", 2));
+    }
+
+    @Test
+    @DisplayName("Should limit clients through the sketch and report the heaviest ones in sketch mode")
+    void shouldLimitClientsInSketchMode() {
+        CountMinSketch[] sketches = new CountMinSketch[ApiName.values().length];
+        sketches[ApiName.HEALTH_CHECK.ordinal()] = new CountMinSketch(1 << 10, 4, 2);
+        PerClientFixWindowRateLimiter sketchLimiter = new PerClientFixWindowRateLimiter(
+                TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.FIXED_WINDOW), null, sketches, clock);
+
+        for (int i = 0; i < 2; i++) {
+            assertFalse(sketchLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "noisy-client"));
+        }
+        assertTrue(sketchLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "noisy-client"));
+        assertFalse(sketchLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "quiet-client"));
+
+        HeavyHitters.HeavyHitter[] heavyHitters = sketchLimiter.fetchHeavyHitters(ApiName.HEALTH_CHECK);
+        assertEquals("noisy-client", heavyHitters[0].clientKey());
+        assertEquals(2, heavyHitters[0].estimatedCount());
+        assertEquals(1, sketchLimiter.fetchErrorBound(ApiName.HEALTH_CHECK), "e / 1024 of 3 requests rounds up to 1");
+
+        clock.advance(10_000L);
+        assertFalse(sketchLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "noisy-client"));
+        assertEquals(1, sketchLimiter.fetchHeavyHitters(ApiName.HEALTH_CHECK).length, "A new window starts a new ranking");
+    }
+
+    @Test
+    @DisplayName("Should build no exact counter store in sketch mode")
+    void shouldSkipCounterStoreInSketchMode() {
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.getClientStore().setMode(ClientStoreMode.SKETCH);
+        PerClientFixWindowRateLimiter sketchLimiter = new PerClientFixWindowRateLimiter(
+                TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.FIXED_WINDOW), properties, clock);
+
+        assertNull(sketchLimiter.getCounterStore());
+        assertFalse(sketchLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK, "first-client"));
+        assertEquals(1, sketchLimiter.fetchRemainingPermits(ApiName.HEALTH_CHECK, "first-client"));
+    }
+}
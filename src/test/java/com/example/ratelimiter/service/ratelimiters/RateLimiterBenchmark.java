@@ -0,0 +1,151 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.CachedClock;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * Throughput and latency of {@code shouldThrottleRequest} for every engine, BASELINE being the original
+ * FixWindowCounterRateLimiter. Throughput is reported in ops/s and latency as sampled percentiles,
+ * the GC profiler attached by {@link BenchmarkRunner} adds gc.alloc.rate.norm (bytes per op).
+ * <p>
+ * STEADY reads the wall clock on every decision, CACHED reads a {@link CachedClock} refreshed every millisecond,
+ * ROLLOVER_STORM moves a synthetic clock by a full window every 50 µs, so every engine keeps crossing window
+ * boundaries under load.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RateLimiterBenchmark {
+
+    @Param({"BASELINE", "FIXED_WINDOW", "TOKEN_BUCKET", "GCRA", "SLIDING_WINDOW_LOG", "SLIDING_WINDOW_COUNTER",
+            "STRIPED_FIXED_WINDOW"})
+    private String engine;
+
+    @Param({"STEADY", "CACHED", "ROLLOVER_STORM"})
+    private String clock;
+
+    private Predicate<ApiName> rateLimiter;
+    private volatile long syntheticTimeMillis;
+    private volatile boolean ticking;
+    private Thread ticker;
+    private CachedClock cachedClock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RateLimiterClock rateLimiterClock = RateLimiterClock.system();
+        if ("CACHED".equals(clock)) {
+            cachedClock = new CachedClock(Duration.ofMillis(1));
+            rateLimiterClock = cachedClock;
+        } else if ("ROLLOVER_STORM".equals(clock)) {
+            syntheticTimeMillis = System.currentTimeMillis();
+            rateLimiterClock = () -> syntheticTimeMillis;
+            startTicker();
+        }
+        rateLimiter = createRateLimiter(rateLimiterClock);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        ticking = false;
+        if (ticker != null) {
+            ticker.join();
+        }
+        if (cachedClock != null) {
+            cachedClock.close();
+        }
+    }
+
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(1)
+    public boolean singleThread() {
+        return rateLimiter.test(ApiName.HEALTH_CHECK);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(Threads.MAX)
+    public boolean contended() {
+        return rateLimiter.test(ApiName.HEALTH_CHECK);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Threads(1)
+    public boolean singleThreadLatency() {
+        return rateLimiter.test(ApiName.HEALTH_CHECK);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Threads(Threads.MAX)
+    public boolean contendedLatency() {
+        return rateLimiter.test(ApiName.HEALTH_CHECK);
+    }
+
+
+    private Predicate<ApiName> createRateLimiter(RateLimiterClock clock) {
+        switch (engine) {
+            case "BASELINE":
+                return new FixWindowCounterRateLimiter(clock)::shouldThrottleRequest;
+            case "FIXED_WINDOW":
+                return new AtomicFixWindowCounterRateLimiter(configs(), clock)::shouldThrottleRequest;
+            case "TOKEN_BUCKET":
+                return new TokenBucketRateLimiter(configs(), clock)::shouldThrottleRequest;
+            case "GCRA":
+                return new GcraRateLimiter(configs(), clock)::shouldThrottleRequest;
+            case "SLIDING_WINDOW_LOG":
+                return new SlidingWindowLogRateLimiter(configs(), clock)::shouldThrottleRequest;
+            case "SLIDING_WINDOW_COUNTER":
+                return new SlidingWindowCounterRateLimiter(configs(), clock)::shouldThrottleRequest;
+            case "STRIPED_FIXED_WINDOW":
+                return new StripedFixWindowRateLimiter(configs(), clock, Runtime.getRuntime().availableProcessors())::shouldThrottleRequest;
+            default:
+                throw new IllegalArgumentException("Unknown engine " + engine);
+        }
+    }
+
+    private RateLimitConfigRegistry configs() {
+        return TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.valueOf(engine));
+    }
+
+    private void startTicker() {
+        ticking = true;
+        ticker = new Thread(() -> {
+            while (ticking) {
+                LockSupport.parkNanos(50_000L);
+                syntheticTimeMillis += 10_000L;
+            }
+        }, "benchmark-clock-ticker");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.domain.enums.RequestPriority;
+import com.example.ratelimiter.metrics.RateLimiterMetrics;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import com.example.ratelimiter.service.ratelimiters.events.DecisionEventPublisher;
+import com.example.ratelimiter.service.ratelimiters.priority.PriorityWaitQueue;
+import com.example.ratelimiter.service.ratelimiters.store.BoundedCounterStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for RateLimiterRegistry, HEALTH_CHECK allows 3 requests per 10 seconds and 2 per client.
+ */
+class RateLimiterRegistryTest {
+
+    private ManualClock clock;
+    private RateLimiterMetrics metrics;
+    private PerClientFixWindowRateLimiter perClientRateLimiter;
+    private RateLimiterRegistry rateLimiterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock(1_000_000L);
+        RateLimitConfigRegistry configRegistry = TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.FIXED_WINDOW);
+        metrics = new RateLimiterMetrics(true, 1);
+        perClientRateLimiter = new PerClientFixWindowRateLimiter(configRegistry, new BoundedCounterStore(1_000, 4), clock);
+        rateLimiterRegistry = new RateLimiterRegistry(
+                List.of(new AtomicFixWindowCounterRateLimiter(configRegistry, clock)), configRegistry,
+                perClientRateLimiter, metrics);
+    }
+
+    @Nested
+    @DisplayName("Weighted Permit Tests")
+    class WeightedPermitTests {
+
+        @Test
+        @DisplayName("Should grant weighted permits against the client and the api wide limit")
+        void shouldGrantWeightedPermits() {
+            assertTrue(rateLimiterRegistry.tryAcquire(ApiName.HEALTH_CHECK, "first-client", 2));
+            assertFalse(rateLimiterRegistry.tryAcquire(ApiName.HEALTH_CHECK, "first-client", 1),
+                    "The client used up its own limit");
+            assertFalse(rateLimiterRegistry.tryAcquire(ApiName.HEALTH_CHECK, "second-client", 2),
+                    "Only one permit is left api wide");
+            assertTrue(rateLimiterRegistry.tryAcquire(ApiName.HEALTH_CHECK, 1));
+            assertTrue(rateLimiterRegistry.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should reject a request for no permits or for more than a count can hold")
+        void shouldRejectNonPositivePermits() {
+            assertThrows(IllegalArgumentException.class, () -> rateLimiterRegistry.tryAcquire(ApiName.HEALTH_CHECK, 0));
+            assertThrows(IllegalArgumentException.class,
+                    () -> rateLimiterRegistry.tryAcquire(ApiName.HEALTH_CHECK, RateLimiterRegistry.MAX_PERMITS + 1));
+            assertFalse(rateLimiterRegistry.tryAcquire(ApiName.HEALTH_CHECK, Integer.MAX_VALUE),
+                    "The most permits a decision may ask for are throttled like any request over the limit");
+            assertThrows(IllegalArgumentException.class,
+                    () -> rateLimiterRegistry.decide(ApiName.HEALTH_CHECK, new CharSequence[] {"client"}, new long[] {-1},
+                            new boolean[1]));
+        }
+    }
+
+    @Nested
+    @DisplayName("Bulk Decision Tests")
+    class BulkDecisionTests {
+
+        @Test
+        @DisplayName("Should admit a batch that fits the api wide limit as a whole")
+        void shouldAdmitFittingBatch() {
+            boolean[] throttled = new boolean[3];
+
+            rateLimiterRegistry.decide(ApiName.HEALTH_CHECK, new CharSequence[] {"first-client", "first-client", "second-client"},
+                    null, throttled);
+
+            assertArrayEquals(new boolean[] {false, false, false}, throttled);
+            assertTrue(rateLimiterRegistry.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+            assertEquals(3, metrics.allowedCount(ApiName.HEALTH_CHECK), "Every decision of the batch should be counted");
+        }
+
+        @Test
+        @DisplayName("Should admit clients in batch order once the batch does not fit as a whole")
+        void shouldAdmitInBatchOrderWhenBatchDoesNotFit() {
+            boolean[] throttled = new boolean[4];
+
+            rateLimiterRegistry.decide(ApiName.HEALTH_CHECK,
+                    new CharSequence[] {"first-client", "first-client", "first-client", "second-client"},
+                    new long[] {1, 1, 1, 2}, throttled);
+
+            assertArrayEquals(new boolean[] {false, false, true, true}, throttled,
+                    "The third request is over the client limit, the last one over the api wide limit");
+            assertTrue(rateLimiterRegistry.tryAcquire(ApiName.HEALTH_CHECK, 1));
+            assertEquals(2, metrics.throttledCount(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should hand the client permits back to clients the api wide limit rejects")
+        void shouldReleaseClientPermitsRejectedByApi() {
+            boolean[] throttled = new boolean[4];
+
+            rateLimiterRegistry.decide(ApiName.HEALTH_CHECK,
+                    new CharSequence[] {"first-client", "second-client", "third-client", "fourth-client"},
+                    new long[] {1, 1, 2, 2}, throttled);
+
+            assertArrayEquals(new boolean[] {false, false, true, true}, throttled,
+                    "One permit is left api wide after the first two clients");
+            assertEquals(2, perClientRateLimiter.fetchRemainingPermits(ApiName.HEALTH_CHECK, "third-client"),
+                    "The api wide rejection should not spend the client's own limit");
+            assertEquals(2, perClientRateLimiter.fetchRemainingPermits(ApiName.HEALTH_CHECK, "fourth-client"));
+            assertEquals(1, perClientRateLimiter.fetchRemainingPermits(ApiName.HEALTH_CHECK, "first-client"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Priority Tests")
+    class PriorityTests {
+
+        @Test
+        @DisplayName("Should keep the reserved shares of the limit for the higher priorities")
+        void shouldKeepReservedShares() {
+            RateLimiterRegistry registry = priorityRegistry(PriorityWaitQueue.disabled());
+
+            for (int i = 0; i < 7; i++) {
+                assertTrue(registry.tryAcquire(ApiName.HEALTH_CHECK, "normal-" + i, 1, RequestPriority.NORMAL));
+            }
+            assertFalse(registry.tryAcquire(ApiName.HEALTH_CHECK, "normal-7", 1, RequestPriority.NORMAL),
+                    "The last 30% of the limit is reserved for high and critical requests");
+            assertTrue(registry.tryAcquire(ApiName.HEALTH_CHECK, "high-0", 1, RequestPriority.HIGH));
+            assertFalse(registry.tryAcquire(ApiName.HEALTH_CHECK, "high-1", 1, RequestPriority.HIGH));
+            assertTrue(registry.tryAcquire(ApiName.HEALTH_CHECK, "critical-0", 2, RequestPriority.CRITICAL));
+            assertFalse(registry.tryAcquire(ApiName.HEALTH_CHECK, "critical-1", 1, RequestPriority.CRITICAL));
+        }
+
+        @Test
+        @DisplayName("Should let a throttled request wait for the next window")
+        void shouldWaitForNextWindow() throws Exception {
+            RateLimiterRegistry registry = priorityRegistry(new PriorityWaitQueue(4, Duration.ofSeconds(5), Duration.ofMillis(1)));
+            assertTrue(registry.tryAcquire(ApiName.HEALTH_CHECK, "critical-0", 2, RequestPriority.CRITICAL));
+            for (int i = 0; i < 8; i++) {
+                assertTrue(registry.tryAcquire(ApiName.HEALTH_CHECK, "critical-" + (i + 1), 1, RequestPriority.CRITICAL));
+            }
+
+            CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(
+                    () -> registry.tryAcquire(ApiName.HEALTH_CHECK, "waiting-client", 1, RequestPriority.CRITICAL));
+            Thread.sleep(20);
+            assertFalse(waiter.isDone(), "The request should wait instead of being throttled");
+
+            clock.advance(10_000L);
+            assertTrue(waiter.get(5, TimeUnit.SECONDS));
+            assertEquals(0, metrics.throttledCount(ApiName.HEALTH_CHECK), "The waiting request was admitted, not throttled");
+        }
+
+        @Test
+        @DisplayName("Should queue a new request behind the waiting ones instead of admitting it first")
+        void shouldQueueBehindWaiters() throws Exception {
+            PriorityWaitQueue waitQueue = new PriorityWaitQueue(4, Duration.ofSeconds(5), Duration.ofMillis(1));
+            RateLimiterRegistry registry = priorityRegistry(waitQueue);
+            for (int i = 0; i < 9; i++) {
+                assertTrue(registry.tryAcquire(ApiName.HEALTH_CHECK, "critical-" + i, 1, RequestPriority.CRITICAL));
+            }
+
+            // 2 permits while 1 is left, the request waits with that one still available
+            CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(
+                    () -> registry.tryAcquire(ApiName.HEALTH_CHECK, "waiting-client", 2, RequestPriority.CRITICAL));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!waitQueue.hasWaiters(ApiName.HEALTH_CHECK)) {
+                assertTrue(System.nanoTime() < deadline, "The request did not start waiting in time");
+                Thread.sleep(1);
+            }
+            CompletableFuture<Boolean> late = CompletableFuture.supplyAsync(
+                    () -> registry.tryAcquire(ApiName.HEALTH_CHECK, "late-client", 1, RequestPriority.CRITICAL));
+            Thread.sleep(20);
+            assertFalse(late.isDone(), "The last permit belongs to the request waiting first");
+
+            clock.advance(10_000L);
+            assertTrue(waiter.get(5, TimeUnit.SECONDS));
+            assertTrue(late.get(5, TimeUnit.SECONDS));
+        }
+
+        // HEALTH_CHECK allows 10 requests, 20% reserved for critical and 10% for high requests
+        private RateLimiterRegistry priorityRegistry(PriorityWaitQueue waitQueue) {
+            RateLimiterProperties properties = TestRateLimitConfigs.healthCheckProperties(RateLimiterAlgorithm.FIXED_WINDOW, 10, 10);
+            properties.getPriority().getReservedShares().put(RequestPriority.CRITICAL, 0.2);
+            properties.getPriority().getReservedShares().put(RequestPriority.HIGH, 0.1);
+            RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(properties);
+            return new RateLimiterRegistry(List.of(new AtomicFixWindowCounterRateLimiter(configRegistry, clock)), configRegistry,
+                    new PerClientFixWindowRateLimiter(configRegistry, new BoundedCounterStore(1_000, 4), clock),
+                    metrics, waitQueue);
+        }
+    }
+
+    @Nested
+    @DisplayName("Decision Event Tests")
+    class DecisionEventTests {
+
+        @Test
+        @DisplayName("Should publish throttled decisions with their client key")
+        void shouldPublishThrottledDecisions() {
+            List<String> written = new ArrayList<>();
+            DecisionEventPublisher events = new DecisionEventPublisher(16, true,
+                    (timestampMillis, apiName, clientKey, permits, throttled) ->
+                            written.add(timestampMillis + " " + apiName + " " + clientKey + " " + permits), clock);
+            RateLimitConfigRegistry configRegistry = TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.FIXED_WINDOW);
+            RateLimiterRegistry registry = new RateLimiterRegistry(List.of(new AtomicFixWindowCounterRateLimiter(configRegistry, clock)),
+                    configRegistry, new PerClientFixWindowRateLimiter(configRegistry, new BoundedCounterStore(1_000, 4), clock),
+                    metrics, PriorityWaitQueue.disabled(), events);
+
+            assertTrue(registry.tryAcquire(ApiName.HEALTH_CHECK, "first-client", 2));
+            assertFalse(registry.tryAcquire(ApiName.HEALTH_CHECK, "first-client", 1, RequestPriority.NORMAL));
+            assertTrue(registry.tryAcquire(ApiName.HEALTH_CHECK, 1));
+            assertTrue(registry.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+
+            assertEquals(2, events.drain());
+            assertEquals(List.of("1000000 HEALTH_CHECK first-client 1", "1000000 HEALTH_CHECK null 1"), written);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimitDecision;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.metrics.RateLimiterMetrics;
+import com.example.ratelimiter.service.ratelimiters.clock.RateLimiterClock;
+import com.example.ratelimiter.service.ratelimiters.distributed.DistributedCounterBackend;
+import com.example.ratelimiter.service.ratelimiters.store.BoundedCounterStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for ReactiveRateLimiter, HEALTH_CHECK allows 3 requests per 10 seconds and 2 per client.
+ */
+class ReactiveRateLimiterTest {
+
+    @Nested
+    @DisplayName("In Memory Engine Tests")
+    class InMemoryEngineTests {
+
+        @Test
+        @DisplayName("Should answer with preallocated decisions")
+        void shouldAnswerWithPreallocatedDecisions() {
+            ReactiveRateLimiter rateLimiter = reactiveRateLimiter(RateLimiterAlgorithm.FIXED_WINDOW, null);
+
+            Mono<RateLimitDecision> first = rateLimiter.decide(ApiName.HEALTH_CHECK);
+            Mono<RateLimitDecision> second = rateLimiter.decide(ApiName.HEALTH_CHECK);
+            assertSame(first, second, "Decisions made in memory should not allocate a mono");
+            assertEquals(RateLimitDecision.ALLOWED, first.block());
+            assertEquals(RateLimitDecision.ALLOWED, rateLimiter.decide(ApiName.HEALTH_CHECK).block());
+            assertEquals(RateLimitDecision.THROTTLED, rateLimiter.decide(ApiName.HEALTH_CHECK).block());
+        }
+
+        @Test
+        @DisplayName("Should check the client limit before the api wide one")
+        void shouldCheckClientLimitFirst() {
+            ReactiveRateLimiter rateLimiter = reactiveRateLimiter(RateLimiterAlgorithm.FIXED_WINDOW, null);
+
+            assertEquals(RateLimitDecision.ALLOWED, rateLimiter.decide(ApiName.HEALTH_CHECK, "client").block());
+            assertEquals(RateLimitDecision.ALLOWED, rateLimiter.decide(ApiName.HEALTH_CHECK, "client").block());
+            assertEquals(RateLimitDecision.THROTTLED, rateLimiter.decide(ApiName.HEALTH_CHECK, "client").block());
+            assertEquals(RateLimitDecision.ALLOWED, rateLimiter.decide(ApiName.HEALTH_CHECK, "other-client").block(),
+                    "The throttled client should not have used up the api wide budget");
+        }
+    }
+
+    @Nested
+    @DisplayName("Remote Engine Tests")
+    class RemoteEngineTests {
+
+        @Test
+        @DisplayName("Should wait for the backend without blocking the caller")
+        void shouldNotBlockOnBackend() {
+            ConcurrentLinkedQueue<CompletableFuture<Long>> pendingCalls = new ConcurrentLinkedQueue<>();
+            ReactiveRateLimiter rateLimiter = reactiveRateLimiter(RateLimiterAlgorithm.LEASED_FIXED_WINDOW,
+                    (key, delta, expireAtMillis) -> {
+                        CompletableFuture<Long> reply = new CompletableFuture<>();
+                        pendingCalls.add(reply);
+                        return reply;
+                    });
+
+            AtomicReference<RateLimitDecision> decision = new AtomicReference<>();
+            rateLimiter.decide(ApiName.HEALTH_CHECK).subscribe(decision::set);
+            assertNull(decision.get(), "The decision should wait for the lease");
+            assertEquals(1, pendingCalls.size());
+
+            pendingCalls.poll().complete(1L);
+            assertEquals(RateLimitDecision.ALLOWED, decision.get());
+        }
+    }
+
+
+    private static ReactiveRateLimiter reactiveRateLimiter(RateLimiterAlgorithm algorithm, DistributedCounterBackend backend) {
+        RateLimiterProperties properties = TestRateLimitConfigs.healthCheckProperties(algorithm, 10, 3);
+        RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(properties);
+        List<RateLimiter> engines = backend == null
+                ? List.of(new AtomicFixWindowCounterRateLimiter(configRegistry, RateLimiterClock.system()))
+                : List.of(new AtomicFixWindowCounterRateLimiter(configRegistry, RateLimiterClock.system()),
+                new LeasedFixWindowRateLimiter(configRegistry, backend, "test", 100, Duration.ofSeconds(5).toMillis(),
+                        RateLimiterClock.system()));
+        PerClientFixWindowRateLimiter perClientRateLimiter = new PerClientFixWindowRateLimiter(configRegistry,
+                new BoundedCounterStore(1024, 1), RateLimiterClock.system());
+        RateLimiterMetrics metrics = new RateLimiterMetrics(properties);
+        return new ReactiveRateLimiter(new RateLimiterRegistry(engines, configRegistry, perClientRateLimiter, metrics),
+                perClientRateLimiter, metrics);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for SlidingWindowCounterRateLimiter, HEALTH_CHECK is configured with 3 requests per 10 seconds.
+ */
+class SlidingWindowCounterRateLimiterTest {
+
+    private ManualClock clock;
+    private SlidingWindowCounterRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        // one second before a window edge
+        clock = new ManualClock(1_009_000L);
+        rateLimiter = new SlidingWindowCounterRateLimiter(TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.SLIDING_WINDOW_COUNTER), clock);
+    }
+
+    @Test
+    @DisplayName("Should not allow a 2x burst across a fixed window edge")
+    void shouldNotAllowBurstAcrossWindowEdge() {
+        for (int i = 0; i < 3; i++) {
+            assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        }
+
+        clock.advance(2_000L);
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK),
+                "90% of the previous window still overlaps the sliding window");
+    }
+
+    @Test
+    @DisplayName("Should admit again as the previous window slides out")
+    void shouldAdmitAsPreviousWindowSlidesOut() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+        }
+
+        // 4 seconds into the next window, weighted previous count = 3 * 0.6 = 1.8
+        clock.advance(5_000L);
+        assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+
+        // two windows later the previous counts are gone
+        clock.advance(20_000L);
+        for (int i = 0; i < 3; i++) {
+            assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        }
+    }
+
+    @Test
+    @DisplayName("Should report the weighted request count as used permits")
+    void shouldReportUsedPermits() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+        }
+        assertEquals(3, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+
+        // 4 seconds into the next window, weighted previous count = 3 * 0.6 = 1.8
+        clock.advance(5_000L);
+        rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+        assertEquals(3, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+    }
+
+    @Test
+    @DisplayName("Should count weighted permits against the weighted total")
+    void shouldCountWeightedPermits() {
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 3));
+        assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1));
+        assertEquals(3, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigSnapshot;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for SlidingWindowLogRateLimiter, HEALTH_CHECK is configured with 3 requests per 10 seconds.
+ */
+class SlidingWindowLogRateLimiterTest {
+
+    private ManualClock clock;
+    private SlidingWindowLogRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock(1_009_000L);
+        rateLimiter = new SlidingWindowLogRateLimiter(TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.SLIDING_WINDOW_LOG), clock);
+    }
+
+    @Test
+    @DisplayName("Should not allow a 2x burst across a fixed window edge")
+    void shouldNotAllowBurstAcrossWindowEdge() {
+        for (int i = 0; i < 3; i++) {
+            assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        }
+
+        // a fixed window would start over here
+        clock.advance(2_000L);
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+    }
+
+    @Test
+    @DisplayName("Should free one slot per logged request sliding out of the window")
+    void shouldFreeSlotsAsRequestsSlideOut() {
+        assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        clock.advance(1_000L);
+        assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+
+        clock.advance(9_000L);
+        assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK), "First request slid out of the window");
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+    }
+
+    @Test
+    @DisplayName("Should report the logged requests within the window as used permits")
+    void shouldReportUsedPermits() {
+        rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+        clock.advance(1_000L);
+        rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+        assertEquals(2, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+
+        clock.advance(9_000L);
+        assertEquals(1, rateLimiter.usedPermits(ApiName.HEALTH_CHECK), "First request slid out of the window");
+    }
+
+    @Test
+    @DisplayName("Should log one entry per weighted permit")
+    void shouldLogWeightedPermits() {
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2));
+        clock.advance(5_000L);
+        assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2), "Only one entry is free");
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1));
+
+        clock.advance(5_000L);
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2), "Both entries of the first request slid out");
+        assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1));
+        assertEquals(3, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+    }
+
+    @Test
+    @DisplayName("Should leave reserved permits in the log untaken")
+    void shouldLeaveReservedPermits() {
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1, 1));
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1, 1));
+        assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1, 1), "The last permit is reserved");
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1, 0));
+
+        clock.advance(10_000L);
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2, 1), "Both logged requests slid out of the window");
+    }
+
+    @Test
+    @DisplayName("Should refuse a limit too large to keep a log of")
+    void shouldRejectOversizedLimit() {
+        RateLimiterProperties properties = TestRateLimitConfigs.healthCheckProperties(
+                RateLimiterAlgorithm.SLIDING_WINDOW_LOG, 10, RateLimitConfigSnapshot.MAX_SLIDING_WINDOW_LOG_REQUESTS + 1);
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitConfigRegistry(properties));
+
+        RateLimitConfigRegistry configRegistry = TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.SLIDING_WINDOW_LOG);
+        properties.getApis().get(ApiName.HEALTH_CHECK).setMaxRequests(1L << 32);
+        assertThrows(IllegalArgumentException.class, () -> configRegistry.update(properties));
+        assertEquals(3, configRegistry.current().maxRequestAllowed(ApiName.HEALTH_CHECK.ordinal()),
+                "The previous limit should stay in place");
+    }
+}
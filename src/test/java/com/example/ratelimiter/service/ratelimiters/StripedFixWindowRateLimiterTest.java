@@ -0,0 +1,101 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for StripedFixWindowRateLimiter, HEALTH_CHECK is configured with 3 requests per 10 seconds.
+ */
+class StripedFixWindowRateLimiterTest {
+
+    private ManualClock clock;
+    private StripedFixWindowRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock(1_000_000L);
+        rateLimiter = new StripedFixWindowRateLimiter(TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.STRIPED_FIXED_WINDOW),
+                clock, 4);
+    }
+
+    @Test
+    @DisplayName("Should be exact for a single thread")
+    void shouldBeExactForSingleThread() {
+        for (int i = 1; i <= 3; i++) {
+            assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK), "Request " + i + " should be allowed");
+        }
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+
+        clock.advance(10_000L);
+        assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK), "New window should start over");
+    }
+
+    @Test
+    @DisplayName("Should stay within the documented over-admission bound under contention")
+    void shouldStayWithinOverAdmissionBound() throws InterruptedException {
+        int numberOfThreads = 16;
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch completionLatch = new CountDownLatch(numberOfThreads);
+        AtomicInteger allowedRequests = new AtomicInteger(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            executor.submit(() -> {
+                try {
+                    startLatch.await();
+                    for (int j = 0; j < 1_000; j++) {
+                        if (!rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK)) {
+                            allowedRequests.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    completionLatch.countDown();
+                }
+            });
+        }
+
+        startLatch.countDown();
+        assertTrue(completionLatch.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(4, rateLimiter.maxOverAdmission(ApiName.HEALTH_CHECK));
+        assertTrue(allowedRequests.get() >= 3, "The limit itself should always be admitted");
+        assertTrue(allowedRequests.get() <= 3 + rateLimiter.maxOverAdmission(ApiName.HEALTH_CHECK),
+                "Admitted " + allowedRequests.get() + " requests, more than the over-admission bound allows");
+    }
+
+    @Test
+    @DisplayName("Should report the admissions of all stripes as used permits")
+    void shouldReportUsedPermits() {
+        rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+        rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+        assertEquals(2, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+
+        clock.advance(10_000L);
+        assertEquals(0, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+    }
+
+    @Test
+    @DisplayName("Should stay exact for weighted permits of a single thread")
+    void shouldBeExactForWeightedPermits() {
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2));
+        assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2), "Partial grants should not happen");
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1));
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        assertEquals(3, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+
+// configurations for engines built outside of Spring, mirrors the HEALTH_CHECK limits of application.properties
+final class TestRateLimitConfigs {
+    private TestRateLimitConfigs() {}
+
+    static RateLimitConfigRegistry healthCheck(RateLimiterAlgorithm algorithm) {
+        return new RateLimitConfigRegistry(healthCheckProperties(algorithm, 10, 3));
+    }
+
+    static RateLimiterProperties healthCheckProperties(RateLimiterAlgorithm algorithm, long windowSeconds, long maxRequests) {
+        RateLimiterProperties.ApiLimit apiLimit = new RateLimiterProperties.ApiLimit();
+        apiLimit.setAlgorithm(algorithm);
+        apiLimit.setWindowSeconds(windowSeconds);
+        apiLimit.setMaxRequests(maxRequests);
+        apiLimit.setClientWindowSeconds(10);
+        apiLimit.setClientMaxRequests(2);
+
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.getApis().put(ApiName.HEALTH_CHECK, apiLimit);
+        return properties;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.ratelimiter.service.ratelimiters;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for TokenBucketRateLimiter, HEALTH_CHECK is configured with 3 requests per 10 seconds.
+ */
+class TokenBucketRateLimiterTest {
+
+    private ManualClock clock;
+    private TokenBucketRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock(1_000_000L);
+        rateLimiter = new TokenBucketRateLimiter(TestRateLimitConfigs.healthCheck(RateLimiterAlgorithm.TOKEN_BUCKET), clock);
+    }
+
+    @Test
+    @DisplayName("Should allow a full bucket burst and throttle the rest")
+    void shouldAllowBurstUpToCapacity() {
+        for (int i = 1; i <= 3; i++) {
+            assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK), "Request " + i + " should be allowed");
+        }
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+    }
+
+    @Test
+    @DisplayName("Should refill tokens continuously instead of at window edges")
+    void shouldRefillContinuously() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+        }
+
+        clock.advance(3_000L);
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK), "Less than one token refilled after 3s");
+
+        clock.advance(400L);
+        assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK), "One token refilled after 3.4s");
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+    }
+
+    @Test
+    @DisplayName("Should never refill beyond the bucket capacity")
+    void shouldCapTokensAtCapacity() {
+        clock.advance(60_000L);
+        for (int i = 0; i < 3; i++) {
+            assertFalse(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+        }
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+    }
+
+    @Test
+    @DisplayName("Should report the tokens missing from the bucket as used permits")
+    void shouldReportUsedPermits() {
+        clock.advance(60_000L);
+        assertEquals(0, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+
+        rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+        rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK);
+        assertEquals(2, rateLimiter.usedPermits(ApiName.HEALTH_CHECK));
+
+        clock.advance(3_400L);
+        assertEquals(1, rateLimiter.usedPermits(ApiName.HEALTH_CHECK), "One token refilled after 3.4s");
+    }
+
+    @Test
+    @DisplayName("Should take weighted permits only when enough tokens are left")
+    void shouldTakeWeightedPermits() {
+        clock.advance(10_000L);
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2));
+        assertFalse(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 2), "Partial grants should not happen");
+        assertTrue(rateLimiter.tryAcquire(ApiName.HEALTH_CHECK, 1));
+        assertTrue(rateLimiter.shouldThrottleRequest(ApiName.HEALTH_CHECK));
+    }
+}
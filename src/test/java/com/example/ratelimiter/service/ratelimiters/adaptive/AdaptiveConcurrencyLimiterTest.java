@@ -0,0 +1,133 @@
+package com.example.ratelimiter.service.ratelimiters.adaptive;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for AdaptiveConcurrencyLimiter, HEALTH_CHECK starts at a limit of 10 and adjusts every 10 samples.
+ */
+class AdaptiveConcurrencyLimiterTest {
+    private static final long MILLIS = 1_000_000L;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimiterProperties properties = properties(true);
+        limiter = new AdaptiveConcurrencyLimiter(new RateLimitConfigRegistry(properties), properties);
+    }
+
+    @Nested
+    @DisplayName("Admission Tests")
+    class AdmissionTests {
+
+        @Test
+        @DisplayName("Should reject requests over the limit until one completes")
+        void shouldRejectOverLimit() {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(limiter.tryAcquire(ApiName.HEALTH_CHECK));
+            }
+            assertFalse(limiter.tryAcquire(ApiName.HEALTH_CHECK));
+            assertEquals(10, limiter.inFlight(ApiName.HEALTH_CHECK), "A rejected request should not be counted");
+
+            limiter.release(ApiName.HEALTH_CHECK, 5 * MILLIS, false);
+            assertTrue(limiter.tryAcquire(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should track but never reject requests of an api that does not opt in")
+        void shouldNotEnforceWithoutOptIn() {
+            RateLimiterProperties shadowProperties = properties(false);
+            AdaptiveConcurrencyLimiter shadow = new AdaptiveConcurrencyLimiter(new RateLimitConfigRegistry(shadowProperties), shadowProperties);
+
+            for (int i = 0; i < 50; i++) {
+                assertTrue(shadow.tryAcquire(ApiName.HEALTH_CHECK));
+            }
+            assertEquals(50, shadow.inFlight(ApiName.HEALTH_CHECK));
+        }
+    }
+
+    @Nested
+    @DisplayName("Limit Adjustment Tests")
+    class LimitAdjustmentTests {
+
+        @Test
+        @DisplayName("Should raise the limit by one per window while latency stays flat and the limit is in use")
+        void shouldIncreaseWhileHealthy() {
+            for (int window = 0; window < 5; window++) {
+                runWindow(limiter.currentLimit(ApiName.HEALTH_CHECK), 5 * MILLIS, false);
+            }
+            assertEquals(15, limiter.currentLimit(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should keep the limit while most of it is unused")
+        void shouldNotIncreaseWhenIdle() {
+            for (int window = 0; window < 5; window++) {
+                runWindow(1, 5 * MILLIS, false);
+            }
+            assertEquals(10, limiter.currentLimit(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should back off once latency rises past the tolerance and recover after")
+        void shouldBackOffOnLatency() {
+            runWindow(10, 5 * MILLIS, false);
+            assertEquals(11, limiter.currentLimit(ApiName.HEALTH_CHECK));
+
+            runWindow(10, 20 * MILLIS, false);
+            runWindow(10, 20 * MILLIS, false);
+            assertEquals(8, limiter.currentLimit(ApiName.HEALTH_CHECK), "11 * 0.9 * 0.9 rounds down to 8");
+
+            runWindow(8, 5 * MILLIS, false);
+            assertEquals(9, limiter.currentLimit(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should back off on failed requests and never go below the minimum")
+        void shouldBackOffOnFailures() {
+            for (int window = 0; window < 50; window++) {
+                runWindow(1, 5 * MILLIS, true);
+            }
+            assertEquals(2, limiter.currentLimit(ApiName.HEALTH_CHECK));
+        }
+    }
+
+
+    // completes a window of samples, with up to concurrency requests (capped at the limit) in progress at once
+    private void runWindow(int concurrency, long latencyNanos, boolean failed) {
+        int limit = limiter.currentLimit(ApiName.HEALTH_CHECK);
+        int samples = Math.max(10, limit);
+        int completed = 0;
+        while (completed < samples) {
+            int batch = Math.min(Math.min(concurrency, limit), samples - completed);
+            for (int i = 0; i < batch; i++) {
+                assertTrue(limiter.tryAcquire(ApiName.HEALTH_CHECK));
+            }
+            for (int i = 0; i < batch; i++) {
+                limiter.release(ApiName.HEALTH_CHECK, latencyNanos, failed);
+            }
+            completed += batch;
+        }
+    }
+
+    private static RateLimiterProperties properties(boolean adaptiveConcurrency) {
+        RateLimiterProperties.ApiLimit apiLimit = new RateLimiterProperties.ApiLimit();
+        apiLimit.setWindowSeconds(10);
+        apiLimit.setMaxRequests(3);
+        apiLimit.setAdaptiveConcurrency(adaptiveConcurrency);
+        RateLimiterProperties properties = new RateLimiterProperties();
+        properties.getApis().put(ApiName.HEALTH_CHECK, apiLimit);
+        properties.getAdaptive().setInitialLimit(10);
+        properties.getAdaptive().setMinLimit(2);
+        properties.getAdaptive().setMinWindowSamples(10);
+        return properties;
+    }
+}
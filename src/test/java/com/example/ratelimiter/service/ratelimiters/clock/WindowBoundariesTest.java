@@ -0,0 +1,78 @@
+package com.example.ratelimiter.service.ratelimiters.clock;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowBoundariesTest {
+
+    @Nested
+    @DisplayName("Window Number Tests")
+    class WindowNumberTests {
+
+        @Test
+        @DisplayName("Should match the division for increasing and out of order readings")
+        void shouldMatchDivision() {
+            WindowBoundaries windowBoundaries = new WindowBoundaries(1);
+            long timeMillis = 1_000_000L;
+
+            for (int i = 0; i < 10_000; i++) {
+                timeMillis += ThreadLocalRandom.current().nextLong(-3_000, 5_000);
+                assertEquals(timeMillis / 10_000, windowBoundaries.windowOf(0, timeMillis, 10_000));
+            }
+        }
+
+        @Test
+        @DisplayName("Should keep the first and last millisecond of a window in that window")
+        void shouldHonourWindowBounds() {
+            WindowBoundaries windowBoundaries = new WindowBoundaries(1);
+
+            assertEquals(100, windowBoundaries.windowOf(0, 1_000_000L, 10_000));
+            assertEquals(100, windowBoundaries.windowOf(0, 1_009_999L, 10_000));
+            assertEquals(101, windowBoundaries.windowOf(0, 1_010_000L, 10_000));
+            assertEquals(100, windowBoundaries.windowOf(0, 1_009_999L, 10_000), "A stale reading should map to its own window");
+            assertEquals(101, windowBoundaries.windowOf(0, 1_010_001L, 10_000));
+        }
+
+        @Test
+        @DisplayName("Should recompute the window when the interval changes")
+        void shouldFollowIntervalChange() {
+            WindowBoundaries windowBoundaries = new WindowBoundaries(2);
+
+            assertEquals(100, windowBoundaries.windowOf(0, 1_000_000L, 10_000));
+            assertEquals(1_000, windowBoundaries.windowOf(0, 1_000_000L, 1_000));
+            assertEquals(100, windowBoundaries.windowOf(0, 1_000_000L, 10_000));
+            assertEquals(50, windowBoundaries.windowOf(1, 1_000_000L, 20_000), "Slots should be independent");
+        }
+    }
+
+    @Nested
+    @DisplayName("Cached Clock Tests")
+    class CachedClockTests {
+
+        @Test
+        @DisplayName("Should follow the wall clock and stop ticking once closed")
+        void shouldTickUntilClosed() throws InterruptedException {
+            long startMillis = System.currentTimeMillis();
+            CachedClock clock = new CachedClock(Duration.ofMillis(1));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (clock.currentTimeMillis() < startMillis + 20 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertTrue(clock.currentTimeMillis() >= startMillis + 20, "The cached time should have moved on");
+
+            clock.close();
+            Thread.sleep(20);
+            long closedMillis = clock.currentTimeMillis();
+            Thread.sleep(20);
+            assertEquals(closedMillis, clock.currentTimeMillis(), "A closed clock should not tick any more");
+        }
+    }
+}
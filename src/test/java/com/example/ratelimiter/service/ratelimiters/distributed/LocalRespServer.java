@@ -0,0 +1,140 @@
+package com.example.ratelimiter.service.ratelimiters.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for a Redis protocol server on an ephemeral loopback port, implementing just the commands
+ * the rate limiter backend sends. Commands run one at a time, like on a real server.
+ */
+public class LocalRespServer implements Closeable {
+    private final ServerSocket serverSocket;
+    private final Map<String, long[]> counters = new HashMap<>();
+    private final List<Socket> clients = new CopyOnWriteArrayList<>();
+    private final AtomicInteger acceptedConnections = new AtomicInteger();
+    private volatile long currentTimeMillis = System.currentTimeMillis();
+
+    public LocalRespServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "local-resp-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int acceptedConnections() {
+        return acceptedConnections.get();
+    }
+
+    public synchronized Long counter(String key) {
+        long[] entry = live(key);
+        return entry == null ? null : entry[0];
+    }
+
+    public void setCurrentTimeMillis(long currentTimeMillis) {
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    // drops every open connection, the server keeps accepting new ones
+    public void disconnectClients() throws IOException {
+        for (Socket client : clients) {
+            client.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        disconnectClients();
+    }
+
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                clients.add(client);
+                acceptedConnections.incrementAndGet();
+                Thread handler = new Thread(() -> serve(client), "local-resp-server-client");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        try (client) {
+            InputStream input = new BufferedInputStream(client.getInputStream());
+            OutputStream output = new BufferedOutputStream(client.getOutputStream());
+            while (true) {
+                @SuppressWarnings("unchecked")
+                List<Object> command = (List<Object>) RespClient.readReply(input);
+                output.write(execute(command).getBytes(StandardCharsets.UTF_8));
+                // pipelined commands already buffered are answered in one write
+                if (input.available() == 0) {
+                    output.flush();
+                }
+            }
+        } catch (IOException e) {
+            clients.remove(client);
+        }
+    }
+
+    private synchronized String execute(List<Object> command) {
+        String name = argument(command, 0).toUpperCase();
+        switch (name) {
+            case "PING":
+                return "+PONG\r\n";
+            case "INCRBY": {
+                long[] entry = live(argument(command, 1));
+                if (entry == null) {
+                    entry = new long[]{0, 0};
+                    counters.put(argument(command, 1), entry);
+                }
+                entry[0] += Long.parseLong(argument(command, 2));
+                return ":" + entry[0] + "\r\n";
+            }
+            case "PEXPIREAT": {
+                long[] entry = live(argument(command, 1));
+                if (entry == null) {
+                    return ":0\r\n";
+                }
+                entry[1] = Long.parseLong(argument(command, 2));
+                return ":1\r\n";
+            }
+            default:
+                return "-ERR unknown command '" + name + "'\r\n";
+        }
+    }
+
+    private long[] live(String key) {
+        long[] entry = counters.get(key);
+        if (entry != null && entry[1] > 0 && entry[1] <= currentTimeMillis) {
+            counters.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private static String argument(List<Object> command, int index) {
+        return new String((byte[]) command.get(index), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.ratelimiter.service.ratelimiters.distributed;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for RespClient against the in-process LocalRespServer.
+ */
+class RespClientTest {
+
+    private LocalRespServer server;
+    private RespClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new LocalRespServer();
+        client = new RespClient("127.0.0.1", server.port(), 1_000, 1_000, 1 << 16);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Nested
+    @DisplayName("Protocol Tests")
+    class ProtocolTests {
+
+        @Test
+        @DisplayName("Should decode integer and simple string replies")
+        void shouldDecodeReplies() throws Exception {
+            assertEquals("PONG", client.send("PING").get(1, TimeUnit.SECONDS));
+            assertEquals(5L, client.send("INCRBY", "counter", "5").get(1, TimeUnit.SECONDS));
+            assertEquals(3L, client.send("INCRBY", "counter", "-2").get(1, TimeUnit.SECONDS));
+        }
+
+        @Test
+        @DisplayName("Should fail the command of an error reply and keep the connection usable")
+        void shouldSurfaceErrorReplies() throws Exception {
+            CompletableFuture<Object> unknown = client.send("NOPE");
+
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> unknown.get(1, TimeUnit.SECONDS));
+            assertTrue(failure.getCause().getMessage().startsWith("ERR unknown command"));
+            assertEquals("PONG", client.send("PING").get(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Nested
+    @DisplayName("Pipelining Tests")
+    class PipeliningTests {
+
+        @Test
+        @DisplayName("Should send queued commands in shared batches and answer them in order")
+        void shouldBatchQueuedCommands() throws Exception {
+            client.send("PING").get(1, TimeUnit.SECONDS);
+            long batchesBefore = client.getBatchesSent();
+
+            List<CompletableFuture<Object>> replies = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                replies.add(client.send("INCRBY", "counter", "1"));
+            }
+            for (int i = 0; i < replies.size(); i++) {
+                assertEquals(i + 1L, replies.get(i).get(5, TimeUnit.SECONDS));
+            }
+
+            assertEquals(10_001, client.getCommandsSent());
+            assertTrue(client.getBatchesSent() - batchesBefore < 10_000,
+                    "Queued commands should share network writes");
+        }
+    }
+
+    @Nested
+    @DisplayName("Failure Tests")
+    class FailureTests {
+
+        @Test
+        @DisplayName("Should reconnect after the connection is dropped")
+        void shouldReconnectAfterDisconnect() throws Exception {
+            assertEquals(1L, client.send("INCRBY", "counter", "1").get(1, TimeUnit.SECONDS));
+
+            server.disconnectClients();
+
+            // the first commands may still go out on the dead connection before the loss is noticed, they may
+            // even be applied with their reply lost, so only an idempotent command is retried here
+            long deadline = System.currentTimeMillis() + 5_000;
+            Object reply = null;
+            while (reply == null && System.currentTimeMillis() < deadline) {
+                try {
+                    reply = client.send("PING").get(1, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    Thread.sleep(10);
+                }
+            }
+            assertEquals("PONG", reply);
+        }
+
+        @Test
+        @DisplayName("Should fail commands without a reply within the read timeout and reconnect")
+        void shouldFailCommandsOfSilentServer() throws Exception {
+            try (ServerSocket silent = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+                AtomicInteger accepted = new AtomicInteger();
+                List<Socket> connections = new CopyOnWriteArrayList<>();
+                Thread acceptor = new Thread(() -> {
+                    try {
+                        while (true) {
+                            connections.add(silent.accept());
+                            accepted.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        // closed
+                    }
+                });
+                acceptor.setDaemon(true);
+                acceptor.start();
+
+                try (RespClient stalled = new RespClient("127.0.0.1", silent.getLocalPort(), 200, 100, 16)) {
+                    ExecutionException failure = assertThrows(ExecutionException.class,
+                            () -> stalled.send("PING").get(2, TimeUnit.SECONDS));
+                    assertInstanceOf(SocketTimeoutException.class, failure.getCause());
+
+                    assertThrows(ExecutionException.class, () -> stalled.send("PING").get(2, TimeUnit.SECONDS));
+                    assertEquals(2, accepted.get(), "The timed out connection should be replaced");
+                } finally {
+                    for (Socket connection : connections) {
+                        connection.close();
+                    }
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Should keep an idle connection open past the read timeout")
+        void shouldKeepIdleConnection() throws Exception {
+            try (RespClient idle = new RespClient("127.0.0.1", server.port(), 1_000, 50, 16)) {
+                assertEquals(1L, idle.send("INCRBY", "counter", "1").get(1, TimeUnit.SECONDS));
+                Thread.sleep(300);
+                assertEquals(2L, idle.send("INCRBY", "counter", "1").get(1, TimeUnit.SECONDS));
+                assertEquals(1, server.acceptedConnections(), "Both commands should go out on one connection");
+            }
+        }
+
+        @Test
+        @DisplayName("Should fail commands when the server is unreachable")
+        void shouldFailWhenUnreachable() throws Exception {
+            int port = server.port();
+            server.close();
+            try (RespClient unreachable = new RespClient("127.0.0.1", port, 200, 200, 16)) {
+                assertThrows(ExecutionException.class, () -> unreachable.send("PING").get(2, TimeUnit.SECONDS));
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.ratelimiter.service.ratelimiters.events;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryDecisionEventSinkTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should read back every event written, across appending sinks")
+    void shouldRoundTripEvents() throws Exception {
+        Path file = directory.resolve("decisions.bin");
+        try (BinaryDecisionEventSink sink = new BinaryDecisionEventSink(file)) {
+            sink.write(1L, ApiName.HEALTH_CHECK, "10.0.0.7", 1, true);
+        }
+        try (BinaryDecisionEventSink sink = new BinaryDecisionEventSink(file)) {
+            sink.write(2L, ApiName.HEALTH_CHECK, null, 5, false);
+            sink.write(3L, ApiName.HEALTH_CHECK, "x".repeat(5_000), 1, true);
+        }
+
+        StringWriter output = new StringWriter();
+        NdjsonDecisionEventSink ndjson = new NdjsonDecisionEventSink(output);
+        assertEquals(3, BinaryDecisionEventSink.replay(file, ndjson));
+        ndjson.flush();
+
+        String[] lines = output.toString().split("\n");
+        assertEquals("{\"timestamp\":1,\"api\":\"HEALTH_CHECK\",\"client_key\":\"10.0.0.7\",\"permits\":1,\"throttled\":true}", lines[0]);
+        assertEquals("{\"timestamp\":2,\"api\":\"HEALTH_CHECK\",\"permits\":5,\"throttled\":false}", lines[1]);
+        assertTrue(lines[2].contains("\"" + "x".repeat(BinaryDecisionEventSink.MAX_CLIENT_KEY_CHARS) + "\""),
+                "Long client keys should be cut");
+        assertTrue(Files.size(file) < output.toString().length());
+    }
+
+    @Test
+    @DisplayName("Should skip a record cut short at the end of the file")
+    void shouldSkipTruncatedRecord() throws Exception {
+        Path file = directory.resolve("decisions.bin");
+        try (BinaryDecisionEventSink sink = new BinaryDecisionEventSink(file)) {
+            sink.write(1L, ApiName.HEALTH_CHECK, "first-client", 1, true);
+            sink.write(2L, ApiName.HEALTH_CHECK, "second-client", 1, true);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 4);
+        }
+
+        assertEquals(1, BinaryDecisionEventSink.replay(file, (timestampMillis, apiName, clientKey, permits, throttled) ->
+                assertEquals("first-client", clientKey)));
+    }
+
+    @Test
+    @DisplayName("Should drop a record cut short at the end of the file before appending")
+    void shouldTruncateTornTailOnOpen() throws Exception {
+        Path file = directory.resolve("decisions.bin");
+        try (BinaryDecisionEventSink sink = new BinaryDecisionEventSink(file)) {
+            sink.write(1L, ApiName.HEALTH_CHECK, "first-client", 1, true);
+            sink.write(2L, ApiName.HEALTH_CHECK, "second-client", 1, true);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 4);
+        }
+
+        try (BinaryDecisionEventSink sink = new BinaryDecisionEventSink(file)) {
+            sink.write(3L, ApiName.HEALTH_CHECK, "third-client", 5, false);
+        }
+
+        StringWriter output = new StringWriter();
+        NdjsonDecisionEventSink ndjson = new NdjsonDecisionEventSink(output);
+        assertEquals(2, BinaryDecisionEventSink.replay(file, ndjson), "The torn record is gone, the new one readable");
+        ndjson.flush();
+        String[] lines = output.toString().split("\n");
+        assertTrue(lines[0].contains("\"first-client\""));
+        assertEquals("{\"timestamp\":3,\"api\":\"HEALTH_CHECK\",\"client_key\":\"third-client\",\"permits\":5,\"throttled\":false}", lines[1]);
+    }
+
+    @Test
+    @DisplayName("Should refuse to append to a file that is not a decision event file")
+    void shouldRefuseForeignFile() throws Exception {
+        Path file = directory.resolve("decisions.bin");
+        Files.writeString(file, "not decision events at all");
+
+        assertThrows(IOException.class, () -> new BinaryDecisionEventSink(file));
+        assertEquals("not decision events at all", Files.readString(file), "The file should be left untouched");
+    }
+}
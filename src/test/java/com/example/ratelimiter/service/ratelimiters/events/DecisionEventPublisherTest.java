@@ -0,0 +1,76 @@
+package com.example.ratelimiter.service.ratelimiters.events;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionEventPublisherTest {
+
+    private final ManualClock clock = new ManualClock(1_000_000L);
+
+    @Test
+    @DisplayName("Should only publish throttled decisions unless told otherwise")
+    void shouldFilterAllowedDecisions() {
+        List<String> written = new ArrayList<>();
+        DecisionEventPublisher throttledOnly = new DecisionEventPublisher(16, true, recorder(written), clock);
+        DecisionEventPublisher all = new DecisionEventPublisher(16, false, recorder(written), clock);
+
+        throttledOnly.publish(ApiName.HEALTH_CHECK, "first-client", 1, false);
+        throttledOnly.publish(ApiName.HEALTH_CHECK, "first-client", 1, true);
+        all.publish(ApiName.HEALTH_CHECK, "second-client", 1, false);
+
+        assertEquals(1, throttledOnly.drain());
+        assertEquals(1, all.drain());
+        assertEquals(List.of("1000000 first-client true", "1000000 second-client false"), written);
+        assertEquals(2, throttledOnly.getWritten() + all.getWritten());
+    }
+
+    @Test
+    @DisplayName("Should count a failing sink instead of throwing, and keep draining afterwards")
+    void shouldSurviveFailingSink() {
+        boolean[] failing = {true};
+        List<String> written = new ArrayList<>();
+        DecisionEventPublisher publisher = new DecisionEventPublisher(16, true,
+                (timestampMillis, apiName, clientKey, permits, throttled) -> {
+                    if (failing[0]) {
+                        throw new IOException("disk full");
+                    }
+                    written.add(clientKey.toString());
+                }, clock);
+
+        publisher.publish(ApiName.HEALTH_CHECK, "lost-client", 1, true);
+        publisher.drain();
+        failing[0] = false;
+        publisher.publish(ApiName.HEALTH_CHECK, "kept-client", 1, true);
+        publisher.drain();
+
+        assertEquals(1, publisher.getSinkFailures());
+        assertEquals(List.of("kept-client"), written);
+        assertEquals(0, publisher.backlog());
+    }
+
+    @Test
+    @DisplayName("Should publish nothing while disabled")
+    void shouldIgnoreDecisionsWhileDisabled() {
+        DecisionEventPublisher publisher = DecisionEventPublisher.disabled();
+
+        publisher.publish(ApiName.HEALTH_CHECK, "first-client", 1, true);
+
+        assertFalse(publisher.isEnabled());
+        assertEquals(0, publisher.getPublished());
+        assertEquals(0, publisher.drain());
+    }
+
+
+    private static DecisionEventSink recorder(List<String> written) {
+        return (timestampMillis, apiName, clientKey, permits, throttled) ->
+                written.add(timestampMillis + " " + clientKey + " " + throttled);
+    }
+}
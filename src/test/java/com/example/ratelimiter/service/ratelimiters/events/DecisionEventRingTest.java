@@ -0,0 +1,108 @@
+package com.example.ratelimiter.service.ratelimiters.events;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionEventRingTest {
+
+    @Nested
+    @DisplayName("Publishing Tests")
+    class PublishingTests {
+
+        @Test
+        @DisplayName("Should hand events to the sink in publishing order")
+        void shouldDrainInOrder() throws Exception {
+            DecisionEventRing ring = new DecisionEventRing(8);
+            List<String> events = new ArrayList<>();
+
+            ring.offer(1L, ApiName.HEALTH_CHECK.ordinal(), "first-client", 1, true);
+            ring.offer(2L, ApiName.HEALTH_CHECK.ordinal(), null, 3, false);
+
+            assertEquals(2, ring.drain(recorder(events), 10));
+            assertEquals(List.of("1 HEALTH_CHECK first-client 1 true", "2 HEALTH_CHECK null 3 false"), events);
+            assertEquals(0, ring.drain(recorder(events), 10));
+            assertEquals(0, ring.backlog());
+        }
+
+        @Test
+        @DisplayName("Should drop and count events while the ring is full, and take new ones once drained")
+        void shouldDropOnOverflow() throws Exception {
+            DecisionEventRing ring = new DecisionEventRing(5);
+            assertEquals(8, ring.capacity());
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i < 8, ring.offer(i, 0, null, 1, true));
+            }
+            assertEquals(2, ring.getDropped());
+            assertEquals(8, ring.backlog());
+
+            List<String> events = new ArrayList<>();
+            assertEquals(3, ring.drain(recorder(events), 3));
+            assertTrue(ring.offer(10, 0, null, 1, true), "Drained slots should be reused");
+            assertEquals(6, ring.drain(recorder(events), 100));
+            assertEquals("10 HEALTH_CHECK null 1 true", events.get(events.size() - 1));
+            assertEquals(9, ring.getPublished());
+        }
+    }
+
+    @Nested
+    @DisplayName("Thread Safety and Concurrency Tests")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("Should deliver every event exactly once with concurrent producers and a draining consumer")
+        void shouldNotLoseOrDuplicateEvents() throws Exception {
+            DecisionEventRing ring = new DecisionEventRing(1 << 10);
+            int numberOfThreads = 8;
+            int eventsPerThread = 20_000;
+            int[] seen = new int[numberOfThreads * eventsPerThread];
+            DecisionEventSink sink = (timestampMillis, apiName, clientKey, permits, throttled) -> seen[(int) timestampMillis]++;
+
+            CountDownLatch completionLatch = new CountDownLatch(numberOfThreads);
+            ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+            for (int i = 0; i < numberOfThreads; i++) {
+                int thread = i;
+                executor.submit(() -> {
+                    for (int j = 0; j < eventsPerThread; j++) {
+                        // a full ring is waited out here, the hot path never does
+                        while (!ring.offer((long) thread * eventsPerThread + j, 0, null, 1, true)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                    completionLatch.countDown();
+                });
+            }
+
+            long drained = 0;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (drained < seen.length) {
+                assertTrue(System.nanoTime() < deadline, "Events were not all drained in time");
+                drained += ring.drain(sink, 256);
+            }
+            assertTrue(completionLatch.await(5, TimeUnit.SECONDS));
+            executor.shutdown();
+
+            for (int i = 0; i < seen.length; i++) {
+                assertEquals(1, seen[i], "Event " + i + " should be drained exactly once");
+            }
+            assertEquals(seen.length, ring.getPublished());
+        }
+    }
+
+
+    private static DecisionEventSink recorder(List<String> events) {
+        return (timestampMillis, apiName, clientKey, permits, throttled) ->
+                events.add(timestampMillis + " " + apiName + " " + clientKey + " " + permits + " " + throttled);
+    }
+}
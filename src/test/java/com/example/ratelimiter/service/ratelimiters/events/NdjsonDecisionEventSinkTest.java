@@ -0,0 +1,45 @@
+package com.example.ratelimiter.service.ratelimiters.events;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonDecisionEventSinkTest {
+
+    @Test
+    @DisplayName("Should write one JSON object per line")
+    void shouldWriteOneObjectPerLine() throws Exception {
+        StringWriter output = new StringWriter();
+        try (NdjsonDecisionEventSink sink = new NdjsonDecisionEventSink(output)) {
+            sink.write(1_700_000_000_000L, ApiName.HEALTH_CHECK, "10.0.0.7", 1, true);
+            sink.write(1_700_000_000_001L, ApiName.HEALTH_CHECK, null, 2, false);
+        }
+
+        assertEquals("""
+                {"timestamp":1700000000000,"api":"HEALTH_CHECK","client_key":"10.0.0.7","permits":1,"throttled":true}
+                {"timestamp":1700000000001,"api":"HEALTH_CHECK","permits":2,"throttled":false}
+                """, output.toString());
+    }
+
+    @Test
+    @DisplayName("Should escape client keys so a crafted header can not break the line")
+    void shouldEscapeClientKeys() throws Exception {
+        StringWriter output = new StringWriter();
+        String clientKey = "evil\"},\n{\"api\":\"x\\\u0001😀é";
+        try (NdjsonDecisionEventSink sink = new NdjsonDecisionEventSink(output)) {
+            sink.write(1L, ApiName.HEALTH_CHECK, clientKey, 1, true);
+        }
+
+        String[] lines = output.toString().split("\n");
+        assertEquals(1, lines.length);
+        JsonNode event = new ObjectMapper().readTree(lines[0]);
+        assertEquals(clientKey, event.get("client_key").asText());
+        assertEquals("HEALTH_CHECK", event.get("api").asText());
+    }
+}
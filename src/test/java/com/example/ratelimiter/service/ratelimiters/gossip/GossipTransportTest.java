@@ -0,0 +1,131 @@
+package com.example.ratelimiter.service.ratelimiters.gossip;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for GossipTransport, two members talking over loopback.
+ */
+class GossipTransportTest {
+
+    private GossipTransport first;
+    private GossipTransport second;
+    private BlockingQueue<long[]> received;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        DatagramChannel firstChannel = DatagramChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        DatagramChannel secondChannel = DatagramChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        List<InetSocketAddress> members = List.of((InetSocketAddress) firstChannel.getLocalAddress(),
+                (InetSocketAddress) secondChannel.getLocalAddress());
+        first = new GossipTransport(firstChannel, 0, members);
+        second = new GossipTransport(secondChannel, 1, members);
+        received = new LinkedBlockingQueue<>();
+        second.start((node, apiOrdinal, windowIntervalMillis, window, count) ->
+                received.add(new long[] {node, apiOrdinal, windowIntervalMillis, window, count}));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        first.close();
+        second.close();
+    }
+
+    @Test
+    @DisplayName("Should deliver every entry of a round to the other member")
+    void shouldDeliverEntries() throws InterruptedException {
+        // more entries than fit one datagram
+        int entryCount = 120;
+        long[] entries = new long[entryCount * 4];
+        for (int entry = 0; entry < entryCount; entry++) {
+            entries[entry * 4 + 1] = 10_000L;
+            entries[entry * 4 + 2] = entry;
+            entries[entry * 4 + 3] = entry * 7L;
+        }
+
+        first.broadcast(entries, entryCount);
+
+        for (int entry = 0; entry < entryCount; entry++) {
+            long[] entryReceived = received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(entryReceived, "Entry " + entry + " did not arrive");
+            assertArrayEquals(new long[] {0, 0, 10_000L, entryReceived[3], entryReceived[3] * 7}, entryReceived);
+        }
+        assertEquals(3, first.getDatagramsSent());
+    }
+
+    @Test
+    @DisplayName("Should drop datagrams that are not gossip of the same build")
+    void shouldDropForeignDatagrams() throws Exception {
+        try (DatagramChannel stranger = DatagramChannel.open()) {
+            stranger.send(ByteBuffer.wrap(new byte[] {1, 2, 3}), memberAddress(second));
+            ByteBuffer foreignLayout = ByteBuffer.allocate(18).putInt(0x524C4750).putShort((short) 1).putShort((short) 0)
+                    .putLong(42L).putShort((short) 0);
+            stranger.send(foreignLayout.flip(), memberAddress(second));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (second.getDatagramsDropped() < 2) {
+            assertTrue(System.nanoTime() < deadline, "Foreign datagrams were not dropped in time");
+            Thread.sleep(1);
+        }
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should drop datagrams that name a member but come from another address")
+    void shouldDropSpoofedMember() throws Exception {
+        try (DatagramChannel stranger = DatagramChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            // a well formed datagram of member 0, with the layout fingerprint taken from a real one
+            ByteBuffer genuine = ByteBuffer.allocate(64);
+            try (DatagramChannel listener = DatagramChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+                GossipTransport sender = new GossipTransport(DatagramChannel.open()
+                        .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)), 0,
+                        List.of(new InetSocketAddress(InetAddress.getLoopbackAddress(), 1),
+                                (InetSocketAddress) listener.getLocalAddress()));
+                sender.broadcast(new long[] {0, 10_000L, 1L, Long.MAX_VALUE}, 1);
+                sender.close();
+                listener.receive(genuine);
+            }
+            stranger.send(genuine.flip(), memberAddress(second));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (second.getDatagramsDropped() < 1) {
+            assertTrue(System.nanoTime() < deadline, "Spoofed datagram was not dropped in time");
+            Thread.sleep(1);
+        }
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should listen on the configured member address, not on every interface")
+    void shouldBindMemberAddress() throws IOException {
+        // TEST-NET-1, never assigned to a local interface
+        List<InetSocketAddress> members = List.of(new InetSocketAddress("192.0.2.1", 0),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        assertThrows(IOException.class, () -> GossipTransport.bind(0, members).close());
+
+        try (GossipTransport transport = GossipTransport.bind(1, members)) {
+            assertTrue(transport.localPort() > 0);
+        }
+    }
+
+
+    private static InetSocketAddress memberAddress(GossipTransport transport) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), transport.localPort());
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.ratelimiter.service.ratelimiters.priority;
+
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RequestPriority;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for PriorityWaitQueue, permits are handed out by the test through a shared counter.
+ */
+class PriorityWaitQueueTest {
+
+    private AtomicInteger availablePermits;
+    private PriorityWaitQueue waitQueue;
+
+    @BeforeEach
+    void setUp() {
+        availablePermits = new AtomicInteger();
+        waitQueue = new PriorityWaitQueue(2, Duration.ofSeconds(5), Duration.ofMillis(1));
+    }
+
+    @Nested
+    @DisplayName("Admission Tests")
+    class AdmissionTests {
+
+        @Test
+        @DisplayName("Should admit a waiter as soon as a permit becomes available")
+        void shouldAdmitOncePermitAvailable() throws Exception {
+            CompletableFuture<Boolean> waiter = startWaiter(RequestPriority.NORMAL, null);
+            awaitWaiting(1);
+
+            availablePermits.set(1);
+            assertTrue(waiter.get(5, TimeUnit.SECONDS));
+            assertEquals(0, waitQueue.waiting(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should give up once the maximum wait has passed")
+        void shouldTimeOut() {
+            PriorityWaitQueue shortWait = new PriorityWaitQueue(2, Duration.ofMillis(20), Duration.ofMillis(1));
+            long startNanos = System.nanoTime();
+
+            assertFalse(shortWait.await(ApiName.HEALTH_CHECK, RequestPriority.NORMAL, this::takePermit));
+            assertTrue(System.nanoTime() - startNanos >= Duration.ofMillis(20).toNanos());
+            assertEquals(0, shortWait.waiting(ApiName.HEALTH_CHECK));
+        }
+
+        @Test
+        @DisplayName("Should turn requests away at once while the queue is full or disabled")
+        void shouldRejectWhenFull() throws Exception {
+            CompletableFuture<Boolean> first = startWaiter(RequestPriority.NORMAL, null);
+            CompletableFuture<Boolean> second = startWaiter(RequestPriority.NORMAL, null);
+            awaitWaiting(2);
+
+            assertFalse(waitQueue.await(ApiName.HEALTH_CHECK, RequestPriority.CRITICAL, this::takePermit));
+            assertFalse(PriorityWaitQueue.disabled().await(ApiName.HEALTH_CHECK, RequestPriority.CRITICAL, () -> true));
+
+            availablePermits.set(2);
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            assertTrue(second.get(5, TimeUnit.SECONDS));
+        }
+
+        @Test
+        @DisplayName("Should not hold the queue while asking for a permit")
+        void shouldAskOutsideQueueLock() throws Exception {
+            CountDownLatch asking = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Thread thread = new Thread(() -> waitQueue.await(ApiName.HEALTH_CHECK, RequestPriority.NORMAL, () -> {
+                asking.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }));
+            thread.setDaemon(true);
+            thread.start();
+            assertTrue(asking.await(5, TimeUnit.SECONDS));
+
+            try {
+                assertEquals(1, CompletableFuture.supplyAsync(() -> waitQueue.waiting(ApiName.HEALTH_CHECK))
+                        .get(1, TimeUnit.SECONDS), "The queue should stay usable during a slow attempt");
+                assertTrue(waitQueue.hasWaiters(ApiName.HEALTH_CHECK));
+            } finally {
+                release.countDown();
+            }
+            thread.join(5_000);
+            assertFalse(waitQueue.hasWaiters(ApiName.HEALTH_CHECK));
+        }
+
+        private boolean takePermit() {
+            return availablePermits.getAndUpdate(permits -> Math.max(0, permits - 1)) > 0;
+        }
+    }
+
+    @Nested
+    @DisplayName("Ordering Tests")
+    class OrderingTests {
+
+        @Test
+        @DisplayName("Should serve a higher priority first even when it arrived last")
+        void shouldServeHigherPriorityFirst() throws Exception {
+            List<RequestPriority> admitted = new CopyOnWriteArrayList<>();
+            CompletableFuture<Boolean> low = startWaiter(RequestPriority.LOW, admitted);
+            awaitWaiting(1);
+            CompletableFuture<Boolean> critical = startWaiter(RequestPriority.CRITICAL, admitted);
+            awaitWaiting(2);
+
+            availablePermits.set(1);
+            assertTrue(critical.get(5, TimeUnit.SECONDS));
+            availablePermits.set(1);
+            assertTrue(low.get(5, TimeUnit.SECONDS));
+            assertEquals(List.of(RequestPriority.CRITICAL, RequestPriority.LOW), admitted);
+        }
+    }
+
+
+    private CompletableFuture<Boolean> startWaiter(RequestPriority priority, List<RequestPriority> admitted) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> result.complete(waitQueue.await(ApiName.HEALTH_CHECK, priority, () -> {
+            if (availablePermits.getAndUpdate(permits -> Math.max(0, permits - 1)) == 0) {
+                return false;
+            }
+            if (admitted != null) {
+                admitted.add(priority);
+            }
+            return true;
+        })));
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+
+    private void awaitWaiting(int waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (waitQueue.waiting(ApiName.HEALTH_CHECK) < waiters) {
+            assertTrue(System.nanoTime() < deadline, "Waiters did not enqueue in time");
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.ratelimiter.service.ratelimiters.snapshot;
+
+import com.example.ratelimiter.configurations.ratelimiter.RateLimitConfigRegistry;
+import com.example.ratelimiter.configurations.ratelimiter.RateLimiterProperties;
+import com.example.ratelimiter.domain.enums.ApiName;
+import com.example.ratelimiter.domain.enums.RateLimiterAlgorithm;
+import com.example.ratelimiter.service.ratelimiters.AtomicFixWindowCounterRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.PerClientFixWindowRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.RateLimiter;
+import com.example.ratelimiter.service.ratelimiters.SlidingWindowCounterRateLimiter;
+import com.example.ratelimiter.service.ratelimiters.clock.ManualClock;
+import com.example.ratelimiter.service.ratelimiters.store.BoundedCounterStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for CounterSnapshotter, HEALTH_CHECK allows 3 requests per 10 seconds and 2 per client.
+ * Every test writes a snapshot with one set of limiters and restores it into a fresh set, as after a restart.
+ */
+class CounterSnapshotterTest {
+
+    @TempDir
+    Path directory;
+
+    private ManualClock clock;
+    private Path snapshotFile;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock(1_000_000L);
+        snapshotFile = directory.resolve("counters.snapshot");
+    }
+
+    @Nested
+    @DisplayName("Restore Tests")
+    class RestoreTests {
+
+        @Test
+        @DisplayName("Should restore api and client counters of the current window")
+        void shouldRestoreCurrentWindow() {
+            Node before = new Node(RateLimiterAlgorithm.FIXED_WINDOW);
+            assertTrue(before.engine.tryAcquire(ApiName.HEALTH_CHECK, 2));
+            assertFalse(before.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "first-client", 2));
+            assertFalse(before.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "second-client"));
+            before.snapshotter.snapshot();
+
+            Node after = new Node(RateLimiterAlgorithm.FIXED_WINDOW);
+            assertEquals(3, after.snapshotter.restore(), "One api and two client counters should be restored");
+
+            assertTrue(after.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "first-client"));
+            assertFalse(after.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "second-client"));
+            assertTrue(after.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "second-client"));
+            assertTrue(after.engine.tryAcquire(ApiName.HEALTH_CHECK, 1));
+            assertFalse(after.engine.tryAcquire(ApiName.HEALTH_CHECK, 1), "Only one permit was left before the restart");
+        }
+
+        @Test
+        @DisplayName("Should restore counters of an api limited by handler defaults once started")
+        void shouldRestoreDefaultLimitsOnStart() {
+            Node before = new Node(RateLimiterAlgorithm.FIXED_WINDOW);
+            assertTrue(before.engine.tryAcquire(ApiName.HEALTH_CHECK, 3));
+            before.snapshotter.snapshot();
+
+            // no properties, the limit comes from a @RateLimited handler registered after the beans were created
+            RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(new RateLimiterProperties());
+            RateLimiter engine = new AtomicFixWindowCounterRateLimiter(configRegistry, clock);
+            ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+            taskScheduler.initialize();
+            CounterSnapshotter snapshotter = new CounterSnapshotter(List.of(engine), null, configRegistry,
+                    snapshotFile, taskScheduler, Duration.ofHours(1), clock);
+            RateLimiterProperties.ApiLimit defaultLimit = new RateLimiterProperties.ApiLimit();
+            defaultLimit.setWindowSeconds(10);
+            defaultLimit.setMaxRequests(3);
+            configRegistry.registerDefaultLimits(Map.of(ApiName.HEALTH_CHECK, defaultLimit));
+
+            try {
+                snapshotter.start();
+                assertTrue(snapshotter.isRunning());
+                assertFalse(engine.tryAcquire(ApiName.HEALTH_CHECK, 1), "The window was used up before the restart");
+                snapshotter.stop();
+                assertFalse(snapshotter.isRunning());
+            } finally {
+                taskScheduler.shutdown();
+            }
+        }
+
+        @Test
+        @DisplayName("Should drop counters of windows that ended while the service was down")
+        void shouldDropExpiredWindows() {
+            Node before = new Node(RateLimiterAlgorithm.FIXED_WINDOW);
+            before.engine.tryAcquire(ApiName.HEALTH_CHECK, 3);
+            before.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "first-client", 2);
+            before.snapshotter.snapshot();
+
+            clock.advance(10_000L);
+            Node after = new Node(RateLimiterAlgorithm.FIXED_WINDOW);
+            assertEquals(0, after.snapshotter.restore());
+
+            assertFalse(after.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "first-client"));
+            assertTrue(after.engine.tryAcquire(ApiName.HEALTH_CHECK, 3));
+        }
+
+        @Test
+        @DisplayName("Should carry the previous window into the sliding window counter")
+        void shouldRestorePreviousSlidingWindow() {
+            Node before = new Node(RateLimiterAlgorithm.SLIDING_WINDOW_COUNTER);
+            assertTrue(before.engine.tryAcquire(ApiName.HEALTH_CHECK, 3));
+            before.snapshotter.snapshot();
+
+            clock.advance(10_000L);
+            Node after = new Node(RateLimiterAlgorithm.SLIDING_WINDOW_COUNTER);
+            after.snapshotter.restore();
+
+            assertFalse(after.engine.tryAcquire(ApiName.HEALTH_CHECK, 1),
+                    "The previous window still covers the whole sliding window");
+            clock.advance(5_000L);
+            assertTrue(after.engine.tryAcquire(ApiName.HEALTH_CHECK, 1));
+        }
+
+        @Test
+        @DisplayName("Should replace the previous snapshot on every write")
+        void shouldReplacePreviousSnapshot() {
+            Node before = new Node(RateLimiterAlgorithm.FIXED_WINDOW);
+            before.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "first-client");
+            before.snapshotter.snapshot();
+            before.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "first-client");
+            before.snapshotter.snapshot();
+
+            Node after = new Node(RateLimiterAlgorithm.FIXED_WINDOW);
+            after.snapshotter.restore();
+            assertTrue(after.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "first-client"));
+            assertFalse(Files.exists(directory.resolve("counters.snapshot.tmp")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Corrupt Snapshot Tests")
+    class CorruptSnapshotTests {
+
+        @Test
+        @DisplayName("Should ignore a snapshot whose checksum does not match")
+        void shouldIgnoreCorruptSnapshot() throws IOException {
+            Node before = new Node(RateLimiterAlgorithm.FIXED_WINDOW);
+            before.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "first-client", 2);
+            before.snapshotter.snapshot();
+
+            byte[] bytes = Files.readAllBytes(snapshotFile);
+            bytes[bytes.length - 1] ^= 1;
+            Files.write(snapshotFile, bytes);
+
+            Node after = new Node(RateLimiterAlgorithm.FIXED_WINDOW);
+            assertEquals(0, after.snapshotter.restore());
+            assertFalse(after.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "first-client"));
+        }
+
+        @Test
+        @DisplayName("Should ignore a truncated snapshot and a missing one")
+        void shouldIgnoreTruncatedSnapshot() throws IOException {
+            Node node = new Node(RateLimiterAlgorithm.FIXED_WINDOW);
+            assertEquals(0, node.snapshotter.restore(), "A missing snapshot should mean empty counters");
+
+            node.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "first-client");
+            node.snapshotter.snapshot();
+            byte[] bytes = Files.readAllBytes(snapshotFile);
+            Files.write(snapshotFile, Arrays.copyOf(bytes, bytes.length - 8));
+
+            assertEquals(0, new Node(RateLimiterAlgorithm.FIXED_WINDOW).snapshotter.restore());
+        }
+    }
+
+    @Nested
+    @DisplayName("Snapshot Size Tests")
+    class SnapshotSizeTests {
+
+        @Test
+        @DisplayName("Should write every client counter of a store filled past its initial mapping headroom")
+        void shouldWriteEveryClientCounter() throws IOException {
+            Node before = new Node(RateLimiterAlgorithm.FIXED_WINDOW);
+            for (int i = 0; i < 500; i++) {
+                assertFalse(before.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "client-" + i));
+            }
+            before.snapshotter.snapshot();
+            long smallSnapshot = Files.size(snapshotFile);
+            for (int i = 500; i < 900; i++) {
+                before.perClient.shouldThrottleRequest(ApiName.HEALTH_CHECK, "client-" + i);
+            }
+            before.snapshotter.snapshot();
+            assertEquals(smallSnapshot + 400 * 16, Files.size(snapshotFile));
+
+            Node after = new Node(RateLimiterAlgorithm.FIXED_WINDOW);
+            assertEquals(900, after.snapshotter.restore());
+        }
+
+        @Test
+        @DisplayName("Should reject a client store too large to snapshot")
+        void shouldRejectOversizedClientStore() {
+            RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(new RateLimiterProperties());
+            RateLimiter engine = new AtomicFixWindowCounterRateLimiter(configRegistry, clock);
+            BoundedCounterStore clientCounterStore = new BoundedCounterStore(1_000, 4) {
+                @Override
+                public long maxEntries() {
+                    return 1L << 27;
+                }
+            };
+
+            assertThrows(IllegalArgumentException.class, () -> new CounterSnapshotter(List.of(engine),
+                    clientCounterStore, configRegistry, snapshotFile, null, Duration.ofSeconds(1), clock));
+        }
+    }
+
+
+    // the limiters of one service instance, all sharing the test clock and snapshot file
+    private class Node {
+        private final RateLimiter engine;
+        private final PerClientFixWindowRateLimiter perClient;
+        private final CounterSnapshotter snapshotter;
+
+        private Node(RateLimiterAlgorithm algorithm) {
+            RateLimiterProperties.ApiLimit apiLimit = new RateLimiterProperties.ApiLimit();
+            apiLimit.setAlgorithm(algorithm);
+            apiLimit.setWindowSeconds(10);
+            apiLimit.setMaxRequests(3);
+            apiLimit.setClientWindowSeconds(10);
+            apiLimit.setClientMaxRequests(2);
+            RateLimiterProperties properties = new RateLimiterProperties();
+            properties.getApis().put(ApiName.HEALTH_CHECK, apiLimit);
+            properties.getClientStore().setMaxEntries(1_000);
+            properties.getClientStore().setConcurrencyLevel(4);
+            RateLimitConfigRegistry configRegistry = new RateLimitConfigRegistry(properties);
+
+            engine = algorithm == RateLimiterAlgorithm.FIXED_WINDOW
+                    ? new AtomicFixWindowCounterRateLimiter(configRegistry, clock)
+                    : new SlidingWindowCounterRateLimiter(configRegistry, clock);
+            perClient = new PerClientFixWindowRateLimiter(configRegistry, properties, clock);
+            snapshotter = new CounterSnapshotter(List.of(engine), perClient.getCounterStore(), configRegistry,
+                    snapshotFile, null, Duration.ofSeconds(1), clock);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.ratelimiter.service.ratelimiters.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockedUntilCacheTest {
+
+    @Test
+    @DisplayName("Should report a blocked key until its deadline and no other key")
+    void shouldBlockUntilDeadline() {
+        BlockedUntilCache cache = new BlockedUntilCache(64);
+
+        cache.block(1L, 10_000L);
+
+        assertEquals(10_000L, cache.blockedUntil(1L, 9_999L));
+        assertEquals(0, cache.blockedUntil(1L, 10_000L), "The key should be served again at its deadline");
+        assertEquals(0, cache.blockedUntil(2L, 9_999L));
+    }
+
+    @Test
+    @DisplayName("Should let a newly blocked key take over the slot of another")
+    void shouldReplaceKeyOfSameSlot() {
+        BlockedUntilCache cache = new BlockedUntilCache(1);
+
+        cache.block(1L, 10_000L);
+        cache.block(2L, 20_000L);
+
+        assertEquals(0, cache.blockedUntil(1L, 0L), "The replaced key should be decided by its counter again");
+        assertEquals(20_000L, cache.blockedUntil(2L, 0L));
+    }
+
+    @Test
+    @DisplayName("Should forget every key on clear")
+    void shouldClear() {
+        BlockedUntilCache cache = new BlockedUntilCache(100);
+        for (long key = 1; key <= 100; key++) {
+            cache.block(key, 10_000L);
+        }
+
+        cache.clear();
+
+        assertEquals(128, cache.capacity());
+        for (long key = 1; key <= 100; key++) {
+            assertEquals(0, cache.blockedUntil(key, 0L));
+        }
+    }
+}
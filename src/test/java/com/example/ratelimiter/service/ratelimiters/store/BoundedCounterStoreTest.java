@@ -0,0 +1,187 @@
+package com.example.ratelimiter.service.ratelimiters.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCounterStoreTest {
+
+    @Nested
+    @DisplayName("Counting Tests")
+    class CountingTests {
+
+        @Test
+        @DisplayName("Should count per key and stop at the limit")
+        void shouldCountPerKeyUpToLimit() {
+            BoundedCounterStore store = new BoundedCounterStore(1_000, 4);
+
+            for (int i = 0; i < 3; i++) {
+                assertTrue(store.tryAcquire(1L, 7L, 3, 1));
+                assertTrue(store.tryAcquire(2L, 7L, 3, 1));
+            }
+            assertFalse(store.tryAcquire(1L, 7L, 3, 1));
+            assertEquals(3, store.currentCount(1L, 7L), "Rejected permits should not be counted");
+            assertEquals(2, store.size());
+        }
+
+        @Test
+        @DisplayName("Should start over when the key is seen in a new window")
+        void shouldResetOnNewWindow() {
+            BoundedCounterStore store = new BoundedCounterStore(1_000, 4);
+            for (int i = 0; i < 3; i++) {
+                store.tryAcquire(1L, 7L, 3, 1);
+            }
+
+            assertTrue(store.tryAcquire(1L, 8L, 3, 1));
+            assertEquals(1, store.currentCount(1L, 8L));
+            assertFalse(store.tryAcquire(1L, 7L, 3, 3), "Stale window reading should count against the latest window");
+        }
+
+        @Test
+        @DisplayName("Should take back released permits of the same window only")
+        void shouldReleasePermitsOfSameWindow() {
+            BoundedCounterStore store = new BoundedCounterStore(1_000, 4);
+            assertTrue(store.tryAcquire(1L, 7L, 3, 3));
+
+            store.release(1L, 7L, 2);
+            assertEquals(1, store.currentCount(1L, 7L));
+            store.release(1L, 7L, 5);
+            assertEquals(0, store.currentCount(1L, 7L), "A count should not drop below zero");
+
+            assertTrue(store.tryAcquire(1L, 8L, 3, 2));
+            store.release(1L, 7L, 2);
+            assertEquals(2, store.currentCount(1L, 8L), "Permits of an ended window should stay spent");
+            store.release(2L, 8L, 1);
+            assertEquals(1, store.size(), "Releasing an unknown key should not store it");
+        }
+
+        @Test
+        @DisplayName("Should reject huge permit counts without corrupting the counter")
+        void shouldRejectHugePermits() {
+            BoundedCounterStore store = new BoundedCounterStore(1_000, 4);
+            assertTrue(store.tryAcquire(1L, 7L, 3, 1));
+
+            assertFalse(store.tryAcquire(1L, 7L, 3, Integer.MAX_VALUE));
+            assertFalse(store.tryAcquire(1L, 7L, 3, Long.MAX_VALUE));
+            assertFalse(store.tryAcquire(2L, 7L, 3, Long.MAX_VALUE), "A new key should not take a huge count either");
+
+            assertEquals(1, store.currentCount(1L, 7L));
+            assertTrue(store.tryAcquire(1L, 7L, 3, 2));
+        }
+    }
+
+    @Nested
+    @DisplayName("Bulk Acquisition Tests")
+    class BulkAcquisitionTests {
+
+        @Test
+        @DisplayName("Should decide a batch like one tryAcquire per key in batch order")
+        void shouldMatchSingleAcquisitions() {
+            BoundedCounterStore bulkStore = new BoundedCounterStore(1_000, 8);
+            BoundedCounterStore singleStore = new BoundedCounterStore(1_000, 8);
+            long[] keys = new long[200];
+            long[] permits = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                // every key shows up several times with different weights
+                keys[i] = 1 + i % 37;
+                permits[i] = 1 + i % 3;
+            }
+
+            boolean[] acquired = new boolean[keys.length];
+            bulkStore.tryAcquireAll(keys, permits, 7L, 10, acquired);
+
+            for (int i = 0; i < keys.length; i++) {
+                assertEquals(singleStore.tryAcquire(keys[i], 7L, 10, permits[i]), acquired[i], "Key " + i);
+            }
+            for (long key = 1; key <= 37; key++) {
+                assertEquals(singleStore.currentCount(key, 7L), bulkStore.currentCount(key, 7L));
+            }
+        }
+
+        @Test
+        @DisplayName("Should take one permit per key without weights")
+        void shouldDefaultToOnePermit() {
+            BoundedCounterStore store = new BoundedCounterStore(1_000, 1);
+            boolean[] acquired = new boolean[3];
+
+            store.tryAcquireAll(new long[] {5L, 5L, 5L}, null, 7L, 2, acquired);
+
+            assertArrayEquals(new boolean[] {true, true, false}, acquired);
+            assertEquals(2, store.currentCount(5L, 7L));
+        }
+    }
+
+    @Nested
+    @DisplayName("Eviction Tests")
+    class EvictionTests {
+
+        @Test
+        @DisplayName("Should stay bounded and evict idle keys")
+        void shouldStayBounded() {
+            BoundedCounterStore store = new BoundedCounterStore(1_024, 8);
+            long footprint = store.memoryFootprintBytes();
+
+            for (long key = 1; key <= 100_000; key++) {
+                assertTrue(store.tryAcquire(key, 1L, 10, 1));
+            }
+
+            assertTrue(store.size() <= store.maxEntries(), "Size should never exceed max entries");
+            assertEquals(100_000 - store.size(), store.evictionCount());
+            assertEquals(footprint, store.memoryFootprintBytes(), "Tables should never grow");
+        }
+
+        @Test
+        @DisplayName("Should keep recently used keys over idle ones")
+        void shouldKeepRecentlyUsedKeys() {
+            BoundedCounterStore store = new BoundedCounterStore(64, 1);
+            long hotKey = 42L;
+
+            for (long key = 1_000; key < 10_000; key++) {
+                store.tryAcquire(hotKey, 1L, Long.MAX_VALUE >>> 33, 1);
+                store.tryAcquire(key, 1L, 10, 1);
+            }
+
+            assertTrue(store.currentCount(hotKey, 1L) > 0, "Hot key should survive the sweeps");
+            assertEquals(1, store.currentCount(9_999L, 1L), "Latest key should still be found after evictions");
+            assertEquals(0, store.currentCount(1_000L, 1L), "Oldest idle key should have been evicted");
+        }
+    }
+
+    @Nested
+    @DisplayName("Thread Safety and Concurrency Tests")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("Should not lose counts under contention")
+        void shouldNotLoseCounts() throws InterruptedException {
+            BoundedCounterStore store = new BoundedCounterStore(10_000, 16);
+            int numberOfThreads = 8;
+            CountDownLatch completionLatch = new CountDownLatch(numberOfThreads);
+            AtomicInteger admitted = new AtomicInteger();
+
+            ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+            for (int i = 0; i < numberOfThreads; i++) {
+                executor.submit(() -> {
+                    for (int j = 0; j < 1_000; j++) {
+                        if (store.tryAcquire(1L + (j % 10), 1L, 100, 1)) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                    completionLatch.countDown();
+                });
+            }
+
+            assertTrue(completionLatch.await(5, TimeUnit.SECONDS));
+            executor.shutdown();
+            assertEquals(1_000, admitted.get(), "Each of the 10 keys should admit exactly its limit of 100");
+        }
+    }
+}
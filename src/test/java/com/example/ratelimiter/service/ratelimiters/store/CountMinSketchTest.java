@@ -0,0 +1,106 @@
+package com.example.ratelimiter.service.ratelimiters.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for CountMinSketch, clients are told apart by their FNV hash like in the per client limiter.
+ */
+class CountMinSketchTest {
+    private static final long WINDOW = 100;
+    private static final long NO_LIMIT = Long.MAX_VALUE / 2;
+
+    @Nested
+    @DisplayName("Estimate Tests")
+    class EstimateTests {
+
+        @Test
+        @DisplayName("Should never underestimate and stay within the error bound for most clients")
+        void shouldStayWithinErrorBound() {
+            CountMinSketch sketch = new CountMinSketch(1 << 10, 4, 0);
+            SplittableRandom random = new SplittableRandom(42);
+            long[] trueCounts = new long[20_000];
+            for (int i = 0; i < 200_000; i++) {
+                // a few heavy clients among many light ones
+                int client = random.nextInt(10) == 0 ? random.nextInt(10) : random.nextInt(trueCounts.length);
+                assertTrue(sketch.tryAcquire(ClientKeys.hash("client-" + client), "client-" + client, WINDOW, NO_LIMIT, 1));
+                trueCounts[client]++;
+            }
+
+            long errorBound = sketch.errorBound(WINDOW);
+            assertEquals((long) Math.ceil(Math.E / 1024 * 200_000), errorBound);
+            int exceeded = 0;
+            for (int client = 0; client < trueCounts.length; client++) {
+                long estimate = sketch.estimate(ClientKeys.hash("client-" + client), WINDOW);
+                assertTrue(estimate >= trueCounts[client], "An estimate must never fall below the true count");
+                if (estimate - trueCounts[client] > errorBound) {
+                    exceeded++;
+                }
+            }
+            assertTrue(exceeded <= trueCounts.length * sketch.delta(), exceeded + " clients exceeded the error bound");
+        }
+
+        @Test
+        @DisplayName("Should throttle a client at its limit and start over in a new window")
+        void shouldThrottleAtLimit() {
+            CountMinSketch sketch = new CountMinSketch(64, 2, 4);
+            long client = ClientKeys.hash("client");
+
+            assertTrue(sketch.tryAcquire(client, "client", WINDOW, 3, 2));
+            assertFalse(sketch.tryAcquire(client, "client", WINDOW, 3, 2), "Permits are all or nothing");
+            assertTrue(sketch.tryAcquire(client, "client", WINDOW, 3, 1));
+            assertFalse(sketch.tryAcquire(client, "client", WINDOW, 3, 1));
+
+            assertTrue(sketch.tryAcquire(client, "client", WINDOW + 1, 3, 3));
+            assertEquals(0, sketch.estimate(client, WINDOW + 2));
+        }
+    }
+
+    @Nested
+    @DisplayName("Heavy Hitter Tests")
+    class HeavyHitterTests {
+
+        @Test
+        @DisplayName("Should report the heaviest clients, highest first")
+        void shouldReportHeaviestClients() {
+            CountMinSketch sketch = new CountMinSketch(1 << 12, 4, 3);
+            for (int client = 0; client < 1_000; client++) {
+                int requests = client < 3 ? 100 * (client + 1) : 1 + client % 5;
+                for (int i = 0; i < requests; i++) {
+                    sketch.tryAcquire(ClientKeys.hash("client-" + client), "client-" + client, WINDOW, NO_LIMIT, 1);
+                }
+            }
+
+            HeavyHitters.HeavyHitter[] heavyHitters = sketch.heavyHitters(WINDOW);
+            assertEquals(3, heavyHitters.length);
+            assertEquals("client-2", heavyHitters[0].clientKey());
+            assertArrayEquals(new String[] {"client-2", "client-1", "client-0"},
+                    Arrays.stream(heavyHitters).map(HeavyHitters.HeavyHitter::clientKey).toArray());
+            assertTrue(heavyHitters[0].estimatedCount() >= 300);
+        }
+
+        @Test
+        @DisplayName("Should track a client that arrives late but exceeds the tracked ones")
+        void shouldReplaceLighterClients() {
+            CountMinSketch sketch = new CountMinSketch(1 << 12, 4, 2);
+            for (String client : new String[] {"early-1", "early-2"}) {
+                for (int i = 0; i < 5; i++) {
+                    sketch.tryAcquire(ClientKeys.hash(client), client, WINDOW, NO_LIMIT, 1);
+                }
+            }
+            for (int i = 0; i < 50; i++) {
+                sketch.tryAcquire(ClientKeys.hash("scraper"), "scraper", WINDOW, 10, 1);
+            }
+
+            HeavyHitters.HeavyHitter[] heavyHitters = sketch.heavyHitters(WINDOW);
+            assertEquals("scraper", heavyHitters[0].clientKey(), "A throttled offender should be reported");
+            assertEquals(10, heavyHitters[0].estimatedCount());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.ratelimiter.service.ratelimiters.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCounterStoreTest {
+
+    @Nested
+    @DisplayName("Counting Tests")
+    class CountingTests {
+
+        @Test
+        @DisplayName("Should count per key and stop at the limit")
+        void shouldCountPerKeyUpToLimit() {
+            OffHeapCounterStore store = new OffHeapCounterStore(1_000, 4);
+
+            for (int i = 0; i < 3; i++) {
+                assertTrue(store.tryAcquire(1L, 7L, 3, 1));
+                assertTrue(store.tryAcquire(2L, 7L, 3, 1));
+            }
+            assertFalse(store.tryAcquire(1L, 7L, 3, 1));
+            assertEquals(3, store.currentCount(1L, 7L), "Rejected permits should not be counted");
+            assertEquals(2, store.size());
+        }
+
+        @Test
+        @DisplayName("Should start over when the key is seen in a new window")
+        void shouldResetOnNewWindow() {
+            OffHeapCounterStore store = new OffHeapCounterStore(1_000, 4);
+            for (int i = 0; i < 3; i++) {
+                store.tryAcquire(1L, 7L, 3, 1);
+            }
+
+            assertTrue(store.tryAcquire(1L, 8L, 3, 1));
+            assertEquals(1, store.currentCount(1L, 8L));
+            assertFalse(store.tryAcquire(1L, 7L, 3, 3), "Stale window reading should count against the latest window");
+        }
+
+        @Test
+        @DisplayName("Should take back released permits of the same window only")
+        void shouldReleasePermitsOfSameWindow() {
+            OffHeapCounterStore store = new OffHeapCounterStore(1_000, 4);
+            assertTrue(store.tryAcquire(1L, 7L, 3, 3));
+
+            store.release(1L, 7L, 2);
+            assertEquals(1, store.currentCount(1L, 7L));
+            store.release(1L, 7L, 5);
+            assertEquals(0, store.currentCount(1L, 7L), "A count should not drop below zero");
+
+            assertTrue(store.tryAcquire(1L, 8L, 3, 2));
+            store.release(1L, 7L, 2);
+            assertEquals(2, store.currentCount(1L, 8L), "Permits of an ended window should stay spent");
+            store.release(2L, 8L, 1);
+            assertEquals(1, store.size(), "Releasing an unknown key should not store it");
+        }
+
+        @Test
+        @DisplayName("Should reject huge permit counts without corrupting the counter")
+        void shouldRejectHugePermits() {
+            OffHeapCounterStore store = new OffHeapCounterStore(1_000, 4);
+            assertTrue(store.tryAcquire(1L, 7L, 3, 1));
+
+            assertFalse(store.tryAcquire(1L, 7L, 3, Integer.MAX_VALUE));
+            assertFalse(store.tryAcquire(1L, 7L, 3, Long.MAX_VALUE));
+            assertFalse(store.tryAcquire(2L, 7L, 3, Long.MAX_VALUE), "A new key should not take a huge count either");
+
+            assertEquals(1, store.currentCount(1L, 7L));
+            assertTrue(store.tryAcquire(1L, 7L, 3, 2));
+        }
+
+        @Test
+        @DisplayName("Should decide a batch like the bounded store does")
+        void shouldMatchBoundedStoreBatch() {
+            OffHeapCounterStore offHeapStore = new OffHeapCounterStore(1_000, 8);
+            BoundedCounterStore boundedStore = new BoundedCounterStore(1_000, 8);
+            long[] keys = new long[200];
+            long[] permits = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = 1 + i % 37;
+                permits[i] = 1 + i % 3;
+            }
+
+            boolean[] offHeapAcquired = new boolean[keys.length];
+            boolean[] boundedAcquired = new boolean[keys.length];
+            offHeapStore.tryAcquireAll(keys, permits, 7L, 10, offHeapAcquired);
+            boundedStore.tryAcquireAll(keys, permits, 7L, 10, boundedAcquired);
+
+            assertArrayEquals(boundedAcquired, offHeapAcquired);
+        }
+    }
+
+    @Nested
+    @DisplayName("Eviction Tests")
+    class EvictionTests {
+
+        @Test
+        @DisplayName("Should stay bounded in a fixed off heap table")
+        void shouldStayBounded() {
+            OffHeapCounterStore store = new OffHeapCounterStore(1_024, 8);
+            long footprint = store.memoryFootprintBytes();
+
+            for (long key = 1; key <= 100_000; key++) {
+                assertTrue(store.tryAcquire(key, 1L, 10, 1));
+            }
+
+            assertEquals(store.maxEntries(), store.size(), "A table this overfull should have every slot in use");
+            assertEquals(100_000 - store.size(), store.evictionCount());
+            assertEquals(footprint, store.memoryFootprintBytes(), "The table should never grow");
+            assertEquals(1_024 * 16, footprint);
+        }
+
+        @Test
+        @DisplayName("Should keep recently used keys over idle ones")
+        void shouldKeepRecentlyUsedKeys() {
+            OffHeapCounterStore store = new OffHeapCounterStore(64, 1);
+            long hotKey = 42L;
+
+            for (long key = 1_000; key < 10_000; key++) {
+                store.tryAcquire(hotKey, 1L, 1 << 20, 1);
+                store.tryAcquire(key, 1L, 10, 1);
+            }
+
+            assertTrue(store.currentCount(hotKey, 1L) > 0, "Hot key should survive the sweeps");
+            assertEquals(1, store.currentCount(9_999L, 1L), "Latest key should still be found after evictions");
+        }
+    }
+
+    @Nested
+    @DisplayName("Snapshot Tests")
+    class SnapshotTests {
+
+        @Test
+        @DisplayName("Should hand out every counter and restore it into another store")
+        void shouldRoundTripCounters() {
+            OffHeapCounterStore before = new OffHeapCounterStore(1_000, 4);
+            for (long key = 1; key <= 100; key++) {
+                before.tryAcquire(key, 7L, 1_000, key);
+            }
+
+            Map<Long, Long> counts = new HashMap<>();
+            before.forEach((key, window, count) -> {
+                assertEquals(7L, window);
+                counts.put(key, count);
+            });
+            assertEquals(100, counts.size());
+
+            OffHeapCounterStore after = new OffHeapCounterStore(1_000, 4);
+            after.tryAcquire(5L, 7L, 1_000, 50);
+            counts.forEach((key, count) -> after.restore(key, 7L, count));
+            assertEquals(42, after.currentCount(42L, 7L));
+            assertEquals(50, after.currentCount(5L, 7L), "A higher live count should be kept");
+            assertEquals(100, after.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Thread Safety and Concurrency Tests")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("Should not lose counts under contention while keys are evicted")
+        void shouldNotLoseCounts() throws InterruptedException {
+            // 8 slots, the 10 contended keys and the churning ones keep taking slots from each other
+            OffHeapCounterStore store = new OffHeapCounterStore(8, 1);
+            OffHeapCounterStore roomyStore = new OffHeapCounterStore(10_000, 16);
+            int numberOfThreads = 8;
+            CountDownLatch completionLatch = new CountDownLatch(numberOfThreads);
+            AtomicInteger admitted = new AtomicInteger();
+            AtomicInteger overAdmitted = new AtomicInteger();
+
+            ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+            for (int i = 0; i < numberOfThreads; i++) {
+                int thread = i;
+                executor.submit(() -> {
+                    for (int j = 0; j < 1_000; j++) {
+                        if (roomyStore.tryAcquire(1L + (j % 10), 1L, 100, 1)) {
+                            admitted.incrementAndGet();
+                        }
+                        store.tryAcquire(1_000L + thread * 1_000 + j, 1L, 1, 1);
+                        if (store.currentCount(1_000L + thread * 1_000 + j, 1L) > 1) {
+                            overAdmitted.incrementAndGet();
+                        }
+                    }
+                    completionLatch.countDown();
+                });
+            }
+
+            assertTrue(completionLatch.await(5, TimeUnit.SECONDS));
+            executor.shutdown();
+            assertEquals(1_000, admitted.get(), "Each of the 10 keys should admit exactly its limit of 100");
+            assertEquals(0, overAdmitted.get(), "A key should never inherit the count of the key it evicted");
+            assertTrue(store.size() <= store.maxEntries());
+        }
+    }
+}